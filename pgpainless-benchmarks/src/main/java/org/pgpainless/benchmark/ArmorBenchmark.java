@@ -0,0 +1,97 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.bcpg.ArmoredInputStream;
+import org.bouncycastle.bcpg.ArmoredOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pgpainless.util.ArmorUtils;
+import org.pgpainless.util.ArmoredInputStreamFactory;
+import org.pgpainless.util.ArmoredOutputStreamFactory;
+import org.pgpainless.util.CRCingArmoredInputStreamWrapper;
+
+/**
+ * Benchmark of ASCII armor encoding and decoding.
+ * Decoding using {@link ArmoredInputStreamFactory} is compared to BC's {@link ArmoredInputStream}
+ * (wrapped in a {@link CRCingArmoredInputStreamWrapper}, as done before) and to reading the binary data.
+ * Encoding using {@link ArmoredOutputStreamFactory} is compared to BC's {@link ArmoredOutputStream}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ArmorBenchmark {
+
+    @Param({"1024", "1048576"})
+    public int messageSize;
+
+    private byte[] binary;
+    private byte[] armored;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        ByteArrayOutputStream binaryOut = new ByteArrayOutputStream(messageSize);
+        Payload.write(binaryOut, messageSize);
+        binary = binaryOut.toByteArray();
+
+        ByteArrayOutputStream armoredOut = new ByteArrayOutputStream(messageSize / 3 * 4 + 1024);
+        ArmoredOutputStream armor = ArmoredOutputStreamFactory.get(armoredOut);
+        armor.write(binary);
+        armor.close();
+        armored = armoredOut.toByteArray();
+    }
+
+    @Benchmark
+    public long binary() throws Exception {
+        return Payload.drain(new ByteArrayInputStream(binary));
+    }
+
+    @Benchmark
+    public long armor() throws Exception {
+        Payload.CountingOutputStream out = new Payload.CountingOutputStream();
+        ArmoredOutputStream armor = ArmoredOutputStreamFactory.get(out);
+        armor.write(binary);
+        armor.close();
+        return out.getCount();
+    }
+
+    @Benchmark
+    public long armorBouncyCastle() throws Exception {
+        Payload.CountingOutputStream out = new Payload.CountingOutputStream();
+        ArmoredOutputStream armor = new ArmoredOutputStream(out);
+        armor.setHeader(ArmorUtils.HEADER_VERSION, ArmoredOutputStreamFactory.PGPAINLESS);
+        armor.write(binary);
+        armor.close();
+        return out.getCount();
+    }
+
+    @Benchmark
+    public long dearmor() throws Exception {
+        return Payload.drain(ArmoredInputStreamFactory.get(new ByteArrayInputStream(armored)));
+    }
+
+    @Benchmark
+    public long dearmorBouncyCastle() throws Exception {
+        ArmoredInputStream armorIn = new ArmoredInputStream(new ByteArrayInputStream(armored));
+        return Payload.drain(new CRCingArmoredInputStreamWrapper(armorIn));
+    }
+}
@@ -0,0 +1,82 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.benchmark;
+
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.KeyFlag;
+import org.pgpainless.key.generation.KeySpec;
+import org.pgpainless.key.generation.type.KeyType;
+import org.pgpainless.key.generation.type.ecc.EllipticCurve;
+import org.pgpainless.key.generation.type.rsa.RsaLength;
+
+/**
+ * Key types the benchmarks are parameterized over.
+ * Keys are generated lazily and cached for the lifetime of the forked benchmark JVM,
+ * so that key generation does not show up in the measurements.
+ */
+public enum BenchmarkKeyType {
+
+    RSA_2048,
+    RSA_4096,
+    CURVE25519,
+    NIST_P256,
+    NIST_P384,
+    NIST_P521,
+    ;
+
+    private static final String USER_ID = "Benchmark <benchmark@pgpainless.org>";
+    private static final Map<BenchmarkKeyType, PGPSecretKeyRing> KEYS = new EnumMap<>(BenchmarkKeyType.class);
+
+    /**
+     * Return the (cached) secret key of this type.
+     *
+     * @return secret key
+     */
+    public synchronized PGPSecretKeyRing getSecretKey()
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        PGPSecretKeyRing secretKeys = KEYS.get(this);
+        if (secretKeys == null) {
+            secretKeys = generate();
+            KEYS.put(this, secretKeys);
+        }
+        return secretKeys;
+    }
+
+    private PGPSecretKeyRing generate()
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        switch (this) {
+            case RSA_2048:
+                return PGPainless.generateKeyRing().simpleRsaKeyRing(USER_ID, RsaLength._2048);
+            case RSA_4096:
+                return PGPainless.generateKeyRing().simpleRsaKeyRing(USER_ID, RsaLength._4096);
+            case CURVE25519:
+                return PGPainless.generateKeyRing().simpleEcKeyRing(USER_ID);
+            case NIST_P256:
+                return nistKeyRing(EllipticCurve._P256);
+            case NIST_P384:
+                return nistKeyRing(EllipticCurve._P384);
+            case NIST_P521:
+                return nistKeyRing(EllipticCurve._P521);
+            default:
+                throw new AssertionError("Unknown key type " + this);
+        }
+    }
+
+    private static PGPSecretKeyRing nistKeyRing(EllipticCurve curve)
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        return PGPainless.buildKeyRing()
+                .setPrimaryKey(KeySpec.getBuilder(KeyType.ECDSA(curve), KeyFlag.CERTIFY_OTHER, KeyFlag.SIGN_DATA))
+                .addSubkey(KeySpec.getBuilder(KeyType.ECDH(curve), KeyFlag.ENCRYPT_COMMS, KeyFlag.ENCRYPT_STORAGE))
+                .addUserId(USER_ID)
+                .build();
+    }
+}
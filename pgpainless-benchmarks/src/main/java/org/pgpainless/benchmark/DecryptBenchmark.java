@@ -0,0 +1,104 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.CompressionAlgorithm;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.encryption_signing.EncryptionOptions;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+
+/**
+ * Benchmark of {@link DecryptionStream} for public key encrypted messages.
+ * The ciphertext is prepared once per trial and read from a temporary file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DecryptBenchmark {
+
+    @Param({"1024", "1048576"})
+    public long messageSize;
+
+    @Param({"RSA_2048", "CURVE25519"})
+    public BenchmarkKeyType keyType;
+
+    @Param({"true", "false"})
+    public boolean armor;
+
+    @Param({"UNCOMPRESSED", "ZLIB"})
+    public CompressionAlgorithm compression;
+
+    @Param({"512", "65536"})
+    public int bufferSize;
+
+    private PGPSecretKeyRing secretKeys;
+    private File ciphertext;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        secretKeys = keyType.getSecretKey();
+        ciphertext = Payload.tempFile("decrypt");
+
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(ciphertext));
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(out)
+                .withOptions(ProducerOptions.encrypt(
+                        new EncryptionOptions().addRecipient(PGPainless.extractCertificate(secretKeys)))
+                        .setAsciiArmor(armor)
+                        .overrideCompressionAlgorithm(compression)
+                        .setBufferSize(bufferSize));
+        Payload.write(encryptionStream, messageSize);
+        encryptionStream.close();
+        out.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ciphertext.delete();
+    }
+
+    @Benchmark
+    public long decrypt() throws Exception {
+        InputStream in = new BufferedInputStream(new FileInputStream(ciphertext));
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(in)
+                .withOptions(new ConsumerOptions()
+                        .addDecryptionKey(secretKeys)
+                        .setBufferSize(bufferSize));
+        long read = Payload.drain(decryptionStream);
+        decryptionStream.close();
+        in.close();
+        return read;
+    }
+}
@@ -0,0 +1,78 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.CompressionAlgorithm;
+import org.pgpainless.encryption_signing.EncryptionOptions;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+
+/**
+ * Benchmark of {@link EncryptionStream} for public key encryption.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EncryptBenchmark {
+
+    @Param({"1024", "1048576"})
+    public long messageSize;
+
+    @Param({"RSA_2048", "CURVE25519"})
+    public BenchmarkKeyType keyType;
+
+    @Param({"true", "false"})
+    public boolean armor;
+
+    @Param({"UNCOMPRESSED", "ZLIB"})
+    public CompressionAlgorithm compression;
+
+    @Param({"false", "true"})
+    public boolean pipelined;
+
+    @Param({"512", "65536"})
+    public int bufferSize;
+
+    private PGPPublicKeyRing certificate;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        certificate = PGPainless.extractCertificate(keyType.getSecretKey());
+    }
+
+    @Benchmark
+    public long encrypt() throws Exception {
+        Payload.CountingOutputStream out = new Payload.CountingOutputStream();
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(out)
+                .withOptions(ProducerOptions.encrypt(new EncryptionOptions().addRecipient(certificate))
+                        .setAsciiArmor(armor)
+                        .overrideCompressionAlgorithm(compression)
+                        .setPipelined(pipelined)
+                        .setBufferSize(bufferSize));
+        Payload.write(encryptionStream, messageSize);
+        encryptionStream.close();
+        return out.getCount();
+    }
+}
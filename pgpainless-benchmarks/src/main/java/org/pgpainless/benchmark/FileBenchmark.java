@@ -0,0 +1,150 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.util.io.Streams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.CompressionAlgorithm;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.encryption_signing.EncryptionOptions;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+
+/**
+ * Comparison of file-to-file encryption and decryption using buffered streams with the
+ * {@link java.nio.channels.FileChannel} based file API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FileBenchmark {
+
+    @Param({"1048576"})
+    public long messageSize;
+
+    @Param({"true", "false"})
+    public boolean armor;
+
+    @Param({"65536", "1048576"})
+    public int bufferSize;
+
+    private PGPSecretKeyRing secretKeys;
+    private PGPPublicKeyRing certificate;
+    private File plaintext;
+    private File ciphertext;
+    private File output;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        secretKeys = BenchmarkKeyType.CURVE25519.getSecretKey();
+        certificate = PGPainless.extractCertificate(secretKeys);
+        plaintext = Payload.tempFile("file-plain");
+        ciphertext = Payload.tempFile("file-cipher");
+        output = Payload.tempFile("file-out");
+
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(plaintext));
+        Payload.write(out, messageSize);
+        out.close();
+
+        PGPainless.encryptAndOrSign()
+                .onFile(plaintext)
+                .toFile(ciphertext)
+                .withOptions(producerOptions());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        plaintext.delete();
+        ciphertext.delete();
+        output.delete();
+    }
+
+    private ProducerOptions producerOptions() throws Exception {
+        return ProducerOptions.encrypt(new EncryptionOptions().addRecipient(certificate))
+                .setAsciiArmor(armor)
+                .overrideCompressionAlgorithm(CompressionAlgorithm.UNCOMPRESSED)
+                .setBufferSize(bufferSize);
+    }
+
+    private ConsumerOptions consumerOptions() {
+        return new ConsumerOptions()
+                .addDecryptionKey(secretKeys)
+                .setBufferSize(bufferSize);
+    }
+
+    @Benchmark
+    public long encryptStream() throws Exception {
+        InputStream in = new BufferedInputStream(new FileInputStream(plaintext), bufferSize);
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(output), bufferSize);
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(out)
+                .withOptions(producerOptions());
+        Streams.pipeAll(in, encryptionStream);
+        encryptionStream.close();
+        out.close();
+        in.close();
+        return output.length();
+    }
+
+    @Benchmark
+    public long encryptFile() throws Exception {
+        PGPainless.encryptAndOrSign()
+                .onFile(plaintext)
+                .toFile(output)
+                .withOptions(producerOptions());
+        return output.length();
+    }
+
+    @Benchmark
+    public long decryptStream() throws Exception {
+        InputStream in = new BufferedInputStream(new FileInputStream(ciphertext), bufferSize);
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(output), bufferSize);
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(in)
+                .withOptions(consumerOptions());
+        Streams.pipeAll(decryptionStream, out);
+        decryptionStream.close();
+        out.close();
+        in.close();
+        return output.length();
+    }
+
+    @Benchmark
+    public long decryptFile() throws Exception {
+        PGPainless.decryptAndOrVerify()
+                .onFile(ciphertext)
+                .toFile(output)
+                .withOptions(consumerOptions());
+        return output.length();
+    }
+}
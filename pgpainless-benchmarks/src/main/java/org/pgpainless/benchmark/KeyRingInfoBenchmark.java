@@ -0,0 +1,57 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pgpainless.algorithm.EncryptionPurpose;
+import org.pgpainless.key.info.KeyRingInfo;
+
+/**
+ * Benchmark of the evaluation of a key ring using {@link KeyRingInfo}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class KeyRingInfoBenchmark {
+
+    @Param({"RSA_2048", "RSA_4096", "CURVE25519", "NIST_P256", "NIST_P384", "NIST_P521"})
+    public BenchmarkKeyType keyType;
+
+    private PGPSecretKeyRing secretKeys;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        secretKeys = keyType.getSecretKey();
+    }
+
+    @Benchmark
+    public KeyRingInfo evaluate() {
+        return new KeyRingInfo(secretKeys);
+    }
+
+    @Benchmark
+    public List<PGPPublicKey> encryptionSubkeys() {
+        return new KeyRingInfo(secretKeys).getEncryptionSubkeys(EncryptionPurpose.ANY);
+    }
+}
@@ -0,0 +1,71 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.CompressionAlgorithm;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.encryption_signing.SigningOptions;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+
+/**
+ * Benchmark of {@link EncryptionStream} for signing with multiple keys, with and without parallel hashing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MultiSignBenchmark {
+
+    private static final BenchmarkKeyType[] SIGNERS = new BenchmarkKeyType[] {
+            BenchmarkKeyType.CURVE25519, BenchmarkKeyType.NIST_P256,
+            BenchmarkKeyType.NIST_P384, BenchmarkKeyType.RSA_2048
+    };
+
+    @Param({"1048576"})
+    public long messageSize;
+
+    @Param({"1", "2", "4"})
+    public int signerCount;
+
+    @Param({"false", "true"})
+    public boolean parallelHashing;
+
+    @Benchmark
+    public long sign() throws Exception {
+        SigningOptions signingOptions = new SigningOptions();
+        for (int i = 0; i < signerCount; i++) {
+            signingOptions.addInlineSignature(SecretKeyRingProtector.unprotectedKeys(), SIGNERS[i].getSecretKey(),
+                    DocumentSignatureType.BINARY_DOCUMENT);
+        }
+
+        Payload.CountingOutputStream out = new Payload.CountingOutputStream();
+        EncryptionStream signingStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(out)
+                .withOptions(ProducerOptions.sign(signingOptions)
+                        .setAsciiArmor(false)
+                        .overrideCompressionAlgorithm(CompressionAlgorithm.UNCOMPRESSED)
+                        .setParallelHashing(parallelHashing));
+        Payload.write(signingStream, messageSize);
+        signingStream.close();
+        return out.getCount();
+    }
+}
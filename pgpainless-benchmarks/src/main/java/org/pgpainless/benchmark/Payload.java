@@ -0,0 +1,102 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import javax.annotation.Nonnull;
+
+/**
+ * Utility methods to produce and consume benchmark payloads without holding them in memory.
+ */
+public final class Payload {
+
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final byte[] CHUNK = new byte[CHUNK_SIZE];
+
+    static {
+        // Deterministic, text-like data, so that compression has something to work with
+        Random random = new Random(0x5047504C);
+        byte[] alphabet = "abcdefghijklmnopqrstuvwxyz     \n".getBytes();
+        for (int i = 0; i < CHUNK.length; i++) {
+            CHUNK[i] = alphabet[random.nextInt(alphabet.length)];
+        }
+    }
+
+    private Payload() {
+
+    }
+
+    /**
+     * Write size bytes of payload to the given output stream.
+     *
+     * @param outputStream output stream
+     * @param size number of bytes to write
+     * @throws IOException in case of an IO error
+     */
+    public static void write(OutputStream outputStream, long size) throws IOException {
+        long remaining = size;
+        while (remaining > 0) {
+            int len = (int) Math.min(remaining, CHUNK_SIZE);
+            outputStream.write(CHUNK, 0, len);
+            remaining -= len;
+        }
+    }
+
+    /**
+     * Read the given input stream until it is exhausted.
+     *
+     * @param inputStream input stream
+     * @return number of bytes read
+     * @throws IOException in case of an IO error
+     */
+    public static long drain(InputStream inputStream) throws IOException {
+        byte[] buffer = new byte[CHUNK_SIZE];
+        long total = 0;
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            total += read;
+        }
+        return total;
+    }
+
+    /**
+     * Create a temporary file which is deleted when the JVM exits.
+     *
+     * @param prefix file name prefix
+     * @return temporary file
+     * @throws IOException in case of an IO error
+     */
+    public static File tempFile(String prefix) throws IOException {
+        File file = File.createTempFile(prefix, ".pgp");
+        file.deleteOnExit();
+        return file;
+    }
+
+    /**
+     * {@link OutputStream} which discards all data and only counts the number of bytes written.
+     */
+    public static final class CountingOutputStream extends OutputStream {
+
+        private long count = 0;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(@Nonnull byte[] b, int off, int len) {
+            count += len;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
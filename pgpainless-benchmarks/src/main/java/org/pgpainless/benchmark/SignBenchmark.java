@@ -0,0 +1,85 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.CompressionAlgorithm;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.encryption_signing.SigningOptions;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+
+/**
+ * Benchmark of {@link EncryptionStream} for signing without encryption.
+ * This includes unlocking of the signing key and creation of the signature generators.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SignBenchmark {
+
+    @Param({"1024", "1048576"})
+    public long messageSize;
+
+    @Param({"RSA_2048", "CURVE25519"})
+    public BenchmarkKeyType keyType;
+
+    @Param({"true", "false"})
+    public boolean armor;
+
+    @Param({"true", "false"})
+    public boolean detached;
+
+    @Param({"UNCOMPRESSED", "ZLIB"})
+    public CompressionAlgorithm compression;
+
+    private PGPSecretKeyRing secretKeys;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        secretKeys = keyType.getSecretKey();
+    }
+
+    @Benchmark
+    public long sign() throws Exception {
+        SigningOptions signingOptions = new SigningOptions();
+        if (detached) {
+            signingOptions.addDetachedSignature(SecretKeyRingProtector.unprotectedKeys(), secretKeys,
+                    DocumentSignatureType.BINARY_DOCUMENT);
+        } else {
+            signingOptions.addInlineSignature(SecretKeyRingProtector.unprotectedKeys(), secretKeys,
+                    DocumentSignatureType.BINARY_DOCUMENT);
+        }
+
+        Payload.CountingOutputStream out = new Payload.CountingOutputStream();
+        EncryptionStream signingStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(out)
+                .withOptions(ProducerOptions.sign(signingOptions)
+                        .setAsciiArmor(armor)
+                        .overrideCompressionAlgorithm(compression));
+        Payload.write(signingStream, messageSize);
+        signingStream.close();
+        return out.getCount();
+    }
+}
@@ -0,0 +1,143 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.openpgp.PGPSignature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.CompressionAlgorithm;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.decryption_verification.OpenPgpMetadata;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.encryption_signing.SigningOptions;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+
+/**
+ * Benchmark of signature verification of inline-signed messages and detached signatures.
+ * The signed message is prepared once per trial and read from a temporary file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class VerifyBenchmark {
+
+    @Param({"1024", "1048576"})
+    public long messageSize;
+
+    @Param({"RSA_2048", "CURVE25519"})
+    public BenchmarkKeyType keyType;
+
+    @Param({"true", "false"})
+    public boolean armor;
+
+    @Param({"true", "false"})
+    public boolean detached;
+
+    @Param({"UNCOMPRESSED", "ZLIB"})
+    public CompressionAlgorithm compression;
+
+    private PGPPublicKeyRing certificate;
+    private File signedData;
+    private final List<PGPSignature> detachedSignatures = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        PGPSecretKeyRing secretKeys = keyType.getSecretKey();
+        certificate = PGPainless.extractCertificate(secretKeys);
+        signedData = Payload.tempFile("verify");
+
+        SigningOptions signingOptions = new SigningOptions();
+        if (detached) {
+            signingOptions.addDetachedSignature(SecretKeyRingProtector.unprotectedKeys(), secretKeys,
+                    DocumentSignatureType.BINARY_DOCUMENT);
+        } else {
+            signingOptions.addInlineSignature(SecretKeyRingProtector.unprotectedKeys(), secretKeys,
+                    DocumentSignatureType.BINARY_DOCUMENT);
+        }
+
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(signedData));
+        if (detached) {
+            // Detached signatures are made over the plain data
+            Payload.CountingOutputStream sink = new Payload.CountingOutputStream();
+            EncryptionStream signingStream = PGPainless.encryptAndOrSign()
+                    .onOutputStream(sink)
+                    .withOptions(ProducerOptions.sign(signingOptions).setAsciiArmor(false));
+            Payload.write(signingStream, messageSize);
+            signingStream.close();
+            for (Set<PGPSignature> signatures : signingStream.getResult().getDetachedSignatures().values()) {
+                detachedSignatures.addAll(signatures);
+            }
+            Payload.write(out, messageSize);
+        } else {
+            EncryptionStream signingStream = PGPainless.encryptAndOrSign()
+                    .onOutputStream(out)
+                    .withOptions(ProducerOptions.sign(signingOptions)
+                            .setAsciiArmor(armor)
+                            .overrideCompressionAlgorithm(compression));
+            Payload.write(signingStream, messageSize);
+            signingStream.close();
+        }
+        out.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        signedData.delete();
+    }
+
+    @Benchmark
+    public OpenPgpMetadata verify() throws Exception {
+        ConsumerOptions options = new ConsumerOptions().addVerificationCert(certificate);
+        if (detached) {
+            options.addVerificationOfDetachedSignatures(detachedSignatures);
+        }
+
+        InputStream in = new BufferedInputStream(new FileInputStream(signedData));
+        DecryptionStream verificationStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(in)
+                .withOptions(options);
+        Payload.drain(verificationStream);
+        verificationStream.close();
+        in.close();
+
+        OpenPgpMetadata metadata = verificationStream.getResult();
+        if (metadata.getVerifiedSignatures().isEmpty()) {
+            throw new AssertionError("Signature could not be verified.");
+        }
+        return metadata;
+    }
+}
@@ -6,13 +6,16 @@ package org.pgpainless.decryption_verification;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -24,7 +27,9 @@ import org.bouncycastle.openpgp.PGPSecretKeyRingCollection;
 import org.bouncycastle.openpgp.PGPSignature;
 import org.pgpainless.decryption_verification.cleartext_signatures.InMemoryMultiPassStrategy;
 import org.pgpainless.decryption_verification.cleartext_signatures.MultiPassStrategy;
+import org.pgpainless.key.protection.PrivateKeyCache;
 import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.key.util.KeyRingIndex;
 import org.pgpainless.signature.SignatureUtils;
 import org.pgpainless.util.Passphrase;
 import org.pgpainless.util.SessionKey;
@@ -34,6 +39,18 @@ import org.pgpainless.util.SessionKey;
  */
 public class ConsumerOptions {
 
+    /**
+     * Smallest allowed buffer size (512 bytes).
+     */
+    public static final int MIN_BUFFER_SIZE = 1 << 9;
+    /**
+     * Largest allowed buffer size (1 MiB).
+     */
+    public static final int MAX_BUFFER_SIZE = 1 << 20;
+    public static final int DEFAULT_BUFFER_SIZE = MIN_BUFFER_SIZE;
+
+    // Shared keys and certificates, or null
+    private final PreparedConsumerContext context;
 
     private boolean ignoreMDCErrors = false;
 
@@ -42,18 +59,50 @@ public class ConsumerOptions {
 
     // Set of verification keys
     private final Set<PGPPublicKeyRing> certificates = new HashSet<>();
+    private final List<KeyRingIndex<PGPPublicKeyRing>> certificateIndices = new ArrayList<>();
+    // Lazily built index of the individually added certificates
+    private KeyRingIndex<PGPPublicKeyRing> certificateIndex = null;
     private final Set<PGPSignature> detachedSignatures = new HashSet<>();
     private MissingPublicKeyCallback missingCertificateCallback = null;
 
     // Session key for decryption without passphrase/key
     private SessionKey sessionKey = null;
+    // Store for session keys of already decrypted messages
+    private SessionKeyStore sessionKeyStore = null;
 
     private final Map<PGPSecretKeyRing, SecretKeyRingProtector> decryptionKeys = new HashMap<>();
+    // Lazily built index of the decryption keys
+    private KeyRingIndex<PGPSecretKeyRing> decryptionKeyIndex = null;
     private final Set<Passphrase> decryptionPassphrases = new HashSet<>();
     private MissingKeyPassphraseStrategy missingKeyPassphraseStrategy = MissingKeyPassphraseStrategy.INTERACTIVE;
+    private PrivateKeyCache privateKeyCache = null;
+    private ExecutorService trialDecryptionExecutor = null;
+    private int maxTrialDecryptions = Integer.MAX_VALUE;
 
     private MultiPassStrategy multiPassStrategy = new InMemoryMultiPassStrategy();
     private boolean cleartextSigned;
+    private boolean parallelHashing = false;
+    private ExecutorService parallelHashingExecutor = null;
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+
+    public ConsumerOptions() {
+        this.context = null;
+    }
+
+    /**
+     * Create options for the consumption of a single message, which use the keys, certificates and settings
+     * of the given {@link PreparedConsumerContext}.
+     * Keys, certificates and passphrases that are added to these options do not modify the context.
+     *
+     * @param context prepared context
+     */
+    public ConsumerOptions(@Nonnull PreparedConsumerContext context) {
+        this.context = context;
+        this.missingCertificateCallback = context.getMissingCertificateCallback();
+        this.missingKeyPassphraseStrategy = context.getMissingKeyPassphraseStrategy();
+        this.privateKeyCache = context.getPrivateKeyCache();
+        this.sessionKeyStore = context.getSessionKeyStore();
+    }
 
     /**
      * Consider signatures on the message made before the given timestamp invalid.
@@ -107,6 +156,7 @@ public class ConsumerOptions {
      */
     public ConsumerOptions addVerificationCert(PGPPublicKeyRing verificationCert) {
         this.certificates.add(verificationCert);
+        this.certificateIndex = null;
         return this;
     }
 
@@ -123,6 +173,19 @@ public class ConsumerOptions {
         return this;
     }
 
+    /**
+     * Add an index of certificates (public key rings) for signature verification.
+     * Since the index is immutable, it can be built once and passed to many {@link ConsumerOptions}, which is
+     * cheaper than adding large numbers of certificates individually to each options object.
+     *
+     * @param verificationCerts index of certificates for signature verification
+     * @return options
+     */
+    public ConsumerOptions addVerificationCerts(@Nonnull KeyRingIndex<PGPPublicKeyRing> verificationCerts) {
+        this.certificateIndices.add(verificationCerts);
+        return this;
+    }
+
     public ConsumerOptions addVerificationOfDetachedSignatures(InputStream signatureInputStream) throws IOException, PGPException {
         List<PGPSignature> signatures = SignatureUtils.readSignatures(signatureInputStream);
         return addVerificationOfDetachedSignatures(signatures);
@@ -182,6 +245,30 @@ public class ConsumerOptions {
         return sessionKey;
     }
 
+    /**
+     * Set a {@link SessionKeyStore} which is used to look up the session keys of already decrypted messages.
+     * Session keys of messages that are decrypted using a secret key or passphrase are added to the store.
+     * That way, the expensive decryption of the session key is skipped when a message is decrypted again.
+     *
+     * Note: A session key that was set via {@link #setSessionKey(SessionKey)} takes precedence over the store.
+     *
+     * @param sessionKeyStore session key store or null
+     * @return options
+     */
+    public ConsumerOptions setSessionKeyStore(@Nullable SessionKeyStore sessionKeyStore) {
+        this.sessionKeyStore = sessionKeyStore;
+        return this;
+    }
+
+    /**
+     * Return the {@link SessionKeyStore} used to look up the session keys of already decrypted messages.
+     *
+     * @return session key store or null
+     */
+    public @Nullable SessionKeyStore getSessionKeyStore() {
+        return sessionKeyStore;
+    }
+
     /**
      * Add a key for message decryption.
      * The key is expected to be unencrypted.
@@ -203,6 +290,7 @@ public class ConsumerOptions {
      */
     public ConsumerOptions addDecryptionKey(@Nonnull PGPSecretKeyRing key, @Nonnull SecretKeyRingProtector keyRingProtector) {
         decryptionKeys.put(key, keyRingProtector);
+        decryptionKeyIndex = null;
         return this;
     }
 
@@ -234,16 +322,181 @@ public class ConsumerOptions {
         return this;
     }
 
+    /**
+     * Set a {@link PrivateKeyCache} which is used to look up already unlocked decryption keys.
+     * Secret keys that need to be unlocked for decryption are added to the cache.
+     * That way, the cost of unlocking a passphrase protected key is only paid once, even if the cache is shared
+     * across many messages.
+     *
+     * Note: Cached keys can be used without their passphrase, regardless of the {@link SecretKeyRingProtector}
+     * that was passed in via {@link #addDecryptionKey(PGPSecretKeyRing, SecretKeyRingProtector)}.
+     *
+     * @param privateKeyCache cache of unlocked private keys or null
+     * @return options
+     */
+    public ConsumerOptions setPrivateKeyCache(@Nullable PrivateKeyCache privateKeyCache) {
+        this.privateKeyCache = privateKeyCache;
+        return this;
+    }
+
+    /**
+     * Return the {@link PrivateKeyCache} used to look up unlocked decryption keys.
+     *
+     * @return private key cache or null
+     */
+    public @Nullable PrivateKeyCache getPrivateKeyCache() {
+        return privateKeyCache;
+    }
+
+    /**
+     * Set an {@link ExecutorService} which is used to perform trial decryptions of the session key in parallel.
+     * A trial decryption requires a private-key operation, so messages for hidden recipients (wildcard key-id)
+     * or with many PKESKs can require many of those operations if many decryption keys are available.
+     * If an executor is set, all trials are dispatched to the executor. The first successful trial wins,
+     * while the remaining trials are cancelled.
+     *
+     * Secret keys are still unlocked on the calling thread, so {@link SecretKeyRingProtector SecretKeyRingProtectors}
+     * do not need to be thread-safe. The executor should be bounded (e.g. a fixed thread pool) and can be shared
+     * across messages.
+     * The default value is null, which means trials are performed one after another on the calling thread.
+     *
+     * @param executor executor for trial decryptions or null
+     * @return options
+     */
+    public ConsumerOptions setTrialDecryptionExecutor(@Nullable ExecutorService executor) {
+        this.trialDecryptionExecutor = executor;
+        return this;
+    }
+
+    /**
+     * Return the {@link ExecutorService} used to perform trial decryptions in parallel.
+     *
+     * @return executor or null
+     */
+    public @Nullable ExecutorService getTrialDecryptionExecutor() {
+        return trialDecryptionExecutor;
+    }
+
+    /**
+     * Limit the number of trial decryptions of the session key per message.
+     * This bounds the CPU time spent on messages for hidden recipients, if many decryption keys are available.
+     * If the limit is reached before the session key could be decrypted, decryption fails.
+     * The default value is {@link Integer#MAX_VALUE}.
+     *
+     * @param maxTrialDecryptions maximum number of trial decryptions per message
+     * @return options
+     */
+    public ConsumerOptions setMaxTrialDecryptions(int maxTrialDecryptions) {
+        if (maxTrialDecryptions <= 0) {
+            throw new IllegalArgumentException("Maximum number of trial decryptions must be positive.");
+        }
+        this.maxTrialDecryptions = maxTrialDecryptions;
+        return this;
+    }
+
+    /**
+     * Return the maximum number of trial decryptions of the session key per message.
+     *
+     * @return maximum number of trial decryptions
+     */
+    public int getMaxTrialDecryptions() {
+        return maxTrialDecryptions;
+    }
+
     public @Nonnull Set<PGPSecretKeyRing> getDecryptionKeys() {
-        return Collections.unmodifiableSet(decryptionKeys.keySet());
+        if (context == null || context.getDecryptionKeys().isEmpty()) {
+            return Collections.unmodifiableSet(decryptionKeys.keySet());
+        }
+        if (decryptionKeys.isEmpty()) {
+            return context.getDecryptionKeys().getKeyRings();
+        }
+        Set<PGPSecretKeyRing> all = new LinkedHashSet<>(decryptionKeys.keySet());
+        all.addAll(context.getDecryptionKeys().getKeyRings());
+        return Collections.unmodifiableSet(all);
     }
 
     public @Nonnull Set<Passphrase> getDecryptionPassphrases() {
-        return Collections.unmodifiableSet(decryptionPassphrases);
+        if (context == null || context.getDecryptionPassphrases().isEmpty()) {
+            return Collections.unmodifiableSet(decryptionPassphrases);
+        }
+        if (decryptionPassphrases.isEmpty()) {
+            return context.getDecryptionPassphrases();
+        }
+        Set<Passphrase> all = new LinkedHashSet<>(decryptionPassphrases);
+        all.addAll(context.getDecryptionPassphrases());
+        return Collections.unmodifiableSet(all);
     }
 
+    /**
+     * Return all certificates for signature verification, including those from added {@link KeyRingIndex KeyRingIndices}.
+     *
+     * @return certificates
+     */
     public @Nonnull Set<PGPPublicKeyRing> getCertificates() {
-        return Collections.unmodifiableSet(certificates);
+        boolean hasContextCertificates = context != null && !context.getCertificates().isEmpty();
+        if (certificateIndices.isEmpty() && !hasContextCertificates) {
+            return Collections.unmodifiableSet(certificates);
+        }
+        Set<PGPPublicKeyRing> all = new LinkedHashSet<>(certificates);
+        for (KeyRingIndex<PGPPublicKeyRing> index : certificateIndices) {
+            all.addAll(index.getKeyRings());
+        }
+        if (hasContextCertificates) {
+            all.addAll(context.getCertificates().getKeyRings());
+        }
+        return Collections.unmodifiableSet(all);
+    }
+
+    /**
+     * Return the certificate which contains the (sub-)key with the given key-id, or null if there is no such
+     * certificate.
+     *
+     * @param keyId key-id
+     * @return certificate or null
+     */
+    @Nullable PGPPublicKeyRing getCertificate(long keyId) {
+        if (!certificates.isEmpty()) {
+            if (certificateIndex == null) {
+                certificateIndex = KeyRingIndex.of(certificates);
+            }
+            PGPPublicKeyRing certificate = certificateIndex.get(keyId);
+            if (certificate != null) {
+                return certificate;
+            }
+        }
+        for (KeyRingIndex<PGPPublicKeyRing> index : certificateIndices) {
+            PGPPublicKeyRing certificate = index.get(keyId);
+            if (certificate != null) {
+                return certificate;
+            }
+        }
+        if (context != null) {
+            return context.getCertificates().get(keyId);
+        }
+        return null;
+    }
+
+    /**
+     * Return the decryption key which contains the secret (sub-)key with the given key-id, or null if there is no
+     * such key.
+     *
+     * @param keyId key-id
+     * @return decryption key or null
+     */
+    @Nullable PGPSecretKeyRing getDecryptionKey(long keyId) {
+        if (!decryptionKeys.isEmpty()) {
+            if (decryptionKeyIndex == null) {
+                decryptionKeyIndex = KeyRingIndex.of(decryptionKeys.keySet());
+            }
+            PGPSecretKeyRing decryptionKey = decryptionKeyIndex.get(keyId);
+            if (decryptionKey != null) {
+                return decryptionKey;
+            }
+        }
+        if (context != null) {
+            return context.getDecryptionKeys().get(keyId);
+        }
+        return null;
     }
 
     public @Nullable MissingPublicKeyCallback getMissingCertificateCallback() {
@@ -251,7 +504,11 @@ public class ConsumerOptions {
     }
 
     public @Nonnull SecretKeyRingProtector getSecretKeyProtector(PGPSecretKeyRing decryptionKeyRing) {
-        return decryptionKeys.get(decryptionKeyRing);
+        SecretKeyRingProtector protector = decryptionKeys.get(decryptionKeyRing);
+        if (protector == null && context != null) {
+            protector = context.getSecretKeyProtector(decryptionKeyRing);
+        }
+        return protector;
     }
 
     public @Nonnull Set<PGPSignature> getDetachedSignatures() {
@@ -347,6 +604,83 @@ public class ConsumerOptions {
         return multiPassStrategy;
     }
 
+    /**
+     * Specify, whether the data shall be hashed for multiple signatures in parallel.
+     * If enabled and the message carries more than one signature, each signature is verified
+     * by its own worker thread, so that verifying multiple signatures takes about as long as verifying one.
+     * The worker tasks run on the executor set via {@link #setParallelHashingExecutor(ExecutorService)}, or on a shared
+     * pool of daemon threads.
+     * The default value is false.
+     *
+     * @param parallelHashing parallel hashing
+     * @return options
+     */
+    public ConsumerOptions setParallelHashing(boolean parallelHashing) {
+        this.parallelHashing = parallelHashing;
+        return this;
+    }
+
+    /**
+     * Return true if the data shall be hashed for multiple signatures in parallel.
+     *
+     * @return parallel hashing
+     */
+    public boolean isParallelHashing() {
+        return parallelHashing;
+    }
+
+    /**
+     * Set an {@link ExecutorService} which runs the worker tasks hashing the data for multiple signatures in parallel.
+     * The tasks never wait for data, so the executor can be bounded (e.g. a fixed thread pool) and shared across
+     * messages.
+     * The default value is null, which means the worker tasks run on a shared pool of daemon threads.
+     *
+     * @see #setParallelHashing(boolean)
+     * @param executor executor or null
+     * @return options
+     */
+    public ConsumerOptions setParallelHashingExecutor(@Nullable ExecutorService executor) {
+        this.parallelHashingExecutor = executor;
+        return this;
+    }
+
+    /**
+     * Return the {@link ExecutorService} used to hash the data for multiple signatures in parallel.
+     *
+     * @return executor or null
+     */
+    public @Nullable ExecutorService getParallelHashingExecutor() {
+        return parallelHashingExecutor;
+    }
+
+    /**
+     * Set the size of the buffer used to read the message.
+     * Larger buffers result in fewer reads from the underlying {@link InputStream}, which increases the throughput
+     * for large messages at the cost of memory.
+     *
+     * The buffer size must be between {@link #MIN_BUFFER_SIZE} (512 bytes) and {@link #MAX_BUFFER_SIZE} (1 MiB).
+     * The default value is {@link #DEFAULT_BUFFER_SIZE}.
+     *
+     * @param bufferSize buffer size in bytes
+     * @return options
+     */
+    public ConsumerOptions setBufferSize(int bufferSize) {
+        if (bufferSize < MIN_BUFFER_SIZE || bufferSize > MAX_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Buffer size must be between " + MIN_BUFFER_SIZE + " and " + MAX_BUFFER_SIZE + " bytes.");
+        }
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    /**
+     * Return the size of the buffer used to read the message.
+     *
+     * @return buffer size in bytes
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
     /**
      * INTERNAL method to mark cleartext signed messages.
      * Do not call this manually.
@@ -5,16 +5,26 @@
 package org.pgpainless.decryption_verification;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
 import javax.annotation.Nonnull;
 
 import org.bouncycastle.openpgp.PGPException;
 import org.pgpainless.decryption_verification.cleartext_signatures.VerifyCleartextSignaturesImpl;
 import org.pgpainless.exception.WrongConsumingMethodException;
+import org.pgpainless.util.MappedFileInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class DecryptionBuilder implements DecryptionBuilderInterface {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(DecryptionBuilder.class);
+
     public static int BUFFER_SIZE = 4096;
 
     @Override
@@ -24,11 +34,24 @@ public class DecryptionBuilder implements DecryptionBuilderInterface {
 
     static class DecryptWithImpl implements DecryptWith {
 
-        private final BufferedInputStream inputStream;
+        private final InputStream inputStream;
 
         DecryptWithImpl(InputStream inputStream) {
-            this.inputStream = new BufferedInputStream(inputStream, BUFFER_SIZE);
-            this.inputStream.mark(BUFFER_SIZE);
+            this(new BufferedInputStream(inputStream, BUFFER_SIZE), BUFFER_SIZE);
+        }
+
+        /**
+         * Decrypt a stream which already supports {@link InputStream#mark(int)}, so no additional buffering is required.
+         *
+         * @param inputStream markable input stream
+         */
+        DecryptWithImpl(MappedFileInputStream inputStream) {
+            this(inputStream, BUFFER_SIZE);
+        }
+
+        private DecryptWithImpl(InputStream markableInputStream, int markLimit) {
+            this.inputStream = markableInputStream;
+            this.inputStream.mark(markLimit);
         }
 
         @Override
@@ -48,4 +71,71 @@ public class DecryptionBuilder implements DecryptionBuilderInterface {
             }
         }
     }
+
+    @Override
+    public DecryptToFile onFile(@Nonnull File inputFile) {
+        return new DecryptToFileImpl(inputFile);
+    }
+
+    static class DecryptToFileImpl implements DecryptToFile {
+
+        private final File inputFile;
+
+        DecryptToFileImpl(File inputFile) {
+            this.inputFile = inputFile;
+        }
+
+        @Override
+        public DecryptFileWith toFile(@Nonnull File outputFile) {
+            return new DecryptFileWithImpl(inputFile, outputFile);
+        }
+    }
+
+    static class DecryptFileWithImpl implements DecryptFileWith {
+
+        private final File inputFile;
+        private final File outputFile;
+
+        DecryptFileWithImpl(File inputFile, File outputFile) {
+            this.inputFile = inputFile;
+            this.outputFile = outputFile;
+        }
+
+        @Override
+        public OpenPgpMetadata withOptions(ConsumerOptions consumerOptions) throws PGPException, IOException {
+            if (consumerOptions == null) {
+                throw new IllegalArgumentException("Consumer options cannot be null.");
+            }
+            if (inputFile.getCanonicalFile().equals(outputFile.getCanonicalFile())) {
+                throw new IllegalArgumentException("Input and output file cannot be the same file.");
+            }
+
+            MappedFileInputStream in = new MappedFileInputStream(inputFile);
+            FileOutputStream fileOut = null;
+            boolean success = false;
+            try {
+                DecryptionStream decryptionStream = new DecryptWithImpl(in).withOptions(consumerOptions);
+                fileOut = new FileOutputStream(outputFile);
+                OutputStream out = new BufferedOutputStream(
+                        Channels.newOutputStream(fileOut.getChannel()), consumerOptions.getBufferSize());
+                byte[] buffer = new byte[consumerOptions.getBufferSize()];
+                int read;
+                while ((read = decryptionStream.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+                decryptionStream.close();
+                out.flush();
+                success = true;
+                return decryptionStream.getResult();
+            } finally {
+                in.close();
+                if (fileOut != null) {
+                    fileOut.close();
+                    if (!success && !outputFile.delete()) {
+                        LOGGER.warn("Could not delete incomplete output file {}", outputFile);
+                    }
+                }
+            }
+        }
+    }
 }
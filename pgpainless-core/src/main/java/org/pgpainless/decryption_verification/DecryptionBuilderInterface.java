@@ -4,6 +4,7 @@
 
 package org.pgpainless.decryption_verification;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import javax.annotation.Nonnull;
@@ -20,6 +21,16 @@ public interface DecryptionBuilderInterface {
      */
     DecryptWith onInputStream(@Nonnull InputStream inputStream);
 
+    /**
+     * Decrypt and or verify the content of a file which contains the encrypted and/or signed data.
+     * The file is read through memory-mapped regions of its {@link java.nio.channels.FileChannel}
+     * and the plaintext is written to the output file through a {@link java.nio.channels.FileChannel}.
+     *
+     * @param inputFile file containing encrypted and/or signed data
+     * @return api handle
+     */
+    DecryptToFile onFile(@Nonnull File inputFile);
+
     interface DecryptWith {
 
         /**
@@ -33,4 +44,33 @@ public interface DecryptionBuilderInterface {
         DecryptionStream withOptions(ConsumerOptions consumerOptions) throws PGPException, IOException;
 
     }
+
+    interface DecryptToFile {
+
+        /**
+         * Specify the file the decrypted data is written to.
+         * If the file exists, it is overwritten.
+         *
+         * @param outputFile output file
+         * @return api handle
+         */
+        DecryptFileWith toFile(@Nonnull File outputFile);
+
+    }
+
+    interface DecryptFileWith {
+
+        /**
+         * Decrypt and or verify the input file using the given options and write the plaintext to the output file.
+         * If the operation fails (e.g. because of a failed integrity check), the output file is deleted.
+         * Note that the returned metadata still needs to be checked for valid signatures.
+         *
+         * @param consumerOptions consumer options
+         * @return metadata of the decrypted message
+         * @throws PGPException in case of an OpenPGP related error
+         * @throws IOException in case of an IO error
+         */
+        OpenPgpMetadata withOptions(ConsumerOptions consumerOptions) throws PGPException, IOException;
+
+    }
 }
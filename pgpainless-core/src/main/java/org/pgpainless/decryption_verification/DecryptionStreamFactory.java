@@ -39,6 +39,7 @@ import org.bouncycastle.openpgp.PGPSignature;
 import org.bouncycastle.openpgp.PGPUtil;
 import org.bouncycastle.openpgp.operator.PBEDataDecryptorFactory;
 import org.bouncycastle.openpgp.operator.PGPContentVerifierBuilderProvider;
+import org.bouncycastle.openpgp.operator.PGPDataDecryptor;
 import org.bouncycastle.openpgp.operator.PublicKeyDataDecryptorFactory;
 import org.bouncycastle.openpgp.operator.SessionKeyDataDecryptorFactory;
 import org.pgpainless.PGPainless;
@@ -57,13 +58,12 @@ import org.pgpainless.exception.WrongConsumingMethodException;
 import org.pgpainless.implementation.ImplementationFactory;
 import org.pgpainless.key.SubkeyIdentifier;
 import org.pgpainless.key.info.KeyRingInfo;
+import org.pgpainless.key.protection.PrivateKeyCache;
 import org.pgpainless.key.protection.SecretKeyRingProtector;
-import org.pgpainless.key.protection.UnlockSecretKey;
 import org.pgpainless.signature.SignatureUtils;
 import org.pgpainless.signature.consumer.DetachedSignatureCheck;
 import org.pgpainless.signature.consumer.OnePassSignatureCheck;
-import org.pgpainless.util.CRCingArmoredInputStreamWrapper;
-import org.pgpainless.util.PGPUtilWrapper;
+import org.pgpainless.util.ArmoredInputStreamFactory;
 import org.pgpainless.util.Passphrase;
 import org.pgpainless.util.SessionKey;
 import org.pgpainless.util.Tuple;
@@ -82,10 +82,19 @@ public final class DecryptionStreamFactory {
     private final List<OnePassSignatureCheck> onePassSignatureChecks = new ArrayList<>();
     private final List<DetachedSignatureCheck> detachedSignatureChecks = new ArrayList<>();
     private final Map<Long, OnePassSignatureCheck> onePassSignaturesWithMissingCert = new HashMap<>();
+    // Candidate whose private key decrypted the session key. Its lease on a cached private key is held until
+    // the session key is decrypted
+    private TrialDecryption.Candidate decryptingCandidate;
 
     private static final PGPContentVerifierBuilderProvider verifierBuilderProvider =
             ImplementationFactory.getInstance().getPGPContentVerifierBuilderProvider();
     private IntegrityProtectedInputStream integrityProtectedEncryptedInputStream;
+    // Digests the encrypted session key packets of the message, or null if no SessionKeyStore is used
+    private MessageIdentifierInputStream messageIdentifierStream;
+    // Session key which was used to decrypt the message
+    private SessionKey decryptedSessionKey;
+    // Key which decrypted the session key, or null if the session key was decrypted using a passphrase
+    private SubkeyIdentifier decryptionKeyIdentifier;
 
 
     public static DecryptionStream create(@Nonnull InputStream inputStream,
@@ -128,8 +137,8 @@ public final class DecryptionStreamFactory {
     private DecryptionStream parseOpenPGPDataAndCreateDecryptionStream(InputStream inputStream)
             throws IOException, PGPException {
         // Make sure we handle armored and non-armored data properly
-        BufferedInputStream bufferedIn = new BufferedInputStream(inputStream, 512);
-        bufferedIn.mark(512);
+        BufferedInputStream bufferedIn = new BufferedInputStream(inputStream, options.getBufferSize());
+        bufferedIn.mark(options.getBufferSize());
         InputStream decoderStream;
         PGPObjectFactory objectFactory;
 
@@ -140,8 +149,7 @@ public final class DecryptionStreamFactory {
         }
 
         try {
-            decoderStream = PGPUtilWrapper.getDecoderStream(bufferedIn);
-            decoderStream = CRCingArmoredInputStreamWrapper.possiblyWrap(decoderStream);
+            decoderStream = ArmoredInputStreamFactory.getDecoderStream(bufferedIn);
 
             if (decoderStream instanceof ArmoredInputStream) {
                 ArmoredInputStream armor = (ArmoredInputStream) decoderStream;
@@ -152,7 +160,12 @@ public final class DecryptionStreamFactory {
                 }
             }
 
-            objectFactory = ImplementationFactory.getInstance().getPGPObjectFactory(decoderStream);
+            InputStream packetStream = decoderStream;
+            if (options.getSessionKeyStore() != null) {
+                messageIdentifierStream = new MessageIdentifierInputStream(decoderStream);
+                packetStream = messageIdentifierStream;
+            }
+            objectFactory = ImplementationFactory.getInstance().getPGPObjectFactory(packetStream);
             // Parse OpenPGP message
             inputStream = processPGPPackets(objectFactory, 1);
         } catch (EOFException | FinalIOException e) {
@@ -202,12 +215,15 @@ public final class DecryptionStreamFactory {
                     return processPGPEncryptedDataList((PGPEncryptedDataList) nextPgpObject, depth);
                 }
                 if (nextPgpObject instanceof PGPCompressedData) {
+                    finishMessageIdentifier(depth, false);
                     return processPGPCompressedData((PGPCompressedData) nextPgpObject, depth);
                 }
                 if (nextPgpObject instanceof PGPOnePassSignatureList) {
+                    finishMessageIdentifier(depth, false);
                     return processOnePassSignatureList(objectFactory, (PGPOnePassSignatureList) nextPgpObject, depth);
                 }
                 if (nextPgpObject instanceof PGPLiteralData) {
+                    finishMessageIdentifier(depth, false);
                     return processPGPLiteralData(objectFactory, (PGPLiteralData) nextPgpObject, depth);
                 }
             }
@@ -230,18 +246,159 @@ public final class DecryptionStreamFactory {
 
         SessionKey sessionKey = options.getSessionKey();
         if (sessionKey != null) {
+            finishMessageIdentifier(depth, false);
             integrityProtectedEncryptedInputStream = decryptWithProvidedSessionKey(pgpEncryptedDataList, sessionKey);
             InputStream decodedDataStream = PGPUtil.getDecoderStream(integrityProtectedEncryptedInputStream);
             PGPObjectFactory factory = ImplementationFactory.getInstance().getPGPObjectFactory(decodedDataStream);
             return processPGPPackets(factory, ++depth);
         }
 
-        InputStream decryptedDataStream = decryptSessionKey(pgpEncryptedDataList);
+        InputStream decryptedDataStream = null;
+        String messageIdentifier = finishMessageIdentifier(depth, true);
+        SessionKeyStore sessionKeyStore = options.getSessionKeyStore();
+        if (messageIdentifier != null) {
+            StoredSessionKey storedSessionKey = sessionKeyStore.getSessionKey(messageIdentifier);
+            if (storedSessionKey != null) {
+                boolean passesQuickCheck = passesQuickCheck(pgpEncryptedDataList, storedSessionKey.getSessionKey());
+                // The quick check consumed the start of the encrypted data, so parse the message again
+                pgpEncryptedDataList = parseEncryptedDataListAgain();
+                if (passesQuickCheck) {
+                    LOGGER.debug("Decrypt message using stored session key");
+                    decryptedDataStream = decryptWithStoredSessionKey(pgpEncryptedDataList, storedSessionKey);
+                } else {
+                    LOGGER.debug("Stored session key is stale. Remove it and decrypt the session key instead.");
+                    sessionKeyStore.removeSessionKey(messageIdentifier);
+                }
+            }
+            messageIdentifierStream.stopRecording();
+        }
+
+        if (decryptedDataStream == null) {
+            try {
+                decryptedDataStream = decryptSessionKey(pgpEncryptedDataList);
+            } finally {
+                releasePrivateKeys();
+            }
+            if (messageIdentifier != null && decryptedSessionKey != null) {
+                sessionKeyStore.storeSessionKey(messageIdentifier,
+                        new StoredSessionKey(decryptedSessionKey, decryptionKeyIdentifier));
+            }
+        }
         InputStream decodedDataStream = PGPUtil.getDecoderStream(decryptedDataStream);
         PGPObjectFactory factory = ImplementationFactory.getInstance().getPGPObjectFactory(decodedDataStream);
         return processPGPPackets(factory, ++depth);
     }
 
+    private void addRecipientKeyIds(PGPEncryptedDataList pgpEncryptedDataList) {
+        for (PGPEncryptedData encryptedData : pgpEncryptedDataList) {
+            if (encryptedData instanceof PGPPublicKeyEncryptedData) {
+                long keyId = ((PGPPublicKeyEncryptedData) encryptedData).getKeyID();
+                if (keyId != 0) {
+                    resultBuilder.addRecipientKeyId(keyId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop calculating the identifier of the message for the {@link SessionKeyStore} and return it.
+     * Only the outermost packet layer of a message is digested, so for nested packet layers this returns null.
+     *
+     * @param depth nesting depth of the current packet layer
+     * @param keepRecording whether to keep recording the message, so that it can be parsed again
+     * @return message identifier or null
+     */
+    private String finishMessageIdentifier(int depth, boolean keepRecording) {
+        if (depth != 1 || messageIdentifierStream == null) {
+            return null;
+        }
+        if (!keepRecording) {
+            messageIdentifierStream.stopRecording();
+        }
+        return messageIdentifierStream.finish();
+    }
+
+    /**
+     * Check whether the given session key decrypts the quick check bytes at the start of the encrypted data.
+     * BouncyCastle does not perform the quick check when decrypting using a session key, so a stale session key
+     * would otherwise only be detected by the modification detection code at the very end of the message.
+     * Checking consumes the start of the encrypted data.
+     * A wrong session key passes the check with a probability of 1 in 65536.
+     *
+     * @param pgpEncryptedDataList encrypted data list
+     * @param sessionKey session key
+     * @return true if the quick check bytes match
+     * @throws IOException if the encrypted data cannot be read
+     */
+    private static boolean passesQuickCheck(PGPEncryptedDataList pgpEncryptedDataList, SessionKey sessionKey)
+            throws IOException {
+        if (pgpEncryptedDataList.isEmpty()) {
+            return false;
+        }
+        PGPEncryptedData encryptedData = pgpEncryptedDataList.get(0);
+        PGPDataDecryptor dataDecryptor;
+        try {
+            PGPSessionKey pgpSessionKey = new PGPSessionKey(sessionKey.getAlgorithm().getAlgorithmId(), sessionKey.getKey());
+            dataDecryptor = ImplementationFactory.getInstance().provideSessionKeyDataDecryptorFactory(pgpSessionKey)
+                    .createDataDecryptor(encryptedData.isIntegrityProtected(),
+                            pgpSessionKey.getAlgorithm(), pgpSessionKey.getKey());
+        } catch (PGPException | IllegalArgumentException e) {
+            LOGGER.debug("Cannot initialize decryption using stored session key", e);
+            return false;
+        }
+
+        // The random prefix of one block is followed by a repetition of its last two bytes
+        int blockSize = dataDecryptor.getBlockSize();
+        byte[] prefix = new byte[blockSize + 2];
+        InputStream decrypted = dataDecryptor.getInputStream(encryptedData.getInputStream());
+        int off = 0;
+        while (off < prefix.length) {
+            int read = decrypted.read(prefix, off, prefix.length - off);
+            if (read == -1) {
+                return false;
+            }
+            off += read;
+        }
+        return prefix[blockSize - 2] == prefix[blockSize] && prefix[blockSize - 1] == prefix[blockSize + 1];
+    }
+
+    /**
+     * Decrypt the message using a session key from the {@link SessionKeyStore}, which passed the quick check.
+     *
+     * @param pgpEncryptedDataList encrypted data list
+     * @param storedSessionKey stored session key
+     * @return decrypted data stream
+     * @throws PGPException if the message is not integrity protected or its algorithm is not acceptable
+     */
+    private InputStream decryptWithStoredSessionKey(PGPEncryptedDataList pgpEncryptedDataList,
+                                                    StoredSessionKey storedSessionKey)
+            throws PGPException {
+        InputStream decryptedDataStream =
+                decryptWithProvidedSessionKey(pgpEncryptedDataList, storedSessionKey.getSessionKey());
+        addRecipientKeyIds(pgpEncryptedDataList);
+        if (storedSessionKey.getDecryptionKey() != null) {
+            setDecryptionKey(storedSessionKey.getDecryptionKey());
+        }
+        return decryptedDataStream;
+    }
+
+    /**
+     * Replay the recorded start of the message and parse its encrypted data list again.
+     *
+     * @return encrypted data list
+     */
+    private PGPEncryptedDataList parseEncryptedDataListAgain() throws IOException, PGPException {
+        messageIdentifierStream.rewind();
+        PGPObjectFactory objectFactory = ImplementationFactory.getInstance().getPGPObjectFactory(messageIdentifierStream);
+        Object nextPgpObject;
+        while ((nextPgpObject = objectFactory.nextObject()) != null) {
+            if (nextPgpObject instanceof PGPEncryptedDataList) {
+                return (PGPEncryptedDataList) nextPgpObject;
+            }
+        }
+        throw new PGPException("Cannot parse encrypted data list again.");
+    }
+
     private IntegrityProtectedInputStream decryptWithProvidedSessionKey(
             PGPEncryptedDataList pgpEncryptedDataList,
             SessionKey sessionKey)
@@ -272,7 +429,7 @@ public final class DecryptionStreamFactory {
             throw new PGPException("No valid PGP data encountered.");
         }
 
-        resultBuilder.setSessionKey(sessionKey);
+        setSessionKey(sessionKey);
         throwIfAlgorithmIsRejected(sessionKey.getAlgorithm());
         integrityProtectedEncryptedInputStream =
                 new IntegrityProtectedInputStream(decryptedDataStream, encryptedData, options);
@@ -365,7 +522,7 @@ public final class DecryptionStreamFactory {
 
                     PGPSessionKey pgpSessionKey = pbeEncryptedData.getSessionKey(passphraseDecryptor);
                     SessionKey sessionKey = new SessionKey(pgpSessionKey);
-                    resultBuilder.setSessionKey(sessionKey);
+                    setSessionKey(sessionKey);
 
                     throwIfAlgorithmIsRejected(sessionKey.getAlgorithm());
 
@@ -380,9 +537,11 @@ public final class DecryptionStreamFactory {
         }
 
         // Then try decryption with public key encryption
+        TrialDecryption trialDecryption = new TrialDecryption(
+                options.getTrialDecryptionExecutor(), options.getMaxTrialDecryptions());
+        TrialDecryption.Candidate decrypting = null;
         for (PGPPublicKeyEncryptedData publicKeyEncryptedData : publicKeyProtected) {
-            PGPPrivateKey privateKey = null;
-            if (options.getDecryptionKeys().isEmpty()) {
+            if (options.getDecryptionKeys().isEmpty() || decrypting != null) {
                 break;
             }
 
@@ -391,10 +550,10 @@ public final class DecryptionStreamFactory {
             if (keyId == 0L) {
                 LOGGER.debug("Hidden recipient detected. Try to decrypt with all available secret keys.");
                 for (PGPSecretKeyRing secretKeys : options.getDecryptionKeys()) {
-                    if (privateKey != null) {
+                    if (decrypting != null || !trialDecryption.hasRemainingTrials()) {
                         break;
                     }
-                    KeyRingInfo info = new KeyRingInfo(secretKeys);
+                    KeyRingInfo info = PGPainless.getPolicy().getKeyRingInfoCache().get(secretKeys);
                     List<PGPPublicKey> encryptionSubkeys = info.getEncryptionSubkeys(EncryptionPurpose.ANY);
                     for (PGPPublicKey pubkey : encryptionSubkeys) {
                         PGPSecretKey secretKey = secretKeys.getSecretKey(pubkey.getKeyID());
@@ -403,8 +562,11 @@ public final class DecryptionStreamFactory {
                             continue;
                         }
 
-                        privateKey = tryPublicKeyDecryption(secretKeys, secretKey, publicKeyEncryptedData,
-                                postponedDueToMissingPassphrase, true);
+                        decrypting = tryPublicKeyDecryption(trialDecryption, secretKeys, secretKey,
+                                publicKeyEncryptedData, postponedDueToMissingPassphrase, true);
+                        if (decrypting != null) {
+                            break;
+                        }
                     }
                 }
             }
@@ -420,7 +582,7 @@ public final class DecryptionStreamFactory {
                 }
 
                 // Make sure that the recipient key is encryption capable and non-expired
-                KeyRingInfo info = new KeyRingInfo(secretKeys);
+                KeyRingInfo info = PGPainless.getPolicy().getKeyRingInfoCache().get(secretKeys);
                 List<PGPPublicKey> encryptionSubkeys = info.getEncryptionSubkeys(EncryptionPurpose.ANY);
 
                 PGPSecretKey secretKey = null;
@@ -434,16 +596,22 @@ public final class DecryptionStreamFactory {
                 if (secretKey == null) {
                     LOGGER.debug("Key " + Long.toHexString(keyId) + " is not valid or not capable for decryption.");
                 } else {
-                    privateKey = tryPublicKeyDecryption(secretKeys, secretKey, publicKeyEncryptedData,
-                            postponedDueToMissingPassphrase, true);
+                    decrypting = tryPublicKeyDecryption(trialDecryption, secretKeys, secretKey,
+                            publicKeyEncryptedData, postponedDueToMissingPassphrase, true);
                 }
             }
-            if (privateKey == null) {
-                continue;
-            }
-            decryptionKey = privateKey;
-            encryptedSessionKey = publicKeyEncryptedData;
-            break;
+        }
+
+        // Run trials, which were queued for parallel decryption
+        if (decrypting == null) {
+            decrypting = trialDecryption.finish();
+        }
+        if (decrypting != null) {
+            decryptingCandidate = decrypting;
+            LOGGER.debug("Found correct decryption key {}.", Long.toHexString(decrypting.getPrivateKey().getKeyID()));
+            setDecryptionKey(new SubkeyIdentifier(decrypting.getSecretKeys(), decrypting.getPrivateKey().getKeyID()));
+            decryptionKey = decrypting.getPrivateKey();
+            encryptedSessionKey = decrypting.getEncryptedData();
         }
 
         // Try postponed keys with missing passphrases (will cause missing passphrase callbacks to fire)
@@ -467,13 +635,21 @@ public final class DecryptionStreamFactory {
                     PGPSecretKeyRing secretKeys = findDecryptionKeyRing(keyId.getKeyId());
                     PGPSecretKey secretKey = secretKeys.getSecretKey(keyId.getSubkeyId());
 
-                    PGPPrivateKey privateKey = tryPublicKeyDecryption(secretKeys, secretKey, publicKeyEncryptedData,
-                            postponedDueToMissingPassphrase, false);
-                    if (privateKey == null) {
+                    // Trials for postponed keys are always performed on the calling thread
+                    TrialDecryption.Candidate candidate = tryPublicKeyDecryption(null, secretKeys, secretKey,
+                            publicKeyEncryptedData, postponedDueToMissingPassphrase, false);
+                    if (candidate == null) {
                         continue;
                     }
+                    candidate = trialDecryption.tryNow(candidate);
+                    if (candidate == null) {
+                        continue;
+                    }
+                    decryptingCandidate = candidate;
 
-                    decryptionKey = privateKey;
+                    LOGGER.debug("Found correct decryption key {}.", Long.toHexString(secretKey.getKeyID()));
+                    setDecryptionKey(new SubkeyIdentifier(secretKeys, secretKey.getKeyID()));
+                    decryptionKey = candidate.getPrivateKey();
                     encryptedSessionKey = publicKeyEncryptedData;
                     break;
                 }
@@ -492,45 +668,61 @@ public final class DecryptionStreamFactory {
      * postponeIfMissingPassphrase is true, data decryption is postponed by pushing a tuple of the encrypted data decryption key
      * identifier to the postponed list.
      *
-     * This method only returns a non-null private key, if the private key is able to decrypt the message successfully.
+     * If the {@link PrivateKeyCache} does not contain the unlocked private key, the secret key is unlocked as part of
+     * the trial. The trial is offered to the given {@link TrialDecryption}, which either performs it immediately,
+     * or queues it for parallel execution.
+     * If no {@link TrialDecryption} is given, the candidate is returned without a trial.
      *
+     * @param trialDecryption trial decryption of the message or null
      * @param secretKeys secret key ring
      * @param secretKey secret key
      * @param publicKeyEncryptedData encrypted data which is tried to decrypt using the secret key
      * @param postponed list of postponed decryptions due to missing secret key passphrases
      * @param postponeIfMissingPassphrase flag to specify whether missing secret key passphrases should result in postponed decryption
-     * @return private key if decryption is successful, null if decryption is unsuccessful or postponed
+     * @return candidate if decryption is successful, null if decryption is unsuccessful, queued or postponed
      *
      * @throws PGPException in case of an OpenPGP error
      */
-    private PGPPrivateKey tryPublicKeyDecryption(
+    private TrialDecryption.Candidate tryPublicKeyDecryption(
+            @Nullable TrialDecryption trialDecryption,
             PGPSecretKeyRing secretKeys,
             PGPSecretKey secretKey,
             PGPPublicKeyEncryptedData publicKeyEncryptedData,
             List<Tuple<SubkeyIdentifier, PGPPublicKeyEncryptedData>> postponed,
             boolean postponeIfMissingPassphrase) throws PGPException {
-        SecretKeyRingProtector protector = options.getSecretKeyProtector(secretKeys);
-
-        if (postponeIfMissingPassphrase && !protector.hasPassphraseFor(secretKey.getKeyID())) {
-            // Postpone decryption with key with missing passphrase
-            SubkeyIdentifier identifier = new SubkeyIdentifier(secretKeys, secretKey.getKeyID());
-            postponed.add(new Tuple<>(identifier, publicKeyEncryptedData));
+        if (trialDecryption != null && !trialDecryption.hasRemainingTrials()) {
             return null;
         }
+        SecretKeyRingProtector protector = options.getSecretKeyProtector(secretKeys);
+        PrivateKeyCache privateKeyCache = options.getPrivateKeyCache();
 
-        PGPPrivateKey privateKey = UnlockSecretKey.unlockSecretKey(
-                secretKey, protector.getDecryptor(secretKey.getKeyID()));
+        TrialDecryption.Candidate candidate;
+        PrivateKeyCache.Lease lease = privateKeyCache == null ? null : privateKeyCache.acquire(secretKey);
+        if (lease != null) {
+            candidate = TrialDecryption.Candidate.cached(secretKeys, secretKey, publicKeyEncryptedData, lease);
+        } else {
+            if (postponeIfMissingPassphrase && !protector.hasPassphraseFor(secretKey.getKeyID())) {
+                // Postpone decryption with key with missing passphrase
+                SubkeyIdentifier identifier = new SubkeyIdentifier(secretKeys, secretKey.getKeyID());
+                postponed.add(new Tuple<>(identifier, publicKeyEncryptedData));
+                return null;
+            }
+            // The passphrase is obtained on the calling thread, the expensive S2K derivation happens during the trial
+            candidate = TrialDecryption.Candidate.locked(secretKeys, secretKey, publicKeyEncryptedData,
+                    protector.getDecryptor(secretKey.getKeyID()), privateKeyCache);
+        }
 
+        if (trialDecryption == null) {
+            return candidate;
+        }
         // test if we have the right private key
-        PublicKeyDataDecryptorFactory decryptorFactory = ImplementationFactory.getInstance()
-                .getPublicKeyDataDecryptorFactory(privateKey);
-        try {
-            publicKeyEncryptedData.getSymmetricAlgorithm(decryptorFactory); // will only succeed if we have the right secret key
-            LOGGER.debug("Found correct decryption key {}.", Long.toHexString(secretKey.getKeyID()));
-            resultBuilder.setDecryptionKey(new SubkeyIdentifier(secretKeys, privateKey.getKeyID()));
-            return privateKey;
-        } catch (PGPException | ClassCastException e) {
-            return null;
+        return trialDecryption.offer(candidate);
+    }
+
+    private void releasePrivateKeys() {
+        if (decryptingCandidate != null) {
+            decryptingCandidate.release();
+            decryptingCandidate = null;
         }
     }
 
@@ -545,7 +737,7 @@ public final class DecryptionStreamFactory {
 
         PGPSessionKey pgpSessionKey = encryptedSessionKey.getSessionKey(dataDecryptor);
         SessionKey sessionKey = new SessionKey(pgpSessionKey);
-        resultBuilder.setSessionKey(sessionKey);
+        setSessionKey(sessionKey);
 
         SymmetricKeyAlgorithm symmetricKeyAlgorithm = sessionKey.getAlgorithm();
         if (symmetricKeyAlgorithm == SymmetricKeyAlgorithm.NULL) {
@@ -560,6 +752,16 @@ public final class DecryptionStreamFactory {
         return integrityProtectedEncryptedInputStream;
     }
 
+    private void setSessionKey(SessionKey sessionKey) {
+        decryptedSessionKey = sessionKey;
+        resultBuilder.setSessionKey(sessionKey);
+    }
+
+    private void setDecryptionKey(SubkeyIdentifier decryptionKey) {
+        decryptionKeyIdentifier = decryptionKey;
+        resultBuilder.setDecryptionKey(decryptionKey);
+    }
+
     private void throwIfAlgorithmIsRejected(SymmetricKeyAlgorithm algorithm)
             throws UnacceptableAlgorithmException {
         if (!PGPainless.getPolicy().getSymmetricKeyDecryptionAlgorithmPolicy().isAcceptable(algorithm)) {
@@ -609,23 +811,13 @@ public final class DecryptionStreamFactory {
     }
 
     private PGPSecretKeyRing findDecryptionKeyRing(long keyId) {
-        for (PGPSecretKeyRing key : options.getDecryptionKeys()) {
-            if (key.getSecretKey(keyId) != null) {
-                return key;
-            }
-        }
-        return null;
+        return options.getDecryptionKey(keyId);
     }
 
     private PGPPublicKeyRing findSignatureVerificationKeyRing(long keyId) {
-        PGPPublicKeyRing verificationKeyRing = null;
-        for (PGPPublicKeyRing publicKeyRing : options.getCertificates()) {
-            PGPPublicKey verificationKey = publicKeyRing.getPublicKey(keyId);
-            if (verificationKey != null) {
-                LOGGER.debug("Found public key {} for signature verification", Long.toHexString(keyId));
-                verificationKeyRing = publicKeyRing;
-                break;
-            }
+        PGPPublicKeyRing verificationKeyRing = options.getCertificate(keyId);
+        if (verificationKeyRing != null) {
+            LOGGER.debug("Found public key {} for signature verification", Long.toHexString(keyId));
         }
 
         if (verificationKeyRing == null && options.getMissingCertificateCallback() != null) {
@@ -0,0 +1,228 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.decryption_verification;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.engines.AESEngine;
+import org.bouncycastle.crypto.modes.GCMBlockCipher;
+import org.bouncycastle.crypto.params.AEADParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.util.io.Streams;
+import org.pgpainless.algorithm.SymmetricKeyAlgorithm;
+import org.pgpainless.key.OpenPgpV4Fingerprint;
+import org.pgpainless.key.SubkeyIdentifier;
+import org.pgpainless.util.SessionKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link SessionKeyStore} which persists session keys in a directory, so that they survive restarts of the application.
+ *
+ * Each session key is stored in a separate file, which is named after the message identifier.
+ * Besides the session key, the file contains the fingerprints of the key which decrypted the session key.
+ * The session keys are encrypted at rest using AES-GCM with a storage key provided by the application.
+ * The message identifier is authenticated as associated data, so encrypted session keys cannot be swapped between
+ * files unnoticed.
+ *
+ * Files that cannot be read or decrypted (e.g. because they were written using a different storage key) are treated
+ * as absent, so decryption falls back to decrypting the session key using the secret key or passphrase.
+ * Afterwards, the file is replaced with the freshly decrypted session key.
+ *
+ * Note: The security of the stored messages depends on the confidentiality of the storage key.
+ */
+public final class FileSessionKeyStore implements SessionKeyStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileSessionKeyStore.class);
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final int NONCE_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+    private static final String FILE_SUFFIX = ".sk";
+
+    private final File directory;
+    private final byte[] storageKey;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Create a new store.
+     *
+     * @param directory directory in which the encrypted session keys are stored. Will be created if it does not exist.
+     * @param storageKey AES key (16, 24 or 32 bytes) used to encrypt the session keys
+     * @throws IOException if the directory cannot be created
+     */
+    public FileSessionKeyStore(@Nonnull File directory, @Nonnull byte[] storageKey) throws IOException {
+        if (storageKey.length != 16 && storageKey.length != 24 && storageKey.length != 32) {
+            throw new IllegalArgumentException("Storage key must be 16, 24 or 32 bytes long.");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory.getAbsolutePath());
+        }
+        this.directory = directory;
+        this.storageKey = Arrays.copyOf(storageKey, storageKey.length);
+    }
+
+    @Override
+    public @Nullable StoredSessionKey getSessionKey(@Nonnull String messageIdentifier) {
+        File file = fileOf(messageIdentifier);
+        if (!file.isFile()) {
+            return null;
+        }
+
+        byte[] plaintext = null;
+        try {
+            byte[] encrypted = readFile(file);
+            if (encrypted.length <= NONCE_LENGTH) {
+                LOGGER.debug("Ignore truncated session key file {}", file.getName());
+                return null;
+            }
+            byte[] nonce = Arrays.copyOfRange(encrypted, 0, NONCE_LENGTH);
+            plaintext = process(false, messageIdentifier, nonce,
+                    encrypted, NONCE_LENGTH, encrypted.length - NONCE_LENGTH);
+            return decode(plaintext);
+        } catch (IOException | InvalidCipherTextException e) {
+            LOGGER.debug("Cannot read session key file {}", file.getName(), e);
+            return null;
+        } finally {
+            if (plaintext != null) {
+                Arrays.fill(plaintext, (byte) 0);
+            }
+        }
+    }
+
+    @Override
+    public void storeSessionKey(@Nonnull String messageIdentifier, @Nonnull StoredSessionKey sessionKey) {
+        byte[] plaintext = encode(sessionKey);
+        byte[] nonce = new byte[NONCE_LENGTH];
+        random.nextBytes(nonce);
+
+        File file = fileOf(messageIdentifier);
+        File tempFile = null;
+        try {
+            byte[] ciphertext = process(true, messageIdentifier, nonce, plaintext, 0, plaintext.length);
+            byte[] encrypted = new byte[NONCE_LENGTH + ciphertext.length];
+            System.arraycopy(nonce, 0, encrypted, 0, NONCE_LENGTH);
+            System.arraycopy(ciphertext, 0, encrypted, NONCE_LENGTH, ciphertext.length);
+
+            // Write to a temporary file first, so that concurrent readers never observe partially written files
+            tempFile = File.createTempFile(file.getName(), ".tmp", directory);
+            writeFile(tempFile, encrypted);
+            // On some platforms, renaming fails if the target exists
+            if (!tempFile.renameTo(file) && (!file.delete() || !tempFile.renameTo(file))) {
+                throw new IOException("Cannot rename " + tempFile.getName() + " to " + file.getName());
+            }
+        } catch (IOException | InvalidCipherTextException e) {
+            LOGGER.debug("Cannot store session key file {}", file.getName(), e);
+            if (tempFile != null && tempFile.exists() && !tempFile.delete()) {
+                LOGGER.debug("Cannot delete temporary file {}", tempFile.getName());
+            }
+        } finally {
+            Arrays.fill(plaintext, (byte) 0);
+        }
+    }
+
+    @Override
+    public void removeSessionKey(@Nonnull String messageIdentifier) {
+        File file = fileOf(messageIdentifier);
+        if (file.exists() && !file.delete()) {
+            LOGGER.debug("Cannot delete session key file {}", file.getName());
+        }
+    }
+
+    /**
+     * Encode the session key as algorithm id, key length and key,
+     * followed by the UTF-8 encoded fingerprints of the primary key and subkey which decrypted the session key.
+     */
+    private static byte[] encode(StoredSessionKey storedSessionKey) {
+        SessionKey sessionKey = storedSessionKey.getSessionKey();
+        SubkeyIdentifier decryptionKey = storedSessionKey.getDecryptionKey();
+        byte[] key = sessionKey.getKey();
+        byte[] fingerprints = decryptionKey == null ? new byte[0] :
+                (decryptionKey.getPrimaryKeyFingerprint() + " " + decryptionKey.getSubkeyFingerprint()).getBytes(UTF8);
+
+        byte[] encoded = new byte[2 + key.length + fingerprints.length];
+        encoded[0] = (byte) sessionKey.getAlgorithm().getAlgorithmId();
+        encoded[1] = (byte) key.length;
+        System.arraycopy(key, 0, encoded, 2, key.length);
+        System.arraycopy(fingerprints, 0, encoded, 2 + key.length, fingerprints.length);
+        Arrays.fill(key, (byte) 0);
+        return encoded;
+    }
+
+    private static StoredSessionKey decode(byte[] encoded) {
+        if (encoded.length < 2 || encoded.length < 2 + (encoded[1] & 0xff)) {
+            LOGGER.debug("Ignore malformed session key");
+            return null;
+        }
+        SymmetricKeyAlgorithm algorithm = SymmetricKeyAlgorithm.fromId(encoded[0] & 0xff);
+        if (algorithm == null) {
+            LOGGER.debug("Ignore session key of unknown algorithm {}", encoded[0] & 0xff);
+            return null;
+        }
+        int keyLength = encoded[1] & 0xff;
+        SessionKey sessionKey = new SessionKey(algorithm, Arrays.copyOfRange(encoded, 2, 2 + keyLength));
+
+        SubkeyIdentifier decryptionKey = null;
+        if (encoded.length > 2 + keyLength) {
+            String[] fingerprints = new String(encoded, 2 + keyLength, encoded.length - 2 - keyLength, UTF8).split(" ");
+            try {
+                decryptionKey = new SubkeyIdentifier(
+                        new OpenPgpV4Fingerprint(fingerprints[0]), new OpenPgpV4Fingerprint(fingerprints[1]));
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                LOGGER.debug("Ignore malformed decryption key fingerprints", e);
+            }
+        }
+        return new StoredSessionKey(sessionKey, decryptionKey);
+    }
+
+    private static byte[] readFile(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            return Streams.readAll(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void writeFile(File file, byte[] data) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+    }
+
+    private byte[] process(boolean encrypt, String messageIdentifier, byte[] nonce,
+                           byte[] input, int offset, int length)
+            throws InvalidCipherTextException {
+        GCMBlockCipher cipher = new GCMBlockCipher(new AESEngine());
+        cipher.init(encrypt, new AEADParameters(new KeyParameter(storageKey), TAG_LENGTH_BITS, nonce,
+                messageIdentifier.getBytes(UTF8)));
+        byte[] output = new byte[cipher.getOutputSize(length)];
+        int written = cipher.processBytes(input, offset, length, output, 0);
+        written += cipher.doFinal(output, written);
+        return written == output.length ? output : Arrays.copyOf(output, written);
+    }
+
+    private File fileOf(String messageIdentifier) {
+        // Message identifiers are lowercase hex encoded digests, make sure we never escape the directory
+        if (!messageIdentifier.matches("[0-9a-f]+")) {
+            throw new IllegalArgumentException("Invalid message identifier.");
+        }
+        return new File(directory, messageIdentifier + FILE_SUFFIX);
+    }
+}
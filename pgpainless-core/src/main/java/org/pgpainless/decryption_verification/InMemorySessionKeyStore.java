@@ -0,0 +1,79 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.decryption_verification;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Bounded, thread-safe {@link SessionKeyStore} which holds session keys in memory.
+ * Once the store exceeds its maximum size, the least recently used session keys are evicted.
+ */
+public final class InMemorySessionKeyStore implements SessionKeyStore {
+
+    private final int maxSize;
+    private final Map<String, StoredSessionKey> sessionKeys;
+
+    /**
+     * Create a new store.
+     *
+     * @param maxSize maximum number of stored session keys
+     */
+    public InMemorySessionKeyStore(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive.");
+        }
+        this.maxSize = maxSize;
+        this.sessionKeys = new LinkedHashMap<String, StoredSessionKey>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredSessionKey> eldest) {
+                return size() > InMemorySessionKeyStore.this.maxSize;
+            }
+        };
+    }
+
+    @Override
+    public @Nullable StoredSessionKey getSessionKey(@Nonnull String messageIdentifier) {
+        synchronized (sessionKeys) {
+            return sessionKeys.get(messageIdentifier);
+        }
+    }
+
+    @Override
+    public void storeSessionKey(@Nonnull String messageIdentifier, @Nonnull StoredSessionKey sessionKey) {
+        synchronized (sessionKeys) {
+            sessionKeys.put(messageIdentifier, sessionKey);
+        }
+    }
+
+    @Override
+    public void removeSessionKey(@Nonnull String messageIdentifier) {
+        synchronized (sessionKeys) {
+            sessionKeys.remove(messageIdentifier);
+        }
+    }
+
+    /**
+     * Remove all stored session keys.
+     */
+    public void clear() {
+        synchronized (sessionKeys) {
+            sessionKeys.clear();
+        }
+    }
+
+    /**
+     * Return the number of stored session keys.
+     *
+     * @return size
+     */
+    public int size() {
+        synchronized (sessionKeys) {
+            return sessionKeys.size();
+        }
+    }
+}
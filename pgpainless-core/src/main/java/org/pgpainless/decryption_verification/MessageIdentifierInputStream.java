@@ -0,0 +1,124 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.decryption_verification;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * {@link InputStream} which calculates the identifier of a message for the {@link SessionKeyStore}.
+ *
+ * The stream digests all bytes that are read from the underlying (de-armored) stream, until {@link #finish()} is called.
+ * If {@link #finish()} is called once the {@link org.bouncycastle.openpgp.PGPObjectFactory} returned the
+ * {@link org.bouncycastle.openpgp.PGPEncryptedDataList}, the digest covers exactly the encoded PKESK and SKESK packets
+ * as well as the header of the encrypted data packet, since BouncyCastle does not read ahead further.
+ *
+ * Additionally, the stream records all bytes read until {@link #stopRecording()} or {@link #rewind()} is called.
+ * This way, the encrypted data list can be parsed a second time after a stored session key was checked.
+ */
+final class MessageIdentifierInputStream extends FilterInputStream {
+
+    private SHA256Digest digest = new SHA256Digest();
+    private ByteArrayOutputStream recording = new ByteArrayOutputStream();
+
+    MessageIdentifierInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int r = super.read();
+        if (r != -1) {
+            if (digest != null) {
+                digest.update((byte) r);
+            }
+            if (recording != null) {
+                recording.write(r);
+            }
+        }
+        return r;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int r = super.read(b, off, len);
+        if (r > 0) {
+            if (digest != null) {
+                digest.update(b, off, r);
+            }
+            if (recording != null) {
+                recording.write(b, off, r);
+            }
+        }
+        return r;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (digest == null && recording == null) {
+            return super.skip(n);
+        }
+        // Skipped bytes must be digested and recorded as well
+        byte[] buf = new byte[(int) Math.min(n, 4096)];
+        long skipped = 0;
+        while (skipped < n) {
+            int r = read(buf, 0, (int) Math.min(buf.length, n - skipped));
+            if (r == -1) {
+                break;
+            }
+            skipped += r;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Stop digesting and return the hex encoded digest over all bytes read so far.
+     * Subsequent calls return null. Recording continues until {@link #stopRecording()} or {@link #rewind()} is called.
+     *
+     * @return message identifier or null
+     */
+    String finish() {
+        if (digest == null) {
+            return null;
+        }
+        byte[] out = new byte[digest.getDigestSize()];
+        digest.doFinal(out, 0);
+        digest = null;
+        return Hex.toHexString(out);
+    }
+
+    /**
+     * Stop recording and discard the recorded bytes.
+     */
+    void stopRecording() {
+        recording = null;
+    }
+
+    /**
+     * Stop recording and serve all recorded bytes again, before continuing with the underlying stream.
+     * Afterwards, the message can be parsed again from the start.
+     *
+     * @throws IllegalStateException if recording was already stopped
+     */
+    void rewind() {
+        if (recording == null) {
+            throw new IllegalStateException("Recording was already stopped.");
+        }
+        in = new SequenceInputStream(new ByteArrayInputStream(recording.toByteArray()), in);
+        recording = null;
+    }
+}
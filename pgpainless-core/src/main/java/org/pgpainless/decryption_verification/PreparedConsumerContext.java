@@ -0,0 +1,257 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.decryption_verification;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPPublicKeyRingCollection;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRingCollection;
+import org.pgpainless.key.protection.PrivateKeyCache;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.key.util.KeyRingIndex;
+import org.pgpainless.util.Passphrase;
+
+/**
+ * Immutable set of keys, certificates and settings, which is shared by many {@link ConsumerOptions}.
+ *
+ * Applications that decrypt and verify large numbers of messages with the same keys and certificates can prepare
+ * a context once and then create a lightweight {@link ConsumerOptions} object per message using
+ * {@link #newConsumerOptions()}. The context indexes its keys and certificates when it is built, so creating
+ * per-message options does not require copying or re-indexing any keys.
+ *
+ * A context can be shared between threads, as long as the {@link SecretKeyRingProtector SecretKeyRingProtectors},
+ * the {@link MissingPublicKeyCallback}, the {@link PrivateKeyCache} and the {@link SessionKeyStore} it was built with
+ * are thread-safe.
+ * Per-message state (e.g. detached signatures or the session key) is held by the {@link ConsumerOptions}.
+ */
+public final class PreparedConsumerContext {
+
+    private final KeyRingIndex<PGPSecretKeyRing> decryptionKeys;
+    private final Map<PGPSecretKeyRing, SecretKeyRingProtector> protectors;
+    private final KeyRingIndex<PGPPublicKeyRing> certificates;
+    private final Set<Passphrase> decryptionPassphrases;
+    private final MissingPublicKeyCallback missingCertificateCallback;
+    private final MissingKeyPassphraseStrategy missingKeyPassphraseStrategy;
+    private final PrivateKeyCache privateKeyCache;
+    private final SessionKeyStore sessionKeyStore;
+
+    private PreparedConsumerContext(Builder builder) {
+        this.decryptionKeys = KeyRingIndex.of(builder.decryptionKeys.keySet());
+        this.protectors = Collections.unmodifiableMap(new HashMap<>(builder.decryptionKeys));
+        this.certificates = KeyRingIndex.of(builder.certificates);
+        this.decryptionPassphrases = Collections.unmodifiableSet(new LinkedHashSet<>(builder.decryptionPassphrases));
+        this.missingCertificateCallback = builder.missingCertificateCallback;
+        this.missingKeyPassphraseStrategy = builder.missingKeyPassphraseStrategy;
+        this.privateKeyCache = builder.privateKeyCache;
+        this.sessionKeyStore = builder.sessionKeyStore;
+    }
+
+    /**
+     * Return a builder for a {@link PreparedConsumerContext}.
+     *
+     * @return builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Create a new {@link ConsumerOptions} object for the consumption of a single message.
+     * Keys, certificates and passphrases can still be added to the returned options.
+     * Those are only used for that one message and do not modify the context.
+     *
+     * @return options
+     */
+    public ConsumerOptions newConsumerOptions() {
+        return new ConsumerOptions(this);
+    }
+
+    public @Nonnull KeyRingIndex<PGPSecretKeyRing> getDecryptionKeys() {
+        return decryptionKeys;
+    }
+
+    public @Nullable SecretKeyRingProtector getSecretKeyProtector(@Nonnull PGPSecretKeyRing decryptionKey) {
+        return protectors.get(decryptionKey);
+    }
+
+    public @Nonnull KeyRingIndex<PGPPublicKeyRing> getCertificates() {
+        return certificates;
+    }
+
+    public @Nonnull Set<Passphrase> getDecryptionPassphrases() {
+        return decryptionPassphrases;
+    }
+
+    public @Nullable MissingPublicKeyCallback getMissingCertificateCallback() {
+        return missingCertificateCallback;
+    }
+
+    public @Nonnull MissingKeyPassphraseStrategy getMissingKeyPassphraseStrategy() {
+        return missingKeyPassphraseStrategy;
+    }
+
+    public @Nullable PrivateKeyCache getPrivateKeyCache() {
+        return privateKeyCache;
+    }
+
+    public @Nullable SessionKeyStore getSessionKeyStore() {
+        return sessionKeyStore;
+    }
+
+    public static final class Builder {
+
+        private final Map<PGPSecretKeyRing, SecretKeyRingProtector> decryptionKeys = new LinkedHashMap<>();
+        private final List<PGPPublicKeyRing> certificates = new ArrayList<>();
+        private final Set<Passphrase> decryptionPassphrases = new LinkedHashSet<>();
+        private MissingPublicKeyCallback missingCertificateCallback = null;
+        private MissingKeyPassphraseStrategy missingKeyPassphraseStrategy = MissingKeyPassphraseStrategy.INTERACTIVE;
+        private PrivateKeyCache privateKeyCache = null;
+        private SessionKeyStore sessionKeyStore = null;
+
+        private Builder() {
+
+        }
+
+        /**
+         * Add a key for message decryption.
+         * The key is expected to be unencrypted.
+         *
+         * @param key unencrypted key
+         * @return builder
+         */
+        public Builder addDecryptionKey(@Nonnull PGPSecretKeyRing key) {
+            return addDecryptionKey(key, SecretKeyRingProtector.unprotectedKeys());
+        }
+
+        /**
+         * Add a key for message decryption. If the key is encrypted, the {@link SecretKeyRingProtector} is used
+         * to decrypt it when needed.
+         *
+         * @param key key
+         * @param keyRingProtector protector for the secret key
+         * @return builder
+         */
+        public Builder addDecryptionKey(@Nonnull PGPSecretKeyRing key, @Nonnull SecretKeyRingProtector keyRingProtector) {
+            decryptionKeys.put(key, keyRingProtector);
+            return this;
+        }
+
+        /**
+         * Add the keys in the provided key collection for message decryption.
+         *
+         * @param keys key collection
+         * @param keyRingProtector protector for encrypted secret keys
+         * @return builder
+         */
+        public Builder addDecryptionKeys(@Nonnull PGPSecretKeyRingCollection keys, @Nonnull SecretKeyRingProtector keyRingProtector) {
+            for (PGPSecretKeyRing key : keys) {
+                addDecryptionKey(key, keyRingProtector);
+            }
+            return this;
+        }
+
+        /**
+         * Add a passphrase for the decryption of symmetrically encrypted messages.
+         *
+         * @param passphrase passphrase
+         * @return builder
+         */
+        public Builder addDecryptionPassphrase(@Nonnull Passphrase passphrase) {
+            decryptionPassphrases.add(passphrase);
+            return this;
+        }
+
+        /**
+         * Add a certificate (public key ring) for signature verification.
+         *
+         * @param verificationCert certificate for signature verification
+         * @return builder
+         */
+        public Builder addVerificationCert(@Nonnull PGPPublicKeyRing verificationCert) {
+            certificates.add(verificationCert);
+            return this;
+        }
+
+        /**
+         * Add a set of certificates (public key rings) for signature verification.
+         *
+         * @param verificationCerts certificates for signature verification
+         * @return builder
+         */
+        public Builder addVerificationCerts(@Nonnull PGPPublicKeyRingCollection verificationCerts) {
+            for (PGPPublicKeyRing certificate : verificationCerts) {
+                addVerificationCert(certificate);
+            }
+            return this;
+        }
+
+        /**
+         * Set a callback that's used when a certificate (public key) is missing for signature verification.
+         *
+         * @param callback callback
+         * @return builder
+         */
+        public Builder setMissingCertificateCallback(@Nullable MissingPublicKeyCallback callback) {
+            this.missingCertificateCallback = callback;
+            return this;
+        }
+
+        /**
+         * Specify the {@link MissingKeyPassphraseStrategy}.
+         *
+         * @see ConsumerOptions#setMissingKeyPassphraseStrategy(MissingKeyPassphraseStrategy)
+         * @param strategy strategy
+         * @return builder
+         */
+        public Builder setMissingKeyPassphraseStrategy(@Nonnull MissingKeyPassphraseStrategy strategy) {
+            this.missingKeyPassphraseStrategy = strategy;
+            return this;
+        }
+
+        /**
+         * Set a {@link PrivateKeyCache} which holds unlocked decryption keys across messages.
+         *
+         * @see ConsumerOptions#setPrivateKeyCache(PrivateKeyCache)
+         * @param privateKeyCache cache of unlocked private keys or null
+         * @return builder
+         */
+        public Builder setPrivateKeyCache(@Nullable PrivateKeyCache privateKeyCache) {
+            this.privateKeyCache = privateKeyCache;
+            return this;
+        }
+
+        /**
+         * Set a {@link SessionKeyStore} which holds the session keys of already decrypted messages.
+         *
+         * @see ConsumerOptions#setSessionKeyStore(SessionKeyStore)
+         * @param sessionKeyStore session key store or null
+         * @return builder
+         */
+        public Builder setSessionKeyStore(@Nullable SessionKeyStore sessionKeyStore) {
+            this.sessionKeyStore = sessionKeyStore;
+            return this;
+        }
+
+        /**
+         * Build the context. Later modifications of the builder do not affect the returned context.
+         *
+         * @return context
+         */
+        public PreparedConsumerContext build() {
+            return new PreparedConsumerContext(this);
+        }
+    }
+}
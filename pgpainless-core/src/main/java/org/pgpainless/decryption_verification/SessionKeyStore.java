@@ -0,0 +1,59 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.decryption_verification;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Store for the session keys of already decrypted messages.
+ *
+ * Decrypting the session key of a message requires an expensive public-key operation (or S2K derivation).
+ * Applications that decrypt the same messages repeatedly (e.g. mail clients re-opening messages, or search indexers)
+ * can pass a {@link SessionKeyStore} to {@link ConsumerOptions#setSessionKeyStore(SessionKeyStore)}.
+ * Before attempting to decrypt the session key, the {@link DecryptionStreamFactory} looks up the session key of the
+ * message in the store. After a successful decryption, the session key is added to the store, together with the
+ * identifier of the key which decrypted it.
+ * If a stored session key does not pass the quick check of the message, the entry is removed and the session key
+ * is decrypted as usual.
+ *
+ * Messages are identified by the hex encoded SHA-256 digest over their encoded public-key and symmetric-key encrypted
+ * session key packets (PKESK/SKESK), as well as the header of the encrypted data packet.
+ * Since every PKESK contains the session key encrypted with randomized padding or an ephemeral key,
+ * the identifier is unique for each message.
+ *
+ * Note: Anyone with access to the store can decrypt the stored messages without the secret keys of the recipients.
+ * Implementations must be thread-safe, if the store is shared between threads.
+ *
+ * @see InMemorySessionKeyStore
+ * @see FileSessionKeyStore
+ */
+public interface SessionKeyStore {
+
+    /**
+     * Return the session key of the message with the given identifier, or null if the store does not contain
+     * a session key for the message.
+     *
+     * @param messageIdentifier identifier of the message
+     * @return stored session key or null
+     */
+    @Nullable StoredSessionKey getSessionKey(@Nonnull String messageIdentifier);
+
+    /**
+     * Store the session key of the message with the given identifier.
+     *
+     * @param messageIdentifier identifier of the message
+     * @param sessionKey session key and the identifier of the key which decrypted it
+     */
+    void storeSessionKey(@Nonnull String messageIdentifier, @Nonnull StoredSessionKey sessionKey);
+
+    /**
+     * Remove the session key of the message with the given identifier.
+     * This is called if the stored session key cannot decrypt the message.
+     *
+     * @param messageIdentifier identifier of the message
+     */
+    void removeSessionKey(@Nonnull String messageIdentifier);
+}
@@ -9,12 +9,14 @@ import static org.pgpainless.signature.consumer.SignatureValidator.signatureWasC
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 import org.bouncycastle.openpgp.PGPObjectFactory;
+import org.bouncycastle.openpgp.PGPOnePassSignature;
 import org.bouncycastle.openpgp.PGPPublicKeyRing;
 import org.bouncycastle.openpgp.PGPSignature;
 import org.bouncycastle.openpgp.PGPSignatureList;
@@ -24,6 +26,7 @@ import org.pgpainless.policy.Policy;
 import org.pgpainless.signature.consumer.CertificateValidator;
 import org.pgpainless.signature.consumer.DetachedSignatureCheck;
 import org.pgpainless.signature.consumer.OnePassSignatureCheck;
+import org.pgpainless.signature.ParallelSignatureHasher;
 import org.pgpainless.signature.SignatureUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,6 +47,8 @@ public abstract class SignatureInputStream extends FilterInputStream {
         private final List<DetachedSignatureCheck> detachedSignatures;
         private final ConsumerOptions options;
         private final OpenPgpMetadata.Builder resultBuilder;
+        // Hashes data for multiple signatures in parallel, or null
+        private final ParallelSignatureHasher signatureHasher;
 
         public VerifySignatures(
                 InputStream literalDataStream,
@@ -60,6 +65,35 @@ public abstract class SignatureInputStream extends FilterInputStream {
             this.detachedSignatures = detachedSignatures;
             this.options = options;
             this.resultBuilder = resultBuilder;
+            this.signatureHasher = createSignatureHasher();
+        }
+
+        private ParallelSignatureHasher createSignatureHasher() {
+            if (!options.isParallelHashing() || opSignatures.size() + detachedSignatures.size() < 2) {
+                return null;
+            }
+
+            List<ParallelSignatureHasher.Target> targets = new ArrayList<>();
+            for (OnePassSignatureCheck opSignature : opSignatures) {
+                final PGPOnePassSignature onePassSignature = opSignature.getOnePassSignature();
+                targets.add(new ParallelSignatureHasher.Target() {
+                    @Override
+                    public void update(byte[] bytes, int offset, int length) {
+                        onePassSignature.update(bytes, offset, length);
+                    }
+                });
+            }
+            for (DetachedSignatureCheck detachedSignature : detachedSignatures) {
+                final PGPSignature signature = detachedSignature.getSignature();
+                targets.add(new ParallelSignatureHasher.Target() {
+                    @Override
+                    public void update(byte[] bytes, int offset, int length) {
+                        signature.update(bytes, offset, length);
+                    }
+                });
+            }
+            LOGGER.debug("Hash data for {} signatures in parallel", targets.size());
+            return new ParallelSignatureHasher(targets, options.getParallelHashingExecutor());
         }
 
         @Override
@@ -67,8 +101,11 @@ public abstract class SignatureInputStream extends FilterInputStream {
             final int data = super.read();
             final boolean endOfStream = data == -1;
             if (endOfStream) {
+                finishHashing();
                 verifyOnePassSignatures();
                 verifyDetachedSignatures();
+            } else if (signatureHasher != null) {
+                signatureHasher.update((byte) data);
             } else {
                 byte b = (byte) data;
                 updateOnePassSignatures(b);
@@ -83,9 +120,12 @@ public abstract class SignatureInputStream extends FilterInputStream {
 
             final boolean endOfStream = read == -1;
             if (endOfStream) {
+                finishHashing();
                 parseAndCombineSignatures();
                 verifyOnePassSignatures();
                 verifyDetachedSignatures();
+            } else if (signatureHasher != null) {
+                signatureHasher.update(b, off, read);
             } else {
                 updateOnePassSignatures(b, off, read);
                 updateDetachedSignatures(b, off, read);
@@ -93,6 +133,21 @@ public abstract class SignatureInputStream extends FilterInputStream {
             return read;
         }
 
+        @Override
+        public void close() throws IOException {
+            // Stop hashing, even if the stream was not read until the end
+            if (signatureHasher != null) {
+                signatureHasher.abort();
+            }
+            super.close();
+        }
+
+        private void finishHashing() throws IOException {
+            if (signatureHasher != null) {
+                signatureHasher.finish();
+            }
+        }
+
         public void parseAndCombineSignatures() {
             if (objectFactory == null) {
                 return;
@@ -0,0 +1,54 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.decryption_verification;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.pgpainless.key.SubkeyIdentifier;
+import org.pgpainless.util.SessionKey;
+
+/**
+ * Entry of a {@link SessionKeyStore}.
+ * Besides the session key of a message, it holds the identifier of the key which originally decrypted the session key,
+ * so that {@link OpenPgpMetadata#getDecryptionKey()} can be reported when the message is decrypted using the stored
+ * session key.
+ */
+public final class StoredSessionKey {
+
+    private final SessionKey sessionKey;
+    private final SubkeyIdentifier decryptionKey;
+
+    /**
+     * Create a new entry.
+     *
+     * @param sessionKey session key of the message
+     * @param decryptionKey identifier of the key which decrypted the session key,
+     *                      or null if the session key was decrypted using a passphrase
+     */
+    public StoredSessionKey(@Nonnull SessionKey sessionKey, @Nullable SubkeyIdentifier decryptionKey) {
+        this.sessionKey = sessionKey;
+        this.decryptionKey = decryptionKey;
+    }
+
+    /**
+     * Return the session key of the message.
+     *
+     * @return session key
+     */
+    public @Nonnull SessionKey getSessionKey() {
+        return sessionKey;
+    }
+
+    /**
+     * Return the identifier of the key which decrypted the session key,
+     * or null if the session key was decrypted using a passphrase.
+     *
+     * @return decryption key or null
+     */
+    public @Nullable SubkeyIdentifier getDecryptionKey() {
+        return decryptionKey;
+    }
+}
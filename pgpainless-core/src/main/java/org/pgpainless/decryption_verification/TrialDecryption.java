@@ -0,0 +1,331 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.decryption_verification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPrivateKey;
+import org.bouncycastle.openpgp.PGPPublicKeyEncryptedData;
+import org.bouncycastle.openpgp.PGPSecretKey;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.openpgp.operator.PBESecretKeyDecryptor;
+import org.bouncycastle.openpgp.operator.PublicKeyDataDecryptorFactory;
+import org.pgpainless.implementation.ImplementationFactory;
+import org.pgpainless.key.protection.PrivateKeyCache;
+import org.pgpainless.key.protection.UnlockSecretKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Trial decryption of the public-key encrypted session key packets (PKESKs) of a single message.
+ *
+ * A trial checks, whether a private key can decrypt the session key of a PKESK, which requires an expensive
+ * private-key operation. Messages for hidden recipients (wildcard key-id) require a trial for every encryption
+ * subkey of every decryption key.
+ *
+ * Without an executor, trials are performed one after another on the calling thread, as soon as they are offered.
+ * With an executor, trials are collected and dispatched to the executor in {@link #finish()}.
+ * The first successful trial is returned and all remaining trials are cancelled.
+ * Protected secret keys are unlocked as part of their trial, so that cancelled trials do not waste time on
+ * the S2K derivation of keys which are not needed.
+ *
+ * Leases on cached private keys are released as soon as a trial fails. The successful candidate keeps its lease
+ * until {@link Candidate#release()} is called.
+ *
+ * The number of trials per message is limited, in order to bound the CPU time spent on a single message.
+ */
+final class TrialDecryption {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TrialDecryption.class);
+
+    /**
+     * A secret key which is tried on a PKESK.
+     * The secret key is either already unlocked using a {@link PrivateKeyCache}, or unlocked during the trial.
+     */
+    static final class Candidate {
+
+        private final PGPSecretKeyRing secretKeys;
+        private final PGPSecretKey secretKey;
+        private final PGPPublicKeyEncryptedData encryptedData;
+        private final PBESecretKeyDecryptor decryptor;
+        private final PrivateKeyCache privateKeyCache;
+        private PGPPrivateKey privateKey;
+        private PrivateKeyCache.Lease lease;
+
+        private Candidate(PGPSecretKeyRing secretKeys,
+                          PGPSecretKey secretKey,
+                          PGPPublicKeyEncryptedData encryptedData,
+                          PBESecretKeyDecryptor decryptor,
+                          PrivateKeyCache privateKeyCache,
+                          PrivateKeyCache.Lease lease) {
+            this.secretKeys = secretKeys;
+            this.secretKey = secretKey;
+            this.encryptedData = encryptedData;
+            this.decryptor = decryptor;
+            this.privateKeyCache = privateKeyCache;
+            this.lease = lease;
+            this.privateKey = lease == null ? null : lease.getPrivateKey();
+        }
+
+        /**
+         * Create a candidate for a private key, which was taken from a {@link PrivateKeyCache}.
+         *
+         * @param secretKeys secret key ring
+         * @param secretKey secret key
+         * @param encryptedData PKESK
+         * @param lease lease on the cached private key
+         * @return candidate
+         */
+        static Candidate cached(@Nonnull PGPSecretKeyRing secretKeys,
+                                @Nonnull PGPSecretKey secretKey,
+                                @Nonnull PGPPublicKeyEncryptedData encryptedData,
+                                @Nonnull PrivateKeyCache.Lease lease) {
+            return new Candidate(secretKeys, secretKey, encryptedData, null, null, lease);
+        }
+
+        /**
+         * Create a candidate for a secret key, which is unlocked during the trial.
+         * If a {@link PrivateKeyCache} is given, the unlocked private key is added to it.
+         *
+         * @param secretKeys secret key ring
+         * @param secretKey secret key
+         * @param encryptedData PKESK
+         * @param decryptor decryptor for the secret key, or null if the secret key is not protected
+         * @param privateKeyCache cache for the unlocked private key or null
+         * @return candidate
+         */
+        static Candidate locked(@Nonnull PGPSecretKeyRing secretKeys,
+                                @Nonnull PGPSecretKey secretKey,
+                                @Nonnull PGPPublicKeyEncryptedData encryptedData,
+                                @Nullable PBESecretKeyDecryptor decryptor,
+                                @Nullable PrivateKeyCache privateKeyCache) {
+            return new Candidate(secretKeys, secretKey, encryptedData, decryptor, privateKeyCache, null);
+        }
+
+        PGPSecretKeyRing getSecretKeys() {
+            return secretKeys;
+        }
+
+        PGPSecretKey getSecretKey() {
+            return secretKey;
+        }
+
+        /**
+         * Return the unlocked private key. Only available after a successful trial and before {@link #release()}.
+         *
+         * @return private key
+         */
+        PGPPrivateKey getPrivateKey() {
+            return privateKey;
+        }
+
+        PGPPublicKeyEncryptedData getEncryptedData() {
+            return encryptedData;
+        }
+
+        /**
+         * Unlock the secret key if necessary and check whether it can decrypt the PKESK.
+         * If it cannot, the private key is released.
+         *
+         * @return true if the private key decrypts the PKESK
+         * @throws PGPException if the secret key cannot be unlocked
+         */
+        boolean decrypts() throws PGPException {
+            unlock();
+            PublicKeyDataDecryptorFactory decryptorFactory = ImplementationFactory.getInstance()
+                    .getPublicKeyDataDecryptorFactory(privateKey);
+            boolean decrypts = false;
+            try {
+                encryptedData.getSymmetricAlgorithm(decryptorFactory); // will only succeed if we have the right secret key
+                decrypts = true;
+            } catch (PGPException | ClassCastException e) {
+                // Wrong key
+            } finally {
+                if (!decrypts) {
+                    release();
+                }
+            }
+            return decrypts;
+        }
+
+        private void unlock() throws PGPException {
+            if (privateKey != null) {
+                return;
+            }
+            privateKey = UnlockSecretKey.unlockSecretKey(secretKey, decryptor);
+            if (privateKeyCache != null) {
+                lease = privateKeyCache.put(secretKey, privateKey);
+            }
+        }
+
+        /**
+         * Release the lease on the cached private key, if any.
+         */
+        void release() {
+            privateKey = null;
+            if (lease != null) {
+                lease.close();
+                lease = null;
+            }
+        }
+    }
+
+    private final ExecutorService executor;
+    private final int maxTrials;
+    private final List<Candidate> pending = new ArrayList<>();
+    private int trials = 0;
+
+    // Candidates whose parallel trials succeeded before the trial decryption was finished. Guarded by the list.
+    private final List<Candidate> succeeded = new ArrayList<>();
+    private boolean finished = false;
+
+    /**
+     * Create a trial decryption.
+     *
+     * @param executor executor for parallel trials, or null to perform trials on the calling thread
+     * @param maxTrials maximum number of trials
+     */
+    TrialDecryption(@Nullable ExecutorService executor, int maxTrials) {
+        this.executor = executor;
+        this.maxTrials = maxTrials;
+    }
+
+    /**
+     * Return true, if the limit of trials is not yet reached.
+     *
+     * @return true if more trials are allowed
+     */
+    boolean hasRemainingTrials() {
+        return trials < maxTrials;
+    }
+
+    /**
+     * Offer a candidate for trial decryption.
+     * Without an executor, the trial is performed immediately and the candidate is returned if it succeeds.
+     * With an executor, the candidate is queued until {@link #finish()} is called and this method returns null.
+     *
+     * @param candidate candidate
+     * @return candidate if it was tried and succeeded, null otherwise
+     * @throws PGPException if the trial was performed and the secret key cannot be unlocked
+     */
+    @Nullable Candidate offer(@Nonnull Candidate candidate) throws PGPException {
+        if (executor == null) {
+            return tryNow(candidate);
+        }
+        if (!hasRemainingTrials()) {
+            candidate.release();
+            return null;
+        }
+        trials++;
+        pending.add(candidate);
+        return null;
+    }
+
+    /**
+     * Perform the trial of a candidate immediately on the calling thread.
+     *
+     * @param candidate candidate
+     * @return candidate if the trial succeeded, null otherwise
+     * @throws PGPException if the secret key cannot be unlocked
+     */
+    @Nullable Candidate tryNow(@Nonnull Candidate candidate) throws PGPException {
+        if (!hasRemainingTrials()) {
+            LOGGER.debug("Maximum number of {} trial decryptions reached.", maxTrials);
+            candidate.release();
+            return null;
+        }
+        trials++;
+        return candidate.decrypts() ? candidate : null;
+    }
+
+    /**
+     * Dispatch all queued candidates to the executor and return the first candidate whose trial succeeded.
+     * Remaining trials are cancelled.
+     *
+     * @return successful candidate or null
+     * @throws PGPException if the calling thread is interrupted, or if no trial succeeded and a secret key
+     * could not be unlocked
+     */
+    @Nullable Candidate finish() throws PGPException {
+        if (pending.isEmpty()) {
+            return null;
+        }
+        if (pending.size() == 1) {
+            // No need to bother the executor
+            Candidate candidate = pending.remove(0);
+            return candidate.decrypts() ? candidate : null;
+        }
+
+        CompletionService<Candidate> completionService = new ExecutorCompletionService<>(executor);
+        List<Future<Candidate>> futures = new ArrayList<>(pending.size());
+        for (final Candidate candidate : pending) {
+            futures.add(completionService.submit(new Callable<Candidate>() {
+                @Override
+                public Candidate call() throws PGPException {
+                    if (!candidate.decrypts()) {
+                        return null;
+                    }
+                    synchronized (succeeded) {
+                        if (!finished) {
+                            succeeded.add(candidate);
+                            return candidate;
+                        }
+                    }
+                    // Another trial already won
+                    candidate.release();
+                    return null;
+                }
+            }));
+        }
+        pending.clear();
+
+        Candidate winner = null;
+        PGPException unlockException = null;
+        try {
+            for (int i = 0; i < futures.size() && winner == null; i++) {
+                Future<Candidate> future = completionService.take();
+                try {
+                    winner = future.get();
+                } catch (ExecutionException e) {
+                    LOGGER.debug("Trial decryption failed.", e.getCause());
+                    if (unlockException == null && e.getCause() instanceof PGPException) {
+                        unlockException = (PGPException) e.getCause();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PGPException("Interrupted during trial decryption.", e);
+        } finally {
+            for (Future<Candidate> future : futures) {
+                future.cancel(true);
+            }
+            synchronized (succeeded) {
+                finished = true;
+                for (Candidate candidate : succeeded) {
+                    if (candidate != winner) {
+                        candidate.release();
+                    }
+                }
+                succeeded.clear();
+            }
+        }
+
+        if (winner == null && unlockException != null) {
+            throw unlockException;
+        }
+        return winner;
+    }
+}
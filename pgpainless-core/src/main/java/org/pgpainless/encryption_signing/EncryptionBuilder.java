@@ -4,8 +4,12 @@
 
 package org.pgpainless.encryption_signing;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
@@ -17,6 +21,7 @@ import org.pgpainless.algorithm.CompressionAlgorithm;
 import org.pgpainless.algorithm.SymmetricKeyAlgorithm;
 import org.pgpainless.algorithm.negotiation.SymmetricKeyAlgorithmNegotiator;
 import org.pgpainless.key.SubkeyIdentifier;
+import org.pgpainless.util.MappedFileInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,6 +47,73 @@ public class EncryptionBuilder implements EncryptionBuilderInterface {
         }
     }
 
+    @Override
+    public ToFile onFile(@Nonnull File inputFile) {
+        return new ToFileImpl(inputFile);
+    }
+
+    static class ToFileImpl implements ToFile {
+
+        private final File inputFile;
+
+        ToFileImpl(File inputFile) {
+            this.inputFile = inputFile;
+        }
+
+        @Override
+        public WithFileOptions toFile(@Nonnull File outputFile) {
+            return new WithFileOptionsImpl(inputFile, outputFile);
+        }
+    }
+
+    static class WithFileOptionsImpl implements WithFileOptions {
+
+        private final File inputFile;
+        private final File outputFile;
+
+        WithFileOptionsImpl(File inputFile, File outputFile) {
+            this.inputFile = inputFile;
+            this.outputFile = outputFile;
+        }
+
+        @Override
+        public EncryptionResult withOptions(ProducerOptions options) throws PGPException, IOException {
+            if (options == null) {
+                throw new NullPointerException("ProducerOptions cannot be null.");
+            }
+            if (inputFile.getCanonicalFile().equals(outputFile.getCanonicalFile())) {
+                throw new IllegalArgumentException("Input and output file cannot be the same file.");
+            }
+
+            MappedFileInputStream in = new MappedFileInputStream(inputFile);
+            FileOutputStream fileOut = null;
+            boolean success = false;
+            try {
+                fileOut = new FileOutputStream(outputFile);
+                OutputStream out = new BufferedOutputStream(
+                        Channels.newOutputStream(fileOut.getChannel()), options.getBufferSize());
+                EncryptionStream encryptionStream = new EncryptionStream(out, options);
+                byte[] buffer = new byte[options.getBufferSize()];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    encryptionStream.write(buffer, 0, read);
+                }
+                encryptionStream.close();
+                out.flush();
+                success = true;
+                return encryptionStream.getResult();
+            } finally {
+                in.close();
+                if (fileOut != null) {
+                    fileOut.close();
+                    if (!success && !outputFile.delete()) {
+                        LOGGER.warn("Could not delete incomplete output file {}", outputFile);
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Negotiate the {@link SymmetricKeyAlgorithm} used for message encryption.
      *
@@ -4,6 +4,7 @@
 
 package org.pgpainless.encryption_signing;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import javax.annotation.Nonnull;
@@ -21,6 +22,16 @@ public interface EncryptionBuilderInterface {
      */
     WithOptions onOutputStream(@Nonnull OutputStream outputStream);
 
+    /**
+     * Encrypt and or sign the content of a file.
+     * The file is read through memory-mapped regions of its {@link java.nio.channels.FileChannel}
+     * and the result is written to the output file through a {@link java.nio.channels.FileChannel}.
+     *
+     * @param inputFile file containing the plain data
+     * @return api handle
+     */
+    ToFile onFile(@Nonnull File inputFile);
+
     interface WithOptions {
 
         /**
@@ -32,4 +43,30 @@ public interface EncryptionBuilderInterface {
         EncryptionStream withOptions(ProducerOptions options) throws PGPException, IOException;
 
     }
+
+    interface ToFile {
+
+        /**
+         * Specify the file the encrypted and or signed data is written to.
+         * If the file exists, it is overwritten.
+         *
+         * @param outputFile output file
+         * @return api handle
+         */
+        WithFileOptions toFile(@Nonnull File outputFile);
+
+    }
+
+    interface WithFileOptions {
+
+        /**
+         * Encrypt and or sign the input file with the given options and write the result to the output file.
+         * If the operation fails, the output file is deleted.
+         *
+         * @param options options
+         * @return result of the operation
+         */
+        EncryptionResult withOptions(ProducerOptions options) throws PGPException, IOException;
+
+    }
 }
@@ -4,6 +4,7 @@
 
 package org.pgpainless.encryption_signing;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -12,14 +13,17 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import org.bouncycastle.openpgp.PGPPublicKey;
 import org.bouncycastle.openpgp.PGPPublicKeyRing;
 import org.bouncycastle.openpgp.PGPPublicKeyRingCollection;
 import org.bouncycastle.openpgp.operator.PBEKeyEncryptionMethodGenerator;
 import org.bouncycastle.openpgp.operator.PGPKeyEncryptionMethodGenerator;
+import org.pgpainless.PGPainless;
 import org.pgpainless.algorithm.EncryptionPurpose;
 import org.pgpainless.algorithm.SymmetricKeyAlgorithm;
 import org.pgpainless.implementation.ImplementationFactory;
@@ -62,9 +66,11 @@ public class EncryptionOptions {
     private final Set<SubkeyIdentifier> encryptionKeys = new LinkedHashSet<>();
     private final Map<SubkeyIdentifier, KeyRingInfo> keyRingInfo = new HashMap<>();
     private final Map<SubkeyIdentifier, KeyAccessor> keyViews = new HashMap<>();
+    private final Map<PGPKeyEncryptionMethodGenerator, Passphrase> passphrases = new HashMap<>();
     private final EncryptionKeySelector encryptionKeySelector = encryptToAllCapableSubkeys();
 
     private SymmetricKeyAlgorithm encryptionAlgorithmOverride = null;
+    private ExecutorService keyWrappingExecutor = null;
 
     /**
      * Encrypt to keys both carrying the key flag {@link org.pgpainless.algorithm.KeyFlag#ENCRYPT_COMMS}
@@ -148,22 +154,9 @@ public class EncryptionOptions {
      * @return this
      */
     public EncryptionOptions addRecipient(PGPPublicKeyRing key, String userId, EncryptionKeySelector encryptionKeySelectionStrategy) {
-        KeyRingInfo info = new KeyRingInfo(key, new Date());
-
-        List<PGPPublicKey> encryptionSubkeys = encryptionKeySelectionStrategy
-                .selectEncryptionSubkeys(info.getEncryptionSubkeys(userId, purpose));
-        if (encryptionSubkeys.isEmpty()) {
-            throw new IllegalArgumentException("Key has no suitable encryption subkeys.");
-        }
-
-        for (PGPPublicKey encryptionSubkey : encryptionSubkeys) {
-            SubkeyIdentifier keyId = new SubkeyIdentifier(key, encryptionSubkey.getKeyID());
-            keyRingInfo.put(keyId, info);
-            keyViews.put(keyId, new KeyAccessor.ViaUserId(info, keyId, userId));
-            addRecipientKey(key, encryptionSubkey);
-        }
-
-        return this;
+        RecipientResolver.Recipient recipient = PGPainless.getPolicy().getRecipientResolver()
+                .resolve(key, purpose, userId);
+        return addRecipient(recipient, encryptionKeySelectionStrategy);
     }
 
     /**
@@ -184,13 +177,23 @@ public class EncryptionOptions {
      * @return this
      */
     public EncryptionOptions addRecipient(PGPPublicKeyRing key, EncryptionKeySelector encryptionKeySelectionStrategy) {
-        KeyRingInfo info = new KeyRingInfo(key, new Date());
+        RecipientResolver.Recipient recipient = PGPainless.getPolicy().getRecipientResolver()
+                .resolve(key, purpose, null);
+        KeyRingInfo info = recipient.getKeyRingInfo();
         Date primaryKeyExpiration = info.getPrimaryKeyExpirationDate();
         if (primaryKeyExpiration != null && primaryKeyExpiration.before(new Date())) {
             throw new IllegalArgumentException("Provided key " + OpenPgpFingerprint.of(key) + " is expired: " + primaryKeyExpiration);
         }
+        return addRecipient(recipient, encryptionKeySelectionStrategy);
+    }
+
+    private EncryptionOptions addRecipient(RecipientResolver.Recipient recipient,
+                                           EncryptionKeySelector encryptionKeySelectionStrategy) {
+        PGPPublicKeyRing key = recipient.getCertificate();
+        KeyRingInfo info = recipient.getKeyRingInfo();
+        // Selectors might modify the list, so hand out a copy
         List<PGPPublicKey> encryptionSubkeys = encryptionKeySelectionStrategy
-                .selectEncryptionSubkeys(info.getEncryptionSubkeys(purpose));
+                .selectEncryptionSubkeys(new ArrayList<>(recipient.getEncryptionSubkeys()));
         if (encryptionSubkeys.isEmpty()) {
             throw new IllegalArgumentException("Key has no suitable encryption subkeys.");
         }
@@ -198,20 +201,14 @@ public class EncryptionOptions {
         for (PGPPublicKey encryptionSubkey : encryptionSubkeys) {
             SubkeyIdentifier keyId = new SubkeyIdentifier(key, encryptionSubkey.getKeyID());
             keyRingInfo.put(keyId, info);
-            keyViews.put(keyId, new KeyAccessor.ViaKeyId(info, keyId));
-            addRecipientKey(key, encryptionSubkey);
+            keyViews.put(keyId, recipient.getKeyAccessor(encryptionSubkey));
+            encryptionKeys.add(keyId);
+            addEncryptionMethod(recipient.getEncryptionMethod(encryptionSubkey));
         }
 
         return this;
     }
 
-    private void addRecipientKey(PGPPublicKeyRing keyRing, PGPPublicKey key) {
-        encryptionKeys.add(new SubkeyIdentifier(keyRing, key.getKeyID()));
-        PGPKeyEncryptionMethodGenerator encryptionMethod = ImplementationFactory
-                .getInstance().getPublicKeyKeyEncryptionMethodGenerator(key);
-        addEncryptionMethod(encryptionMethod);
-    }
-
     /**
      * Add a symmetric passphrase which the message will be encrypted to.
      *
@@ -224,6 +221,8 @@ public class EncryptionOptions {
         }
         PBEKeyEncryptionMethodGenerator encryptionMethod = ImplementationFactory
                 .getInstance().getPBEKeyEncryptionMethodGenerator(passphrase);
+        // Remember the passphrase, so that an EncryptionTemplate can create a fresh method generator per message
+        passphrases.put(encryptionMethod, new Passphrase(passphrase.getChars()));
         return addEncryptionMethod(encryptionMethod);
     }
 
@@ -244,7 +243,12 @@ public class EncryptionOptions {
     }
 
     Set<PGPKeyEncryptionMethodGenerator> getEncryptionMethods() {
-        return new HashSet<>(encryptionMethods);
+        // Retain insertion order, so that the order of the ESK packets is deterministic
+        return new LinkedHashSet<>(encryptionMethods);
+    }
+
+    Map<PGPKeyEncryptionMethodGenerator, Passphrase> getPassphrases() {
+        return new HashMap<>(passphrases);
     }
 
     Map<SubkeyIdentifier, KeyRingInfo> getKeyRingInfo() {
@@ -281,6 +285,27 @@ public class EncryptionOptions {
         return this;
     }
 
+    /**
+     * Set an {@link ExecutorService} which is used to wrap the session key for the recipients in parallel.
+     * Wrapping the session key requires a public-key operation per recipient subkey, which adds up for messages
+     * with many recipients (e.g. mailing lists). If an executor is set and the message is encrypted for more than one
+     * subkey, the session key is wrapped for all recipients concurrently.
+     * The resulting PKESK packets are written in the order in which the recipients were added.
+     *
+     * The default value is null, which means the session key is wrapped for one recipient after another.
+     *
+     * @param executor executor or null
+     * @return this
+     */
+    public EncryptionOptions setKeyWrappingExecutor(@Nullable ExecutorService executor) {
+        this.keyWrappingExecutor = executor;
+        return this;
+    }
+
+    @Nullable ExecutorService getKeyWrappingExecutor() {
+        return keyWrappingExecutor;
+    }
+
     public interface EncryptionKeySelector {
         List<PGPPublicKey> selectEncryptionSubkeys(List<PGPPublicKey> encryptionCapableKeys);
     }
@@ -8,7 +8,9 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import org.bouncycastle.bcpg.ArmoredOutputStream;
 import org.bouncycastle.bcpg.BCPGOutputStream;
@@ -21,8 +23,8 @@ import org.bouncycastle.openpgp.operator.PGPDataEncryptorBuilder;
 import org.bouncycastle.openpgp.operator.PGPKeyEncryptionMethodGenerator;
 import org.pgpainless.algorithm.CompressionAlgorithm;
 import org.pgpainless.algorithm.SymmetricKeyAlgorithm;
-import org.pgpainless.implementation.ImplementationFactory;
 import org.pgpainless.key.SubkeyIdentifier;
+import org.pgpainless.signature.ParallelSignatureHasher;
 import org.pgpainless.util.ArmoredOutputStreamFactory;
 import org.pgpainless.util.StreamGeneratorWrapper;
 import org.slf4j.Logger;
@@ -36,14 +38,17 @@ public final class EncryptionStream extends OutputStream {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(EncryptionStream.class);
 
-    private final ProducerOptions options;
+    private final EncryptionTemplate template;
+    private final List<PGPKeyEncryptionMethodGenerator> encryptionMethods;
+    // Options whose cached signing keys are released once this stream is closed, or null
+    private final SigningOptions signingOptions;
+    private final Map<SubkeyIdentifier, SigningOptions.SigningMethod> signingMethods;
     private final EncryptionResult.Builder resultBuilder = EncryptionResult.builder();
 
     private boolean closed = false;
-    // 1 << 8 causes wrong partial body length encoding
-    //  1 << 9 fixes this.
-    //  see https://github.com/pgpainless/pgpainless/issues/160
-    private static final int BUFFER_SIZE = 1 << 9;
+    // Size and number of the buffers passed between pipeline stages
+    private static final int PIPELINE_CHUNK_SIZE = 1 << 16;
+    private static final int PIPELINE_CHUNK_COUNT = 4;
 
     OutputStream outermostStream;
     private ArmoredOutputStream armorOutputStream = null;
@@ -52,22 +57,67 @@ public final class EncryptionStream extends OutputStream {
     private BCPGOutputStream basicCompressionStream;
     private StreamGeneratorWrapper streamGeneratorWrapper;
     private OutputStream literalDataStream;
+    // Pipeline stages feeding the respective layers, or null if pipelining is disabled
+    private PipelineStageOutputStream armorStage;
+    private PipelineStageOutputStream encryptionStage;
+    private PipelineStageOutputStream compressionStage;
+    // Hashes data for multiple signatures in parallel, or null
+    private ParallelSignatureHasher signatureHasher;
 
     EncryptionStream(@Nonnull OutputStream targetOutputStream,
                      @Nonnull ProducerOptions options)
             throws IOException, PGPException {
-        this.options = options;
+        this(targetOutputStream, EncryptionTemplate.of(options), options.getSigningOptions());
+    }
+
+    private EncryptionStream(@Nonnull OutputStream targetOutputStream,
+                             @Nonnull EncryptionTemplate template,
+                             @Nullable SigningOptions signingOptions)
+            throws IOException, PGPException {
+        // The method and signature generators of the options are only used for this one message,
+        // so no fresh ones are needed
+        this(targetOutputStream, template, template.getEncryptionMethods(), template.getSigningMethods(),
+                signingOptions);
+    }
+
+    EncryptionStream(@Nonnull OutputStream targetOutputStream,
+                     @Nonnull EncryptionTemplate template,
+                     @Nonnull List<PGPKeyEncryptionMethodGenerator> encryptionMethods,
+                     @Nonnull Map<SubkeyIdentifier, SigningOptions.SigningMethod> signingMethods)
+            throws IOException, PGPException {
+        // The template owns the signing keys, so they are not released when this stream is closed
+        this(targetOutputStream, template, encryptionMethods, signingMethods, null);
+    }
+
+    private EncryptionStream(@Nonnull OutputStream targetOutputStream,
+                             @Nonnull EncryptionTemplate template,
+                             @Nonnull List<PGPKeyEncryptionMethodGenerator> encryptionMethods,
+                             @Nonnull Map<SubkeyIdentifier, SigningOptions.SigningMethod> signingMethods,
+                             @Nullable SigningOptions signingOptions)
+            throws IOException, PGPException {
+        this.template = template;
+        this.signingOptions = signingOptions;
+        this.encryptionMethods = encryptionMethods;
+        this.signingMethods = signingMethods;
         outermostStream = targetOutputStream;
 
-        prepareArmor();
-        prepareEncryption();
-        prepareCompression();
-        prepareOnePassSignatures();
-        prepareLiteralDataProcessing();
+        try {
+            prepareArmor();
+            prepareEncryption();
+            prepareCompression();
+            prepareOnePassSignatures();
+            prepareLiteralDataProcessing();
+            prepareSignatureHashing();
+        } catch (IOException | PGPException | RuntimeException e) {
+            // Do not leave worker tasks of already started pipeline stages behind
+            abortStages();
+            releasePrivateKeys();
+            throw e;
+        }
     }
 
-    private void prepareArmor() {
-        if (!options.isAsciiArmor()) {
+    private void prepareArmor() throws IOException {
+        if (!template.isAsciiArmor()) {
             LOGGER.debug("Output will be unarmored");
             return;
         }
@@ -75,39 +125,45 @@ public final class EncryptionStream extends OutputStream {
         LOGGER.debug("Wrap encryption output in ASCII armor");
         armorOutputStream = ArmoredOutputStreamFactory.get(outermostStream);
         outermostStream = armorOutputStream;
+
+        if (isPipelined()) {
+            armorStage = newStage("armor");
+            outermostStream = armorStage;
+        }
     }
 
     private void prepareEncryption() throws IOException, PGPException {
-        EncryptionOptions encryptionOptions = options.getEncryptionOptions();
-        if (encryptionOptions == null || encryptionOptions.getEncryptionMethods().isEmpty()) {
+        SymmetricKeyAlgorithm encryptionAlgorithm = template.getEncryptionAlgorithm();
+        resultBuilder.setEncryptionAlgorithm(encryptionAlgorithm);
+        PGPDataEncryptorBuilder dataEncryptorBuilder = template.getDataEncryptorBuilder();
+        if (dataEncryptorBuilder == null) {
             // No encryption options/methods -> no encryption
-            resultBuilder.setEncryptionAlgorithm(SymmetricKeyAlgorithm.NULL);
             return;
         }
 
-        SymmetricKeyAlgorithm encryptionAlgorithm = EncryptionBuilder.negotiateSymmetricEncryptionAlgorithm(encryptionOptions);
-        resultBuilder.setEncryptionAlgorithm(encryptionAlgorithm);
         LOGGER.debug("Encrypt message using {}", encryptionAlgorithm);
-        PGPDataEncryptorBuilder dataEncryptorBuilder =
-                ImplementationFactory.getInstance().getPGPDataEncryptorBuilder(encryptionAlgorithm);
-        dataEncryptorBuilder.setWithIntegrityPacket(true);
-
+        // The generator creates a fresh session key when it is opened
         PGPEncryptedDataGenerator encryptedDataGenerator =
                 new PGPEncryptedDataGenerator(dataEncryptorBuilder);
-        for (PGPKeyEncryptionMethodGenerator encryptionMethod : encryptionOptions.getEncryptionMethods()) {
+        for (PGPKeyEncryptionMethodGenerator encryptionMethod : encryptionMethods) {
             encryptedDataGenerator.addMethod(encryptionMethod);
         }
 
-        for (SubkeyIdentifier recipientSubkeyIdentifier : encryptionOptions.getEncryptionKeyIdentifiers()) {
+        for (SubkeyIdentifier recipientSubkeyIdentifier : template.getRecipients()) {
             resultBuilder.addRecipient(recipientSubkeyIdentifier);
         }
 
-        publicKeyEncryptedStream = encryptedDataGenerator.open(outermostStream, new byte[BUFFER_SIZE]);
+        publicKeyEncryptedStream = encryptedDataGenerator.open(outermostStream, new byte[template.getBufferSize()]);
         outermostStream = publicKeyEncryptedStream;
+
+        if (isPipelined()) {
+            encryptionStage = newStage("encryption");
+            outermostStream = encryptionStage;
+        }
     }
 
     private void prepareCompression() throws IOException {
-        CompressionAlgorithm compressionAlgorithm = EncryptionBuilder.negotiateCompressionAlgorithm(options);
+        CompressionAlgorithm compressionAlgorithm = template.getCompressionAlgorithm();
         resultBuilder.setCompressionAlgorithm(compressionAlgorithm);
         compressedDataGenerator = new PGPCompressedDataGenerator(
                 compressionAlgorithm.getAlgorithmId());
@@ -118,56 +174,86 @@ public final class EncryptionStream extends OutputStream {
         LOGGER.debug("Compress using {}", compressionAlgorithm);
         basicCompressionStream = new BCPGOutputStream(compressedDataGenerator.open(outermostStream));
         outermostStream = basicCompressionStream;
+
+        if (isPipelined()) {
+            compressionStage = newStage("compression");
+            outermostStream = compressionStage;
+        }
+    }
+
+    private PipelineStageOutputStream newStage(String name) throws IOException {
+        return new PipelineStageOutputStream(outermostStream, name,
+                PIPELINE_CHUNK_SIZE, PIPELINE_CHUNK_COUNT, template.getPipelineExecutor());
+    }
+
+    private boolean isPipelined() {
+        // Cleartext signing writes to the armor stream directly
+        return template.isPipelined() && !template.isCleartextSigned();
     }
 
     private void prepareOnePassSignatures() throws IOException, PGPException {
-        SigningOptions signingOptions = options.getSigningOptions();
-        if (signingOptions == null || signingOptions.getSigningMethods().isEmpty()) {
+        if (signingMethods.isEmpty()) {
             // No singing options/methods -> no signing
             return;
         }
 
         int sigIndex = 0;
-        for (SubkeyIdentifier identifier : signingOptions.getSigningMethods().keySet()) {
+        for (SigningOptions.SigningMethod signingMethod : signingMethods.values()) {
             sigIndex++;
-            SigningOptions.SigningMethod signingMethod = signingOptions.getSigningMethods().get(identifier);
 
             if (!signingMethod.isDetached()) {
                 PGPSignatureGenerator signatureGenerator = signingMethod.getSignatureGenerator();
                 // The last sig is not nested, all others are
-                boolean nested = sigIndex != signingOptions.getSigningMethods().size();
+                boolean nested = sigIndex != signingMethods.size();
                 signatureGenerator.generateOnePassVersion(nested).encode(outermostStream);
             }
         }
     }
 
     private void prepareLiteralDataProcessing() throws IOException {
-        if (options.isCleartextSigned()) {
-            SigningOptions.SigningMethod firstMethod = options.getSigningOptions().getSigningMethods().values().iterator().next();
+        if (template.isCleartextSigned()) {
+            SigningOptions.SigningMethod firstMethod = signingMethods.values().iterator().next();
             armorOutputStream.beginClearText(firstMethod.getHashAlgorithm().getAlgorithmId());
             return;
         }
 
-        streamGeneratorWrapper = StreamGeneratorWrapper.forStreamEncoding(options.getEncoding());
+        streamGeneratorWrapper = StreamGeneratorWrapper.forStreamEncoding(template.getEncoding());
         literalDataStream = streamGeneratorWrapper.open(outermostStream,
-                options.getFileName(), options.getModificationDate(), new byte[BUFFER_SIZE]);
+                template.getFileName(), template.getModificationDate(), new byte[template.getBufferSize()]);
         outermostStream = literalDataStream;
 
-        resultBuilder.setFileName(options.getFileName())
-                .setModificationDate(options.getModificationDate())
-                .setFileEncoding(options.getEncoding());
+        resultBuilder.setFileName(template.getFileName())
+                .setModificationDate(template.getModificationDate())
+                .setFileEncoding(template.getEncoding());
+    }
+
+    private void prepareSignatureHashing() {
+        if (!template.isParallelHashing() || signingMethods.size() < 2) {
+            return;
+        }
+
+        List<ParallelSignatureHasher.Target> targets = new ArrayList<>();
+        for (SigningOptions.SigningMethod signingMethod : signingMethods.values()) {
+            final PGPSignatureGenerator signatureGenerator = signingMethod.getSignatureGenerator();
+            targets.add(new ParallelSignatureHasher.Target() {
+                @Override
+                public void update(byte[] bytes, int offset, int length) {
+                    signatureGenerator.update(bytes, offset, length);
+                }
+            });
+        }
+        LOGGER.debug("Hash data for {} signatures in parallel", targets.size());
+        signatureHasher = new ParallelSignatureHasher(targets, template.getParallelHashingExecutor());
     }
 
     @Override
     public void write(int data) throws IOException {
         outermostStream.write(data);
-        SigningOptions signingOptions = options.getSigningOptions();
-        if (signingOptions == null || signingOptions.getSigningMethods().isEmpty()) {
+        if (signatureHasher != null) {
+            signatureHasher.update((byte) (data & 0xff));
             return;
         }
-
-        for (SubkeyIdentifier signingKey : signingOptions.getSigningMethods().keySet()) {
-            SigningOptions.SigningMethod signingMethod = signingOptions.getSigningMethods().get(signingKey);
+        for (SigningOptions.SigningMethod signingMethod : signingMethods.values()) {
             PGPSignatureGenerator signatureGenerator = signingMethod.getSignatureGenerator();
             byte asByte = (byte) (data & 0xff);
             signatureGenerator.update(asByte);
@@ -182,15 +268,14 @@ public final class EncryptionStream extends OutputStream {
 
     @Override
     public void write(@Nonnull byte[] buffer, int off, int len) throws IOException {
-        outermostStream.write(buffer, 0, len);
-        SigningOptions signingOptions = options.getSigningOptions();
-        if (signingOptions == null || signingOptions.getSigningMethods().isEmpty()) {
+        outermostStream.write(buffer, off, len);
+        if (signatureHasher != null) {
+            signatureHasher.update(buffer, off, len);
             return;
         }
-        for (SubkeyIdentifier signingKey : signingOptions.getSigningMethods().keySet()) {
-            SigningOptions.SigningMethod signingMethod = signingOptions.getSigningMethods().get(signingKey);
+        for (SigningOptions.SigningMethod signingMethod : signingMethods.values()) {
             PGPSignatureGenerator signatureGenerator = signingMethod.getSignatureGenerator();
-            signatureGenerator.update(buffer, 0, len);
+            signatureGenerator.update(buffer, off, len);
         }
     }
 
@@ -204,7 +289,24 @@ public final class EncryptionStream extends OutputStream {
         if (closed) {
             return;
         }
+        try {
+            closeLayers();
+        } finally {
+            if (!closed) {
+                // Closing failed, so stop the pipeline stages and signature hashing which were not finished yet
+                abortStages();
+            }
+            releasePrivateKeys();
+        }
+    }
+
+    private void releasePrivateKeys() {
+        if (signingOptions != null) {
+            signingOptions.releasePrivateKeys();
+        }
+    }
 
+    private void closeLayers() throws IOException {
         // Literal Data
         if (literalDataStream != null) {
             literalDataStream.flush();
@@ -214,7 +316,7 @@ public final class EncryptionStream extends OutputStream {
             streamGeneratorWrapper.close();
         }
 
-        if (options.isCleartextSigned()) {
+        if (template.isCleartextSigned()) {
             // Add linebreak between body and signatures
             // TODO: We should only add this line if required.
             //  I.e. if the message already ends with \n, don't add another linebreak.
@@ -223,6 +325,10 @@ public final class EncryptionStream extends OutputStream {
             armorOutputStream.endClearText();
         }
 
+        if (signatureHasher != null) {
+            signatureHasher.finish();
+        }
+
         try {
             writeSignatures();
         } catch (PGPException e) {
@@ -230,15 +336,18 @@ public final class EncryptionStream extends OutputStream {
         }
 
         // Compressed Data
+        closeStage(compressionStage);
         compressedDataGenerator.close();
 
         // Public Key Encryption
+        closeStage(encryptionStage);
         if (publicKeyEncryptedStream != null) {
             publicKeyEncryptedStream.flush();
             publicKeyEncryptedStream.close();
         }
 
         // Armor
+        closeStage(armorStage);
         if (armorOutputStream != null) {
             armorOutputStream.flush();
             armorOutputStream.close();
@@ -246,24 +355,41 @@ public final class EncryptionStream extends OutputStream {
         closed = true;
     }
 
+    private static void closeStage(PipelineStageOutputStream stage) throws IOException {
+        // Wait for the stage to pass all pending data to the layer it feeds
+        if (stage != null) {
+            stage.close();
+        }
+    }
+
+    private void abortStages() {
+        if (signatureHasher != null) {
+            signatureHasher.abort();
+        }
+        for (PipelineStageOutputStream stage : new PipelineStageOutputStream[] {compressionStage, encryptionStage, armorStage}) {
+            if (stage != null) {
+                stage.abort();
+            }
+        }
+    }
+
     private void writeSignatures() throws PGPException, IOException {
-        SigningOptions signingOptions = options.getSigningOptions();
-        if (signingOptions == null || signingOptions.getSigningMethods().isEmpty()) {
+        if (signingMethods.isEmpty()) {
             return;
         }
 
         // One-Pass-Signatures are bracketed. That means we have to append the signatures in reverse order
         //  compared to the one-pass-signature packets.
-        List<SubkeyIdentifier> signingKeys = new ArrayList<>(signingOptions.getSigningMethods().keySet());
+        List<SubkeyIdentifier> signingKeys = new ArrayList<>(signingMethods.keySet());
         for (int i = signingKeys.size() - 1; i >= 0; i--) {
             SubkeyIdentifier signingKey = signingKeys.get(i);
-            SigningOptions.SigningMethod signingMethod = signingOptions.getSigningMethods().get(signingKey);
+            SigningOptions.SigningMethod signingMethod = signingMethods.get(signingKey);
             PGPSignatureGenerator signatureGenerator = signingMethod.getSignatureGenerator();
             PGPSignature signature = signatureGenerator.generate();
             if (signingMethod.isDetached()) {
                 resultBuilder.addDetachedSignature(signingKey, signature);
             }
-            if (!signingMethod.isDetached() || options.isCleartextSigned()) {
+            if (!signingMethod.isDetached() || template.isCleartextSigned()) {
                 signature.encode(outermostStream);
             }
         }
@@ -0,0 +1,285 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.encryption_signing;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.operator.PBEKeyEncryptionMethodGenerator;
+import org.bouncycastle.openpgp.operator.PGPDataEncryptorBuilder;
+import org.bouncycastle.openpgp.operator.PGPKeyEncryptionMethodGenerator;
+import org.pgpainless.algorithm.CompressionAlgorithm;
+import org.pgpainless.algorithm.StreamEncoding;
+import org.pgpainless.algorithm.SymmetricKeyAlgorithm;
+import org.pgpainless.implementation.ImplementationFactory;
+import org.pgpainless.key.SubkeyIdentifier;
+import org.pgpainless.util.Passphrase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Immutable, prepared setup for encrypting and/or signing many messages with identical {@link ProducerOptions}.
+ *
+ * Creating an {@link EncryptionStream} from {@link ProducerOptions} negotiates the symmetric encryption and
+ * compression algorithms and requires the signing keys to be unlocked when the {@link SigningOptions} are built.
+ * Applications that produce large numbers of small messages with the same recipients and signing keys can
+ * prepare a template once using {@link #of(ProducerOptions)} and then create an {@link EncryptionStream} per message.
+ * Each stream uses a fresh session key, fresh signature generators and fresh key encryption methods for the
+ * passphrases added via {@link EncryptionOptions#addPassphrase(Passphrase)}, while the negotiated algorithms,
+ * the key encryption methods of the recipients and the unlocked signing keys are shared.
+ *
+ * The template takes a snapshot of the options. Later modifications of the options do not affect the template.
+ * Signing keys taken from a {@link org.pgpainless.key.protection.PrivateKeyCache} stay leased until
+ * {@link SigningOptions#releasePrivateKeys()} is called on the options the template was created from.
+ * Algorithms are negotiated according to the {@link org.pgpainless.policy.Policy} that is in place when the
+ * template is created.
+ *
+ * A template can be shared between threads, as long as the key wrapping {@link ExecutorService} it was built with
+ * can be used concurrently. Custom {@link PBEKeyEncryptionMethodGenerator PBEKeyEncryptionMethodGenerators} added via
+ * {@link EncryptionOptions#addEncryptionMethod(PGPKeyEncryptionMethodGenerator)} hold mutable state and are shared
+ * by all streams, so a template using them must not be used concurrently.
+ */
+public final class EncryptionTemplate {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EncryptionTemplate.class);
+
+    private final boolean asciiArmor;
+    private final boolean cleartextSigned;
+    private final boolean pipelined;
+    private final ExecutorService pipelineExecutor;
+    private final boolean parallelHashing;
+    private final ExecutorService parallelHashingExecutor;
+    private final int bufferSize;
+    private final String fileName;
+    private final Date modificationDate;
+    private final StreamEncoding encoding;
+
+    private final SymmetricKeyAlgorithm encryptionAlgorithm;
+    private final PGPDataEncryptorBuilder dataEncryptorBuilder;
+    private final List<PGPKeyEncryptionMethodGenerator> encryptionMethods;
+    // Passphrases of the PBE method generators, which are created again for each message
+    private final Map<PGPKeyEncryptionMethodGenerator, Passphrase> passphrases;
+    private final ImplementationFactory implementationFactory;
+    private final Set<SubkeyIdentifier> recipients;
+    private final CompressionAlgorithm compressionAlgorithm;
+    private final Map<SubkeyIdentifier, SigningOptions.SigningMethod> signingMethods;
+
+    private EncryptionTemplate(ProducerOptions options) {
+        this.asciiArmor = options.isAsciiArmor();
+        this.cleartextSigned = options.isCleartextSigned();
+        this.pipelined = options.isPipelined();
+        this.pipelineExecutor = options.getPipelineExecutor();
+        this.parallelHashing = options.isParallelHashing();
+        this.parallelHashingExecutor = options.getParallelHashingExecutor();
+        this.bufferSize = options.getBufferSize();
+        this.fileName = options.getFileName();
+        this.modificationDate = options.getModificationDate();
+        this.encoding = options.getEncoding();
+
+        this.implementationFactory = ImplementationFactory.getInstance();
+        EncryptionOptions encryptionOptions = options.getEncryptionOptions();
+        if (encryptionOptions == null || encryptionOptions.getEncryptionMethods().isEmpty()) {
+            // No encryption options/methods -> no encryption
+            this.encryptionAlgorithm = SymmetricKeyAlgorithm.NULL;
+            this.dataEncryptorBuilder = null;
+            this.encryptionMethods = Collections.emptyList();
+            this.passphrases = Collections.emptyMap();
+            this.recipients = Collections.emptySet();
+        } else {
+            this.encryptionAlgorithm = EncryptionBuilder.negotiateSymmetricEncryptionAlgorithm(encryptionOptions);
+            this.dataEncryptorBuilder = ImplementationFactory.getInstance().getPGPDataEncryptorBuilder(encryptionAlgorithm);
+            dataEncryptorBuilder.setWithIntegrityPacket(true);
+            // Initialize the source of session keys up front, so that streams on different threads do not race for it
+            dataEncryptorBuilder.getSecureRandom();
+            this.encryptionMethods = Collections.unmodifiableList(bundleEncryptionMethods(encryptionOptions));
+            this.passphrases = Collections.unmodifiableMap(encryptionOptions.getPassphrases());
+            this.recipients = Collections.unmodifiableSet(
+                    new LinkedHashSet<>(encryptionOptions.getEncryptionKeyIdentifiers()));
+        }
+
+        this.compressionAlgorithm = EncryptionBuilder.negotiateCompressionAlgorithm(options);
+
+        SigningOptions signingOptions = options.getSigningOptions();
+        this.signingMethods = signingOptions == null ?
+                Collections.<SubkeyIdentifier, SigningOptions.SigningMethod>emptyMap() :
+                Collections.unmodifiableMap(new LinkedHashMap<>(signingOptions.getSigningMethods()));
+    }
+
+    /**
+     * Prepare a template from the given options.
+     *
+     * @param options options
+     * @return template
+     */
+    public static EncryptionTemplate of(@Nonnull ProducerOptions options) {
+        if (options == null) {
+            throw new NullPointerException("ProducerOptions cannot be null.");
+        }
+        return new EncryptionTemplate(options);
+    }
+
+    /**
+     * Create an {@link EncryptionStream}, which encrypts and/or signs a single message and writes the result
+     * to the given {@link OutputStream}.
+     *
+     * @param outputStream output stream for the encrypted and/or signed message
+     * @return encryption stream
+     * @throws PGPException if the signature generators cannot be initialized
+     * @throws IOException if the message header cannot be written
+     */
+    public EncryptionStream onOutputStream(@Nonnull OutputStream outputStream) throws PGPException, IOException {
+        return new EncryptionStream(outputStream, this, newEncryptionMethods(), newSigningMethods());
+    }
+
+    /**
+     * Return the symmetric algorithm which is used to encrypt messages.
+     * If messages are not encrypted, this method returns {@link SymmetricKeyAlgorithm#NULL}.
+     *
+     * @return symmetric encryption algorithm
+     */
+    public @Nonnull SymmetricKeyAlgorithm getEncryptionAlgorithm() {
+        return encryptionAlgorithm;
+    }
+
+    /**
+     * Return the algorithm which is used to compress messages.
+     *
+     * @return compression algorithm
+     */
+    public @Nonnull CompressionAlgorithm getCompressionAlgorithm() {
+        return compressionAlgorithm;
+    }
+
+    /**
+     * Return the identifiers of the subkeys messages are encrypted for.
+     *
+     * @return recipient subkeys
+     */
+    public @Nonnull Set<SubkeyIdentifier> getRecipients() {
+        return recipients;
+    }
+
+    boolean isAsciiArmor() {
+        return asciiArmor;
+    }
+
+    boolean isCleartextSigned() {
+        return cleartextSigned;
+    }
+
+    boolean isPipelined() {
+        return pipelined;
+    }
+
+    @Nullable ExecutorService getPipelineExecutor() {
+        return pipelineExecutor;
+    }
+
+    boolean isParallelHashing() {
+        return parallelHashing;
+    }
+
+    @Nullable ExecutorService getParallelHashingExecutor() {
+        return parallelHashingExecutor;
+    }
+
+    int getBufferSize() {
+        return bufferSize;
+    }
+
+    String getFileName() {
+        return fileName;
+    }
+
+    Date getModificationDate() {
+        return modificationDate;
+    }
+
+    StreamEncoding getEncoding() {
+        return encoding;
+    }
+
+    @Nullable PGPDataEncryptorBuilder getDataEncryptorBuilder() {
+        return dataEncryptorBuilder;
+    }
+
+    List<PGPKeyEncryptionMethodGenerator> getEncryptionMethods() {
+        return encryptionMethods;
+    }
+
+    Map<SubkeyIdentifier, SigningOptions.SigningMethod> getSigningMethods() {
+        return signingMethods;
+    }
+
+    /**
+     * Return the encryption methods for a new message.
+     * PBE method generators hold mutable state (e.g. the salt of their S2K), so a fresh generator is created from
+     * the passphrase for each message.
+     */
+    private List<PGPKeyEncryptionMethodGenerator> newEncryptionMethods() {
+        if (passphrases.isEmpty()) {
+            return encryptionMethods;
+        }
+        List<PGPKeyEncryptionMethodGenerator> fresh = new ArrayList<>(encryptionMethods.size());
+        for (PGPKeyEncryptionMethodGenerator encryptionMethod : encryptionMethods) {
+            Passphrase passphrase = passphrases.get(encryptionMethod);
+            fresh.add(passphrase == null ? encryptionMethod :
+                    implementationFactory.getPBEKeyEncryptionMethodGenerator(passphrase));
+        }
+        return fresh;
+    }
+
+    private Map<SubkeyIdentifier, SigningOptions.SigningMethod> newSigningMethods() throws PGPException {
+        if (signingMethods.isEmpty()) {
+            return signingMethods;
+        }
+        Map<SubkeyIdentifier, SigningOptions.SigningMethod> fresh = new LinkedHashMap<>(signingMethods.size());
+        for (Map.Entry<SubkeyIdentifier, SigningOptions.SigningMethod> entry : signingMethods.entrySet()) {
+            fresh.put(entry.getKey(), entry.getValue().newInstance());
+        }
+        return fresh;
+    }
+
+    /**
+     * Return the encryption methods, which are added to the encrypted data generator of each message.
+     * If a key wrapping executor is set, public-key methods are bundled, so that the session key is wrapped for
+     * all recipients in parallel.
+     *
+     * @param encryptionOptions encryption options
+     * @return encryption methods
+     */
+    private static List<PGPKeyEncryptionMethodGenerator> bundleEncryptionMethods(EncryptionOptions encryptionOptions) {
+        ExecutorService executor = encryptionOptions.getKeyWrappingExecutor();
+        List<PGPKeyEncryptionMethodGenerator> methods = new ArrayList<>();
+        List<PGPKeyEncryptionMethodGenerator> publicKeyMethods = new ArrayList<>();
+        for (PGPKeyEncryptionMethodGenerator encryptionMethod : encryptionOptions.getEncryptionMethods()) {
+            if (executor != null && !(encryptionMethod instanceof PBEKeyEncryptionMethodGenerator)) {
+                publicKeyMethods.add(encryptionMethod);
+            } else {
+                methods.add(encryptionMethod);
+            }
+        }
+
+        if (publicKeyMethods.size() == 1) {
+            methods.add(publicKeyMethods.get(0));
+        } else if (!publicKeyMethods.isEmpty()) {
+            LOGGER.debug("Wrap session key for {} recipients in parallel", publicKeyMethods.size());
+            methods.add(new ParallelKeyEncryptionMethodGenerator(publicKeyMethods, executor));
+        }
+        return methods;
+    }
+}
@@ -0,0 +1,101 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.encryption_signing;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import javax.annotation.Nonnull;
+
+import org.bouncycastle.bcpg.BCPGOutputStream;
+import org.bouncycastle.bcpg.ContainedPacket;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.operator.PGPKeyEncryptionMethodGenerator;
+
+/**
+ * {@link PGPKeyEncryptionMethodGenerator} which wraps the session key for many recipients in parallel.
+ *
+ * {@link org.bouncycastle.openpgp.PGPEncryptedDataGenerator} wraps the session key for each of its methods one after
+ * another, when it is opened. For messages with thousands of recipients, the public-key operations add up to seconds
+ * before the first byte of payload is written.
+ * This generator bundles the methods of all recipients. Once the session key is known, it dispatches the wrapping
+ * for each recipient to an {@link ExecutorService} and emits the resulting PKESK packets in the order of the bundled
+ * methods, so the output does not depend on the scheduling of the tasks.
+ */
+final class ParallelKeyEncryptionMethodGenerator extends PGPKeyEncryptionMethodGenerator {
+
+    private final List<PGPKeyEncryptionMethodGenerator> methods;
+    private final ExecutorService executor;
+
+    /**
+     * Create a generator.
+     *
+     * @param methods public-key encryption methods of the recipients
+     * @param executor executor on which the session key is wrapped
+     */
+    ParallelKeyEncryptionMethodGenerator(@Nonnull List<PGPKeyEncryptionMethodGenerator> methods,
+                                         @Nonnull ExecutorService executor) {
+        this.methods = Collections.unmodifiableList(new ArrayList<>(methods));
+        this.executor = executor;
+    }
+
+    @Override
+    public ContainedPacket generate(final int encAlgorithm, final byte[] sessionInfo) throws PGPException {
+        List<Future<ContainedPacket>> futures = new ArrayList<>(methods.size());
+        for (final PGPKeyEncryptionMethodGenerator method : methods) {
+            futures.add(executor.submit(new Callable<ContainedPacket>() {
+                @Override
+                public ContainedPacket call() throws PGPException {
+                    return method.generate(encAlgorithm, sessionInfo);
+                }
+            }));
+        }
+
+        List<ContainedPacket> packets = new ArrayList<>(futures.size());
+        try {
+            for (Future<ContainedPacket> future : futures) {
+                packets.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PGPException("Interrupted while wrapping the session key.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof PGPException) {
+                throw (PGPException) cause;
+            }
+            throw new PGPException("Cannot wrap the session key.", e);
+        } finally {
+            for (Future<ContainedPacket> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return new PacketSequence(packets);
+    }
+
+    /**
+     * Sequence of packets which is encoded as if each packet was written on its own.
+     */
+    private static final class PacketSequence extends ContainedPacket {
+
+        private final List<ContainedPacket> packets;
+
+        PacketSequence(List<ContainedPacket> packets) {
+            this.packets = packets;
+        }
+
+        @Override
+        public void encode(BCPGOutputStream pOut) throws IOException {
+            for (ContainedPacket packet : packets) {
+                packet.encode(pOut);
+            }
+        }
+    }
+}
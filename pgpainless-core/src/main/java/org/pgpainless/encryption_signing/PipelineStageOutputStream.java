@@ -0,0 +1,361 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.encryption_signing;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * {@link OutputStream} which hands written data over to a worker task, which writes it to the
+ * downstream {@link OutputStream}.
+ * This way, processing of the downstream (e.g. encryption or ASCII armoring) runs concurrently to the processing
+ * of upstream layers (e.g. compression).
+ *
+ * The worker task runs on the given {@link ExecutorService}, or on a shared pool of daemon threads if no executor
+ * is given. If the writing thread would have to wait for a worker task which has not started yet, it runs the stage
+ * itself from then on. This way, stages cannot starve each other on a small or busy executor, at the cost of
+ * concurrency.
+ *
+ * Data is passed in chunks of reusable buffers. The number of buffers is bounded, so a slow downstream blocks
+ * the writing thread instead of buffering unlimited amounts of data.
+ * The order of the data is preserved, so the downstream receives the exact same bytes as if it was written to directly.
+ *
+ * Closing this stream waits for the worker task to write all pending data, but does NOT close the downstream.
+ * Exceptions of the downstream are rethrown to the writing thread on the next write, flush or close.
+ * {@link #abort()} stops the worker task without waiting for pending data. If the stream is neither closed nor aborted,
+ * the worker task stops once the stream was garbage collected.
+ */
+final class PipelineStageOutputStream extends OutputStream {
+
+    private static final Chunk FLUSH = new Chunk(0);
+    private static final Chunk END = new Chunk(0);
+
+    // Interval in which an idle worker checks, whether its stream was abandoned
+    private static final long ABANDONED_CHECK_INTERVAL_MILLIS = 1000;
+    // Time the writing thread waits for a worker task to start, before it runs the stage itself
+    private static final long WORKER_START_TIMEOUT_MILLIS = 10;
+
+    private final String name;
+    private final Worker worker;
+    private final Future<?> task;
+
+    private Chunk current = null;
+    private boolean closed = false;
+    // True if the writing thread runs the stage itself, since the worker task did not start in time
+    private boolean inline = false;
+
+    /**
+     * Create a pipeline stage and start its worker task.
+     *
+     * @param downstream stream that is written to by the worker task
+     * @param name name of the stage, used in exception messages
+     * @param chunkSize size of each buffer in bytes
+     * @param chunkCount number of buffers
+     * @param executor executor to run the worker task on, or null to use a shared pool of daemon threads
+     * @throws IOException if the executor rejects the worker task
+     */
+    PipelineStageOutputStream(@Nonnull OutputStream downstream,
+                              @Nonnull String name,
+                              int chunkSize,
+                              int chunkCount,
+                              @Nullable ExecutorService executor)
+            throws IOException {
+        if (chunkSize <= 0 || chunkCount <= 0) {
+            throw new IllegalArgumentException("Chunk size and count must be positive.");
+        }
+        this.name = name;
+        this.worker = new Worker(this, downstream, chunkSize, chunkCount);
+        try {
+            this.task = (executor != null ? executor : SharedExecutor.INSTANCE).submit(worker);
+        } catch (RejectedExecutionException e) {
+            throw new IOException("Cannot start pipeline stage " + name, e);
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureChunk();
+        current.buffer[current.length++] = (byte) b;
+        if (current.length == current.buffer.length) {
+            submit(current);
+            current = null;
+        }
+    }
+
+    @Override
+    public void write(@Nonnull byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            ensureChunk();
+            int n = Math.min(len, current.buffer.length - current.length);
+            System.arraycopy(b, off, current.buffer, current.length, n);
+            current.length += n;
+            off += n;
+            len -= n;
+            if (current.length == current.buffer.length) {
+                submit(current);
+                current = null;
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        throwIfClosed();
+        submitCurrent();
+        submit(FLUSH);
+    }
+
+    /**
+     * Write all pending data to the downstream and stop the worker task.
+     * The downstream is not closed.
+     * If writing the pending data fails, the worker task is stopped nonetheless.
+     *
+     * @throws IOException if the downstream threw an exception
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            submitCurrent();
+            if (runInline()) {
+                closed = true;
+            } else {
+                submit(END);
+                closed = true;
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for pipeline stage " + name);
+        } catch (ExecutionException e) {
+            throw new IOException("Exception in pipeline stage " + name, e.getCause());
+        } finally {
+            if (!task.isDone()) {
+                abort();
+            }
+        }
+        throwIfFailed();
+    }
+
+    /**
+     * Stop the worker task without writing pending data to the downstream.
+     * This is used to tear down the stage if the message cannot be completed.
+     * Aborting a closed stage has no effect.
+     */
+    void abort() {
+        closed = true;
+        worker.stopped = true;
+        task.cancel(true);
+    }
+
+    private void ensureChunk() throws IOException {
+        throwIfClosed();
+        throwIfFailed();
+        if (current != null) {
+            return;
+        }
+        try {
+            current = worker.free.poll(WORKER_START_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            if (current == null && runInline()) {
+                // All chunks were written by the writing thread
+                current = worker.free.poll();
+            }
+            if (current == null) {
+                current = worker.free.take();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for pipeline stage " + name);
+        }
+        current.length = 0;
+    }
+
+    private void submitCurrent() throws IOException {
+        if (current == null) {
+            return;
+        }
+        if (current.length == 0) {
+            worker.free.add(current);
+        } else {
+            submit(current);
+        }
+        current = null;
+    }
+
+    private void submit(Chunk chunk) throws IOException {
+        throwIfFailed();
+        try {
+            if (!inline && worker.pending.offer(chunk, WORKER_START_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+            if (runInline()) {
+                worker.process(chunk);
+                throwIfFailed();
+                return;
+            }
+            worker.pending.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for pipeline stage " + name);
+        }
+    }
+
+    /**
+     * Take over the stage on the writing thread, if the worker task has not started yet.
+     * Pending chunks are written to the downstream before returning.
+     *
+     * @return true if the writing thread runs the stage
+     * @throws IOException if the downstream threw an exception
+     */
+    private boolean runInline() throws IOException {
+        if (inline) {
+            return true;
+        }
+        if (!worker.started.compareAndSet(false, true)) {
+            return false;
+        }
+        inline = true;
+        task.cancel(false);
+        Chunk chunk;
+        while ((chunk = worker.pending.poll()) != null) {
+            worker.process(chunk);
+        }
+        throwIfFailed();
+        return true;
+    }
+
+    private void throwIfClosed() throws IOException {
+        if (closed) {
+            throw new IOException("Pipeline stage " + name + " is closed.");
+        }
+    }
+
+    private void throwIfFailed() throws IOException {
+        IOException e = worker.error;
+        if (e != null) {
+            throw new IOException("Exception in pipeline stage " + name, e);
+        }
+    }
+
+    /**
+     * Task which writes submitted chunks to the downstream.
+     * The worker only holds a weak reference to its stage, so that it can stop once the stage was abandoned.
+     */
+    private static final class Worker implements Runnable {
+
+        private final WeakReference<PipelineStageOutputStream> stage;
+        private final OutputStream downstream;
+        private final BlockingQueue<Chunk> pending;
+        private final BlockingQueue<Chunk> free;
+        private volatile IOException error = null;
+        private volatile boolean stopped = false;
+        // Set by whoever runs the stage first, the worker task or the writing thread
+        private final AtomicBoolean started = new AtomicBoolean(false);
+
+        Worker(PipelineStageOutputStream stage, OutputStream downstream, int chunkSize, int chunkCount) {
+            this.stage = new WeakReference<>(stage);
+            this.downstream = downstream;
+            // Room for all chunks plus a flush and an end marker, so that the worker never blocks on returning a chunk
+            this.pending = new ArrayBlockingQueue<>(chunkCount + 2);
+            this.free = new ArrayBlockingQueue<>(chunkCount);
+            for (int i = 0; i < chunkCount; i++) {
+                free.add(new Chunk(chunkSize));
+            }
+        }
+
+        @Override
+        public void run() {
+            if (!started.compareAndSet(false, true)) {
+                // The writing thread took over
+                return;
+            }
+            while (!stopped) {
+                Chunk chunk;
+                try {
+                    chunk = pending.poll(ABANDONED_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    error = new InterruptedIOException("Pipeline stage was interrupted.");
+                    return;
+                }
+                if (chunk == null) {
+                    if (stage.get() == null) {
+                        // The stage was garbage collected without being closed
+                        return;
+                    }
+                    continue;
+                }
+                if (chunk == END) {
+                    return;
+                }
+                process(chunk);
+            }
+        }
+
+        void process(Chunk chunk) {
+            // After an error, keep consuming chunks, so that the writing thread does not block forever
+            if (error == null) {
+                try {
+                    if (chunk == FLUSH) {
+                        downstream.flush();
+                    } else {
+                        downstream.write(chunk.buffer, 0, chunk.length);
+                    }
+                } catch (IOException e) {
+                    error = e;
+                } catch (RuntimeException e) {
+                    error = new IOException(e);
+                }
+            }
+            if (chunk != FLUSH) {
+                free.add(chunk);
+            }
+        }
+    }
+
+    /**
+     * Pool of daemon threads, which is used if no executor is given.
+     * Idle threads are discarded after a minute.
+     */
+    private static final class SharedExecutor {
+
+        private static final ExecutorService INSTANCE = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(@Nonnull Runnable runnable) {
+                Thread thread = new Thread(runnable, "pgpainless-pipeline-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    private static final class Chunk {
+
+        private final byte[] buffer;
+        private int length = 0;
+
+        Chunk(int size) {
+            this.buffer = new byte[size];
+        }
+    }
+}
@@ -5,6 +5,7 @@
 package org.pgpainless.encryption_signing;
 
 import java.util.Date;
+import java.util.concurrent.ExecutorService;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -15,6 +16,17 @@ import org.pgpainless.algorithm.StreamEncoding;
 
 public final class ProducerOptions {
 
+    /**
+     * Smallest allowed buffer size. 512 bytes is the minimal length of the first partial body length chunk.
+     * Smaller buffers cause wrong partial body length encoding, see https://github.com/pgpainless/pgpainless/issues/160
+     */
+    public static final int MIN_BUFFER_SIZE = 1 << 9;
+    /**
+     * Largest allowed buffer size (1 MiB).
+     */
+    public static final int MAX_BUFFER_SIZE = 1 << 20;
+    public static final int DEFAULT_BUFFER_SIZE = MIN_BUFFER_SIZE;
+
     private final EncryptionOptions encryptionOptions;
     private final SigningOptions signingOptions;
     private String fileName = "";
@@ -25,6 +37,11 @@ public final class ProducerOptions {
     private CompressionAlgorithm compressionAlgorithmOverride = PGPainless.getPolicy().getCompressionAlgorithmPolicy()
             .defaultCompressionAlgorithm();
     private boolean asciiArmor = true;
+    private boolean pipelined = false;
+    private ExecutorService pipelineExecutor = null;
+    private boolean parallelHashing = false;
+    private ExecutorService parallelHashingExecutor = null;
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
 
     private ProducerOptions(EncryptionOptions encryptionOptions, SigningOptions signingOptions) {
         this.encryptionOptions = encryptionOptions;
@@ -107,6 +124,133 @@ public final class ProducerOptions {
         return asciiArmor;
     }
 
+    /**
+     * Specify, whether compression, encryption and ASCII armoring shall be performed by separate threads.
+     * In pipelined mode, each of these layers runs on its own worker thread, which allows the processing of large
+     * messages to make use of multiple CPU cores. The output is identical to the output in non-pipelined mode.
+     * The worker tasks run on the executor set via {@link #setPipelineExecutor(ExecutorService)}, or on a shared pool
+     * of daemon threads.
+     *
+     * Pipelining is only worth it for large messages, since it occupies up to three additional threads
+     * per {@link EncryptionStream}. It does not apply to cleartext signed messages.
+     * The default value is false.
+     *
+     * @param pipelined pipelined
+     * @return builder
+     */
+    public ProducerOptions setPipelined(boolean pipelined) {
+        this.pipelined = pipelined;
+        return this;
+    }
+
+    /**
+     * Return true if compression, encryption and ASCII armoring shall be performed by separate threads.
+     *
+     * @return pipelined
+     */
+    public boolean isPipelined() {
+        return pipelined;
+    }
+
+    /**
+     * Set an {@link ExecutorService} which runs the worker tasks of pipelined {@link EncryptionStream EncryptionStreams}.
+     * Each open stream occupies up to three threads of the executor until it is closed. If a worker task does not
+     * start in time, because the executor is busy or has too few threads, the stream processes the respective layer
+     * on the writing thread instead, so streams never block on the executor. To make full use of pipelining,
+     * the executor should be able to run three tasks per concurrently open stream (e.g. a cached thread pool).
+     *
+     * The default value is null, which means the worker tasks run on a shared pool of daemon threads.
+     *
+     * @see #setPipelined(boolean)
+     * @param executor executor or null
+     * @return builder
+     */
+    public ProducerOptions setPipelineExecutor(@Nullable ExecutorService executor) {
+        this.pipelineExecutor = executor;
+        return this;
+    }
+
+    @Nullable ExecutorService getPipelineExecutor() {
+        return pipelineExecutor;
+    }
+
+    /**
+     * Specify, whether the data shall be hashed for multiple signatures in parallel.
+     * If enabled and the message is signed using more than one signing method, each signature is calculated
+     * by its own worker thread, so that signing with multiple keys takes about as long as signing with one key.
+     * The worker tasks run on the executor set via {@link #setParallelHashingExecutor(ExecutorService)}, or on a shared
+     * pool of daemon threads.
+     * The default value is false.
+     *
+     * @param parallelHashing parallel hashing
+     * @return builder
+     */
+    public ProducerOptions setParallelHashing(boolean parallelHashing) {
+        this.parallelHashing = parallelHashing;
+        return this;
+    }
+
+    /**
+     * Return true if the data shall be hashed for multiple signatures in parallel.
+     *
+     * @return parallel hashing
+     */
+    public boolean isParallelHashing() {
+        return parallelHashing;
+    }
+
+    /**
+     * Set an {@link ExecutorService} which runs the worker tasks hashing the data for multiple signatures in parallel.
+     * The tasks never wait for data, so the executor can be bounded (e.g. a fixed thread pool) and shared across
+     * streams.
+     *
+     * The default value is null, which means the worker tasks run on a shared pool of daemon threads.
+     *
+     * @see #setParallelHashing(boolean)
+     * @param executor executor or null
+     * @return builder
+     */
+    public ProducerOptions setParallelHashingExecutor(@Nullable ExecutorService executor) {
+        this.parallelHashingExecutor = executor;
+        return this;
+    }
+
+    @Nullable ExecutorService getParallelHashingExecutor() {
+        return parallelHashingExecutor;
+    }
+
+    /**
+     * Set the size of the buffers used to encode literal data and encrypted data packets.
+     * The buffer size determines the length of the partial body length chunks of these packets.
+     * Larger buffers result in fewer, larger writes and less packet framing overhead, which increases the throughput
+     * for large messages at the cost of memory.
+     *
+     * The buffer size must be a power of two between {@link #MIN_BUFFER_SIZE} (512 bytes) and
+     * {@link #MAX_BUFFER_SIZE} (1 MiB). The default value is {@link #DEFAULT_BUFFER_SIZE}.
+     *
+     * @param bufferSize buffer size in bytes
+     * @return builder
+     */
+    public ProducerOptions setBufferSize(int bufferSize) {
+        if (bufferSize < MIN_BUFFER_SIZE || bufferSize > MAX_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Buffer size must be between " + MIN_BUFFER_SIZE + " and " + MAX_BUFFER_SIZE + " bytes.");
+        }
+        if (Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("Buffer size must be a power of two.");
+        }
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    /**
+     * Return the size of the buffers used to encode literal data and encrypted data packets.
+     *
+     * @return buffer size in bytes
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
     public ProducerOptions setCleartextSigned() {
         if (signingOptions == null) {
             throw new IllegalArgumentException("Signing Options cannot be null if cleartext signing is enabled.");
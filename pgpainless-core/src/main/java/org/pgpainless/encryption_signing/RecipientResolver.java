@@ -0,0 +1,376 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.encryption_signing;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.operator.PGPKeyEncryptionMethodGenerator;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.EncryptionPurpose;
+import org.pgpainless.algorithm.SymmetricKeyAlgorithm;
+import org.pgpainless.implementation.ImplementationFactory;
+import org.pgpainless.key.OpenPgpFingerprint;
+import org.pgpainless.key.SubkeyIdentifier;
+import org.pgpainless.key.info.KeyAccessor;
+import org.pgpainless.key.info.KeyRingInfo;
+import org.pgpainless.policy.Policy;
+
+/**
+ * Bounded, thread-safe cache of resolved recipients.
+ *
+ * Adding a recipient to {@link EncryptionOptions} requires evaluating the certificate, selecting its encryption
+ * subkeys, setting up a {@link PGPKeyEncryptionMethodGenerator} per subkey and gathering the algorithm preferences
+ * of the recipient. Applications that encrypt many messages for the same recipients (e.g. mailing lists) can use
+ * this cache to resolve each recipient only once.
+ *
+ * Entries are identified by the fingerprint of the certificate, the {@link EncryptionPurpose} and the user-id
+ * (if the recipient was addressed by user-id). An entry is only used, if the encoding of the certificate did not change,
+ * the {@link Policy} and {@link ImplementationFactory} are the same and it was resolved within the same granularity
+ * interval. Otherwise, the recipient is resolved again and the entry is replaced.
+ * Note however, that a resolved recipient might be up to one granularity interval old, so a subkey which expired
+ * in the meantime might still be used.
+ *
+ * A cache with a capacity of 0 is disabled and will resolve recipients on every call.
+ */
+public final class RecipientResolver {
+
+    private final int capacity;
+    private final long granularity;
+    private final Map<Key, Recipient> cache;
+
+    /**
+     * Create a new cache.
+     *
+     * @param capacity maximum number of cached recipients. 0 disables the cache.
+     * @param resolutionTimeGranularity granularity of the resolution date in milliseconds.
+     *                                  Recipients resolved within the same interval are reused.
+     *                                  0 means that recipients are only reused at the exact same date.
+     */
+    public RecipientResolver(int capacity, long resolutionTimeGranularity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative.");
+        }
+        if (resolutionTimeGranularity < 0) {
+            throw new IllegalArgumentException("Resolution time granularity cannot be negative.");
+        }
+        this.capacity = capacity;
+        this.granularity = resolutionTimeGranularity;
+        this.cache = new LinkedHashMap<Key, Recipient>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Recipient> eldest) {
+                return size() > RecipientResolver.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Return a disabled cache, which resolves recipients on every call.
+     *
+     * @return disabled cache
+     */
+    public static RecipientResolver disabled() {
+        return new RecipientResolver(0, 0);
+    }
+
+    /**
+     * Resolve the given certificate as recipient for the given purpose.
+     * If a user-id is given, the algorithm preferences of that user-id are used, otherwise those of the primary user-id.
+     *
+     * @param certificate certificate of the recipient
+     * @param purpose encryption purpose
+     * @param userId user-id or null
+     * @return resolved recipient
+     */
+    public @Nonnull Recipient resolve(@Nonnull PGPPublicKeyRing certificate,
+                                      @Nonnull EncryptionPurpose purpose,
+                                      @Nullable String userId) {
+        if (!isEnabled()) {
+            return new Recipient(certificate, purpose, userId, null);
+        }
+
+        byte[] encodingDigest;
+        try {
+            encodingDigest = digest(certificate.getEncoded());
+        } catch (IOException e) {
+            // Certificate cannot be encoded, so we cannot cache it
+            return new Recipient(certificate, purpose, userId, null);
+        }
+        Key key = new Key(OpenPgpFingerprint.of(certificate), purpose, userId);
+        Validity validity = new Validity(encodingDigest, PGPainless.getPolicy(), ImplementationFactory.getInstance(),
+                bucketOf(new Date()));
+
+        synchronized (cache) {
+            Recipient cached = cache.get(key);
+            if (cached != null && validity.equals(cached.validity)) {
+                return cached;
+            }
+        }
+
+        // Resolve outside the lock, so that other threads are not blocked by signature verification
+        Recipient recipient = new Recipient(certificate, purpose, userId, validity);
+        synchronized (cache) {
+            // Replaces outdated resolutions of the same certificate
+            cache.put(key, recipient);
+        }
+        return recipient;
+    }
+
+    /**
+     * Return true if this cache is enabled.
+     *
+     * @return true if capacity is greater than 0
+     */
+    public boolean isEnabled() {
+        return capacity > 0;
+    }
+
+    /**
+     * Return the number of cached recipients.
+     *
+     * @return size
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Remove all entries from the cache.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private long bucketOf(Date date) {
+        long time = date.getTime();
+        if (granularity == 0) {
+            return time;
+        }
+        return time / granularity;
+    }
+
+    private static byte[] digest(byte[] encoding) {
+        SHA256Digest digest = new SHA256Digest();
+        digest.update(encoding, 0, encoding.length);
+        byte[] out = new byte[digest.getDigestSize()];
+        digest.doFinal(out, 0);
+        return out;
+    }
+
+    /**
+     * A certificate, resolved as recipient for an {@link EncryptionPurpose}.
+     * Encryption subkeys, encryption methods and algorithm preferences are determined once and then shared by all
+     * messages that are encrypted for the recipient.
+     */
+    public static final class Recipient {
+
+        private final PGPPublicKeyRing certificate;
+        private final String userId;
+        private final KeyRingInfo info;
+        private final List<PGPPublicKey> encryptionSubkeys;
+        private final Map<Long, KeyAccessor> keyAccessors = new HashMap<>();
+        private final Map<Long, PGPKeyEncryptionMethodGenerator> encryptionMethods = new HashMap<>();
+        private final Validity validity;
+
+        private Recipient(PGPPublicKeyRing certificate, EncryptionPurpose purpose, String userId, Validity validity) {
+            this.certificate = certificate;
+            this.userId = userId;
+            this.info = PGPainless.getPolicy().getKeyRingInfoCache().get(certificate);
+            this.validity = validity;
+
+            List<PGPPublicKey> subkeys = userId == null ?
+                    info.getEncryptionSubkeys(purpose) : info.getEncryptionSubkeys(userId, purpose);
+            this.encryptionSubkeys = Collections.unmodifiableList(new ArrayList<>(subkeys));
+            for (PGPPublicKey subkey : encryptionSubkeys) {
+                keyAccessors.put(subkey.getKeyID(), createKeyAccessor(subkey));
+                encryptionMethods.put(subkey.getKeyID(), createEncryptionMethod(subkey));
+            }
+        }
+
+        /**
+         * Return the certificate of the recipient.
+         *
+         * @return certificate
+         */
+        public @Nonnull PGPPublicKeyRing getCertificate() {
+            return certificate;
+        }
+
+        /**
+         * Return the {@link KeyRingInfo} of the certificate.
+         *
+         * @return key ring info
+         */
+        public @Nonnull KeyRingInfo getKeyRingInfo() {
+            return info;
+        }
+
+        /**
+         * Return the valid encryption subkeys of the certificate, which are capable of the encryption purpose.
+         *
+         * @return encryption subkeys
+         */
+        public @Nonnull List<PGPPublicKey> getEncryptionSubkeys() {
+            return encryptionSubkeys;
+        }
+
+        /**
+         * Return the {@link KeyAccessor} of an encryption subkey, which provides the algorithm preferences
+         * of the recipient. Preferences are parsed once and then memoized.
+         * For keys which are not in {@link #getEncryptionSubkeys()}, a new accessor is created.
+         *
+         * @param subkey encryption subkey
+         * @return key accessor
+         */
+        public @Nonnull KeyAccessor getKeyAccessor(@Nonnull PGPPublicKey subkey) {
+            KeyAccessor accessor = keyAccessors.get(subkey.getKeyID());
+            return accessor != null ? accessor : createKeyAccessor(subkey);
+        }
+
+        /**
+         * Return the {@link PGPKeyEncryptionMethodGenerator} of an encryption subkey.
+         * For keys which are not in {@link #getEncryptionSubkeys()}, a new method is created.
+         *
+         * @param subkey encryption subkey
+         * @return encryption method
+         */
+        public @Nonnull PGPKeyEncryptionMethodGenerator getEncryptionMethod(@Nonnull PGPPublicKey subkey) {
+            PGPKeyEncryptionMethodGenerator method = encryptionMethods.get(subkey.getKeyID());
+            return method != null ? method : createEncryptionMethod(subkey);
+        }
+
+        private KeyAccessor createKeyAccessor(PGPPublicKey subkey) {
+            SubkeyIdentifier keyId = new SubkeyIdentifier(certificate, subkey.getKeyID());
+            return userId == null ?
+                    new MemoizingViaKeyId(info, keyId) : new MemoizingViaUserId(info, keyId, userId);
+        }
+
+        private static PGPKeyEncryptionMethodGenerator createEncryptionMethod(PGPPublicKey subkey) {
+            return ImplementationFactory.getInstance().getPublicKeyKeyEncryptionMethodGenerator(subkey);
+        }
+    }
+
+    private static final class MemoizingViaKeyId extends KeyAccessor.ViaKeyId {
+
+        private volatile Set<SymmetricKeyAlgorithm> preferredSymmetricKeyAlgorithms;
+
+        MemoizingViaKeyId(KeyRingInfo info, SubkeyIdentifier key) {
+            super(info, key);
+        }
+
+        @Override
+        public Set<SymmetricKeyAlgorithm> getPreferredSymmetricKeyAlgorithms() {
+            Set<SymmetricKeyAlgorithm> preferences = preferredSymmetricKeyAlgorithms;
+            if (preferences == null) {
+                preferences = Collections.unmodifiableSet(super.getPreferredSymmetricKeyAlgorithms());
+                preferredSymmetricKeyAlgorithms = preferences;
+            }
+            return preferences;
+        }
+    }
+
+    private static final class MemoizingViaUserId extends KeyAccessor.ViaUserId {
+
+        private volatile Set<SymmetricKeyAlgorithm> preferredSymmetricKeyAlgorithms;
+
+        MemoizingViaUserId(KeyRingInfo info, SubkeyIdentifier key, String userId) {
+            super(info, key, userId);
+        }
+
+        @Override
+        public Set<SymmetricKeyAlgorithm> getPreferredSymmetricKeyAlgorithms() {
+            Set<SymmetricKeyAlgorithm> preferences = preferredSymmetricKeyAlgorithms;
+            if (preferences == null) {
+                preferences = Collections.unmodifiableSet(super.getPreferredSymmetricKeyAlgorithms());
+                preferredSymmetricKeyAlgorithms = preferences;
+            }
+            return preferences;
+        }
+    }
+
+    private static final class Key {
+
+        private final OpenPgpFingerprint fingerprint;
+        private final EncryptionPurpose purpose;
+        private final String userId;
+
+        Key(OpenPgpFingerprint fingerprint, EncryptionPurpose purpose, String userId) {
+            this.fingerprint = fingerprint;
+            this.purpose = purpose;
+            this.userId = userId;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return purpose == other.purpose
+                    && fingerprint.equals(other.fingerprint)
+                    && (userId == null ? other.userId == null : userId.equals(other.userId));
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * fingerprint.hashCode() + purpose.hashCode()) + (userId == null ? 0 : userId.hashCode());
+        }
+    }
+
+    private static final class Validity {
+
+        private final byte[] encodingDigest;
+        private final Policy policy;
+        private final ImplementationFactory implementation;
+        private final long bucket;
+
+        Validity(byte[] encodingDigest, Policy policy, ImplementationFactory implementation, long bucket) {
+            this.encodingDigest = encodingDigest;
+            this.policy = policy;
+            this.implementation = implementation;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Validity)) {
+                return false;
+            }
+            Validity other = (Validity) obj;
+            return bucket == other.bucket
+                    && policy == other.policy
+                    && implementation == other.implementation
+                    && Arrays.equals(encodingDigest, other.encodingDigest);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(encodingDigest);
+        }
+    }
+}
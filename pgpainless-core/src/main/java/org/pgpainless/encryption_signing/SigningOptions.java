@@ -4,8 +4,8 @@
 
 package org.pgpainless.encryption_signing;
 
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,6 +18,7 @@ import org.bouncycastle.openpgp.PGPPublicKey;
 import org.bouncycastle.openpgp.PGPSecretKey;
 import org.bouncycastle.openpgp.PGPSecretKeyRing;
 import org.bouncycastle.openpgp.PGPSignatureGenerator;
+import org.bouncycastle.openpgp.PGPSignatureSubpacketVector;
 import org.bouncycastle.openpgp.operator.PGPContentSignerBuilder;
 import org.pgpainless.PGPainless;
 import org.pgpainless.algorithm.DocumentSignatureType;
@@ -30,6 +31,7 @@ import org.pgpainless.implementation.ImplementationFactory;
 import org.pgpainless.key.OpenPgpFingerprint;
 import org.pgpainless.key.SubkeyIdentifier;
 import org.pgpainless.key.info.KeyRingInfo;
+import org.pgpainless.key.protection.PrivateKeyCache;
 import org.pgpainless.key.protection.SecretKeyRingProtector;
 import org.pgpainless.key.protection.UnlockSecretKey;
 import org.pgpainless.policy.Policy;
@@ -46,11 +48,21 @@ public final class SigningOptions {
         private final PGPSignatureGenerator signatureGenerator;
         private final boolean detached;
         private final HashAlgorithm hashAlgorithm;
+        // Signer setup, which is used to create fresh signature generators for reuse in templates, or null
+        private final SignerSpec signerSpec;
 
         private SigningMethod(PGPSignatureGenerator signatureGenerator, boolean detached, HashAlgorithm hashAlgorithm) {
+            this(signatureGenerator, detached, hashAlgorithm, null);
+        }
+
+        private SigningMethod(PGPSignatureGenerator signatureGenerator,
+                              boolean detached,
+                              HashAlgorithm hashAlgorithm,
+                              SignerSpec signerSpec) {
             this.signatureGenerator = signatureGenerator;
             this.detached = detached;
             this.hashAlgorithm = hashAlgorithm;
+            this.signerSpec = signerSpec;
         }
 
         /**
@@ -87,15 +99,102 @@ public final class SigningOptions {
         public HashAlgorithm getHashAlgorithm() {
             return hashAlgorithm;
         }
+
+        /**
+         * Return a copy of this signing method with a fresh {@link PGPSignatureGenerator}, which has not yet
+         * processed any data.
+         * The copy uses the same unlocked signing key, hash algorithm and subpackets as this method.
+         *
+         * @return fresh signing method
+         * @throws PGPException if the signature generator cannot be initialized
+         */
+        SigningMethod newInstance() throws PGPException {
+            if (signerSpec == null) {
+                throw new IllegalStateException("Signing method was not created by SigningOptions and cannot be copied.");
+            }
+            return new SigningMethod(signerSpec.newSignatureGenerator(hashAlgorithm), detached, hashAlgorithm, signerSpec);
+        }
+    }
+
+    /**
+     * Unlocked signing key and subpackets of a signing method.
+     */
+    private static final class SignerSpec {
+        private final PGPPrivateKey privateKey;
+        private final DocumentSignatureType signatureType;
+        private final PGPSignatureSubpacketVector hashedSubpackets;
+        private final PGPSignatureSubpacketVector unhashedSubpackets;
+
+        private SignerSpec(PGPPrivateKey privateKey,
+                           DocumentSignatureType signatureType,
+                           PGPSignatureSubpacketVector hashedSubpackets,
+                           PGPSignatureSubpacketVector unhashedSubpackets) {
+            this.privateKey = privateKey;
+            this.signatureType = signatureType;
+            this.hashedSubpackets = hashedSubpackets;
+            this.unhashedSubpackets = unhashedSubpackets;
+        }
+
+        private PGPSignatureGenerator newSignatureGenerator(HashAlgorithm hashAlgorithm) throws PGPException {
+            PGPSignatureGenerator generator = createSignatureGenerator(privateKey, hashAlgorithm, signatureType);
+            generator.setHashedSubpackets(hashedSubpackets);
+            generator.setUnhashedSubpackets(unhashedSubpackets);
+            return generator;
+        }
     }
 
     private final Map<SubkeyIdentifier, SigningMethod> signingMethods = new HashMap<>();
     private HashAlgorithm hashAlgorithmOverride;
+    private PrivateKeyCache privateKeyCache = null;
+    // Leases on cached signing keys, so that they are not wiped while in use. Closed by releasePrivateKeys()
+    private final List<PrivateKeyCache.Lease> privateKeyLeases = new ArrayList<>();
 
     public static SigningOptions get() {
         return new SigningOptions();
     }
 
+    /**
+     * Set a {@link PrivateKeyCache} which is used to look up already unlocked signing keys.
+     * Secret keys that need to be unlocked for signing are added to the cache.
+     * The cache must be set before any signing keys are added.
+     *
+     * Note: Cached keys can be used without their passphrase, regardless of the {@link SecretKeyRingProtector}
+     * that is passed in when adding a signing key.
+     * Signing keys taken from the cache are leased, so they are not wiped while signatures are still generated.
+     * The leases are released by {@link #releasePrivateKeys()}, or when an {@link EncryptionStream} created directly
+     * from these options is closed.
+     *
+     * @param privateKeyCache cache of unlocked private keys or null
+     * @return this
+     */
+    public SigningOptions setPrivateKeyCache(@Nullable PrivateKeyCache privateKeyCache) {
+        this.privateKeyCache = privateKeyCache;
+        return this;
+    }
+
+    /**
+     * Release the signing keys which were taken from or added to the {@link PrivateKeyCache}.
+     * Afterwards, keys that are evicted from the cache are wiped, so neither these options nor any
+     * {@link EncryptionTemplate} created from them must be used for signing anymore.
+     * An {@link EncryptionStream} created directly from these options releases the keys when it is closed.
+     * Releasing the keys more than once has no effect.
+     */
+    public void releasePrivateKeys() {
+        for (PrivateKeyCache.Lease lease : privateKeyLeases) {
+            lease.close();
+        }
+        privateKeyLeases.clear();
+    }
+
+    /**
+     * Return the {@link PrivateKeyCache} used to look up unlocked signing keys.
+     *
+     * @return private key cache or null
+     */
+    public @Nullable PrivateKeyCache getPrivateKeyCache() {
+        return privateKeyCache;
+    }
+
     /**
      * Add inline signatures with all secret key rings in the provided secret key ring collection.
      *
@@ -180,7 +279,7 @@ public final class SigningOptions {
                                              DocumentSignatureType signatureType,
                                              @Nullable BaseSignatureSubpackets.Callback subpacketsCallback)
             throws KeyValidationError, PGPException {
-        KeyRingInfo keyRingInfo = new KeyRingInfo(secretKey, new Date());
+        KeyRingInfo keyRingInfo = PGPainless.getPolicy().getKeyRingInfoCache().get(secretKey);
         if (userId != null && !keyRingInfo.isUserIdValid(userId)) {
             throw new KeyValidationError(userId, keyRingInfo.getLatestUserIdCertification(userId), keyRingInfo.getUserIdRevocation(userId));
         }
@@ -192,7 +291,11 @@ public final class SigningOptions {
 
         for (PGPPublicKey signingPubKey : signingPubKeys) {
             PGPSecretKey signingSecKey = secretKey.getSecretKey(signingPubKey.getKeyID());
-            PGPPrivateKey signingSubkey = UnlockSecretKey.unlockSecretKey(signingSecKey, secretKeyDecryptor);
+            PGPPrivateKey signingSubkey = getCachedPrivateKey(signingSecKey);
+            if (signingSubkey == null) {
+                signingSubkey = UnlockSecretKey.unlockSecretKey(signingSecKey, secretKeyDecryptor);
+                cachePrivateKey(signingSecKey, signingSubkey);
+            }
             Set<HashAlgorithm> hashAlgorithms = userId != null ? keyRingInfo.getPreferredHashAlgorithms(userId)
                     : keyRingInfo.getPreferredHashAlgorithms(signingPubKey.getKeyID());
             HashAlgorithm hashAlgorithm = negotiateHashAlgorithm(hashAlgorithms, PGPainless.getPolicy());
@@ -285,7 +388,7 @@ public final class SigningOptions {
                                                DocumentSignatureType signatureType,
                                                @Nullable BaseSignatureSubpackets.Callback subpacketCallback)
             throws PGPException {
-        KeyRingInfo keyRingInfo = new KeyRingInfo(secretKey, new Date());
+        KeyRingInfo keyRingInfo = PGPainless.getPolicy().getKeyRingInfoCache().get(secretKey);
         if (userId != null && !keyRingInfo.isUserIdValid(userId)) {
             throw new KeyValidationError(userId, keyRingInfo.getLatestUserIdCertification(userId), keyRingInfo.getUserIdRevocation(userId));
         }
@@ -300,8 +403,12 @@ public final class SigningOptions {
             if (signingSecKey == null) {
                 throw new PGPException("Missing secret key for signing key " + Long.toHexString(signingPubKey.getKeyID()));
             }
-            PGPPrivateKey signingSubkey = signingSecKey.extractPrivateKey(
-                    secretKeyDecryptor.getDecryptor(signingPubKey.getKeyID()));
+            PGPPrivateKey signingSubkey = getCachedPrivateKey(signingSecKey);
+            if (signingSubkey == null) {
+                signingSubkey = signingSecKey.extractPrivateKey(
+                        secretKeyDecryptor.getDecryptor(signingPubKey.getKeyID()));
+                cachePrivateKey(signingSecKey, signingSubkey);
+            }
             Set<HashAlgorithm> hashAlgorithms = userId != null ? keyRingInfo.getPreferredHashAlgorithms(userId)
                     : keyRingInfo.getPreferredHashAlgorithms(signingPubKey.getKeyID());
             HashAlgorithm hashAlgorithm = negotiateHashAlgorithm(hashAlgorithms, PGPainless.getPolicy());
@@ -311,6 +418,24 @@ public final class SigningOptions {
         return this;
     }
 
+    private PGPPrivateKey getCachedPrivateKey(PGPSecretKey secretKey) {
+        if (privateKeyCache == null) {
+            return null;
+        }
+        PrivateKeyCache.Lease lease = privateKeyCache.acquire(secretKey);
+        if (lease == null) {
+            return null;
+        }
+        privateKeyLeases.add(lease);
+        return lease.getPrivateKey();
+    }
+
+    private void cachePrivateKey(PGPSecretKey secretKey, PGPPrivateKey privateKey) {
+        if (privateKeyCache != null) {
+            privateKeyLeases.add(privateKeyCache.put(secretKey, privateKey));
+        }
+    }
+
     private void addSigningMethod(PGPSecretKeyRing secretKey,
                                   PGPPrivateKey signingSubkey,
                                   @Nullable BaseSignatureSubpackets.Callback subpacketCallback,
@@ -327,8 +452,6 @@ public final class SigningOptions {
                     publicKeyAlgorithm + " with bit strength " + bitStrength + " is not acceptable.");
         }
 
-        PGPSignatureGenerator generator = createSignatureGenerator(signingSubkey, hashAlgorithm, signatureType);
-
         // Subpackets
         SignatureSubpackets hashedSubpackets = SignatureSubpackets.createHashedSubpackets(signingSecretKey.getPublicKey());
         SignatureSubpackets unhashedSubpackets = SignatureSubpackets.createEmptySubpackets();
@@ -336,12 +459,12 @@ public final class SigningOptions {
             subpacketCallback.modifyHashedSubpackets(hashedSubpackets);
             subpacketCallback.modifyUnhashedSubpackets(unhashedSubpackets);
         }
-        generator.setHashedSubpackets(SignatureSubpacketsHelper.toVector(hashedSubpackets));
-        generator.setUnhashedSubpackets(SignatureSubpacketsHelper.toVector(unhashedSubpackets));
+        SignerSpec signerSpec = new SignerSpec(signingSubkey, signatureType,
+                SignatureSubpacketsHelper.toVector(hashedSubpackets),
+                SignatureSubpacketsHelper.toVector(unhashedSubpackets));
 
-        SigningMethod signingMethod = detached ?
-                SigningMethod.detachedSignature(generator, hashAlgorithm) :
-                SigningMethod.inlineSignature(generator, hashAlgorithm);
+        PGPSignatureGenerator generator = signerSpec.newSignatureGenerator(hashAlgorithm);
+        SigningMethod signingMethod = new SigningMethod(generator, detached, hashAlgorithm, signerSpec);
         signingMethods.put(signingKeyIdentifier, signingMethod);
     }
 
@@ -366,9 +489,9 @@ public final class SigningOptions {
                 .negotiateHashAlgorithm(preferences);
     }
 
-    private PGPSignatureGenerator createSignatureGenerator(PGPPrivateKey privateKey,
-                                                           HashAlgorithm hashAlgorithm,
-                                                           DocumentSignatureType signatureType)
+    private static PGPSignatureGenerator createSignatureGenerator(PGPPrivateKey privateKey,
+                                                                  HashAlgorithm hashAlgorithm,
+                                                                  DocumentSignatureType signatureType)
             throws PGPException {
         int publicKeyAlgorithm = privateKey.getPublicKeyPacket().getAlgorithm();
         PGPContentSignerBuilder signerBuilder = ImplementationFactory.getInstance()
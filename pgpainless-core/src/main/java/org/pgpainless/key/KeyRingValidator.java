@@ -21,6 +21,7 @@ import org.pgpainless.implementation.ImplementationFactory;
 import org.pgpainless.policy.Policy;
 import org.pgpainless.signature.consumer.SignatureCreationDateComparator;
 import org.pgpainless.signature.consumer.SignatureVerifier;
+import org.pgpainless.signature.consumer.ValidationBudget;
 import org.pgpainless.util.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,12 +43,30 @@ public final class KeyRingValidator {
     }
 
     public static <R extends PGPKeyRing> R validate(R keyRing, Policy policy, Date validationDate) throws PGPException {
-        return getKeyRingAtDate(keyRing, policy, validationDate);
+        return validate(keyRing, policy, validationDate, ValidationBudget.of(policy));
     }
 
-    private static <R extends PGPKeyRing> R getKeyRingAtDate(R keyRing, Policy policy, Date validationDate) throws PGPException {
+    /**
+     * Validate the key ring at the given date, consuming the given {@link ValidationBudget}.
+     * Signatures which do not fit into the budget are skipped. If a revocation is skipped, the other signatures
+     * of the possibly revoked component are skipped as well, so that the component is not considered valid.
+     *
+     * @param keyRing key ring
+     * @param policy policy
+     * @param validationDate validation date
+     * @param budget validation budget, which records how much work was spent on validation
+     * @param <R> type of key ring
+     * @return validated key ring
+     * @throws PGPException in case of a broken key ring
+     */
+    public static <R extends PGPKeyRing> R validate(R keyRing, Policy policy, Date validationDate, ValidationBudget budget) throws PGPException {
+        return getKeyRingAtDate(keyRing, policy, validationDate, budget);
+    }
+
+    private static <R extends PGPKeyRing> R getKeyRingAtDate(R keyRing, Policy policy, Date validationDate, ValidationBudget budget) throws PGPException {
+        budget.allocate(keyRing);
         PGPPublicKey primaryKey = keyRing.getPublicKey();
-        primaryKey = evaluatePrimaryKey(primaryKey, policy, validationDate);
+        primaryKey = evaluatePrimaryKey(primaryKey, policy, validationDate, budget);
         if (keyRing instanceof PGPPublicKeyRing) {
             PGPPublicKeyRing publicKeys = (PGPPublicKeyRing) keyRing;
             publicKeys = PGPPublicKeyRing.insertPublicKey(publicKeys, primaryKey);
@@ -57,7 +76,7 @@ public final class KeyRingValidator {
         return keyRing;
     }
 
-    private static PGPPublicKey evaluatePrimaryKey(PGPPublicKey primaryKey, Policy policy, Date validationDate) throws PGPException {
+    private static PGPPublicKey evaluatePrimaryKey(PGPPublicKey primaryKey, Policy policy, Date validationDate, ValidationBudget budget) throws PGPException {
 
         PGPPublicKey blank = new PGPPublicKey(primaryKey.getPublicKeyPacket(), ImplementationFactory.getInstance().getKeyFingerprintCalculator());
 
@@ -65,6 +84,9 @@ public final class KeyRingValidator {
         List<PGPSignature> directKeyCertifications = CollectionUtils.iteratorToList(directKeyIterator);
         Collections.sort(directKeyCertifications, new SignatureCreationDateComparator(SignatureCreationDateComparator.Order.NEW_TO_OLD));
         for (PGPSignature signature : directKeyCertifications) {
+            if (!budget.tryConsume(signature)) {
+                continue;
+            }
             try {
                 if (SignatureVerifier.verifyDirectKeySignature(signature, blank, policy, validationDate)) {
                     blank = PGPPublicKey.addCertification(blank, signature);
@@ -78,6 +100,9 @@ public final class KeyRingValidator {
         List<PGPSignature> directKeyRevocations = CollectionUtils.iteratorToList(revocationIterator);
         Collections.sort(directKeyRevocations, new SignatureCreationDateComparator(SignatureCreationDateComparator.Order.NEW_TO_OLD));
         for (PGPSignature signature : directKeyRevocations) {
+            if (!budget.tryConsume(signature)) {
+                continue;
+            }
             try {
                 if (SignatureVerifier.verifyKeyRevocationSignature(signature, primaryKey, policy, validationDate)) {
                     blank = PGPPublicKey.addCertification(blank, signature);
@@ -94,6 +119,9 @@ public final class KeyRingValidator {
             List<PGPSignature> signatures = CollectionUtils.iteratorToList(userIdSigs);
             Collections.sort(signatures, new SignatureCreationDateComparator(SignatureCreationDateComparator.Order.NEW_TO_OLD));
             for (PGPSignature signature : signatures) {
+                if (!budget.tryConsume(signature)) {
+                    continue;
+                }
                 try {
                     if (SignatureType.valueOf(signature.getSignatureType()) == SignatureType.CERTIFICATION_REVOCATION) {
                         if (SignatureVerifier.verifyUserIdRevocation(userId, signature, primaryKey, policy, validationDate)) {
@@ -114,8 +142,11 @@ public final class KeyRingValidator {
         while (userAttributes.hasNext()) {
             PGPUserAttributeSubpacketVector userAttribute = userAttributes.next();
             Iterator<PGPSignature> userAttributeSignatureIterator = primaryKey.getSignaturesForUserAttribute(userAttribute);
-            while (userAttributeSignatureIterator.hasNext()) {
-                PGPSignature signature = userAttributeSignatureIterator.next();
+            List<PGPSignature> signatures = CollectionUtils.iteratorToList(userAttributeSignatureIterator);
+            for (PGPSignature signature : signatures) {
+                if (!budget.tryConsume(signature)) {
+                    continue;
+                }
                 try {
                     if (SignatureType.valueOf(signature.getSignatureType()) == SignatureType.CERTIFICATION_REVOCATION) {
                         if (SignatureVerifier.verifyUserAttributesRevocation(userAttribute, signature, primaryKey, policy, validationDate)) {
@@ -9,13 +9,17 @@ import static org.pgpainless.util.CollectionUtils.iteratorToList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.annotation.Nonnull;
@@ -42,11 +46,21 @@ import org.pgpainless.key.SubkeyIdentifier;
 import org.pgpainless.key.util.RevocationAttributes;
 import org.pgpainless.policy.Policy;
 import org.pgpainless.signature.SignatureUtils;
+import org.pgpainless.signature.consumer.SignatureIndex;
 import org.pgpainless.signature.consumer.SignaturePicker;
+import org.pgpainless.signature.consumer.ValidationBudget;
 import org.pgpainless.signature.subpackets.SignatureSubpacketsUtil;
 
 /**
  * Utility class to quickly extract certain information from a {@link PGPPublicKeyRing}/{@link PGPSecretKeyRing}.
+ *
+ * The self-signatures of the key ring are evaluated lazily, component by component, when they are first needed.
+ * Results of the evaluation are memoized, so repeated calls to getters are cheap.
+ * Instances are thread-safe and can therefore be shared, e.g. using a {@link KeyRingInfoCache}.
+ *
+ * The key ring is evaluated according to the {@link Policy} which is in place when the instance is created.
+ * Since components are evaluated lazily, later modifications of that policy affect components which were not
+ * yet evaluated. Create a new instance (and clear the {@link KeyRingInfoCache}) after modifying the policy.
  */
 public class KeyRingInfo {
 
@@ -55,7 +69,18 @@ public class KeyRingInfo {
     private final PGPKeyRing keys;
     private final Signatures signatures;
     private final Date evaluationDate;
-    private final String primaryUserId;
+
+    // Memoized results. Racing threads might compute a result twice. This is harmless, since the results are derived
+    // from the signatures of the components, which are verified only once (see Signatures).
+    private volatile List<PGPPublicKey> publicKeys;
+    private volatile List<String> userIds;
+    private volatile List<String> validUserIds;
+    private volatile List<String> emailAddresses;
+    private volatile Memo<String> primaryUserId;
+    private volatile Memo<String> possiblyExpiredPrimaryUserId;
+    private volatile Memo<Date> primaryKeyExpirationDate;
+    private final Map<Long, Boolean> validlyBoundKeys = new ConcurrentHashMap<>();
+    private final Map<Long, List<KeyFlag>> keyFlags = new ConcurrentHashMap<>();
 
     /**
      * Evaluate the key ring at creation time of the given signature.
@@ -87,7 +112,6 @@ public class KeyRingInfo {
         this.keys = keys;
         this.signatures = new Signatures(keys, validationDate, PGPainless.getPolicy());
         this.evaluationDate = validationDate;
-        this.primaryUserId = findPrimaryUserId();
     }
 
     /**
@@ -137,20 +161,30 @@ public class KeyRingInfo {
      * @return true if key is bound validly
      */
     public boolean isKeyValidlyBound(long keyId) {
+        Boolean validlyBound = validlyBoundKeys.get(keyId);
+        if (validlyBound == null) {
+            validlyBound = evaluateKeyValidlyBound(keyId);
+            validlyBoundKeys.put(keyId, validlyBound);
+        }
+        return validlyBound;
+    }
+
+    private boolean evaluateKeyValidlyBound(long keyId) {
         PGPPublicKey publicKey = keys.getPublicKey(keyId);
         if (publicKey == null) {
             return false;
         }
 
         if (publicKey == getPublicKey()) {
-            if (signatures.primaryKeyRevocation != null && SignatureUtils.isHardRevocation(signatures.primaryKeyRevocation)) {
+            PGPSignature primaryKeyRevocation = signatures.getPrimaryKeyRevocation();
+            if (primaryKeyRevocation != null && SignatureUtils.isHardRevocation(primaryKeyRevocation)) {
                 return false;
             }
-            return signatures.primaryKeyRevocation == null;
+            return primaryKeyRevocation == null;
         }
 
-        PGPSignature binding = signatures.subkeyBindings.get(keyId);
-        PGPSignature revocation = signatures.subkeyRevocations.get(keyId);
+        PGPSignature binding = signatures.getSubkeyBinding(keyId);
+        PGPSignature revocation = signatures.getSubkeyRevocation(keyId);
 
         // No valid binding
         if (binding == null || SignatureUtils.isSignatureExpired(binding)) {
@@ -180,9 +214,13 @@ public class KeyRingInfo {
      * @return list of public keys
      */
     public List<PGPPublicKey> getPublicKeys() {
-        Iterator<PGPPublicKey> iterator = keys.getPublicKeys();
-        List<PGPPublicKey> list = iteratorToList(iterator);
-        return Collections.unmodifiableList(list);
+        List<PGPPublicKey> list = publicKeys;
+        if (list == null) {
+            Iterator<PGPPublicKey> iterator = keys.getPublicKeys();
+            list = Collections.unmodifiableList(iteratorToList(iterator));
+            publicKeys = list;
+        }
+        return list;
     }
 
     /**
@@ -256,7 +294,12 @@ public class KeyRingInfo {
     }
 
     public @Nullable String getPrimaryUserId() {
-        return primaryUserId;
+        Memo<String> memo = primaryUserId;
+        if (memo == null) {
+            memo = new Memo<>(findPrimaryUserId());
+            primaryUserId = memo;
+        }
+        return memo.value;
     }
 
     /**
@@ -271,7 +314,7 @@ public class KeyRingInfo {
         String primaryUserId = null;
         Date currentModificationDate = null;
 
-        List<String> userIds = getUserIds();
+        List<String> userIds = userIds();
         if (userIds.isEmpty()) {
             return null;
         }
@@ -282,7 +325,7 @@ public class KeyRingInfo {
         }
 
         for (String userId : userIds) {
-            PGPSignature certification = signatures.userIdCertifications.get(userId);
+            PGPSignature certification = signatures.getUserIdCertification(userId);
             if (certification == null) {
                 continue;
             }
@@ -312,9 +355,17 @@ public class KeyRingInfo {
      * @return list of user-ids
      */
     public List<String> getUserIds() {
-        Iterator<String> iterator = getPublicKey().getUserIDs();
-        List<String> userIds = iteratorToList(iterator);
-        return userIds;
+        return new ArrayList<>(userIds());
+    }
+
+    private List<String> userIds() {
+        List<String> list = userIds;
+        if (list == null) {
+            Iterator<String> iterator = getPublicKey().getUserIDs();
+            list = Collections.unmodifiableList(iteratorToList(iterator));
+            userIds = list;
+        }
+        return list;
     }
 
     /**
@@ -323,14 +374,18 @@ public class KeyRingInfo {
      * @return valid user-ids
      */
     public List<String> getValidUserIds() {
-        List<String> valid = new ArrayList<>();
-        List<String> userIds = getUserIds();
-        for (String userId : userIds) {
-            if (isUserIdBound(userId)) {
-                valid.add(userId);
+        List<String> valid = validUserIds;
+        if (valid == null) {
+            List<String> list = new ArrayList<>();
+            for (String userId : userIds()) {
+                if (isUserIdBound(userId)) {
+                    list.add(userId);
+                }
             }
+            valid = Collections.unmodifiableList(list);
+            validUserIds = valid;
         }
-        return valid;
+        return new ArrayList<>(valid);
     }
 
     /**
@@ -340,11 +395,10 @@ public class KeyRingInfo {
      */
     public List<String> getValidAndExpiredUserIds() {
         List<String> probablyExpired = new ArrayList<>();
-        List<String> userIds = getUserIds();
 
-        for (String userId : userIds) {
-            PGPSignature certification = signatures.userIdCertifications.get(userId);
-            PGPSignature revocation = signatures.userIdRevocations.get(userId);
+        for (String userId : userIds()) {
+            PGPSignature certification = signatures.getUserIdCertification(userId);
+            PGPSignature revocation = signatures.getUserIdRevocation(userId);
 
             // Not revoked -> valid
             if (revocation == null) {
@@ -372,6 +426,7 @@ public class KeyRingInfo {
      * @return true if user-id is valid
      */
     public boolean isUserIdValid(String userId) {
+        String primaryUserId = getPrimaryUserId();
         if (!userId.equals(primaryUserId)) {
             if (!isUserIdBound(primaryUserId)) {
                 // primary user-id not valid
@@ -384,8 +439,8 @@ public class KeyRingInfo {
 
     private boolean isUserIdBound(String userId) {
 
-        PGPSignature certification = signatures.userIdCertifications.get(userId);
-        PGPSignature revocation = signatures.userIdRevocations.get(userId);
+        PGPSignature certification = signatures.getUserIdCertification(userId);
+        PGPSignature revocation = signatures.getUserIdRevocation(userId);
 
         if (certification == null) {
             return false;
@@ -418,15 +473,19 @@ public class KeyRingInfo {
      * @return email addresses
      */
     public List<String> getEmailAddresses() {
-        List<String> userIds = getUserIds();
-        List<String> emails = new ArrayList<>();
-        for (String userId : userIds) {
-            Matcher matcher = PATTERN_EMAIL.matcher(userId);
-            if (matcher.find()) {
-                emails.add(matcher.group());
+        List<String> emails = emailAddresses;
+        if (emails == null) {
+            List<String> list = new ArrayList<>();
+            for (String userId : userIds()) {
+                Matcher matcher = PATTERN_EMAIL.matcher(userId);
+                if (matcher.find()) {
+                    list.add(matcher.group());
+                }
             }
+            emails = Collections.unmodifiableList(list);
+            emailAddresses = emails;
         }
-        return emails;
+        return new ArrayList<>(emails);
     }
 
     /**
@@ -437,7 +496,7 @@ public class KeyRingInfo {
      * @return latest direct key self-signature or null
      */
     public @Nullable PGPSignature getLatestDirectKeySelfSignature() {
-        return signatures.primaryKeySelfSignature;
+        return signatures.getPrimaryKeySelfSignature();
     }
 
     /**
@@ -446,7 +505,7 @@ public class KeyRingInfo {
      * @return revocation or null
      */
     public @Nullable PGPSignature getRevocationSelfSignature() {
-        return signatures.primaryKeyRevocation;
+        return signatures.getPrimaryKeyRevocation();
     }
 
     /**
@@ -456,7 +515,7 @@ public class KeyRingInfo {
      * @return certification signature or null
      */
     public @Nullable PGPSignature getLatestUserIdCertification(String userId) {
-        return signatures.userIdCertifications.get(userId);
+        return signatures.getUserIdCertification(userId);
     }
 
     /**
@@ -466,7 +525,7 @@ public class KeyRingInfo {
      * @return revocation or null
      */
     public @Nullable PGPSignature getUserIdRevocation(String userId) {
-        return signatures.userIdRevocations.get(userId);
+        return signatures.getUserIdRevocation(userId);
     }
 
     /**
@@ -476,7 +535,7 @@ public class KeyRingInfo {
      * @return subkey binding signature or null
      */
     public @Nullable PGPSignature getCurrentSubkeyBindingSignature(long keyId) {
-        return signatures.subkeyBindings.get(keyId);
+        return signatures.getSubkeyBinding(keyId);
     }
 
     /**
@@ -486,7 +545,7 @@ public class KeyRingInfo {
      * @return subkey binding revocation or null
      */
     public @Nullable PGPSignature getSubkeyRevocationSignature(long keyId) {
-        return signatures.subkeyRevocations.get(keyId);
+        return signatures.getSubkeyRevocation(keyId);
     }
 
     /**
@@ -495,6 +554,15 @@ public class KeyRingInfo {
      * @return list of key flags
      */
     public @Nonnull List<KeyFlag> getKeyFlagsOf(long keyId) {
+        List<KeyFlag> flags = keyFlags.get(keyId);
+        if (flags == null) {
+            flags = Collections.unmodifiableList(evaluateKeyFlagsOf(keyId));
+            keyFlags.put(keyId, flags);
+        }
+        return new ArrayList<>(flags);
+    }
+
+    private List<KeyFlag> evaluateKeyFlagsOf(long keyId) {
         // key is primary key
         if (getPublicKey().getKeyID() == keyId) {
 
@@ -612,10 +680,7 @@ public class KeyRingInfo {
         PGPSignature revocationSelfSignature = getRevocationSelfSignature();
         if (mostRecentSelfSignature != null) allSignatures.add(mostRecentSelfSignature);
         if (revocationSelfSignature != null) allSignatures.add(revocationSelfSignature);
-        allSignatures.addAll(signatures.userIdCertifications.values());
-        allSignatures.addAll(signatures.userIdRevocations.values());
-        allSignatures.addAll(signatures.subkeyBindings.values());
-        allSignatures.addAll(signatures.subkeyRevocations.values());
+        signatures.addAllComponentSignatures(allSignatures);
 
         PGPSignature mostRecent = null;
         for (PGPSignature signature : allSignatures) {
@@ -641,6 +706,15 @@ public class KeyRingInfo {
      * @return expiration date
      */
     public @Nullable Date getPrimaryKeyExpirationDate() {
+        Memo<Date> memo = primaryKeyExpirationDate;
+        if (memo == null) {
+            memo = new Memo<>(evaluatePrimaryKeyExpirationDate());
+            primaryKeyExpirationDate = memo;
+        }
+        return memo.value == null ? null : new Date(memo.value.getTime());
+    }
+
+    private @Nullable Date evaluatePrimaryKeyExpirationDate() {
         PGPSignature directKeySig = getLatestDirectKeySelfSignature();
         Date directKeyExpirationDate = null;
         if (directKeySig != null) {
@@ -677,6 +751,15 @@ public class KeyRingInfo {
     }
 
     public String getPossiblyExpiredPrimaryUserId() {
+        Memo<String> memo = possiblyExpiredPrimaryUserId;
+        if (memo == null) {
+            memo = new Memo<>(findPossiblyExpiredPrimaryUserId());
+            possiblyExpiredPrimaryUserId = memo;
+        }
+        return memo.value;
+    }
+
+    private String findPossiblyExpiredPrimaryUserId() {
         String validPrimaryUserId = getPrimaryUserId();
         if (validPrimaryUserId != null) {
             return validPrimaryUserId;
@@ -685,7 +768,7 @@ public class KeyRingInfo {
         Date latestCreationTime = null;
         String primaryUserId = null;
         boolean foundPrimary = false;
-        for (String userId : getUserIds()) {
+        for (String userId : userIds()) {
             PGPSignature signature = getLatestUserIdCertification(userId);
             if (signature == null) {
                 continue;
@@ -781,7 +864,7 @@ public class KeyRingInfo {
     }
 
     public boolean isHardRevoked(String userId) {
-        PGPSignature revocation = signatures.userIdRevocations.get(userId);
+        PGPSignature revocation = signatures.getUserIdRevocation(userId);
         if (revocation == null) {
             return false;
         }
@@ -805,6 +888,17 @@ public class KeyRingInfo {
         }
     }
 
+    /**
+     * Return the {@link ValidationBudget} which is consumed by the evaluation of this key ring.
+     * Since the key ring is evaluated lazily, the consumed budget grows as more information is requested.
+     * If the budget is exhausted, signatures were skipped and the information might be degraded.
+     *
+     * @return validation budget
+     */
+    public ValidationBudget getValidationBudget() {
+        return signatures.getValidationBudget();
+    }
+
     /**
      * Returns true when every secret key on the key ring is not encrypted.
      * If there is at least one encrypted secret key on the key ring, returns false.
@@ -1007,55 +1101,213 @@ public class KeyRingInfo {
         if (getPublicKey(keyID) == null) {
             throw new NoSuchElementException("No subkey with key id " + Long.toHexString(keyID) + " found on this key.");
         }
-        if (userId != null && !getUserIds().contains(userId)) {
+        if (userId != null && !userIds().contains(userId)) {
             throw new NoSuchElementException("No user-id '" + userId + "' found on this key.");
         }
         return userId == null ? new KeyAccessor.ViaKeyId(this, new SubkeyIdentifier(keys, keyID))
                 : new KeyAccessor.ViaUserId(this, new SubkeyIdentifier(keys, keyID), userId);
     }
 
+    /**
+     * Current self-signatures on the components (primary key, user-ids and subkeys) of a key ring.
+     * The signatures of each component are picked and verified when they are first requested, and are memoized
+     * afterwards. That way, only the components which are actually needed are evaluated.
+     *
+     * This class is thread-safe. BouncyCastle keeps the state of a signature verification inside the
+     * {@link PGPSignature} object, so the same signature must not be verified by multiple threads at once.
+     * Therefore, each component is evaluated by exactly one thread, while other threads requesting the same component
+     * wait for the result.
+     */
     public static class Signatures {
 
-        private final PGPSignature primaryKeyRevocation;
-        private final PGPSignature primaryKeySelfSignature;
-        private final Map<String, PGPSignature> userIdRevocations;
-        private final Map<String, PGPSignature> userIdCertifications;
-        private final Map<Long, PGPSignature> subkeyRevocations;
-        private final Map<Long, PGPSignature> subkeyBindings;
+        private final PGPKeyRing keyRing;
+        private final Date evaluationDate;
+        private final Policy policy;
+        private final Set<String> userIds;
+        private final SignatureIndex signatureIndex;
+
+        private final ConcurrentMap<Long, FutureTask<ComponentSignatures>> primaryKeySignatures = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, FutureTask<ComponentSignatures>> userIdSignatures = new ConcurrentHashMap<>();
+        private final ConcurrentMap<Long, FutureTask<ComponentSignatures>> subkeySignatures = new ConcurrentHashMap<>();
 
         public Signatures(PGPKeyRing keyRing, Date evaluationDate, Policy policy) {
-            primaryKeyRevocation = SignaturePicker.pickCurrentRevocationSelfSignature(keyRing, policy, evaluationDate);
-            primaryKeySelfSignature = SignaturePicker.pickLatestDirectKeySignature(keyRing, policy, evaluationDate);
-            userIdRevocations = new HashMap<>();
-            userIdCertifications = new HashMap<>();
-            subkeyRevocations = new HashMap<>();
-            subkeyBindings = new HashMap<>();
-
-            for (Iterator<String> it = keyRing.getPublicKey().getUserIDs(); it.hasNext(); ) {
-                String userId = it.next();
-                PGPSignature revocation = SignaturePicker.pickCurrentUserIdRevocationSignature(keyRing, userId, policy, evaluationDate);
-                if (revocation != null) {
-                    userIdRevocations.put(userId, revocation);
-                }
-                PGPSignature certification = SignaturePicker.pickLatestUserIdCertificationSignature(keyRing, userId, policy, evaluationDate);
-                if (certification != null) {
-                    userIdCertifications.put(userId, certification);
-                }
-            }
+            this.keyRing = keyRing;
+            this.evaluationDate = evaluationDate;
+            this.policy = policy;
+            this.userIds = new HashSet<>(iteratorToList(keyRing.getPublicKey().getUserIDs()));
+            this.signatureIndex = new SignatureIndex(keyRing, ValidationBudget.of(policy));
+        }
+
+        /**
+         * Return the {@link ValidationBudget} which is consumed by the evaluation of the key ring.
+         *
+         * @return validation budget
+         */
+        public ValidationBudget getValidationBudget() {
+            return signatureIndex.getBudget();
+        }
 
+        private @Nullable PGPSignature getPrimaryKeySelfSignature() {
+            return primaryKey().signature;
+        }
+
+        private @Nullable PGPSignature getPrimaryKeyRevocation() {
+            return primaryKey().revocation;
+        }
+
+        private @Nullable PGPSignature getUserIdCertification(@Nullable String userId) {
+            ComponentSignatures signatures = userId(userId);
+            return signatures == null ? null : signatures.signature;
+        }
+
+        private @Nullable PGPSignature getUserIdRevocation(@Nullable String userId) {
+            ComponentSignatures signatures = userId(userId);
+            return signatures == null ? null : signatures.revocation;
+        }
+
+        private @Nullable PGPSignature getSubkeyBinding(long keyId) {
+            ComponentSignatures signatures = subkey(keyId);
+            return signatures == null ? null : signatures.signature;
+        }
+
+        private @Nullable PGPSignature getSubkeyRevocation(long keyId) {
+            ComponentSignatures signatures = subkey(keyId);
+            return signatures == null ? null : signatures.revocation;
+        }
+
+        /**
+         * Add the current certifications, bindings and revocations of all user-ids and subkeys to the given set.
+         * This requires evaluation of all components.
+         *
+         * @param allSignatures set of signatures
+         */
+        private void addAllComponentSignatures(Set<PGPSignature> allSignatures) {
+            for (String userId : userIds) {
+                userId(userId).addTo(allSignatures);
+            }
             Iterator<PGPPublicKey> keys = keyRing.getPublicKeys();
             keys.next(); // Skip primary key
             while (keys.hasNext()) {
-                PGPPublicKey subkey = keys.next();
-                PGPSignature subkeyRevocation = SignaturePicker.pickCurrentSubkeyBindingRevocationSignature(keyRing, subkey, policy, evaluationDate);
-                if (subkeyRevocation != null) {
-                    subkeyRevocations.put(subkey.getKeyID(), subkeyRevocation);
+                subkey(keys.next().getKeyID()).addTo(allSignatures);
+            }
+        }
+
+        private ComponentSignatures primaryKey() {
+            return evaluate(primaryKeySignatures, keyRing.getPublicKey().getKeyID(), new Callable<ComponentSignatures>() {
+                @Override
+                public ComponentSignatures call() {
+                    return new ComponentSignatures(
+                            SignaturePicker.pickLatestDirectKeySignature(signatureIndex, policy, evaluationDate),
+                            SignaturePicker.pickCurrentRevocationSelfSignature(signatureIndex, policy, evaluationDate));
                 }
-                PGPSignature subkeyBinding = SignaturePicker.pickLatestSubkeyBindingSignature(keyRing, subkey, policy, evaluationDate);
-                if (subkeyBinding != null) {
-                    subkeyBindings.put(subkey.getKeyID(), subkeyBinding);
+            });
+        }
+
+        private @Nullable ComponentSignatures userId(@Nullable final String userId) {
+            if (userId == null || !userIds.contains(userId)) {
+                return null;
+            }
+            return evaluate(userIdSignatures, userId, new Callable<ComponentSignatures>() {
+                @Override
+                public ComponentSignatures call() {
+                    return new ComponentSignatures(
+                            SignaturePicker.pickLatestUserIdCertificationSignature(signatureIndex, userId, policy, evaluationDate),
+                            SignaturePicker.pickCurrentUserIdRevocationSignature(signatureIndex, userId, policy, evaluationDate));
                 }
+            });
+        }
+
+        private @Nullable ComponentSignatures subkey(long keyId) {
+            final PGPPublicKey subkey = keyRing.getPublicKey(keyId);
+            if (subkey == null || subkey == keyRing.getPublicKey()) {
+                return null;
             }
+            return evaluate(subkeySignatures, keyId, new Callable<ComponentSignatures>() {
+                @Override
+                public ComponentSignatures call() {
+                    return new ComponentSignatures(
+                            SignaturePicker.pickLatestSubkeyBindingSignature(signatureIndex, subkey, policy, evaluationDate),
+                            SignaturePicker.pickCurrentSubkeyBindingRevocationSignature(signatureIndex, subkey, policy, evaluationDate));
+                }
+            });
+        }
+
+        /**
+         * Return the memoized signatures of a component, or evaluate them if this is the first request.
+         * The first thread to request a component evaluates it, while concurrent requests wait for the result.
+         * If the evaluation fails, the exception is rethrown and the next request evaluates the component again.
+         */
+        private static <K> ComponentSignatures evaluate(ConcurrentMap<K, FutureTask<ComponentSignatures>> memo,
+                                                        K component,
+                                                        Callable<ComponentSignatures> evaluation) {
+            FutureTask<ComponentSignatures> task = memo.get(component);
+            if (task == null) {
+                FutureTask<ComponentSignatures> newTask = new FutureTask<>(evaluation);
+                task = memo.putIfAbsent(component, newTask);
+                if (task == null) {
+                    task = newTask;
+                    task.run();
+                }
+            }
+
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        return task.get();
+                    } catch (InterruptedException e) {
+                        // Evaluation is short and cannot be abandoned halfway, so wait for it nonetheless
+                        interrupted = true;
+                    } catch (ExecutionException e) {
+                        memo.remove(component, task);
+                        Throwable cause = e.getCause();
+                        if (cause instanceof RuntimeException) {
+                            throw (RuntimeException) cause;
+                        }
+                        if (cause instanceof Error) {
+                            throw (Error) cause;
+                        }
+                        throw new IllegalStateException(cause);
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Current (self-, certification- or binding-) signature and revocation of a single key ring component.
+     */
+    private static final class ComponentSignatures {
+
+        private final PGPSignature signature;
+        private final PGPSignature revocation;
+
+        ComponentSignatures(@Nullable PGPSignature signature, @Nullable PGPSignature revocation) {
+            this.signature = signature;
+            this.revocation = revocation;
+        }
+
+        void addTo(Set<PGPSignature> signatures) {
+            if (signature != null) signatures.add(signature);
+            if (revocation != null) signatures.add(revocation);
+        }
+    }
+
+    /**
+     * Memoized result, which might be null.
+     *
+     * @param <T> type of result
+     */
+    private static final class Memo<T> {
+
+        private final T value;
+
+        Memo(@Nullable T value) {
+            this.value = value;
         }
     }
 }
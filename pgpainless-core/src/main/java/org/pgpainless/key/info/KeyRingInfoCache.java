@@ -0,0 +1,203 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.key.info;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.openpgp.PGPKeyRing;
+import org.pgpainless.PGPainless;
+import org.pgpainless.key.OpenPgpFingerprint;
+import org.pgpainless.policy.Policy;
+
+/**
+ * Bounded, thread-safe cache of {@link KeyRingInfo} objects.
+ *
+ * Evaluating a key ring requires verification of all its self-signatures, which is expensive.
+ * Applications which repeatedly use the same keys (e.g. for decryption of many messages) can use this cache
+ * to reuse {@link KeyRingInfo} objects instead of re-evaluating the key ring over and over again.
+ *
+ * Entries are identified by the fingerprint of the key ring, a digest over the encoding of the key ring,
+ * the identity of the current {@link Policy} and the evaluation date, truncated to the configured granularity.
+ * That way, a modified key ring (e.g. with an added revocation signature) will never be served from the cache.
+ * Note however, that a {@link KeyRingInfo} might be up to one granularity interval old.
+ * If the {@link Policy} is modified, {@link #clear()} should be called.
+ *
+ * A cache with a capacity of 0 is disabled and will evaluate key rings on every call.
+ */
+public final class KeyRingInfoCache {
+
+    private final int capacity;
+    private final long granularity;
+    private final Map<CacheKey, KeyRingInfo> cache;
+
+    /**
+     * Create a new cache.
+     *
+     * @param capacity maximum number of cached {@link KeyRingInfo} objects. 0 disables the cache.
+     * @param evaluationTimeGranularity granularity of the evaluation date in milliseconds.
+     *                                  Evaluations at dates within the same interval share a cache entry.
+     *                                  0 means that only evaluations at the exact same date share an entry.
+     */
+    public KeyRingInfoCache(int capacity, long evaluationTimeGranularity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative.");
+        }
+        if (evaluationTimeGranularity < 0) {
+            throw new IllegalArgumentException("Evaluation time granularity cannot be negative.");
+        }
+        this.capacity = capacity;
+        this.granularity = evaluationTimeGranularity;
+        this.cache = new LinkedHashMap<CacheKey, KeyRingInfo>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, KeyRingInfo> eldest) {
+                return size() > KeyRingInfoCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Return a disabled cache, which evaluates key rings on every call.
+     *
+     * @return disabled cache
+     */
+    public static KeyRingInfoCache disabled() {
+        return new KeyRingInfoCache(0, 0);
+    }
+
+    /**
+     * Return a {@link KeyRingInfo} of the given key ring, evaluated at the current date.
+     *
+     * @param keyRing key ring
+     * @return key ring info
+     */
+    public KeyRingInfo get(@Nonnull PGPKeyRing keyRing) {
+        return get(keyRing, new Date());
+    }
+
+    /**
+     * Return a {@link KeyRingInfo} of the given key ring, evaluated at the given date.
+     * If the cache already contains an info of the key ring which was evaluated within the same granularity interval,
+     * that info is returned instead.
+     *
+     * @param keyRing key ring
+     * @param evaluationDate evaluation date
+     * @return key ring info
+     */
+    public KeyRingInfo get(@Nonnull PGPKeyRing keyRing, @Nonnull Date evaluationDate) {
+        if (!isEnabled()) {
+            return new KeyRingInfo(keyRing, evaluationDate);
+        }
+
+        CacheKey key;
+        try {
+            key = new CacheKey(keyRing, PGPainless.getPolicy(), bucketOf(evaluationDate));
+        } catch (IOException e) {
+            // Key ring cannot be encoded, so we cannot cache it
+            return new KeyRingInfo(keyRing, evaluationDate);
+        }
+
+        synchronized (cache) {
+            KeyRingInfo cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        // Evaluate outside the lock, so that other threads are not blocked by signature verification
+        KeyRingInfo info = new KeyRingInfo(keyRing, evaluationDate);
+        synchronized (cache) {
+            cache.put(key, info);
+        }
+        return info;
+    }
+
+    /**
+     * Return true if this cache is enabled.
+     *
+     * @return true if capacity is greater than 0
+     */
+    public boolean isEnabled() {
+        return capacity > 0;
+    }
+
+    /**
+     * Return the number of cached {@link KeyRingInfo} objects.
+     *
+     * @return size
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Remove all entries from the cache.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private long bucketOf(Date evaluationDate) {
+        long time = evaluationDate.getTime();
+        if (granularity == 0) {
+            return time;
+        }
+        return time / granularity;
+    }
+
+    private static final class CacheKey {
+
+        private final OpenPgpFingerprint fingerprint;
+        private final byte[] encodingDigest;
+        private final Policy policy;
+        private final long bucket;
+        private final int hashCode;
+
+        CacheKey(PGPKeyRing keyRing, Policy policy, long bucket) throws IOException {
+            this.fingerprint = OpenPgpFingerprint.of(keyRing);
+            this.encodingDigest = digest(keyRing.getEncoded());
+            this.policy = policy;
+            this.bucket = bucket;
+            this.hashCode = 31 * (31 * fingerprint.hashCode() + Arrays.hashCode(encodingDigest)) + (int) (bucket ^ (bucket >>> 32));
+        }
+
+        private static byte[] digest(byte[] encoding) {
+            SHA256Digest digest = new SHA256Digest();
+            digest.update(encoding, 0, encoding.length);
+            byte[] out = new byte[digest.getDigestSize()];
+            digest.doFinal(out, 0);
+            return out;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) obj;
+            return bucket == other.bucket
+                    && policy == other.policy
+                    && fingerprint.equals(other.fingerprint)
+                    && Arrays.equals(encodingDigest, other.encodingDigest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,335 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.key.parsing;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.bouncycastle.bcpg.ArmoredInputStream;
+import org.bouncycastle.bcpg.PacketTags;
+import org.bouncycastle.openpgp.PGPKeyRing;
+import org.bouncycastle.openpgp.PGPObjectFactory;
+import org.pgpainless.implementation.ImplementationFactory;
+import org.pgpainless.util.ArmoredInputStreamFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link Iterator} which lazily reads {@link PGPKeyRing PGPKeyRings} (certificates or secret keys) from an
+ * {@link InputStream} one at a time, so that key ring files of arbitrary size can be processed in bounded memory.
+ *
+ * The packets of each key ring are split off the stream by only evaluating packet headers, before the key ring
+ * is parsed. That way, key rings which cannot be parsed, or which exceed the size limit, can be skipped without
+ * aborting the iteration. The number of skipped key rings is available via {@link #getSkippedKeyRings()}.
+ *
+ * If the input is ASCII armored, each armor block is processed separately, so that a corrupted armor block
+ * (e.g. one with a wrong checksum) only causes the key rings of this block to be skipped.
+ *
+ * This class is not thread-safe. In order to process key rings on multiple threads, the iterator can be wrapped
+ * in a {@code Spliterator} (e.g. using {@code Spliterators.spliteratorUnknownSize()}), which hands out batches
+ * of key rings to the worker threads of a parallel {@code Stream}.
+ */
+public final class KeyRingIterator implements Iterator<PGPKeyRing>, Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KeyRingIterator.class);
+
+    /**
+     * Default maximum size of a single encoded key ring (16 MiB).
+     */
+    public static final int DEFAULT_MAX_KEY_RING_SIZE = 1 << 24;
+
+    private static final int NO_LOOKAHEAD = -2;
+    private static final byte[] SKIPPED = new byte[0];
+
+    private final InputStream decoderStream;
+    private final int maxKeyRingSize;
+    private final ByteArrayOutputStream ringBuffer = new ByteArrayOutputStream();
+    private final byte[] copyBuffer = new byte[8192];
+
+    private int lookahead = NO_LOOKAHEAD;
+    private boolean collecting;
+    private boolean oversized;
+    private PGPKeyRing next;
+    private boolean finished;
+    private int skipped;
+
+    KeyRingIterator(InputStream inputStream, int maxKeyRingSize) throws IOException {
+        if (maxKeyRingSize <= 0) {
+            throw new IllegalArgumentException("Maximum key ring size MUST be positive.");
+        }
+        this.decoderStream = ArmoredInputStreamFactory.getDecoderStream(new BufferedInputStream(inputStream));
+        this.maxKeyRingSize = maxKeyRingSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            next = readNext();
+        }
+        return next != null;
+    }
+
+    @Override
+    public PGPKeyRing next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        PGPKeyRing keyRing = next;
+        next = null;
+        return keyRing;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+
+    /**
+     * Return the number of key rings which were skipped so far, since they were malformed, could not be parsed
+     * or exceeded the maximum key ring size.
+     *
+     * @return number of skipped key rings
+     */
+    public int getSkippedKeyRings() {
+        return skipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        next = null;
+        decoderStream.close();
+    }
+
+    private PGPKeyRing readNext() {
+        while (!finished) {
+            byte[] encoding;
+            try {
+                encoding = readKeyRing();
+            } catch (IOException e) {
+                LOGGER.debug("Skipping malformed key ring.", e);
+                skipped++;
+                skipBlock();
+                continue;
+            }
+
+            if (encoding == null) {
+                // End of the armor block or stream
+                finished = isEndOfStream();
+                continue;
+            }
+            if (encoding == SKIPPED) {
+                continue;
+            }
+
+            PGPKeyRing keyRing = parse(encoding);
+            if (keyRing != null) {
+                return keyRing;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Read the packets of the next key ring.
+     *
+     * @return encoding of the key ring, {@link #SKIPPED} if the key ring exceeds the maximum size,
+     * or null if the end of the current armor block or the stream is reached
+     */
+    private byte[] readKeyRing() throws IOException {
+        int header = seekPrimaryKey();
+        if (header < 0) {
+            return null;
+        }
+
+        ringBuffer.reset();
+        collecting = true;
+        oversized = false;
+        try {
+            do {
+                copyPacket(header);
+                header = nextHeader();
+            } while (header >= 0 && !isPrimaryKey(header) && isPacketHeader(header));
+        } finally {
+            collecting = false;
+        }
+        if (header >= 0) {
+            lookahead = header;
+        }
+
+        if (oversized) {
+            LOGGER.debug("Skipping key ring exceeding the maximum size of {} bytes.", maxKeyRingSize);
+            skipped++;
+            return SKIPPED;
+        }
+        return ringBuffer.toByteArray();
+    }
+
+    private int seekPrimaryKey() throws IOException {
+        while (true) {
+            int header = nextHeader();
+            if (header < 0 || isPrimaryKey(header)) {
+                return header;
+            }
+            // Skip packets which do not belong to a key ring, or resynchronize byte by byte on garbage
+            if (isPacketHeader(header)) {
+                copyPacket(header);
+            }
+        }
+    }
+
+    private int nextHeader() throws IOException {
+        if (lookahead != NO_LOOKAHEAD) {
+            int header = lookahead;
+            lookahead = NO_LOOKAHEAD;
+            return header;
+        }
+        return decoderStream.read();
+    }
+
+    private static boolean isPacketHeader(int header) {
+        return (header & 0x80) != 0;
+    }
+
+    private static boolean isPrimaryKey(int header) {
+        if (!isPacketHeader(header)) {
+            return false;
+        }
+        int tag = (header & 0x40) != 0 ? header & 0x3f : (header & 0x3f) >> 2;
+        return tag == PacketTags.PUBLIC_KEY || tag == PacketTags.SECRET_KEY;
+    }
+
+    private void copyPacket(int header) throws IOException {
+        append(header);
+        if ((header & 0x40) == 0) {
+            // Old format packet
+            switch (header & 0x03) {
+                case 0:
+                    copyBody(readByte());
+                    break;
+                case 1:
+                    copyBody(readByte() << 8 | readByte());
+                    break;
+                case 2:
+                    copyBody(readFourOctetLength());
+                    break;
+                default:
+                    // Indeterminate length
+                    copyBody(-1);
+            }
+            return;
+        }
+
+        // New format packet
+        boolean partial;
+        do {
+            partial = false;
+            int first = readByte();
+            long length;
+            if (first < 192) {
+                length = first;
+            } else if (first < 224) {
+                length = ((first - 192) << 8) + readByte() + 192;
+            } else if (first == 255) {
+                length = readFourOctetLength();
+            } else {
+                length = 1L << (first & 0x1f);
+                partial = true;
+            }
+            copyBody(length);
+        } while (partial);
+    }
+
+    private long readFourOctetLength() throws IOException {
+        return ((long) readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+    }
+
+    private int readByte() throws IOException {
+        int b = decoderStream.read();
+        if (b < 0) {
+            throw new EOFException("Unexpected end of packet.");
+        }
+        append(b);
+        return b;
+    }
+
+    private void copyBody(long length) throws IOException {
+        long remaining = length;
+        while (length < 0 || remaining > 0) {
+            int len = length < 0 ? copyBuffer.length : (int) Math.min(remaining, copyBuffer.length);
+            int read = decoderStream.read(copyBuffer, 0, len);
+            if (read < 0) {
+                if (length < 0) {
+                    return;
+                }
+                throw new EOFException("Unexpected end of packet.");
+            }
+            append(copyBuffer, read);
+            remaining -= read;
+        }
+    }
+
+    private void append(int b) {
+        copyBuffer[0] = (byte) b;
+        append(copyBuffer, 1);
+    }
+
+    private void append(byte[] bytes, int len) {
+        if (!collecting || oversized) {
+            return;
+        }
+        if (ringBuffer.size() + len > maxKeyRingSize) {
+            oversized = true;
+            ringBuffer.reset();
+            return;
+        }
+        ringBuffer.write(bytes, 0, len);
+    }
+
+    private PGPKeyRing parse(byte[] encoding) {
+        try {
+            PGPObjectFactory objectFactory = ImplementationFactory.getInstance().getPGPObjectFactory(encoding);
+            Object object = objectFactory.nextObject();
+            if (object instanceof PGPKeyRing) {
+                return (PGPKeyRing) object;
+            }
+            LOGGER.debug("Skipping unexpected object {}.", object);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Skipping key ring which cannot be parsed.", e);
+        }
+        skipped++;
+        return null;
+    }
+
+    /**
+     * Skip the remainder of the current armor block after an error.
+     * If the input is not armored, or the armored data cannot be recovered, the iteration ends.
+     */
+    private void skipBlock() {
+        lookahead = NO_LOOKAHEAD;
+        try {
+            while (decoderStream.read() >= 0) {
+                // skip
+            }
+            finished = isEndOfStream();
+        } catch (IOException e) {
+            LOGGER.debug("Cannot recover from malformed input.", e);
+            finished = true;
+        }
+    }
+
+    private boolean isEndOfStream() {
+        if (decoderStream instanceof ArmoredInputStream) {
+            return ((ArmoredInputStream) decoderStream).isEndOfStream();
+        }
+        return true;
+    }
+}
@@ -95,6 +95,10 @@ public class KeyRingReader {
         return keyRingCollection(asciiArmored.getBytes(UTF8), isSilent);
     }
 
+    public KeyRingIterator keyRingIterator(@Nonnull InputStream inputStream) throws IOException {
+        return readKeyRingIterator(inputStream);
+    }
+
     public static PGPPublicKeyRing readPublicKeyRing(@Nonnull InputStream inputStream) throws IOException {
         return readPublicKeyRing(inputStream, MAX_ITERATIONS);
     }
@@ -259,4 +263,24 @@ public class KeyRingReader {
             throws IOException, PGPException {
         return new PGPKeyRingCollection(inputStream, isSilent);
     }
+
+    public static KeyRingIterator readKeyRingIterator(@Nonnull InputStream inputStream) throws IOException {
+        return readKeyRingIterator(inputStream, KeyRingIterator.DEFAULT_MAX_KEY_RING_SIZE);
+    }
+
+    /**
+     * Return an {@link Iterator} which lazily reads the key rings (certificates and secret keys) from the
+     * provided {@link InputStream} one at a time.
+     * Contrary to the collection methods, the key rings are not held in memory at once.
+     * Malformed key rings, as well as key rings whose encoding exceeds maxKeyRingSize bytes are skipped.
+     *
+     * @param inputStream input stream
+     * @param maxKeyRingSize maximum size of a single encoded key ring in bytes
+     * @return key ring iterator
+     * @throws IOException in case of an IO error while detecting ASCII armor
+     */
+    public static KeyRingIterator readKeyRingIterator(@Nonnull InputStream inputStream, int maxKeyRingSize)
+            throws IOException {
+        return new KeyRingIterator(inputStream, maxKeyRingSize);
+    }
 }
@@ -0,0 +1,348 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.key.protection;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.security.auth.DestroyFailedException;
+import javax.security.auth.Destroyable;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.openpgp.PGPPrivateKey;
+import org.bouncycastle.openpgp.PGPSecretKey;
+import org.bouncycastle.openpgp.operator.jcajce.JcaPGPPrivateKey;
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * Bounded, thread-safe cache of unlocked {@link PGPPrivateKey PGPPrivateKeys}.
+ *
+ * Unlocking a passphrase protected secret key requires an expensive S2K derivation.
+ * Long-running applications that decrypt or sign many messages with the same keys (e.g. mail gateways)
+ * can pass a {@link PrivateKeyCache} to {@link org.pgpainless.decryption_verification.ConsumerOptions} and
+ * {@link org.pgpainless.encryption_signing.SigningOptions}, so that each secret key is only unlocked once.
+ *
+ * Entries are identified by a SHA-256 digest over the encoding of the secret key packet and are evicted
+ * <ul>
+ *     <li>once the cache exceeds its maximum size (least recently used entries first),</li>
+ *     <li>once they are older than the configured time-to-live,</li>
+ *     <li>once they were not accessed for longer than the configured maximum idle time,</li>
+ *     <li>or when {@link #invalidate(PGPSecretKey)} or {@link #clear()} is called.</li>
+ * </ul>
+ * Expired entries are removed lazily on access, or explicitly via {@link #evictExpired()}.
+ *
+ * Cached keys are handed out as {@link Lease Leases}. An evicted key is wiped as soon as the last lease on it is
+ * closed, so keys are never wiped while another thread is still using them.
+ * Keys are wiped on a best-effort basis: JCA private keys are destroyed if they support it.
+ * Note however, that the key material of BouncyCastle's {@link org.bouncycastle.bcpg.BCPGKey} implementations
+ * is held in immutable {@link java.math.BigInteger BigIntegers}, so it cannot be overwritten and will only disappear
+ * once it is garbage collected. The private key of a closed lease must therefore not be used anymore.
+ *
+ * Note: Anyone with access to the cache can use the cached keys without knowing their passphrases.
+ * Do not share a cache between parties that do not trust each other.
+ */
+public final class PrivateKeyCache {
+
+    /**
+     * Source of the current time in milliseconds.
+     */
+    interface Clock {
+        long currentTimeMillis();
+    }
+
+    private static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    private final int maxSize;
+    private final long timeToLive;
+    private final long maxIdleTime;
+    private final Clock clock;
+    private final Map<String, CachedKey> cache;
+
+    /**
+     * Create a new cache.
+     *
+     * @param maxSize maximum number of cached private keys
+     * @param timeToLiveMillis maximum time in milliseconds a private key is held after it was unlocked. 0 means unlimited.
+     * @param maxIdleTimeMillis maximum time in milliseconds a private key is held after its last use. 0 means unlimited.
+     */
+    public PrivateKeyCache(int maxSize, long timeToLiveMillis, long maxIdleTimeMillis) {
+        this(maxSize, timeToLiveMillis, maxIdleTimeMillis, SYSTEM_CLOCK);
+    }
+
+    PrivateKeyCache(int maxSize, long timeToLiveMillis, long maxIdleTimeMillis, @Nonnull Clock clock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive.");
+        }
+        if (timeToLiveMillis < 0) {
+            throw new IllegalArgumentException("Time to live cannot be negative.");
+        }
+        if (maxIdleTimeMillis < 0) {
+            throw new IllegalArgumentException("Maximum idle time cannot be negative.");
+        }
+        this.maxSize = maxSize;
+        this.timeToLive = timeToLiveMillis;
+        this.maxIdleTime = maxIdleTimeMillis;
+        this.clock = clock;
+        this.cache = new LinkedHashMap<String, CachedKey>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedKey> eldest) {
+                if (size() > PrivateKeyCache.this.maxSize) {
+                    eldest.getValue().evict();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Return a lease on the cached unlocked private key of the given secret key, or null if the cache does not
+     * contain a (non-expired) private key for it.
+     * The private key is not wiped before the lease is closed.
+     *
+     * @param secretKey secret key
+     * @return lease on the unlocked private key or null
+     */
+    public @Nullable Lease acquire(@Nonnull PGPSecretKey secretKey) {
+        String digest = digest(secretKey);
+        if (digest == null) {
+            return null;
+        }
+
+        long now = clock.currentTimeMillis();
+        synchronized (cache) {
+            CachedKey cachedKey = cache.get(digest);
+            if (cachedKey == null) {
+                return null;
+            }
+            if (isExpired(cachedKey, now)) {
+                cache.remove(digest);
+                cachedKey.evict();
+                return null;
+            }
+            cachedKey.lastAccess = now;
+            return new Lease(cachedKey);
+        }
+    }
+
+    /**
+     * Store the unlocked private key of the given secret key in the cache and return a lease on it.
+     * If the cache already contains a private key for the secret key, the old private key is replaced.
+     * The caller takes ownership of the private key and must close the returned lease once it no longer uses it.
+     *
+     * @param secretKey secret key
+     * @param privateKey unlocked private key
+     * @return lease on the private key
+     */
+    public @Nonnull Lease put(@Nonnull PGPSecretKey secretKey, @Nonnull PGPPrivateKey privateKey) {
+        long now = clock.currentTimeMillis();
+        String digest = digest(secretKey);
+        synchronized (cache) {
+            if (digest == null) {
+                // Secret key cannot be encoded, so we cannot cache it. The key is wiped once the lease is closed.
+                CachedKey uncached = new CachedKey(privateKey, now);
+                Lease lease = new Lease(uncached);
+                uncached.evict();
+                return lease;
+            }
+
+            CachedKey previous = cache.get(digest);
+            if (previous != null && previous.privateKey == privateKey) {
+                previous.lastAccess = now;
+                return new Lease(previous);
+            }
+            CachedKey cachedKey = new CachedKey(privateKey, now);
+            cache.put(digest, cachedKey);
+            if (previous != null) {
+                previous.evict();
+            }
+            return new Lease(cachedKey);
+        }
+    }
+
+    /**
+     * Remove the cached private key of the given secret key.
+     * The key is wiped as soon as it is no longer leased.
+     *
+     * @param secretKey secret key
+     */
+    public void invalidate(@Nonnull PGPSecretKey secretKey) {
+        String digest = digest(secretKey);
+        if (digest == null) {
+            return;
+        }
+
+        synchronized (cache) {
+            CachedKey cachedKey = cache.remove(digest);
+            if (cachedKey != null) {
+                cachedKey.evict();
+            }
+        }
+    }
+
+    /**
+     * Remove all private keys whose time-to-live or maximum idle time is exceeded.
+     * Evicted keys are wiped as soon as they are no longer leased.
+     * Applications can call this method periodically to make sure that expired keys do not linger in memory
+     * until their next access.
+     *
+     * @return number of evicted private keys
+     */
+    public int evictExpired() {
+        long now = clock.currentTimeMillis();
+        int evicted = 0;
+        synchronized (cache) {
+            Iterator<CachedKey> iterator = cache.values().iterator();
+            while (iterator.hasNext()) {
+                CachedKey cachedKey = iterator.next();
+                if (isExpired(cachedKey, now)) {
+                    iterator.remove();
+                    cachedKey.evict();
+                    evicted++;
+                }
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Remove all cached private keys.
+     * Evicted keys are wiped as soon as they are no longer leased.
+     */
+    public void clear() {
+        synchronized (cache) {
+            for (CachedKey cachedKey : cache.values()) {
+                cachedKey.evict();
+            }
+            cache.clear();
+        }
+    }
+
+    /**
+     * Return the number of cached private keys, including expired keys that were not yet evicted.
+     *
+     * @return size
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private boolean isExpired(CachedKey cachedKey, long now) {
+        if (timeToLive != 0 && now - cachedKey.created >= timeToLive) {
+            return true;
+        }
+        return maxIdleTime != 0 && now - cachedKey.lastAccess >= maxIdleTime;
+    }
+
+    private static void wipe(PGPPrivateKey privateKey) {
+        if (!(privateKey instanceof JcaPGPPrivateKey)) {
+            // BCPGKey material is held in immutable BigIntegers and cannot be wiped
+            return;
+        }
+        Object key = ((JcaPGPPrivateKey) privateKey).getPrivateKey();
+        if (key instanceof Destroyable && !((Destroyable) key).isDestroyed()) {
+            try {
+                ((Destroyable) key).destroy();
+            } catch (DestroyFailedException e) {
+                // Best effort, most JCA providers do not support destruction of keys
+            }
+        }
+    }
+
+    private static String digest(PGPSecretKey secretKey) {
+        byte[] encoding;
+        try {
+            encoding = secretKey.getEncoded();
+        } catch (IOException e) {
+            return null;
+        }
+        SHA256Digest digest = new SHA256Digest();
+        digest.update(encoding, 0, encoding.length);
+        byte[] out = new byte[digest.getDigestSize()];
+        digest.doFinal(out, 0);
+        return Hex.toHexString(out);
+    }
+
+    /**
+     * Lease on a cached private key.
+     * The private key is not wiped before the lease is closed. Closing a lease does not remove the key from the cache.
+     */
+    public final class Lease implements Closeable {
+
+        private final CachedKey cachedKey;
+        private boolean closed = false;
+
+        private Lease(CachedKey cachedKey) {
+            this.cachedKey = cachedKey;
+            cachedKey.leases++;
+        }
+
+        /**
+         * Return the unlocked private key.
+         *
+         * @return private key
+         */
+        public @Nonnull PGPPrivateKey getPrivateKey() {
+            return cachedKey.privateKey;
+        }
+
+        /**
+         * Release the lease. If the key was evicted from the cache in the meantime and is not leased anymore,
+         * it is wiped. Closing a lease more than once has no effect.
+         */
+        @Override
+        public void close() {
+            synchronized (cache) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                cachedKey.leases--;
+                cachedKey.wipeIfUnused();
+            }
+        }
+    }
+
+    /**
+     * Cached private key along with its access times and the number of open leases.
+     * Guarded by the lock on the cache map.
+     */
+    private static final class CachedKey {
+
+        private final PGPPrivateKey privateKey;
+        private final long created;
+        private long lastAccess;
+        private int leases = 0;
+        private boolean evicted = false;
+
+        CachedKey(PGPPrivateKey privateKey, long created) {
+            this.privateKey = privateKey;
+            this.created = created;
+            this.lastAccess = created;
+        }
+
+        void evict() {
+            evicted = true;
+            wipeIfUnused();
+        }
+
+        void wipeIfUnused() {
+            if (evicted && leases == 0) {
+                wipe(privateKey);
+            }
+        }
+    }
+}
@@ -5,14 +5,18 @@
 
 package org.pgpainless.key.protection;
 
+import java.io.IOException;
+
 import org.bouncycastle.openpgp.PGPException;
 import org.bouncycastle.openpgp.PGPPrivateKey;
 import org.bouncycastle.openpgp.PGPSecretKey;
 import org.bouncycastle.openpgp.operator.PBESecretKeyDecryptor;
+import org.pgpainless.PGPainless;
 import org.pgpainless.exception.KeyIntegrityException;
 import org.pgpainless.exception.WrongPassphraseException;
 import org.pgpainless.key.info.KeyInfo;
 import org.pgpainless.key.util.PublicKeyParameterValidationUtil;
+import org.pgpainless.policy.Policy;
 import org.pgpainless.util.Passphrase;
 
 public final class UnlockSecretKey {
@@ -51,11 +55,38 @@ public final class UnlockSecretKey {
             throw new PGPException("Cannot decrypt secret key.");
         }
 
-        PublicKeyParameterValidationUtil.verifyPublicKeyParameterIntegrity(privateKey, secretKey.getPublicKey());
+        verifyPublicKeyParameterIntegrity(privateKey, secretKey);
 
         return privateKey;
     }
 
+    private static void verifyPublicKeyParameterIntegrity(PGPPrivateKey privateKey, PGPSecretKey secretKey)
+            throws KeyIntegrityException {
+        Policy.KeyParameterValidationPolicy validationPolicy = PGPainless.getPolicy().getKeyParameterValidationPolicy();
+        switch (validationPolicy) {
+            case VERIFY_NEVER:
+                return;
+
+            case VERIFY_ONCE:
+                VerifiedKeyCache cache = VerifiedKeyCache.getInstance();
+                try {
+                    if (cache.isVerified(secretKey)) {
+                        return;
+                    }
+                    PublicKeyParameterValidationUtil.verifyPublicKeyParameterIntegrity(privateKey, secretKey.getPublicKey());
+                    cache.markVerified(secretKey);
+                } catch (IOException e) {
+                    // Key cannot be encoded, so we cannot remember it
+                    PublicKeyParameterValidationUtil.verifyPublicKeyParameterIntegrity(privateKey, secretKey.getPublicKey());
+                }
+                return;
+
+            case VERIFY_ALWAYS:
+            default:
+                PublicKeyParameterValidationUtil.verifyPublicKeyParameterIntegrity(privateKey, secretKey.getPublicKey());
+        }
+    }
+
     public static PGPPrivateKey unlockSecretKey(PGPSecretKey secretKey, Passphrase passphrase)
             throws PGPException, KeyIntegrityException {
         return unlockSecretKey(secretKey, SecretKeyRingProtector.unlockSingleKeyWith(passphrase, secretKey));
@@ -0,0 +1,143 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.key.protection;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.openpgp.PGPSecretKey;
+import org.bouncycastle.util.encoders.Hex;
+
+/**
+ * Bounded cache of secret keys whose public key parameters were already successfully validated against the
+ * unlocked private key (see {@link org.pgpainless.key.util.PublicKeyParameterValidationUtil}).
+ *
+ * Keys are identified by a SHA-256 digest over the encoding of the secret key packet.
+ * Any modification of the packet (e.g. tampering with the public key parameters) results in a different digest,
+ * which means that a modified key will be validated again.
+ *
+ * This cache is used by {@link UnlockSecretKey} if the {@link org.pgpainless.policy.Policy} is configured with
+ * {@link org.pgpainless.policy.Policy.KeyParameterValidationPolicy#VERIFY_ONCE}.
+ */
+public final class VerifiedKeyCache {
+
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    private static final VerifiedKeyCache INSTANCE = new VerifiedKeyCache(DEFAULT_CAPACITY);
+
+    private final Map<String, Boolean> verified;
+    private long hits = 0;
+    private long misses = 0;
+
+    VerifiedKeyCache(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        this.verified = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Return the process-wide instance of the cache.
+     *
+     * @return cache
+     */
+    public static VerifiedKeyCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Return true, if the given secret key was previously marked as verified.
+     * This method counts towards the hit/miss counters.
+     *
+     * @param secretKey secret key
+     * @return true if the key was already verified
+     * @throws IOException if the secret key cannot be encoded
+     */
+    public boolean isVerified(@Nonnull PGPSecretKey secretKey) throws IOException {
+        String digest = digest(secretKey);
+        synchronized (verified) {
+            if (verified.get(digest) != null) {
+                hits++;
+                return true;
+            }
+            misses++;
+            return false;
+        }
+    }
+
+    /**
+     * Mark the given secret key as verified.
+     *
+     * @param secretKey secret key
+     * @throws IOException if the secret key cannot be encoded
+     */
+    public void markVerified(@Nonnull PGPSecretKey secretKey) throws IOException {
+        String digest = digest(secretKey);
+        synchronized (verified) {
+            verified.put(digest, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Return the number of lookups of keys which were already verified.
+     *
+     * @return hit count
+     */
+    public long getHitCount() {
+        synchronized (verified) {
+            return hits;
+        }
+    }
+
+    /**
+     * Return the number of lookups of keys which were not yet verified.
+     *
+     * @return miss count
+     */
+    public long getMissCount() {
+        synchronized (verified) {
+            return misses;
+        }
+    }
+
+    /**
+     * Return the number of keys that are currently marked as verified.
+     *
+     * @return size
+     */
+    public int size() {
+        synchronized (verified) {
+            return verified.size();
+        }
+    }
+
+    /**
+     * Forget about all verified keys and reset the counters.
+     */
+    public void clear() {
+        synchronized (verified) {
+            verified.clear();
+            hits = 0;
+            misses = 0;
+        }
+    }
+
+    private static String digest(PGPSecretKey secretKey) throws IOException {
+        byte[] encoding = secretKey.getEncoded();
+        SHA256Digest digest = new SHA256Digest();
+        digest.update(encoding, 0, encoding.length);
+        byte[] out = new byte[digest.getDigestSize()];
+        digest.doFinal(out, 0);
+        return Hex.toHexString(out);
+    }
+}
@@ -0,0 +1,40 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.key.store;
+
+import java.io.IOException;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.pgpainless.decryption_verification.MissingPublicKeyCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link MissingPublicKeyCallback} which looks up missing certificates in a {@link FileCertificateStore}.
+ * Since lookups in the store are thread-safe, a single instance can be shared between
+ * {@link org.pgpainless.decryption_verification.ConsumerOptions} and threads.
+ */
+public final class CertificateStoreCallback implements MissingPublicKeyCallback {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CertificateStoreCallback.class);
+
+    private final FileCertificateStore store;
+
+    public CertificateStoreCallback(@Nonnull FileCertificateStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public @Nullable PGPPublicKeyRing onMissingPublicKeyEncountered(@Nonnull Long keyId) {
+        try {
+            return store.get(keyId);
+        } catch (IOException e) {
+            LOGGER.debug("Cannot look up certificate for key {} in certificate store.", Long.toHexString(keyId), e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,683 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.key.store;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.util.Strings;
+import org.bouncycastle.util.encoders.Hex;
+import org.pgpainless.implementation.ImplementationFactory;
+import org.pgpainless.key.OpenPgpFingerprint;
+import org.pgpainless.key.util.UserId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Certificate store which keeps certificates in a directory on disk.
+ *
+ * Certificates are appended in binary form to a data file ({@link #DATA_FILE_NAME}), which is never rewritten.
+ * Adding a newer version of a stored certificate appends the new version, which then supersedes the old one.
+ * An index file ({@link #INDEX_FILE_NAME}) maps the key-ids and fingerprints of all (sub-)keys, as well as
+ * the normalized e-mail addresses of all user-ids to the positions of the certificates in the data file.
+ * The index is an open addressing hash table which is memory-mapped, so opening a store does not require
+ * reading the index, and a lookup usually touches a single page of the index plus the certificate itself.
+ * Since a memory-mapped file can neither be resized nor replaced on all platforms, a grown or rebuilt index is
+ * written to a new file with an increasing generation suffix ({@code certificates.idx.1}, {@code certificates.idx.2},
+ * ...). Files of older generations are deleted once this is possible.
+ *
+ * If the index is missing, corrupted or lags behind the data file (e.g. after a crash), it is updated
+ * or rebuilt from the data file when the store is opened.
+ *
+ * Lookups can be performed concurrently from multiple threads. Adding certificates blocks lookups.
+ * A store directory must only be opened by one {@link FileCertificateStore} at a time.
+ */
+public final class FileCertificateStore implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileCertificateStore.class);
+
+    public static final String DATA_FILE_NAME = "certificates.pgp";
+    public static final String INDEX_FILE_NAME = "certificates.idx";
+
+    // "PGPLCERT" and "PGPLIDX1"
+    private static final long DATA_MAGIC = 0x5047504c43455254L;
+    private static final long INDEX_MAGIC = 0x5047504c49445831L;
+    private static final int DATA_HEADER_SIZE = 8;
+    // magic, capacity, count, indexed data length
+    private static final int INDEX_HEADER_SIZE = 24;
+    // hash, data offset
+    private static final int SLOT_SIZE = 16;
+    static final int DEFAULT_INITIAL_CAPACITY = 1 << 12;
+    private static final int MAX_CAPACITY = 1 << 26;
+
+    private static final byte TYPE_CERTIFICATE = 1;
+    private static final byte TYPE_KEY_ID = 2;
+    private static final byte TYPE_FINGERPRINT = 3;
+    private static final byte TYPE_EMAIL = 4;
+
+    private final File directory;
+    private final RandomAccessFile dataFile;
+    private final FileChannel dataChannel;
+    private final int initialCapacity;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private RandomAccessFile indexRandomAccessFile;
+    private MappedByteBuffer index;
+    private int generation;
+    private int capacity;
+    private int count;
+    private long dataLength;
+    private boolean closed = false;
+
+    private FileCertificateStore(File directory, int initialCapacity) throws IOException {
+        this.directory = directory;
+        this.initialCapacity = initialCapacity;
+        this.dataFile = new RandomAccessFile(new File(directory, DATA_FILE_NAME), "rw");
+        this.dataChannel = dataFile.getChannel();
+        try {
+            if (dataFile.length() == 0) {
+                dataFile.writeLong(DATA_MAGIC);
+            } else if (dataFile.length() < DATA_HEADER_SIZE || readBytes(0, DATA_HEADER_SIZE).getLong() != DATA_MAGIC) {
+                throw new IOException("File " + DATA_FILE_NAME + " in " + directory + " is not a certificate store.");
+            }
+
+            int latestGeneration = latestIndexGeneration();
+            if (latestGeneration < 0 || !loadIndex(latestGeneration) || !indexTail()) {
+                LOGGER.debug("Rebuild index of certificate store {}", directory);
+                createIndex(initialCapacity, latestGeneration + 1);
+                indexTail();
+            }
+            deleteStaleIndexFiles();
+        } catch (IOException | RuntimeException e) {
+            closeFiles();
+            throw e;
+        }
+    }
+
+    /**
+     * Open the certificate store in the given directory.
+     * If the directory does not yet contain a store, an empty store is created.
+     *
+     * @param directory store directory
+     * @return certificate store
+     * @throws IOException if the store cannot be opened or created
+     */
+    public static FileCertificateStore open(@Nonnull File directory) throws IOException {
+        return open(directory, DEFAULT_INITIAL_CAPACITY);
+    }
+
+    static FileCertificateStore open(@Nonnull File directory, int initialCapacity) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory);
+        }
+        return new FileCertificateStore(directory, initialCapacity);
+    }
+
+    /**
+     * Add a certificate to the store.
+     * If the store already contains an older version of the certificate, the given version supersedes it.
+     * Adding a certificate which is identical to the stored version has no effect.
+     *
+     * @param certificate certificate
+     * @throws IOException in case of an IO error
+     */
+    public void add(@Nonnull PGPPublicKeyRing certificate) throws IOException {
+        byte[] encoding = certificate.getEncoded();
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            long latest = latestOffset(certificate);
+            if (latest != 0 && Arrays.equals(encoding, readRecord(latest))) {
+                return;
+            }
+
+            long offset = dataLength;
+            dataFile.seek(offset);
+            dataFile.writeInt(encoding.length);
+            dataFile.write(encoding);
+            index(certificate, offset);
+            setDataLength(offset + 4 + encoding.length);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add all given certificates to the store.
+     *
+     * @param certificates certificates
+     * @throws IOException in case of an IO error
+     */
+    public void addAll(@Nonnull Iterable<PGPPublicKeyRing> certificates) throws IOException {
+        for (PGPPublicKeyRing certificate : certificates) {
+            add(certificate);
+        }
+    }
+
+    /**
+     * Return the latest version of the certificate which contains a (sub-)key with the given key-id,
+     * or null if no such certificate is stored.
+     * If multiple certificates contain a key with the given key-id, the most recently added one is returned.
+     *
+     * @param keyId key-id
+     * @return certificate or null
+     * @throws IOException in case of an IO error
+     */
+    public @Nullable PGPPublicKeyRing get(long keyId) throws IOException {
+        List<PGPPublicKeyRing> certificates = lookup(hash(TYPE_KEY_ID, keyIdBytes(keyId)), new KeyIdMatch(keyId), true);
+        return certificates.isEmpty() ? null : certificates.get(0);
+    }
+
+    /**
+     * Return the latest versions of all certificates which contain a (sub-)key with the given key-id.
+     * Usually, this list contains at most one element, but key-ids are not guaranteed to be unique.
+     *
+     * @param keyId key-id
+     * @return certificates
+     * @throws IOException in case of an IO error
+     */
+    public @Nonnull List<PGPPublicKeyRing> getAll(long keyId) throws IOException {
+        return lookup(hash(TYPE_KEY_ID, keyIdBytes(keyId)), new KeyIdMatch(keyId), false);
+    }
+
+    /**
+     * Return the latest version of the certificate which contains a (sub-)key with the given fingerprint,
+     * or null if no such certificate is stored.
+     *
+     * @param fingerprint fingerprint of the primary key or a subkey
+     * @return certificate or null
+     * @throws IOException in case of an IO error
+     */
+    public @Nullable PGPPublicKeyRing get(@Nonnull final OpenPgpFingerprint fingerprint) throws IOException {
+        final byte[] fingerprintBytes = Hex.decode(fingerprint.toString());
+        List<PGPPublicKeyRing> certificates = lookup(hash(TYPE_FINGERPRINT, fingerprintBytes), new Match() {
+            @Override
+            public boolean matches(PGPPublicKeyRing certificate) {
+                return certificate.getPublicKey(fingerprintBytes) != null;
+            }
+        }, true);
+        return certificates.isEmpty() ? null : certificates.get(0);
+    }
+
+    /**
+     * Return the latest versions of all certificates which carry a user-id with the given e-mail address.
+     * The address is compared case-insensitively.
+     *
+     * @param email e-mail address
+     * @return certificates
+     * @throws IOException in case of an IO error
+     */
+    public @Nonnull List<PGPPublicKeyRing> getByEmail(@Nonnull String email) throws IOException {
+        final String normalized = UserId.extractNormalizedEmail(email);
+        if (normalized == null) {
+            return new ArrayList<>();
+        }
+        return lookup(hash(TYPE_EMAIL, Strings.toUTF8ByteArray(normalized)), new Match() {
+            @Override
+            public boolean matches(PGPPublicKeyRing certificate) {
+                Iterator<String> userIds = certificate.getPublicKey().getUserIDs();
+                while (userIds.hasNext()) {
+                    if (normalized.equals(UserId.extractNormalizedEmail(userIds.next()))) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }, false);
+    }
+
+    /**
+     * Write all changes to the storage device.
+     *
+     * @throws IOException in case of an IO error
+     */
+    public void flush() throws IOException {
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            index.force();
+            dataChannel.force(false);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            index.force();
+            dataChannel.force(false);
+            closed = true;
+            closeFiles();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<PGPPublicKeyRing> lookup(long hash, Match match, boolean firstOnly) throws IOException {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            List<PGPPublicKeyRing> result = new ArrayList<>();
+            Set<OpenPgpFingerprint> seen = new HashSet<>();
+            long[] offsets = candidates(index, capacity, hash);
+            // Most recently added first
+            for (int i = offsets.length - 1; i >= 0; i--) {
+                PGPPublicKeyRing certificate = parse(readRecord(offsets[i]));
+                if (!match.matches(certificate) || !seen.add(OpenPgpFingerprint.of(certificate))) {
+                    continue;
+                }
+                long latest = latestOffset(certificate);
+                if (latest != offsets[i]) {
+                    // A newer version of the certificate no longer matches
+                    certificate = parse(readRecord(latest));
+                    if (!match.matches(certificate)) {
+                        continue;
+                    }
+                }
+                result.add(certificate);
+                if (firstOnly) {
+                    break;
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long latestOffset(PGPPublicKeyRing certificate) {
+        long[] offsets = candidates(index, capacity, hash(TYPE_CERTIFICATE, certificate.getPublicKey().getFingerprint()));
+        return offsets.length == 0 ? 0 : offsets[offsets.length - 1];
+    }
+
+    private void index(PGPPublicKeyRing certificate, long offset) throws IOException {
+        List<Long> hashes = new ArrayList<>();
+        hashes.add(hash(TYPE_CERTIFICATE, certificate.getPublicKey().getFingerprint()));
+        Iterator<PGPPublicKey> keys = certificate.getPublicKeys();
+        while (keys.hasNext()) {
+            PGPPublicKey key = keys.next();
+            hashes.add(hash(TYPE_KEY_ID, keyIdBytes(key.getKeyID())));
+            hashes.add(hash(TYPE_FINGERPRINT, key.getFingerprint()));
+        }
+        Iterator<String> userIds = certificate.getPublicKey().getUserIDs();
+        while (userIds.hasNext()) {
+            String email = UserId.extractNormalizedEmail(userIds.next());
+            if (email != null) {
+                hashes.add(hash(TYPE_EMAIL, Strings.toUTF8ByteArray(email)));
+            }
+        }
+
+        ensureCapacity(count + hashes.size());
+        for (long hash : hashes) {
+            if (insert(index, capacity, hash, offset)) {
+                count++;
+            }
+        }
+        index.putInt(12, count);
+    }
+
+    private void ensureCapacity(int entries) throws IOException {
+        if (entries <= capacity / 2) {
+            return;
+        }
+        int newCapacity = capacity;
+        while (entries > newCapacity / 2) {
+            if (newCapacity >= MAX_CAPACITY) {
+                throw new IOException("Certificate store index cannot hold more than " + MAX_CAPACITY / 2 + " entries.");
+            }
+            newCapacity <<= 1;
+        }
+
+        // Rehash into the index file of the next generation, since the mapped file cannot be resized or replaced
+        int newGeneration = generation + 1;
+        RandomAccessFile randomAccessFile = new RandomAccessFile(indexFile(newGeneration), "rw");
+        MappedByteBuffer map;
+        try {
+            map = mapIndex(randomAccessFile, newCapacity);
+            for (int i = 0; i < capacity; i++) {
+                long offset = index.getLong(slotPosition(i) + 8);
+                if (offset != 0) {
+                    insert(map, newCapacity, index.getLong(slotPosition(i)), offset);
+                }
+            }
+            // Persist the slots before the header, so that a crash never leaves a valid header with missing slots
+            map.force();
+            writeHeader(map, newCapacity, count, dataLength);
+            map.force();
+        } catch (IOException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+        switchIndex(randomAccessFile, map, newGeneration);
+        capacity = newCapacity;
+        deleteStaleIndexFiles();
+    }
+
+    private boolean loadIndex(int generation) throws IOException {
+        File indexFile = indexFile(generation);
+        if (indexFile.length() < INDEX_HEADER_SIZE) {
+            return false;
+        }
+        RandomAccessFile randomAccessFile = new RandomAccessFile(indexFile, "rw");
+        boolean loaded = false;
+        try {
+            // Validate the header before mapping, so that invalid files are never mapped and can be deleted
+            long magic = randomAccessFile.readLong();
+            int mappedCapacity = randomAccessFile.readInt();
+            int mappedCount = randomAccessFile.readInt();
+            long indexedDataLength = randomAccessFile.readLong();
+            if (magic != INDEX_MAGIC
+                    || mappedCapacity <= 0 || mappedCapacity > MAX_CAPACITY || Integer.bitCount(mappedCapacity) != 1
+                    || randomAccessFile.length() != INDEX_HEADER_SIZE + (long) mappedCapacity * SLOT_SIZE
+                    || indexedDataLength < DATA_HEADER_SIZE || indexedDataLength > dataFile.length()) {
+                return false;
+            }
+            MappedByteBuffer map = randomAccessFile.getChannel()
+                    .map(FileChannel.MapMode.READ_WRITE, 0, randomAccessFile.length());
+            switchIndex(randomAccessFile, map, generation);
+            capacity = mappedCapacity;
+            count = mappedCount;
+            dataLength = indexedDataLength;
+            loaded = true;
+            return true;
+        } finally {
+            if (!loaded) {
+                randomAccessFile.close();
+            }
+        }
+    }
+
+    private void createIndex(int initialCapacity, int generation) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(indexFile(generation), "rw");
+        MappedByteBuffer map;
+        try {
+            map = mapIndex(randomAccessFile, initialCapacity);
+        } catch (IOException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+        switchIndex(randomAccessFile, map, generation);
+        capacity = initialCapacity;
+        count = 0;
+        dataLength = DATA_HEADER_SIZE;
+        writeHeader(index, capacity, count, dataLength);
+    }
+
+    private void switchIndex(RandomAccessFile randomAccessFile, MappedByteBuffer map, int generation)
+            throws IOException {
+        RandomAccessFile previous = indexRandomAccessFile;
+        indexRandomAccessFile = randomAccessFile;
+        index = map;
+        this.generation = generation;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    private File indexFile(int generation) {
+        return new File(directory, generation == 0 ? INDEX_FILE_NAME : INDEX_FILE_NAME + "." + generation);
+    }
+
+    /**
+     * Return the generation of the most recent index file, or -1 if there is no index file.
+     */
+    private int latestIndexGeneration() {
+        int latest = -1;
+        String[] names = directory.list();
+        if (names == null) {
+            return latest;
+        }
+        for (String name : names) {
+            latest = Math.max(latest, indexGeneration(name));
+        }
+        return latest;
+    }
+
+    private static int indexGeneration(String fileName) {
+        if (fileName.equals(INDEX_FILE_NAME)) {
+            return 0;
+        }
+        if (!fileName.startsWith(INDEX_FILE_NAME + ".")) {
+            return -1;
+        }
+        try {
+            int generation = Integer.parseInt(fileName.substring(INDEX_FILE_NAME.length() + 1));
+            return generation > 0 ? generation : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Delete the index files of all other generations.
+     * Files which are still mapped cannot be deleted on some platforms. Those are deleted when the store is opened again.
+     */
+    private void deleteStaleIndexFiles() {
+        String[] names = directory.list();
+        if (names == null) {
+            return;
+        }
+        for (String name : names) {
+            int fileGeneration = indexGeneration(name);
+            if (fileGeneration >= 0 && fileGeneration != generation) {
+                File stale = new File(directory, name);
+                if (!stale.delete()) {
+                    LOGGER.debug("Cannot delete stale index file {} yet", stale);
+                }
+            }
+        }
+    }
+
+    /**
+     * Index all records which were appended to the data file after the index was last updated.
+     *
+     * @return false if the data file ended with an incomplete record, which was removed
+     */
+    private boolean indexTail() throws IOException {
+        long end = dataFile.length();
+        long position = dataLength;
+        while (end - position >= 4) {
+            int length = readBytes(position, 4).getInt();
+            if (length <= 0 || length > end - position - 4) {
+                break;
+            }
+            byte[] encoding = readRecord(position, end);
+            try {
+                index(parse(encoding), position);
+            } catch (IOException | RuntimeException e) {
+                LOGGER.debug("Skip unparseable record at offset {}", position, e);
+            }
+            position += 4 + length;
+            setDataLength(position);
+        }
+        if (position != end) {
+            // Incomplete record of an interrupted write
+            LOGGER.debug("Truncate incomplete record at offset {} of certificate store {}", position, directory);
+            dataFile.setLength(position);
+            return false;
+        }
+        return true;
+    }
+
+    private void setDataLength(long length) {
+        dataLength = length;
+        index.putLong(16, length);
+    }
+
+    private byte[] readRecord(long offset) throws IOException {
+        return readRecord(offset, dataLength);
+    }
+
+    private byte[] readRecord(long offset, long limit) throws IOException {
+        int length = readBytes(offset, 4).getInt();
+        if (length <= 0 || offset + 4 + length > limit) {
+            throw new IOException("Corrupted record at offset " + offset + " of certificate store " + directory);
+        }
+        return readBytes(offset + 4, length).array();
+    }
+
+    private ByteBuffer readBytes(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (dataChannel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Certificate store is closed.");
+        }
+    }
+
+    private void closeFiles() throws IOException {
+        try {
+            dataFile.close();
+        } finally {
+            if (indexRandomAccessFile != null) {
+                indexRandomAccessFile.close();
+            }
+        }
+    }
+
+    private static PGPPublicKeyRing parse(byte[] encoding) throws IOException {
+        return new PGPPublicKeyRing(encoding, ImplementationFactory.getInstance().getKeyFingerprintCalculator());
+    }
+
+    private static MappedByteBuffer mapIndex(RandomAccessFile randomAccessFile, int capacity) throws IOException {
+        randomAccessFile.setLength(0);
+        randomAccessFile.setLength(INDEX_HEADER_SIZE + (long) capacity * SLOT_SIZE);
+        return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, randomAccessFile.length());
+    }
+
+    private static void writeHeader(MappedByteBuffer map, int capacity, int count, long dataLength) {
+        map.putLong(0, INDEX_MAGIC);
+        map.putInt(8, capacity);
+        map.putInt(12, count);
+        map.putLong(16, dataLength);
+    }
+
+    private static int slotPosition(int slot) {
+        return INDEX_HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static boolean insert(MappedByteBuffer map, int capacity, long hash, long offset) {
+        int mask = capacity - 1;
+        int slot = (int) hash & mask;
+        while (true) {
+            int position = slotPosition(slot);
+            long slotOffset = map.getLong(position + 8);
+            if (slotOffset == 0) {
+                map.putLong(position, hash);
+                map.putLong(position + 8, offset);
+                return true;
+            }
+            if (slotOffset == offset && map.getLong(position) == hash) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Return the data offsets of all entries with the given hash, in the order in which they were added.
+     */
+    private static long[] candidates(MappedByteBuffer map, int capacity, long hash) {
+        int mask = capacity - 1;
+        int slot = (int) hash & mask;
+        long[] offsets = new long[4];
+        int size = 0;
+        while (true) {
+            int position = slotPosition(slot);
+            long offset = map.getLong(position + 8);
+            if (offset == 0) {
+                break;
+            }
+            if (map.getLong(position) == hash) {
+                if (size == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, size * 2);
+                }
+                offsets[size++] = offset;
+            }
+            slot = (slot + 1) & mask;
+        }
+        offsets = Arrays.copyOf(offsets, size);
+        // Probing may wrap around the end of the table
+        Arrays.sort(offsets);
+        return offsets;
+    }
+
+    private static byte[] keyIdBytes(long keyId) {
+        byte[] bytes = new byte[8];
+        for (int i = 7; i >= 0; i--) {
+            bytes[i] = (byte) keyId;
+            keyId >>>= 8;
+        }
+        return bytes;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the type and value, followed by the MurmurHash3 finalizer to spread the bits
+     * over the slots of the table.
+     */
+    private static long hash(byte type, byte[] value) {
+        long hash = 0xcbf29ce484222325L;
+        hash = (hash ^ type) * 0x100000001b3L;
+        for (byte b : value) {
+            hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private interface Match {
+
+        boolean matches(PGPPublicKeyRing certificate);
+    }
+
+    private static final class KeyIdMatch implements Match {
+
+        private final long keyId;
+
+        KeyIdMatch(long keyId) {
+            this.keyId = keyId;
+        }
+
+        @Override
+        public boolean matches(PGPPublicKeyRing certificate) {
+            return certificate.getPublicKey(keyId) != null;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.key.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bouncycastle.openpgp.PGPKeyRing;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.pgpainless.key.OpenPgpFingerprint;
+import org.pgpainless.key.SubkeyIdentifier;
+import org.pgpainless.util.LongObjectMap;
+
+/**
+ * Immutable index of key rings by the key-ids and fingerprints of their (sub-)keys.
+ *
+ * Looking up the key ring which contains a certain (sub-)key is a constant time operation,
+ * as opposed to iterating over all key rings. This is useful for applications which decrypt or verify messages
+ * with a large number of keys or certificates.
+ * Since the index is immutable, it can be built once and shared between many
+ * {@link org.pgpainless.decryption_verification.ConsumerOptions} instances and threads.
+ *
+ * When indexing {@link PGPSecretKeyRing PGPSecretKeyRings}, only keys with secret key material are indexed.
+ *
+ * @param <R> type of key ring
+ */
+public final class KeyRingIndex<R extends PGPKeyRing> {
+
+    private final Set<R> keyRings;
+    private final LongObjectMap<Entry<R>> byKeyId;
+    private final Map<OpenPgpFingerprint, Entry<R>> byFingerprint;
+
+    private KeyRingIndex(Set<R> keyRings, LongObjectMap<Entry<R>> byKeyId, Map<OpenPgpFingerprint, Entry<R>> byFingerprint) {
+        this.keyRings = Collections.unmodifiableSet(keyRings);
+        this.byKeyId = byKeyId;
+        this.byFingerprint = Collections.unmodifiableMap(byFingerprint);
+    }
+
+    /**
+     * Build an index of the given key rings.
+     * If multiple key rings contain a key with the same key-id, lookups return the key ring that comes first.
+     *
+     * @param keyRings key rings
+     * @param <R> type of key ring
+     * @return index
+     */
+    public static <R extends PGPKeyRing> KeyRingIndex<R> of(@Nonnull Iterable<R> keyRings) {
+        Set<R> rings = new LinkedHashSet<>();
+        for (R keyRing : keyRings) {
+            rings.add(keyRing);
+        }
+
+        LongObjectMap<Entry<R>> byKeyId = new LongObjectMap<>(rings.size() * 3);
+        Map<OpenPgpFingerprint, Entry<R>> byFingerprint = new HashMap<>(rings.size() * 4);
+        for (R keyRing : rings) {
+            OpenPgpFingerprint primaryKeyFingerprint = OpenPgpFingerprint.of(keyRing);
+            Iterator<PGPPublicKey> keys = keyRing.getPublicKeys();
+            while (keys.hasNext()) {
+                PGPPublicKey key = keys.next();
+                if (keyRing instanceof PGPSecretKeyRing && ((PGPSecretKeyRing) keyRing).getSecretKey(key.getKeyID()) == null) {
+                    continue;
+                }
+
+                OpenPgpFingerprint fingerprint = OpenPgpFingerprint.of(key);
+                Entry<R> entry = new Entry<>(keyRing, new SubkeyIdentifier(primaryKeyFingerprint, fingerprint));
+                Entry<R> first = byKeyId.get(key.getKeyID());
+                if (first == null) {
+                    byKeyId.put(key.getKeyID(), entry);
+                } else {
+                    // Key-id collision, append to the end of the chain
+                    Entry<R> last = first;
+                    while (last.next != null) {
+                        last = last.next;
+                    }
+                    last.next = entry;
+                }
+                if (!byFingerprint.containsKey(fingerprint)) {
+                    byFingerprint.put(fingerprint, entry);
+                }
+            }
+        }
+        return new KeyRingIndex<>(rings, byKeyId, byFingerprint);
+    }
+
+    /**
+     * Return the key ring that contains a key with the given key-id, or null if no such key ring is indexed.
+     *
+     * @param keyId key-id
+     * @return key ring or null
+     */
+    public @Nullable R get(long keyId) {
+        Entry<R> entry = byKeyId.get(keyId);
+        return entry == null ? null : entry.keyRing;
+    }
+
+    /**
+     * Return all key rings that contain a key with the given key-id.
+     * Usually, this list contains at most one element, but key-ids are not guaranteed to be unique.
+     *
+     * @param keyId key-id
+     * @return key rings
+     */
+    public @Nonnull List<R> getAll(long keyId) {
+        List<R> result = new ArrayList<>();
+        for (Entry<R> entry = byKeyId.get(keyId); entry != null; entry = entry.next) {
+            result.add(entry.keyRing);
+        }
+        return result;
+    }
+
+    /**
+     * Return the key ring that contains a key with the given fingerprint, or null if no such key ring is indexed.
+     *
+     * @param fingerprint fingerprint of the primary key or a subkey
+     * @return key ring or null
+     */
+    public @Nullable R get(@Nonnull OpenPgpFingerprint fingerprint) {
+        Entry<R> entry = byFingerprint.get(fingerprint);
+        return entry == null ? null : entry.keyRing;
+    }
+
+    /**
+     * Return a {@link SubkeyIdentifier} pointing to the key with the given key-id,
+     * or null if no such key is indexed.
+     *
+     * @param keyId key-id
+     * @return subkey identifier or null
+     */
+    public @Nullable SubkeyIdentifier getSubkeyIdentifier(long keyId) {
+        Entry<R> entry = byKeyId.get(keyId);
+        return entry == null ? null : entry.subkeyIdentifier;
+    }
+
+    /**
+     * Return all indexed key rings.
+     *
+     * @return key rings
+     */
+    public @Nonnull Set<R> getKeyRings() {
+        return keyRings;
+    }
+
+    public int size() {
+        return keyRings.size();
+    }
+
+    public boolean isEmpty() {
+        return keyRings.isEmpty();
+    }
+
+    private static final class Entry<R extends PGPKeyRing> {
+
+        private final R keyRing;
+        private final SubkeyIdentifier subkeyIdentifier;
+        // Next entry with the same key-id
+        private Entry<R> next;
+
+        Entry(R keyRing, SubkeyIdentifier subkeyIdentifier) {
+            this.keyRing = keyRing;
+            this.subkeyIdentifier = subkeyIdentifier;
+        }
+    }
+}
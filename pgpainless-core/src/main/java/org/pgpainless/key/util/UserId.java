@@ -4,7 +4,9 @@
 
 package org.pgpainless.key.util;
 
+import java.util.Locale;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 public final class UserId implements CharSequence {
     public static final class Builder {
@@ -81,6 +83,38 @@ public final class UserId implements CharSequence {
         return new UserId(name, null, email);
     }
 
+    /**
+     * Extract the e-mail address from the given user-id and normalize it to lower case.
+     * The address is either enclosed in angle brackets (e.g. "Alice &lt;alice@pgpainless.org&gt;"),
+     * or makes up the whole user-id (e.g. "alice@pgpainless.org").
+     *
+     * @param userId user-id
+     * @return normalized e-mail address, or null if the user-id does not contain an e-mail address
+     */
+    public static @Nullable String extractNormalizedEmail(@Nonnull CharSequence userId) {
+        String string = userId.toString().trim();
+        int start = string.lastIndexOf('<');
+        if (start != -1) {
+            int end = string.indexOf('>', start);
+            if (end == -1) {
+                return null;
+            }
+            string = string.substring(start + 1, end).trim();
+        }
+        int at = string.indexOf('@');
+        if (at <= 0 || at == string.length() - 1) {
+            return null;
+        }
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            // Reject URIs like "xmpp:juliet@capulet.lit"
+            if (Character.isWhitespace(c) || c == ':' || c == '<' || c == '>') {
+                return null;
+            }
+        }
+        return string.toLowerCase(Locale.ROOT);
+    }
+
     public static Builder newBuilder() {
         return new Builder();
     }
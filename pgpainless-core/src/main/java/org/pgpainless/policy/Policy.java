@@ -17,6 +17,10 @@ import org.pgpainless.algorithm.CompressionAlgorithm;
 import org.pgpainless.algorithm.HashAlgorithm;
 import org.pgpainless.algorithm.PublicKeyAlgorithm;
 import org.pgpainless.algorithm.SymmetricKeyAlgorithm;
+import org.pgpainless.encryption_signing.RecipientResolver;
+import org.pgpainless.key.info.KeyRingInfoCache;
+import org.pgpainless.signature.consumer.CertificateTimelineCache;
+import org.pgpainless.signature.consumer.SignatureCorrectnessCache;
 import org.pgpainless.util.NotationRegistry;
 
 /**
@@ -41,6 +45,12 @@ public final class Policy {
     private final NotationRegistry notationRegistry = new NotationRegistry();
 
     private AlgorithmSuite keyGenerationAlgorithmSuite = AlgorithmSuite.getDefaultAlgorithmSuite();
+    private KeyRingInfoCache keyRingInfoCache = KeyRingInfoCache.disabled();
+    private CertificateTimelineCache certificateTimelineCache = CertificateTimelineCache.disabled();
+    private SignatureCorrectnessCache signatureCorrectnessCache = SignatureCorrectnessCache.disabled();
+    private RecipientResolver recipientResolver = RecipientResolver.disabled();
+    private KeyParameterValidationPolicy keyParameterValidationPolicy = KeyParameterValidationPolicy.VERIFY_ALWAYS;
+    private ValidationBudgetPolicy validationBudgetPolicy = ValidationBudgetPolicy.unlimited();
 
     Policy() {
     }
@@ -176,6 +186,125 @@ public final class Policy {
         this.publicKeyAlgorithmPolicy = publicKeyAlgorithmPolicy;
     }
 
+    /**
+     * Return the {@link KeyParameterValidationPolicy}, which decides how often the public key parameters of secret keys
+     * are validated when the secret key is unlocked.
+     *
+     * @return key parameter validation policy
+     */
+    public @Nonnull KeyParameterValidationPolicy getKeyParameterValidationPolicy() {
+        return keyParameterValidationPolicy;
+    }
+
+    /**
+     * Set a custom {@link KeyParameterValidationPolicy}.
+     *
+     * @param keyParameterValidationPolicy key parameter validation policy
+     */
+    public void setKeyParameterValidationPolicy(@Nonnull KeyParameterValidationPolicy keyParameterValidationPolicy) {
+        if (keyParameterValidationPolicy == null) {
+            throw new NullPointerException("Key parameter validation policy cannot be null.");
+        }
+        this.keyParameterValidationPolicy = keyParameterValidationPolicy;
+    }
+
+    /**
+     * Return the {@link ValidationBudgetPolicy}, which limits the work spent on the validation of a single key ring.
+     * By default, validation is not limited.
+     *
+     * @return validation budget policy
+     */
+    public @Nonnull ValidationBudgetPolicy getValidationBudgetPolicy() {
+        return validationBudgetPolicy;
+    }
+
+    /**
+     * Set a custom {@link ValidationBudgetPolicy}.
+     *
+     * @param validationBudgetPolicy validation budget policy
+     */
+    public void setValidationBudgetPolicy(@Nonnull ValidationBudgetPolicy validationBudgetPolicy) {
+        if (validationBudgetPolicy == null) {
+            throw new NullPointerException("Validation budget policy cannot be null.");
+        }
+        this.validationBudgetPolicy = validationBudgetPolicy;
+    }
+
+    /**
+     * When unlocking a secret key, PGPainless checks whether the public key parameters match the private key,
+     * in order to detect tampered keys (e.g. key overwriting attacks).
+     * This check involves test signatures and encryption/decryption round trips, which is expensive.
+     * The policy decides, how often this check is performed.
+     */
+    public enum KeyParameterValidationPolicy {
+        /**
+         * Validate the key parameters every time the secret key is unlocked.
+         * This is the default.
+         */
+        VERIFY_ALWAYS,
+        /**
+         * Validate the key parameters the first time the secret key is unlocked and remember successfully validated
+         * secret key packets in the {@link org.pgpainless.key.protection.VerifiedKeyCache}.
+         * A modified secret key packet will be validated again.
+         */
+        VERIFY_ONCE,
+        /**
+         * Never validate the key parameters.
+         * Only use this if all keys are coming from a trusted source.
+         */
+        VERIFY_NEVER
+    }
+
+    /**
+     * Limits of the work which is spent on the validation of a single key ring or certificate.
+     * Each validation gets its own {@link org.pgpainless.signature.consumer.ValidationBudget}, which enforces these
+     * limits and records how much of the budget was consumed.
+     * Components whose revocations cannot be verified within these limits are not considered valid.
+     */
+    public static final class ValidationBudgetPolicy {
+
+        private final int maxSignaturesPerComponent;
+        private final int maxVerifications;
+
+        /**
+         * Create a new validation budget policy.
+         *
+         * @param maxSignaturesPerComponent maximum number of revocations and of other self-signatures, which are
+         *                                  verified per component (key, user-id or user-attribute).
+         *                                  Newer signatures are preferred over older ones.
+         * @param maxVerifications maximum number of self-signatures which are verified during a single validation.
+         *                         Revocations are preferred over other signatures.
+         */
+        public ValidationBudgetPolicy(int maxSignaturesPerComponent, int maxVerifications) {
+            if (maxSignaturesPerComponent < 1) {
+                throw new IllegalArgumentException("Maximum number of signatures per component must be positive.");
+            }
+            if (maxVerifications < 1) {
+                throw new IllegalArgumentException("Maximum number of verifications must be positive.");
+            }
+            this.maxSignaturesPerComponent = maxSignaturesPerComponent;
+            this.maxVerifications = maxVerifications;
+        }
+
+        public int getMaxSignaturesPerComponent() {
+            return maxSignaturesPerComponent;
+        }
+
+        public int getMaxVerifications() {
+            return maxVerifications;
+        }
+
+        /**
+         * Return a policy which does not limit validation.
+         * This is the default.
+         *
+         * @return unlimited policy
+         */
+        public static ValidationBudgetPolicy unlimited() {
+            return new ValidationBudgetPolicy(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        }
+    }
+
     public static final class SymmetricKeyAlgorithmPolicy {
 
         private final SymmetricKeyAlgorithm defaultSymmetricKeyAlgorithm;
@@ -468,4 +597,100 @@ public final class Policy {
     public void setKeyGenerationAlgorithmSuite(@Nonnull AlgorithmSuite algorithmSuite) {
         this.keyGenerationAlgorithmSuite = algorithmSuite;
     }
+
+    /**
+     * Return the {@link KeyRingInfoCache} which is used to look up evaluations of keys during
+     * encryption, decryption and signing.
+     * By default, the cache is disabled.
+     *
+     * @return key ring info cache
+     */
+    public @Nonnull KeyRingInfoCache getKeyRingInfoCache() {
+        return keyRingInfoCache;
+    }
+
+    /**
+     * Set a custom {@link KeyRingInfoCache}.
+     * Use {@link KeyRingInfoCache#disabled()} to disable caching.
+     *
+     * @param keyRingInfoCache key ring info cache
+     */
+    public void setKeyRingInfoCache(@Nonnull KeyRingInfoCache keyRingInfoCache) {
+        if (keyRingInfoCache == null) {
+            throw new NullPointerException("KeyRingInfoCache cannot be null.");
+        }
+        this.keyRingInfoCache = keyRingInfoCache;
+    }
+
+    /**
+     * Return the {@link CertificateTimelineCache} which is used to look up timelines of signing certificates
+     * during signature verification.
+     * By default, the cache is disabled.
+     *
+     * @return certificate timeline cache
+     */
+    public @Nonnull CertificateTimelineCache getCertificateTimelineCache() {
+        return certificateTimelineCache;
+    }
+
+    /**
+     * Set a custom {@link CertificateTimelineCache}.
+     * Use {@link CertificateTimelineCache#disabled()} to disable caching.
+     *
+     * @param certificateTimelineCache certificate timeline cache
+     */
+    public void setCertificateTimelineCache(@Nonnull CertificateTimelineCache certificateTimelineCache) {
+        if (certificateTimelineCache == null) {
+            throw new NullPointerException("CertificateTimelineCache cannot be null.");
+        }
+        this.certificateTimelineCache = certificateTimelineCache;
+    }
+
+    /**
+     * Return the {@link SignatureCorrectnessCache} which is used to memoize the results of cryptographic
+     * signature verifications.
+     * By default, the cache is disabled.
+     *
+     * @return signature correctness cache
+     */
+    public @Nonnull SignatureCorrectnessCache getSignatureCorrectnessCache() {
+        return signatureCorrectnessCache;
+    }
+
+    /**
+     * Set a custom {@link SignatureCorrectnessCache}.
+     * Use {@link SignatureCorrectnessCache#disabled()} to disable caching.
+     *
+     * @param signatureCorrectnessCache signature correctness cache
+     */
+    public void setSignatureCorrectnessCache(@Nonnull SignatureCorrectnessCache signatureCorrectnessCache) {
+        if (signatureCorrectnessCache == null) {
+            throw new NullPointerException("SignatureCorrectnessCache cannot be null.");
+        }
+        this.signatureCorrectnessCache = signatureCorrectnessCache;
+    }
+
+    /**
+     * Return the {@link RecipientResolver} which is used to look up resolved recipients when adding recipients
+     * to {@link org.pgpainless.encryption_signing.EncryptionOptions}.
+     * By default, the cache is disabled.
+     *
+     * @return recipient resolver
+     */
+    public @Nonnull RecipientResolver getRecipientResolver() {
+        return recipientResolver;
+    }
+
+    /**
+     * Set a custom {@link RecipientResolver}.
+     * Use {@link RecipientResolver#disabled()} to disable caching.
+     *
+     * @param recipientResolver recipient resolver
+     */
+    public void setRecipientResolver(@Nonnull RecipientResolver recipientResolver) {
+        if (recipientResolver == null) {
+            throw new NullPointerException("RecipientResolver cannot be null.");
+        }
+        this.recipientResolver = recipientResolver;
+    }
 }
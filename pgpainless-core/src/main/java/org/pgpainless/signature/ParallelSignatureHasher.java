@@ -0,0 +1,309 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.signature;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Feeds the same data into multiple signatures (or signature generators) concurrently.
+ *
+ * Each {@link Target} is updated by tasks running on the given {@link ExecutorService}, or on a shared, bounded pool
+ * of daemon threads if no executor is given. This way, the cost of hashing a message for n signatures
+ * is spread over n cores instead of being paid n times on the calling thread.
+ * Data is passed to the targets in chunks of reusable buffers. The number of buffers is bounded, so the calling thread
+ * blocks if the slowest target falls behind.
+ *
+ * A task only runs while there is data for its target and never waits for more data, so tasks of different hashers
+ * cannot starve each other, even on an executor with a single thread. If the hasher is abandoned before
+ * {@link #finish()} is called, no task is left behind. If the executor rejects a task, the target is updated
+ * on the calling thread instead.
+ *
+ * Targets must not be accessed until {@link #finish()} returned.
+ */
+public final class ParallelSignatureHasher {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 15;
+    public static final int DEFAULT_CHUNK_COUNT = 8;
+
+    /**
+     * Something that can be updated with data, e.g. a {@link org.bouncycastle.openpgp.PGPSignature},
+     * {@link org.bouncycastle.openpgp.PGPOnePassSignature} or {@link org.bouncycastle.openpgp.PGPSignatureGenerator}.
+     */
+    public interface Target {
+        void update(byte[] bytes, int offset, int length);
+    }
+
+    private final ExecutorService executor;
+    private final Worker[] workers;
+    private final BlockingQueue<Chunk> free;
+    private final int chunkCount;
+    private Chunk current = null;
+    private boolean finished = false;
+    private volatile boolean aborted = false;
+
+    /**
+     * Create a hasher with the default chunk size and count, which runs on a shared pool of daemon threads.
+     *
+     * @param targets targets that are updated with the data
+     */
+    public ParallelSignatureHasher(@Nonnull List<Target> targets) {
+        this(targets, null);
+    }
+
+    /**
+     * Create a hasher with the default chunk size and count.
+     *
+     * @param targets targets that are updated with the data
+     * @param executor executor to run the tasks on, or null to use a shared pool of daemon threads
+     */
+    public ParallelSignatureHasher(@Nonnull List<Target> targets, @Nullable ExecutorService executor) {
+        this(targets, DEFAULT_CHUNK_SIZE, DEFAULT_CHUNK_COUNT, executor);
+    }
+
+    /**
+     * Create a hasher, which runs on a shared pool of daemon threads.
+     *
+     * @param targets targets that are updated with the data
+     * @param chunkSize size of each buffer in bytes
+     * @param chunkCount number of buffers
+     */
+    public ParallelSignatureHasher(@Nonnull List<Target> targets, int chunkSize, int chunkCount) {
+        this(targets, chunkSize, chunkCount, null);
+    }
+
+    /**
+     * Create a hasher.
+     *
+     * @param targets targets that are updated with the data
+     * @param chunkSize size of each buffer in bytes
+     * @param chunkCount number of buffers
+     * @param executor executor to run the tasks on, or null to use a shared pool of daemon threads
+     */
+    public ParallelSignatureHasher(@Nonnull List<Target> targets, int chunkSize, int chunkCount,
+                                   @Nullable ExecutorService executor) {
+        if (chunkSize <= 0 || chunkCount <= 0) {
+            throw new IllegalArgumentException("Chunk size and count must be positive.");
+        }
+        this.executor = executor != null ? executor : SharedExecutor.INSTANCE;
+        this.chunkCount = chunkCount;
+        this.free = new ArrayBlockingQueue<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            free.add(new Chunk(chunkSize));
+        }
+        this.workers = new Worker[targets.size()];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker(targets.get(i));
+        }
+    }
+
+    /**
+     * Update all targets with a single byte.
+     *
+     * @param b byte
+     * @throws IOException if the calling thread is interrupted while waiting for the targets
+     */
+    public void update(byte b) throws IOException {
+        ensureChunk();
+        current.buffer[current.length++] = b;
+        if (current.length == current.buffer.length) {
+            dispatch();
+        }
+    }
+
+    /**
+     * Update all targets with the given data.
+     *
+     * @param bytes data
+     * @param offset offset
+     * @param length length
+     * @throws IOException if the calling thread is interrupted while waiting for the targets
+     */
+    public void update(@Nonnull byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            ensureChunk();
+            int n = Math.min(length, current.buffer.length - current.length);
+            System.arraycopy(bytes, offset, current.buffer, current.length, n);
+            current.length += n;
+            offset += n;
+            length -= n;
+            if (current.length == current.buffer.length) {
+                dispatch();
+            }
+        }
+    }
+
+    /**
+     * Wait until all targets were updated with all data.
+     * Calling this method more than once has no effect.
+     *
+     * @throws IOException if the calling thread is interrupted while waiting for the targets
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (current != null && current.length != 0) {
+            dispatch();
+        }
+        // All targets are up-to-date, once all chunks were returned
+        try {
+            for (int i = 0; i < chunkCount; i++) {
+                free.take();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for signature hashing.");
+        }
+        for (Worker worker : workers) {
+            if (worker.error != null) {
+                throw worker.error;
+            }
+        }
+    }
+
+    /**
+     * Stop updating the targets without waiting for pending data.
+     * This is used to tear down the hasher if the message cannot be completed. Afterwards, the targets are in an
+     * undefined state. Aborting a finished hasher has no effect.
+     */
+    public void abort() {
+        finished = true;
+        aborted = true;
+    }
+
+    private void ensureChunk() throws IOException {
+        if (finished) {
+            throw new IllegalStateException("Hasher is already finished.");
+        }
+        if (current != null) {
+            return;
+        }
+        try {
+            current = free.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for signature hashing.");
+        }
+        current.length = 0;
+    }
+
+    private void dispatch() {
+        Chunk chunk = current;
+        current = null;
+        if (workers.length == 0) {
+            free.add(chunk);
+            return;
+        }
+        chunk.pending.set(workers.length);
+        for (Worker worker : workers) {
+            worker.submit(chunk);
+        }
+    }
+
+    /**
+     * Updates a single target with the submitted chunks in order.
+     * At most one task per worker is scheduled at a time. The task returns as soon as there are no more chunks.
+     */
+    private final class Worker implements Runnable {
+
+        private final Target target;
+        private final Queue<Chunk> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private volatile RuntimeException error = null;
+
+        Worker(Target target) {
+            this.target = target;
+        }
+
+        void submit(Chunk chunk) {
+            pending.add(chunk);
+            if (!scheduled.compareAndSet(false, true)) {
+                // The scheduled task picks up the chunk
+                return;
+            }
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                run();
+            }
+        }
+
+        @Override
+        public void run() {
+            do {
+                Chunk chunk;
+                while ((chunk = pending.poll()) != null) {
+                    // After an error or abort, keep consuming chunks, so that the calling thread does not block forever
+                    if (error == null && !aborted) {
+                        try {
+                            target.update(chunk.buffer, 0, chunk.length);
+                        } catch (RuntimeException e) {
+                            error = e;
+                        }
+                    }
+                    if (chunk.pending.decrementAndGet() == 0) {
+                        free.add(chunk);
+                    }
+                }
+                scheduled.set(false);
+                // A chunk might have been submitted after the last poll, but before the flag was reset
+            } while (!pending.isEmpty() && scheduled.compareAndSet(false, true));
+        }
+    }
+
+    /**
+     * Pool of daemon threads with one thread per processor, which is used if no executor is given.
+     * Idle threads are discarded after a minute.
+     */
+    private static final class SharedExecutor {
+
+        private static final ExecutorService INSTANCE;
+
+        static {
+            int threads = Runtime.getRuntime().availableProcessors();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        private final AtomicInteger count = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(@Nonnull Runnable runnable) {
+                            Thread thread = new Thread(runnable, "pgpainless-signature-hasher-" + count.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            executor.allowCoreThreadTimeOut(true);
+            INSTANCE = executor;
+        }
+    }
+
+    private static final class Chunk {
+
+        private final byte[] buffer;
+        private final AtomicInteger pending = new AtomicInteger();
+        private int length = 0;
+
+        Chunk(int size) {
+            this.buffer = new byte[size];
+        }
+    }
+}
@@ -0,0 +1,594 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.signature.consumer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bouncycastle.bcpg.sig.KeyFlags;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPKeyRing;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPSignature;
+import org.bouncycastle.openpgp.PGPSignatureList;
+import org.pgpainless.algorithm.KeyFlag;
+import org.pgpainless.algorithm.SignatureType;
+import org.pgpainless.exception.SignatureValidationException;
+import org.pgpainless.policy.Policy;
+import org.pgpainless.signature.SignatureUtils;
+import org.pgpainless.signature.subpackets.SignatureSubpacketsUtil;
+import org.pgpainless.util.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Validity timeline of a certificate.
+ *
+ * Each self-signature, binding signature and revocation on the certificate is verified only once, independent
+ * of any reference date. From the verified signatures, a timeline is derived for each component of the certificate
+ * (primary key, user-ids and subkeys), which consists of the points in time at which the current signature of the
+ * component changes, e.g. because a signature was created, expired or got superseded.
+ * Point-in-time queries like "was this subkey bound and capable of signing at time t" are then answered
+ * using a binary search over the timeline, instead of re-verifying the signatures for every reference date.
+ *
+ * At any point in time, the current signature of a component is picked like in {@link CertificateValidator}:
+ * Out of all signatures which are effective at that time, hard revocations take precedence,
+ * otherwise the most recent signature is picked.
+ *
+ * Timelines of components are computed lazily when they are first queried.
+ * Instances are thread-safe and can be shared, e.g. using a {@link CertificateTimelineCache}.
+ */
+public final class CertificateTimeline {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CertificateTimeline.class);
+
+    private final PGPKeyRing certificate;
+    private final Policy policy;
+    private final List<String> userIds;
+    private final ValidationBudget budget;
+    private final Map<PGPSignature, Exception> rejections = new ConcurrentHashMap<>();
+
+    private volatile Timeline primaryKeyTimeline;
+    private final Map<String, Timeline> userIdTimelines = new ConcurrentHashMap<>();
+    private final Map<Long, Timeline> subkeyTimelines = new ConcurrentHashMap<>();
+
+    /**
+     * Create a timeline of the given certificate.
+     * Signatures are verified lazily, when they are first required to answer a query.
+     *
+     * @param certificate certificate or secret key ring
+     * @param policy policy which is used to verify the signatures
+     */
+    public CertificateTimeline(@Nonnull PGPKeyRing certificate, @Nonnull Policy policy) {
+        this.certificate = certificate;
+        this.policy = policy;
+        this.budget = ValidationBudget.of(policy);
+        budget.allocate(certificate);
+        this.userIds = Collections.unmodifiableList(CollectionUtils.iteratorToList(certificate.getPublicKey().getUserIDs()));
+    }
+
+    /**
+     * Return the certificate.
+     *
+     * @return certificate
+     */
+    public @Nonnull PGPKeyRing getCertificate() {
+        return certificate;
+    }
+
+    /**
+     * Return the current direct-key self-signature or key revocation of the primary key at the given date.
+     *
+     * @param date reference date
+     * @return direct-key signature, key revocation or null
+     */
+    public @Nullable PGPSignature getPrimaryKeySignature(@Nonnull Date date) {
+        return primaryKeyTimeline().at(date.getTime());
+    }
+
+    /**
+     * Return true if the primary key is revoked at the given date.
+     *
+     * @param date reference date
+     * @return true if revoked
+     */
+    public boolean isPrimaryKeyRevoked(@Nonnull Date date) {
+        return isOfType(getPrimaryKeySignature(date), SignatureType.KEY_REVOCATION);
+    }
+
+    /**
+     * Return the current certification self-signature or revocation of the given user-id at the given date.
+     *
+     * @param userId user-id
+     * @param date reference date
+     * @return certification, revocation or null
+     */
+    public @Nullable PGPSignature getUserIdSignature(@Nonnull String userId, @Nonnull Date date) {
+        Timeline timeline = userIdTimeline(userId);
+        return timeline == null ? null : timeline.at(date.getTime());
+    }
+
+    /**
+     * Return true if the given user-id is bound to the certificate and not revoked at the given date.
+     *
+     * @param userId user-id
+     * @param date reference date
+     * @return true if the user-id is bound
+     */
+    public boolean isUserIdBound(@Nonnull String userId, @Nonnull Date date) {
+        PGPSignature signature = getUserIdSignature(userId, date);
+        return signature != null && !isOfType(signature, SignatureType.CERTIFICATION_REVOCATION);
+    }
+
+    /**
+     * Return true if at least one user-id is bound to the certificate and not revoked at the given date.
+     *
+     * @param date reference date
+     * @return true if any user-id is bound
+     */
+    public boolean hasBoundUserId(@Nonnull Date date) {
+        for (String userId : userIds) {
+            if (isUserIdBound(userId, date)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return the current binding signature or binding revocation of the subkey with the given key-id
+     * at the given date.
+     *
+     * @param keyId key-id of the subkey
+     * @param date reference date
+     * @return binding signature, binding revocation or null
+     */
+    public @Nullable PGPSignature getSubkeySignature(long keyId, @Nonnull Date date) {
+        Timeline timeline = subkeyTimeline(keyId);
+        return timeline == null ? null : timeline.at(date.getTime());
+    }
+
+    /**
+     * Return true if the subkey with the given key-id is bound to the certificate and not revoked
+     * at the given date.
+     *
+     * @param keyId key-id of the subkey
+     * @param date reference date
+     * @return true if the subkey is bound
+     */
+    public boolean isSubkeyBound(long keyId, @Nonnull Date date) {
+        PGPSignature signature = getSubkeySignature(keyId, date);
+        return signature != null && !isOfType(signature, SignatureType.SUBKEY_REVOCATION);
+    }
+
+    /**
+     * Return the {@link KeyFlag KeyFlags} of the (sub-)key with the given key-id at the given date.
+     * For subkeys, the key flags of the current binding signature apply. If the binding signature carries no
+     * key flags, the key flags of the current direct-key signature apply.
+     * For the primary key, the key flags of the current direct-key signature apply. If it carries no key flags,
+     * the key flags of the current certification of the primary user-id apply.
+     *
+     * @param keyId key-id
+     * @param date reference date
+     * @return key flags
+     */
+    public @Nonnull List<KeyFlag> getKeyFlags(long keyId, @Nonnull Date date) {
+        KeyFlags keyFlags = getKeyFlagsSubpacket(keyId, date);
+        if (keyFlags == null) {
+            return Collections.emptyList();
+        }
+        return KeyFlag.fromBitmask(keyFlags.getFlags());
+    }
+
+    /**
+     * Return true if the (sub-)key with the given key-id was valid and capable of signing data at the given date.
+     * That is the case, if the primary key is not revoked, at least one user-id is bound,
+     * the key is bound and not revoked and the key carries the {@link KeyFlag#SIGN_DATA} flag.
+     *
+     * @param keyId key-id
+     * @param date reference date
+     * @return true if the key was capable of signing at the given date
+     */
+    public boolean isSigningCapable(long keyId, @Nonnull Date date) {
+        if (certificate.getPublicKey(keyId) == null) {
+            return false;
+        }
+        if (isPrimaryKeyRevoked(date) || !hasBoundUserId(date)) {
+            return false;
+        }
+        if (keyId != certificate.getPublicKey().getKeyID() && !isSubkeyBound(keyId, date)) {
+            return false;
+        }
+        return getKeyFlags(keyId, date).contains(KeyFlag.SIGN_DATA);
+    }
+
+    /**
+     * Return the {@link ValidationBudget} which is consumed by the evaluation of the timeline.
+     * Since components are evaluated lazily, the consumed budget grows as more components are queried.
+     * If the budget is exhausted, signatures were skipped and the timeline might be degraded.
+     *
+     * @return validation budget
+     */
+    public @Nonnull ValidationBudget getValidationBudget() {
+        return budget;
+    }
+
+    /**
+     * Return the signatures of the evaluated components which were rejected, along with the reason for
+     * their rejection.
+     *
+     * @return rejected signatures
+     */
+    public @Nonnull Map<PGPSignature, Exception> getRejectedSignatures() {
+        return Collections.unmodifiableMap(rejections);
+    }
+
+    @Nullable KeyFlags getKeyFlagsSubpacket(long keyId, Date date) {
+        PGPSignature directKeySignature = getPrimaryKeySignature(date);
+        if (isOfType(directKeySignature, SignatureType.KEY_REVOCATION)) {
+            directKeySignature = null;
+        }
+
+        if (keyId != certificate.getPublicKey().getKeyID()) {
+            PGPSignature binding = getSubkeySignature(keyId, date);
+            if (binding == null || isOfType(binding, SignatureType.SUBKEY_REVOCATION)) {
+                return null;
+            }
+            KeyFlags keyFlags = SignatureSubpacketsUtil.getKeyFlags(binding);
+            if (keyFlags == null && directKeySignature != null) {
+                keyFlags = SignatureSubpacketsUtil.getKeyFlags(directKeySignature);
+            }
+            return keyFlags;
+        }
+
+        if (directKeySignature != null) {
+            KeyFlags keyFlags = SignatureSubpacketsUtil.getKeyFlags(directKeySignature);
+            if (keyFlags != null) {
+                return keyFlags;
+            }
+        }
+        PGPSignature primaryUserIdCertification = getPrimaryUserIdCertification(date);
+        return primaryUserIdCertification == null ? null : SignatureSubpacketsUtil.getKeyFlags(primaryUserIdCertification);
+    }
+
+    private @Nullable PGPSignature getPrimaryUserIdCertification(Date date) {
+        PGPSignature first = null;
+        PGPSignature primary = null;
+        for (String userId : userIds) {
+            if (!isUserIdBound(userId, date)) {
+                continue;
+            }
+            PGPSignature certification = getUserIdSignature(userId, date);
+            if (first == null) {
+                first = certification;
+            }
+            if (certification.getHashedSubPackets().isPrimaryUserID()
+                    && (primary == null || certification.getCreationTime().after(primary.getCreationTime()))) {
+                primary = certification;
+            }
+        }
+        return primary != null ? primary : first;
+    }
+
+    private static boolean isOfType(@Nullable PGPSignature signature, SignatureType type) {
+        return signature != null && signature.getSignatureType() == type.getCode();
+    }
+
+    private Timeline primaryKeyTimeline() {
+        Timeline timeline = primaryKeyTimeline;
+        if (timeline == null) {
+            PGPPublicKey primaryKey = certificate.getPublicKey();
+            List<Candidate> candidates = new ArrayList<>();
+            // Revocations come first, so that they take precedence over direct-key signatures of the same age
+            for (PGPSignature revocation : CollectionUtils.iteratorToList(primaryKey.getSignaturesOfType(SignatureType.KEY_REVOCATION.getCode()))) {
+                try {
+                    SignatureValidator.signatureIsOfType(SignatureType.KEY_REVOCATION).verify(revocation);
+                    SignatureValidator.signatureStructureIsAcceptable(primaryKey, policy).verify(revocation);
+                    charge(revocation);
+                    SignatureValidator.correctSignatureOverKey(primaryKey, primaryKey).verify(revocation);
+                    candidates.add(new Candidate(revocation, effectiveInterval(revocation)));
+                } catch (SignatureValidationException e) {
+                    reject(revocation, e);
+                }
+            }
+            for (PGPSignature directKeySignature : CollectionUtils.iteratorToList(primaryKey.getSignaturesOfType(SignatureType.DIRECT_KEY.getCode()))) {
+                try {
+                    SignatureValidator.signatureIsOfType(SignatureType.DIRECT_KEY).verify(directKeySignature);
+                    SignatureValidator.signatureStructureIsAcceptable(primaryKey, policy).verify(directKeySignature);
+                    charge(directKeySignature);
+                    SignatureValidator.correctSignatureOverKey(primaryKey, primaryKey).verify(directKeySignature);
+                    candidates.add(new Candidate(directKeySignature, effectiveInterval(directKeySignature)));
+                } catch (SignatureValidationException e) {
+                    reject(directKeySignature, e);
+                }
+            }
+            timeline = Timeline.of(candidates);
+            primaryKeyTimeline = timeline;
+        }
+        return timeline;
+    }
+
+    private @Nullable Timeline userIdTimeline(String userId) {
+        Timeline timeline = userIdTimelines.get(userId);
+        if (timeline != null) {
+            return timeline;
+        }
+        if (!userIds.contains(userId)) {
+            return null;
+        }
+
+        PGPPublicKey primaryKey = certificate.getPublicKey();
+        List<Candidate> candidates = new ArrayList<>();
+        for (PGPSignature signature : CollectionUtils.iteratorToList(primaryKey.getSignaturesForID(userId))) {
+            try {
+                SignatureValidator.wasPossiblyMadeByKey(primaryKey).verify(signature);
+                if (signature.getSignatureType() == SignatureType.CERTIFICATION_REVOCATION.getCode()) {
+                    SignatureValidator.signatureIsOfType(SignatureType.CERTIFICATION_REVOCATION).verify(signature);
+                } else {
+                    SignatureValidator.signatureIsCertification().verify(signature);
+                }
+                SignatureValidator.signatureStructureIsAcceptable(primaryKey, policy).verify(signature);
+                charge(signature);
+                SignatureValidator.correctSignatureOverUserId(userId, primaryKey, primaryKey).verify(signature);
+                candidates.add(new Candidate(signature, effectiveInterval(signature)));
+            } catch (SignatureValidationException e) {
+                reject(signature, e);
+            }
+        }
+        timeline = Timeline.of(candidates);
+        userIdTimelines.put(userId, timeline);
+        return timeline;
+    }
+
+    private @Nullable Timeline subkeyTimeline(long keyId) {
+        Timeline timeline = subkeyTimelines.get(keyId);
+        if (timeline != null) {
+            return timeline;
+        }
+        PGPPublicKey primaryKey = certificate.getPublicKey();
+        PGPPublicKey subkey = certificate.getPublicKey(keyId);
+        if (subkey == null || subkey == primaryKey) {
+            return null;
+        }
+
+        List<Candidate> candidates = new ArrayList<>();
+        // Revocations come first, so that they take precedence over bindings of the same age
+        for (PGPSignature revocation : CollectionUtils.iteratorToList(subkey.getSignaturesOfType(SignatureType.SUBKEY_REVOCATION.getCode()))) {
+            try {
+                SignatureValidator.signatureIsOfType(SignatureType.SUBKEY_REVOCATION).verify(revocation);
+                SignatureValidator.signatureStructureIsAcceptable(primaryKey, policy).verify(revocation);
+                charge(revocation);
+                SignatureValidator.correctSignatureOverKey(primaryKey, subkey).verify(revocation);
+                candidates.add(new Candidate(revocation, effectiveInterval(revocation)));
+            } catch (SignatureValidationException e) {
+                reject(revocation, e);
+            }
+        }
+        for (PGPSignature binding : CollectionUtils.iteratorToList(subkey.getSignaturesOfType(SignatureType.SUBKEY_BINDING.getCode()))) {
+            try {
+                SignatureValidator.signatureIsOfType(SignatureType.SUBKEY_BINDING).verify(binding);
+                SignatureValidator.signatureStructureIsAcceptable(primaryKey, policy).verify(binding);
+                charge(binding);
+                SignatureValidator.correctSubkeyBindingSignature(primaryKey, subkey).verify(binding);
+                long[] intervals = effectiveInterval(binding);
+                if (SignatureValidator.requiresPrimaryKeyBinding(binding)) {
+                    intervals = intersect(intervals, primaryKeyBindingIntervals(binding, primaryKey, subkey));
+                }
+                candidates.add(new Candidate(binding, intervals));
+            } catch (SignatureValidationException e) {
+                reject(binding, e);
+            }
+        }
+        timeline = Timeline.of(candidates);
+        subkeyTimelines.put(keyId, timeline);
+        return timeline;
+    }
+
+    /**
+     * Return the intervals during which the embedded primary key binding signatures of the given subkey binding
+     * signature are effective.
+     */
+    private long[] primaryKeyBindingIntervals(PGPSignature binding, PGPPublicKey primaryKey, PGPPublicKey subkey)
+            throws SignatureValidationException {
+        PGPSignatureList embeddedSignatures;
+        try {
+            embeddedSignatures = SignatureSubpacketsUtil.getEmbeddedSignature(binding);
+        } catch (PGPException e) {
+            throw new SignatureValidationException("Cannot process list of embedded signatures.", e);
+        }
+
+        List<Long> intervals = new ArrayList<>();
+        Map<PGPSignature, Exception> rejectedEmbeddedSigs = new ConcurrentHashMap<>();
+        for (PGPSignature embedded : embeddedSignatures) {
+            if (embedded.getSignatureType() != SignatureType.PRIMARYKEY_BINDING.getCode()) {
+                continue;
+            }
+            try {
+                SignatureValidator.signatureStructureIsAcceptable(subkey, policy).verify(embedded);
+                SignatureValidator.correctPrimaryKeyBindingSignature(primaryKey, subkey).verify(embedded);
+                long[] interval = effectiveInterval(embedded);
+                intervals.add(interval[0]);
+                intervals.add(interval[1]);
+            } catch (SignatureValidationException e) {
+                rejectedEmbeddedSigs.put(embedded, e);
+            }
+        }
+        if (intervals.isEmpty()) {
+            throw new SignatureValidationException("Missing primary key binding signature on signing capable subkey "
+                    + Long.toHexString(subkey.getKeyID()), rejectedEmbeddedSigs);
+        }
+        long[] result = new long[intervals.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = intervals.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Charge the verification of the given signature to the {@link ValidationBudget}.
+     * Signatures which cannot be verified within the budget are rejected.
+     */
+    private void charge(PGPSignature signature) throws SignatureValidationException {
+        if (!budget.tryConsume(signature)) {
+            throw new SignatureValidationException("Signature was not verified, since the validation budget is exceeded.");
+        }
+    }
+
+    private void reject(PGPSignature signature, SignatureValidationException e) {
+        rejections.put(signature, e);
+        LOGGER.debug("Rejecting signature: {}", e.getMessage(), e);
+    }
+
+    /**
+     * Return the interval during which the signature is effective, as pair of inclusive bounds.
+     * Hard revocations are effective at any time.
+     */
+    private static long[] effectiveInterval(PGPSignature signature) {
+        if (SignatureUtils.isHardRevocation(signature)) {
+            return new long[] {Long.MIN_VALUE, Long.MAX_VALUE};
+        }
+        Date expiration = SignatureSubpacketsUtil.getSignatureExpirationTimeAsDate(signature);
+        return new long[] {signature.getCreationTime().getTime(), expiration == null ? Long.MAX_VALUE : expiration.getTime()};
+    }
+
+    /**
+     * Intersect an interval with a union of intervals.
+     */
+    private static long[] intersect(long[] interval, long[] union) {
+        long[] result = new long[union.length];
+        int length = 0;
+        for (int i = 0; i < union.length; i += 2) {
+            long start = Math.max(interval[0], union[i]);
+            long end = Math.min(interval[1], union[i + 1]);
+            if (start <= end) {
+                result[length++] = start;
+                result[length++] = end;
+            }
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    /**
+     * Verified signature of a component, along with the intervals during which it is effective.
+     */
+    private static final class Candidate {
+
+        private final PGPSignature signature;
+        private final boolean hardRevocation;
+        private final long creationTime;
+        // pairs of inclusive bounds
+        private final long[] intervals;
+
+        Candidate(PGPSignature signature, long[] intervals) {
+            this.signature = signature;
+            this.hardRevocation = SignatureUtils.isHardRevocation(signature);
+            this.creationTime = signature.getCreationTime().getTime();
+            this.intervals = intervals;
+        }
+
+        boolean isEffectiveAt(long time) {
+            for (int i = 0; i < intervals.length; i += 2) {
+                if (intervals[i] <= time && time <= intervals[i + 1]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Return true if this signature takes precedence over the other signature.
+         * Hard revocations take precedence over other signatures, otherwise the newer signature wins.
+         * For signatures of the same age, the first one wins.
+         */
+        boolean supersedes(Candidate other) {
+            if (hardRevocation != other.hardRevocation) {
+                return hardRevocation;
+            }
+            return creationTime > other.creationTime;
+        }
+    }
+
+    /**
+     * Sequence of points in time at which the current signature of a component changes.
+     */
+    private static final class Timeline {
+
+        // start times of the segments in ascending order. The first segment starts at Long.MIN_VALUE.
+        private final long[] starts;
+        // current signature during each segment, might be null
+        private final PGPSignature[] signatures;
+
+        private Timeline(long[] starts, PGPSignature[] signatures) {
+            this.starts = starts;
+            this.signatures = signatures;
+        }
+
+        static Timeline of(List<Candidate> candidates) {
+            long[] points = new long[1];
+            int length = 0;
+            points[length++] = Long.MIN_VALUE;
+            for (Candidate candidate : candidates) {
+                long[] intervals = candidate.intervals;
+                if (points.length < length + intervals.length) {
+                    points = Arrays.copyOf(points, Math.max(points.length * 2, length + intervals.length));
+                }
+                for (int i = 0; i < intervals.length; i += 2) {
+                    points[length++] = intervals[i];
+                    if (intervals[i + 1] != Long.MAX_VALUE) {
+                        // The signature is effective up to and including its expiration date
+                        points[length++] = intervals[i + 1] + 1;
+                    }
+                }
+            }
+            Arrays.sort(points, 0, length);
+
+            long[] starts = new long[length];
+            PGPSignature[] signatures = new PGPSignature[length];
+            int segments = 0;
+            for (int i = 0; i < length; i++) {
+                long point = points[i];
+                if (segments != 0 && starts[segments - 1] == point) {
+                    continue;
+                }
+                PGPSignature current = current(candidates, point);
+                if (segments != 0 && signatures[segments - 1] == current) {
+                    // Current signature does not change, so merge the segments
+                    continue;
+                }
+                starts[segments] = point;
+                signatures[segments] = current;
+                segments++;
+            }
+            return new Timeline(Arrays.copyOf(starts, segments), Arrays.copyOf(signatures, segments));
+        }
+
+        private static PGPSignature current(List<Candidate> candidates, long time) {
+            Candidate current = null;
+            for (Candidate candidate : candidates) {
+                if (candidate.isEffectiveAt(time) && (current == null || candidate.supersedes(current))) {
+                    current = candidate;
+                }
+            }
+            return current == null ? null : current.signature;
+        }
+
+        @Nullable PGPSignature at(long time) {
+            int index = Arrays.binarySearch(starts, time);
+            if (index < 0) {
+                // index of the segment which contains the time
+                index = -index - 2;
+            }
+            return signatures[index];
+        }
+    }
+}
@@ -0,0 +1,197 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.signature.consumer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.openpgp.PGPKeyRing;
+import org.pgpainless.key.OpenPgpFingerprint;
+import org.pgpainless.policy.Policy;
+
+/**
+ * Bounded, thread-safe cache of {@link CertificateTimeline} objects.
+ *
+ * Since a {@link CertificateTimeline} is independent of any reference date, a single cached timeline can be used to
+ * validate all signatures made by a certificate, e.g. when verifying many messages from the same sender.
+ *
+ * Entries are identified by the fingerprint of the certificate and the identity of the {@link Policy}.
+ * A cached timeline is only returned for the very same certificate object, or for a certificate with an identical
+ * encoding. The encoding is only compared if the encoded lengths match, so that lookups of the same certificate
+ * object do not need to encode the certificate at all. That way, a modified certificate (e.g. with an added
+ * revocation signature) will never be served from the cache, but replaces the outdated entry instead.
+ * If the {@link Policy} is modified, {@link #clear()} should be called.
+ *
+ * A cache with a capacity of 0 is disabled and will create a new timeline on every call.
+ */
+public final class CertificateTimelineCache {
+
+    private final int capacity;
+    private final Map<CacheKey, CachedTimeline> cache;
+
+    /**
+     * Create a new cache.
+     *
+     * @param capacity maximum number of cached {@link CertificateTimeline} objects. 0 disables the cache.
+     */
+    public CertificateTimelineCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative.");
+        }
+        this.capacity = capacity;
+        this.cache = new LinkedHashMap<CacheKey, CachedTimeline>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CachedTimeline> eldest) {
+                return size() > CertificateTimelineCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Return a disabled cache, which creates a new timeline on every call.
+     *
+     * @return disabled cache
+     */
+    public static CertificateTimelineCache disabled() {
+        return new CertificateTimelineCache(0);
+    }
+
+    /**
+     * Return a {@link CertificateTimeline} of the given certificate, whose signatures are verified using
+     * the given policy.
+     *
+     * @param certificate certificate
+     * @param policy policy
+     * @return timeline
+     */
+    public CertificateTimeline get(@Nonnull PGPKeyRing certificate, @Nonnull Policy policy) {
+        if (!isEnabled()) {
+            return new CertificateTimeline(certificate, policy);
+        }
+
+        CacheKey key = new CacheKey(OpenPgpFingerprint.of(certificate), policy);
+        CachedTimeline cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached != null && cached.certificate == certificate) {
+            return cached.timeline;
+        }
+
+        byte[] encoding;
+        try {
+            encoding = certificate.getEncoded();
+        } catch (IOException e) {
+            // Certificate cannot be encoded, so we cannot cache it
+            return new CertificateTimeline(certificate, policy);
+        }
+        if (cached != null && cached.hasEncoding(encoding)) {
+            return cached.timeline;
+        }
+
+        // Timelines evaluate lazily, so creating one is cheap
+        CachedTimeline timeline = new CachedTimeline(certificate, encoding, new CertificateTimeline(certificate, policy));
+        synchronized (cache) {
+            // Replaces outdated timelines of the same certificate
+            cache.put(key, timeline);
+        }
+        return timeline.timeline;
+    }
+
+    /**
+     * Return true if this cache is enabled.
+     *
+     * @return true if capacity is greater than 0
+     */
+    public boolean isEnabled() {
+        return capacity > 0;
+    }
+
+    /**
+     * Return the number of cached {@link CertificateTimeline} objects.
+     *
+     * @return size
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Remove all entries from the cache.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private static byte[] digest(byte[] encoding) {
+        SHA256Digest digest = new SHA256Digest();
+        digest.update(encoding, 0, encoding.length);
+        byte[] out = new byte[digest.getDigestSize()];
+        digest.doFinal(out, 0);
+        return out;
+    }
+
+    private static final class CacheKey {
+
+        private final OpenPgpFingerprint fingerprint;
+        private final Policy policy;
+
+        CacheKey(OpenPgpFingerprint fingerprint, Policy policy) {
+            this.fingerprint = fingerprint;
+            this.policy = policy;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+            CacheKey other = (CacheKey) obj;
+            return policy == other.policy && fingerprint.equals(other.fingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * fingerprint.hashCode() + System.identityHashCode(policy);
+        }
+    }
+
+    private static final class CachedTimeline {
+
+        private final PGPKeyRing certificate;
+        private final int encodingLength;
+        private final byte[] encodingDigest;
+        private final CertificateTimeline timeline;
+
+        CachedTimeline(PGPKeyRing certificate, byte[] encoding, CertificateTimeline timeline) {
+            this.certificate = certificate;
+            this.encodingLength = encoding.length;
+            this.encodingDigest = digest(encoding);
+            this.timeline = timeline;
+        }
+
+        /**
+         * Return true if the cached certificate has the given encoding.
+         * The digest is only computed if the lengths of the encodings match.
+         *
+         * @param encoding encoding of a certificate with the same fingerprint
+         * @return true if the encodings are identical
+         */
+        boolean hasEncoding(byte[] encoding) {
+            return encoding.length == encodingLength && Arrays.equals(encodingDigest, digest(encoding));
+        }
+    }
+}
@@ -7,16 +7,11 @@ package org.pgpainless.signature.consumer;
 import static org.pgpainless.signature.consumer.SignatureVerifier.verifyOnePassSignature;
 
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Date;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.bouncycastle.bcpg.sig.KeyFlags;
 import org.bouncycastle.bcpg.sig.SignerUserID;
+import org.bouncycastle.openpgp.PGPKeyRing;
 import org.bouncycastle.openpgp.PGPPublicKey;
 import org.bouncycastle.openpgp.PGPPublicKeyRing;
 import org.bouncycastle.openpgp.PGPSignature;
@@ -26,8 +21,6 @@ import org.pgpainless.exception.SignatureValidationException;
 import org.pgpainless.policy.Policy;
 import org.pgpainless.signature.SignatureUtils;
 import org.pgpainless.signature.subpackets.SignatureSubpacketsUtil;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 /**
  * A collection of static methods that validate signing certificates (public keys) and verify signature correctness.
@@ -38,8 +31,6 @@ public final class CertificateValidator {
 
     }
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(CertificateValidator.class);
-
     /**
      * Check if the signing key was eligible to create the provided signature.
      *
@@ -57,157 +48,75 @@ public final class CertificateValidator {
      */
     public static boolean validateCertificate(PGPSignature signature, PGPPublicKeyRing signingKeyRing, Policy policy)
             throws SignatureValidationException {
+        return validateCertificate(signature, policy.getCertificateTimelineCache().get(signingKeyRing, policy));
+    }
+
+    /**
+     * Check if the signing key was eligible to create the provided signature at its creation time,
+     * using the given {@link CertificateTimeline}.
+     * Since the signatures on the certificate are only verified once per timeline,
+     * this method can cheaply be called for many signatures made by the same certificate.
+     *
+     * @param signature signature
+     * @param timeline timeline of the signing certificate
+     * @return true if the signing key was eligible to create the signature
+     * @throws SignatureValidationException in case of a validation constraint violation
+     */
+    public static boolean validateCertificate(PGPSignature signature, CertificateTimeline timeline)
+            throws SignatureValidationException {
 
-        Map<PGPSignature, Exception> rejections = new ConcurrentHashMap<>();
         long keyId = SignatureUtils.determineIssuerKeyId(signature);
+        PGPKeyRing signingKeyRing = timeline.getCertificate();
         PGPPublicKey signingSubkey = signingKeyRing.getPublicKey(keyId);
         if (signingSubkey == null) {
             throw new SignatureValidationException("Provided key ring does not contain a subkey with id " + Long.toHexString(keyId));
         }
 
         PGPPublicKey primaryKey = signingKeyRing.getPublicKey();
+        Date creationTime = signature.getCreationTime();
 
-        // Key-Revocation Signatures
-        List<PGPSignature> directKeySignatures = new ArrayList<>();
-        Iterator<PGPSignature> primaryKeyRevocationIterator = primaryKey.getSignaturesOfType(SignatureType.KEY_REVOCATION.getCode());
-        while (primaryKeyRevocationIterator.hasNext()) {
-            PGPSignature revocation = primaryKeyRevocationIterator.next();
-            try {
-                if (SignatureVerifier.verifyKeyRevocationSignature(revocation, primaryKey, policy, signature.getCreationTime())) {
-                    directKeySignatures.add(revocation);
-                }
-            } catch (SignatureValidationException e) {
-                rejections.put(revocation, e);
-                LOGGER.debug("Rejecting key revocation signature: {}", e.getMessage(), e);
-            }
-        }
-
-        // Direct-Key Signatures
-        Iterator<PGPSignature> keySignatures = primaryKey.getSignaturesOfType(SignatureType.DIRECT_KEY.getCode());
-        while (keySignatures.hasNext()) {
-            PGPSignature keySignature = keySignatures.next();
-            try {
-                if (SignatureVerifier.verifyDirectKeySignature(keySignature, primaryKey, policy, signature.getCreationTime())) {
-                    directKeySignatures.add(keySignature);
-                }
-            } catch (SignatureValidationException e) {
-                rejections.put(keySignature, e);
-                LOGGER.debug("Rejecting key signature: {}", e.getMessage(), e);
-            }
-        }
-
-        Collections.sort(directKeySignatures, new SignatureValidityComparator(SignatureCreationDateComparator.Order.NEW_TO_OLD));
-        if (!directKeySignatures.isEmpty()) {
-            if (directKeySignatures.get(0).getSignatureType() == SignatureType.KEY_REVOCATION.getCode()) {
-                throw new SignatureValidationException("Primary key has been revoked.");
-            }
-        }
-
-        // User-ID signatures (certifications, revocations)
-        Iterator<String> userIds = primaryKey.getUserIDs();
-        Map<String, List<PGPSignature>> userIdSignatures = new ConcurrentHashMap<>();
-        while (userIds.hasNext()) {
-            List<PGPSignature> signaturesOnUserId = new ArrayList<>();
-            String userId = userIds.next();
-            Iterator<PGPSignature> userIdSigs = primaryKey.getSignaturesForID(userId);
-            while (userIdSigs.hasNext()) {
-                PGPSignature userIdSig = userIdSigs.next();
-                try {
-                    if (SignatureVerifier.verifySignatureOverUserId(userId, userIdSig, primaryKey, policy, signature.getCreationTime())) {
-                        signaturesOnUserId.add(userIdSig);
-                    }
-                } catch (SignatureValidationException e) {
-                    rejections.put(userIdSig, e);
-                    LOGGER.debug("Rejecting user-id signature: {}", e.getMessage(), e);
-                }
-            }
-            Collections.sort(signaturesOnUserId, new SignatureValidityComparator(SignatureCreationDateComparator.Order.NEW_TO_OLD));
-            userIdSignatures.put(userId, signaturesOnUserId);
+        if (timeline.isPrimaryKeyRevoked(creationTime)) {
+            throw new SignatureValidationException("Primary key has been revoked.");
         }
 
-        boolean anyUserIdValid = false;
-        for (String userId : userIdSignatures.keySet()) {
-            if (!userIdSignatures.get(userId).isEmpty()) {
-                PGPSignature current = userIdSignatures.get(userId).get(0);
-                if (current.getSignatureType() == SignatureType.CERTIFICATION_REVOCATION.getCode()) {
-                    LOGGER.debug("User-ID '{}' is revoked.", userId);
-                } else {
-                    anyUserIdValid = true;
-                }
-            }
-        }
-
-        if (!anyUserIdValid) {
-            throw new SignatureValidationException("No valid user-id found.", rejections);
+        if (!timeline.hasBoundUserId(creationTime)) {
+            throw new SignatureValidationException("No valid user-id found.", timeline.getRejectedSignatures());
         }
 
         // Specific signer user-id
         SignerUserID signerUserID = SignatureSubpacketsUtil.getSignerUserID(signature);
         if (signerUserID != null) {
-            PGPSignature userIdSig = userIdSignatures.get(signerUserID.getID()).get(0);
-            if (userIdSig.getSignatureType() == SignatureType.CERTIFICATION_REVOCATION.getCode()) {
+            PGPSignature userIdSig = timeline.getUserIdSignature(signerUserID.getID(), creationTime);
+            if (userIdSig != null && userIdSig.getSignatureType() == SignatureType.CERTIFICATION_REVOCATION.getCode()) {
                 throw new SignatureValidationException("Signature was made with user-id '" + signerUserID.getID() + "' which is revoked.");
             }
         }
 
         if (signingSubkey == primaryKey) {
-            if (!directKeySignatures.isEmpty()) {
-                if (KeyFlag.hasKeyFlag(SignatureSubpacketsUtil.getKeyFlags(directKeySignatures.get(0)).getFlags(), KeyFlag.SIGN_DATA)) {
-                    return true;
-                }
-            }
-        } // Subkey Binding Signatures / Subkey Revocation Signatures
-        else {
-            List<PGPSignature> subkeySigs = new ArrayList<>();
-            Iterator<PGPSignature> bindingRevocations = signingSubkey.getSignaturesOfType(SignatureType.SUBKEY_REVOCATION.getCode());
-            while (bindingRevocations.hasNext()) {
-                PGPSignature revocation = bindingRevocations.next();
-                try {
-                    if (SignatureVerifier.verifySubkeyBindingRevocation(revocation, primaryKey, signingSubkey, policy, signature.getCreationTime())) {
-                        subkeySigs.add(revocation);
-                    }
-                } catch (SignatureValidationException e) {
-                    rejections.put(revocation, e);
-                    LOGGER.debug("Rejecting subkey revocation signature: {}", e.getMessage(), e);
-                }
-            }
-
-            Iterator<PGPSignature> bindingSigs = signingSubkey.getSignaturesOfType(SignatureType.SUBKEY_BINDING.getCode());
-            while (bindingSigs.hasNext()) {
-                PGPSignature bindingSig = bindingSigs.next();
-                try {
-                    if (SignatureVerifier.verifySubkeyBindingSignature(bindingSig, primaryKey, signingSubkey, policy, signature.getCreationTime())) {
-                        subkeySigs.add(bindingSig);
-                    }
-                } catch (SignatureValidationException e) {
-                    rejections.put(bindingSig, e);
-                    LOGGER.debug("Rejecting subkey binding signature: {}", e.getMessage(), e);
-                }
-            }
+            return true;
+        }
 
-            Collections.sort(subkeySigs, new SignatureValidityComparator(SignatureCreationDateComparator.Order.NEW_TO_OLD));
-            if (subkeySigs.isEmpty()) {
-                throw new SignatureValidationException("Subkey is not bound.", rejections);
-            }
+        // Subkey Binding Signatures / Subkey Revocation Signatures
+        PGPSignature currentSig = timeline.getSubkeySignature(keyId, creationTime);
+        if (currentSig == null) {
+            throw new SignatureValidationException("Subkey is not bound.", timeline.getRejectedSignatures());
+        }
+        if (currentSig.getSignatureType() == SignatureType.SUBKEY_REVOCATION.getCode()) {
+            throw new SignatureValidationException("Subkey is revoked.");
+        }
 
-            PGPSignature currentSig = subkeySigs.get(0);
-            if (currentSig.getSignatureType() == SignatureType.SUBKEY_REVOCATION.getCode()) {
-                throw new SignatureValidationException("Subkey is revoked.");
+        KeyFlags keyFlags = SignatureSubpacketsUtil.getKeyFlags(currentSig);
+        if (keyFlags == null) {
+            PGPSignature directKeySig = timeline.getPrimaryKeySignature(creationTime);
+            if (directKeySig == null) {
+                throw new SignatureValidationException("Signature was made by key which is not capable of signing (no keyflags on binding sig, no direct-key sig).");
             }
-
-            KeyFlags keyFlags = SignatureSubpacketsUtil.getKeyFlags(currentSig);
-            if (keyFlags == null) {
-                if (directKeySignatures.isEmpty()) {
-                    throw new SignatureValidationException("Signature was made by key which is not capable of signing (no keyflags on binding sig, no direct-key sig).");
-                }
-                PGPSignature directKeySig = directKeySignatures.get(0);
-                KeyFlags directKeyFlags = SignatureSubpacketsUtil.getKeyFlags(directKeySig);
-                if (!KeyFlag.hasKeyFlag(directKeyFlags.getFlags(), KeyFlag.SIGN_DATA)) {
-                    throw new SignatureValidationException("Signature was made by key which is not capable of signing (no keyflags on binding sig, no SIGN flag on direct-key sig).");
-                }
-            } else if (!KeyFlag.hasKeyFlag(keyFlags.getFlags(), KeyFlag.SIGN_DATA)) {
-                throw new SignatureValidationException("Signature was made by key which is not capable of signing (no SIGN flag on binding sig).");
+            KeyFlags directKeyFlags = SignatureSubpacketsUtil.getKeyFlags(directKeySig);
+            if (directKeyFlags == null || !KeyFlag.hasKeyFlag(directKeyFlags.getFlags(), KeyFlag.SIGN_DATA)) {
+                throw new SignatureValidationException("Signature was made by key which is not capable of signing (no keyflags on binding sig, no SIGN flag on direct-key sig).");
             }
+        } else if (!KeyFlag.hasKeyFlag(keyFlags.getFlags(), KeyFlag.SIGN_DATA)) {
+            throw new SignatureValidationException("Signature was made by key which is not capable of signing (no SIGN flag on binding sig).");
         }
         return true;
     }
@@ -0,0 +1,260 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.signature.consumer;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPSignature;
+import org.bouncycastle.openpgp.PGPUserAttributeSubpacketVector;
+import org.pgpainless.implementation.ImplementationFactory;
+
+/**
+ * Bounded, thread-safe memo of the results of cryptographic signature verifications.
+ *
+ * Verifying the correctness of a signature requires a public-key operation, which is expensive.
+ * Self-signatures and certifications on certificates are typically verified over and over again, e.g. whenever a
+ * {@link org.pgpainless.key.info.KeyRingInfo} is created or a signing certificate is validated.
+ * This cache records whether a signature is correct, so that repeated verifications can skip the public-key operation.
+ *
+ * Entries are identified by a digest over the encoding of the signature, the fingerprint of the signing key
+ * and the signed component (e.g. the fingerprint of the signed key and the user-id).
+ * Only the correctness of the signature is cached. Policy-dependent checks (e.g. acceptable algorithms or
+ * signature expiration) are not affected by this cache and are performed on every verification.
+ *
+ * A cache with a capacity of 0 is disabled and will verify signatures on every call.
+ */
+public final class SignatureCorrectnessCache {
+
+    private static final byte COMPONENT_KEY = 0x01;
+    private static final byte COMPONENT_USER_ID = 0x02;
+    private static final byte COMPONENT_USER_ATTRIBUTES = 0x03;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final int capacity;
+    private final Map<CacheKey, Boolean> cache;
+
+    /**
+     * Create a new cache.
+     *
+     * @param capacity maximum number of cached verification results. 0 disables the cache.
+     */
+    public SignatureCorrectnessCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative.");
+        }
+        this.capacity = capacity;
+        this.cache = new LinkedHashMap<CacheKey, Boolean>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, Boolean> eldest) {
+                return size() > SignatureCorrectnessCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Return a disabled cache, which verifies signatures on every call.
+     *
+     * @return disabled cache
+     */
+    public static SignatureCorrectnessCache disabled() {
+        return new SignatureCorrectnessCache(0);
+    }
+
+    /**
+     * Return true if this cache is enabled.
+     *
+     * @return true if capacity is greater than 0
+     */
+    public boolean isEnabled() {
+        return capacity > 0;
+    }
+
+    /**
+     * Return the number of cached verification results.
+     *
+     * @return size
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Remove all entries from the cache.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Verify a signature over a key (e.g. a direct-key signature, key revocation or subkey binding signature),
+     * using a cached result if possible.
+     *
+     * @param signature initialized signature
+     * @param signer key that created the signature
+     * @param signee signed key
+     * @param verification verification which is performed on a cache miss
+     * @return true if the signature is correct
+     * @throws PGPException if the signature cannot be verified
+     */
+    boolean verifySignatureOverKey(@Nonnull PGPSignature signature, @Nonnull PGPPublicKey signer,
+                                   @Nonnull PGPPublicKey signee, @Nonnull Verification verification)
+            throws PGPException {
+        return verify(signature, signer, COMPONENT_KEY, signee, null, verification);
+    }
+
+    /**
+     * Verify a signature over a user-id, using a cached result if possible.
+     *
+     * @param signature initialized signature
+     * @param signer key that created the signature
+     * @param certifiedKey key carrying the user-id
+     * @param userId user-id
+     * @param verification verification which is performed on a cache miss
+     * @return true if the signature is correct
+     * @throws PGPException if the signature cannot be verified
+     */
+    boolean verifySignatureOverUserId(@Nonnull PGPSignature signature, @Nonnull PGPPublicKey signer,
+                                      @Nonnull PGPPublicKey certifiedKey, @Nonnull String userId,
+                                      @Nonnull Verification verification)
+            throws PGPException {
+        return verify(signature, signer, COMPONENT_USER_ID, certifiedKey,
+                userId.getBytes(UTF8), verification);
+    }
+
+    /**
+     * Verify a signature over a user-attribute vector, using a cached result if possible.
+     *
+     * @param signature initialized signature
+     * @param signer key that created the signature
+     * @param certifiedKey key carrying the user-attributes
+     * @param userAttributes user-attributes
+     * @param verification verification which is performed on a cache miss
+     * @return true if the signature is correct
+     * @throws PGPException if the signature cannot be verified
+     */
+    boolean verifySignatureOverUserAttributes(@Nonnull PGPSignature signature, @Nonnull PGPPublicKey signer,
+                                              @Nonnull PGPPublicKey certifiedKey,
+                                              @Nonnull PGPUserAttributeSubpacketVector userAttributes,
+                                              @Nonnull Verification verification)
+            throws PGPException {
+        if (!isEnabled()) {
+            return verification.verify();
+        }
+        byte[] encodedAttributes;
+        try {
+            // BC does not expose the encoding of user-attributes, so encode them as part of a blank copy of the key
+            PGPPublicKey blank = new PGPPublicKey(certifiedKey.getPublicKeyPacket(),
+                    ImplementationFactory.getInstance().getKeyFingerprintCalculator());
+            encodedAttributes = PGPPublicKey.addCertification(blank, userAttributes, signature).getEncoded();
+        } catch (IOException e) {
+            // User-attributes cannot be encoded, so we cannot cache the result
+            return verification.verify();
+        }
+        return verify(signature, signer, COMPONENT_USER_ATTRIBUTES, certifiedKey, encodedAttributes, verification);
+    }
+
+    private boolean verify(PGPSignature signature, PGPPublicKey signer, byte componentType,
+                           PGPPublicKey signedKey, byte[] signedData, Verification verification)
+            throws PGPException {
+        if (!isEnabled()) {
+            return verification.verify();
+        }
+
+        CacheKey key;
+        try {
+            key = new CacheKey(signature, signer, componentType, signedKey, signedData);
+        } catch (IOException e) {
+            // Signature cannot be encoded, so we cannot cache it
+            return verification.verify();
+        }
+
+        synchronized (cache) {
+            Boolean cached = cache.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        // Verify outside the lock, so that other threads are not blocked by the public-key operation
+        boolean correct = verification.verify();
+        synchronized (cache) {
+            cache.put(key, correct);
+        }
+        return correct;
+    }
+
+    /**
+     * Cryptographic verification of a signature, which is performed if the result is not yet cached.
+     */
+    interface Verification {
+
+        /**
+         * Verify the correctness of the signature.
+         *
+         * @return true if the signature is correct
+         * @throws PGPException if the signature cannot be verified
+         */
+        boolean verify() throws PGPException;
+    }
+
+    private static final class CacheKey {
+
+        private final byte[] digest;
+        private final int hashCode;
+
+        CacheKey(PGPSignature signature, PGPPublicKey signer, byte componentType, PGPPublicKey signedKey, byte[] signedData)
+                throws IOException {
+            SHA256Digest sha256 = new SHA256Digest();
+            update(sha256, signature.getEncoded());
+            update(sha256, signer.getFingerprint());
+            sha256.update(componentType);
+            update(sha256, signedKey.getFingerprint());
+            if (signedData != null) {
+                update(sha256, signedData);
+            }
+            this.digest = new byte[sha256.getDigestSize()];
+            sha256.doFinal(digest, 0);
+            this.hashCode = Arrays.hashCode(digest);
+        }
+
+        private static void update(SHA256Digest digest, byte[] data) {
+            // length prefix, so that fields cannot be shifted into one another
+            digest.update((byte) (data.length >>> 24));
+            digest.update((byte) (data.length >>> 16));
+            digest.update((byte) (data.length >>> 8));
+            digest.update((byte) data.length);
+            digest.update(data, 0, data.length);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+            return Arrays.equals(digest, ((CacheKey) obj).digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.signature.consumer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nonnull;
+
+import org.bouncycastle.openpgp.PGPKeyRing;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPSignature;
+import org.pgpainless.algorithm.SignatureType;
+import org.pgpainless.signature.SignatureUtils;
+
+/**
+ * Index of the signatures on the components of a key ring.
+ *
+ * The signatures of each component (key or user-id) are grouped by their {@link SignatureType} and issuer
+ * and sorted by ascending creation time.
+ * That way, {@link SignaturePicker} does not need to iterate, filter and sort all signatures of a component
+ * (e.g. thousands of third-party certifications on a flooded certificate) over and over again.
+ *
+ * The index of a component is built lazily when it is first queried.
+ * Instances are thread-safe and can be reused for all picks on the same key ring.
+ */
+public final class SignatureIndex {
+
+    private static final long UNKNOWN_ISSUER = 0L;
+
+    private final PGPKeyRing keyRing;
+    private final ValidationBudget budget;
+    private final Map<Long, ComponentIndex> keyIndexes = new ConcurrentHashMap<>();
+    private final Map<String, ComponentIndex> userIdIndexes = new ConcurrentHashMap<>();
+
+    /**
+     * Create an index of the signatures on the given key ring.
+     * Picks from this index are not limited by a {@link ValidationBudget}.
+     *
+     * @param keyRing key ring
+     */
+    public SignatureIndex(@Nonnull PGPKeyRing keyRing) {
+        this(keyRing, ValidationBudget.unlimited());
+    }
+
+    /**
+     * Create an index of the signatures on the given key ring.
+     * The given {@link ValidationBudget} is allocated to the key ring and consumed by picks from this index.
+     *
+     * @param keyRing key ring
+     * @param budget validation budget
+     * @throws IllegalStateException if the budget is already allocated to another key ring
+     */
+    public SignatureIndex(@Nonnull PGPKeyRing keyRing, @Nonnull ValidationBudget budget) {
+        this.keyRing = keyRing;
+        this.budget = budget;
+        budget.allocate(keyRing);
+    }
+
+    /**
+     * Return the indexed key ring.
+     *
+     * @return key ring
+     */
+    public @Nonnull PGPKeyRing getKeyRing() {
+        return keyRing;
+    }
+
+    /**
+     * Return the {@link ValidationBudget} which is consumed by picks from this index.
+     *
+     * @return validation budget
+     */
+    public @Nonnull ValidationBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Return all signatures of the given type on the given key, sorted by ascending creation time.
+     * Like {@link PGPPublicKey#getSignaturesOfType(int)}, this includes signatures on the user-ids of the key.
+     *
+     * @param key key of the indexed key ring
+     * @param type signature type
+     * @return sorted, unmodifiable list of signatures
+     */
+    public @Nonnull List<PGPSignature> getKeySignatures(@Nonnull PGPPublicKey key, @Nonnull SignatureType type) {
+        return keyIndex(key).getSignatures(type.getCode());
+    }
+
+    /**
+     * Return all signatures of the given type on the given user-id of the primary key,
+     * sorted by ascending creation time.
+     *
+     * @param userId user-id
+     * @param type signature type
+     * @return sorted, unmodifiable list of signatures
+     */
+    public @Nonnull List<PGPSignature> getUserIdSignatures(@Nonnull String userId, @Nonnull SignatureType type) {
+        return userIdIndex(userId).getSignatures(type.getCode());
+    }
+
+    /**
+     * Return all signatures of the given type on the given user-id of the primary key, which were possibly
+     * issued by the given key, sorted by ascending creation time.
+     * Signatures are possibly issued by the key if their issuer key-id matches the key-id of the key,
+     * or if they do not carry any issuer information.
+     *
+     * @param userId user-id
+     * @param type signature type
+     * @param issuer issuer key
+     * @return sorted, unmodifiable list of signatures
+     */
+    public @Nonnull List<PGPSignature> getUserIdSignatures(@Nonnull String userId, @Nonnull SignatureType type,
+                                                           @Nonnull PGPPublicKey issuer) {
+        return userIdIndex(userId).getSignatures(type.getCode(), issuer.getKeyID());
+    }
+
+    /**
+     * Return all certifications ({@link SignatureType#GENERIC_CERTIFICATION}, {@link SignatureType#NO_CERTIFICATION},
+     * {@link SignatureType#CASUAL_CERTIFICATION} and {@link SignatureType#POSITIVE_CERTIFICATION}) on the given user-id
+     * of the primary key, sorted by ascending creation time.
+     *
+     * @param userId user-id
+     * @return sorted, unmodifiable list of certifications
+     */
+    public @Nonnull List<PGPSignature> getUserIdCertifications(@Nonnull String userId) {
+        return userIdIndex(userId).getCertifications();
+    }
+
+    /**
+     * Return all certifications ({@link SignatureType#GENERIC_CERTIFICATION}, {@link SignatureType#NO_CERTIFICATION},
+     * {@link SignatureType#CASUAL_CERTIFICATION} and {@link SignatureType#POSITIVE_CERTIFICATION}) on the given user-id
+     * of the primary key, which were possibly issued by the given key, sorted by ascending creation time.
+     *
+     * @param userId user-id
+     * @param issuer issuer key
+     * @return sorted, unmodifiable list of certifications
+     */
+    public @Nonnull List<PGPSignature> getUserIdCertifications(@Nonnull String userId, @Nonnull PGPPublicKey issuer) {
+        return userIdIndex(userId).getCertifications(issuer.getKeyID());
+    }
+
+    private ComponentIndex keyIndex(PGPPublicKey key) {
+        ComponentIndex index = keyIndexes.get(key.getKeyID());
+        if (index == null) {
+            index = new ComponentIndex(key.getSignatures());
+            keyIndexes.put(key.getKeyID(), index);
+        }
+        return index;
+    }
+
+    private ComponentIndex userIdIndex(String userId) {
+        ComponentIndex index = userIdIndexes.get(userId);
+        if (index == null) {
+            Iterator<PGPSignature> signatures = keyRing.getPublicKey().getSignaturesForID(userId);
+            index = new ComponentIndex(signatures == null ? Collections.<PGPSignature>emptyList().iterator() : signatures);
+            userIdIndexes.put(userId, index);
+        }
+        return index;
+    }
+
+    /**
+     * Signatures of a single component, grouped by type and issuer.
+     */
+    private static final class ComponentIndex {
+
+        // sorted signatures by type
+        private final Map<Integer, List<PGPSignature>> byType = new HashMap<>();
+        // sorted signatures by type and issuer. Signatures without issuer are stored under UNKNOWN_ISSUER.
+        private final Map<Integer, Map<Long, List<PGPSignature>>> byTypeAndIssuer = new HashMap<>();
+        // sorted signatures by type and possible issuer, merged on demand
+        private final Map<Integer, Map<Long, List<PGPSignature>>> possiblyByIssuer = new ConcurrentHashMap<>();
+        private final Map<Long, List<PGPSignature>> certificationsByIssuer = new ConcurrentHashMap<>();
+        private volatile List<PGPSignature> allCertifications;
+
+        ComponentIndex(Iterator<PGPSignature> signatures) {
+            Map<Integer, List<PGPSignature>> unsorted = new HashMap<>();
+            while (signatures.hasNext()) {
+                PGPSignature signature = signatures.next();
+                List<PGPSignature> ofType = unsorted.get(signature.getSignatureType());
+                if (ofType == null) {
+                    ofType = new ArrayList<>();
+                    unsorted.put(signature.getSignatureType(), ofType);
+                }
+                ofType.add(signature);
+            }
+
+            SignatureCreationDateComparator comparator = new SignatureCreationDateComparator();
+            for (Map.Entry<Integer, List<PGPSignature>> entry : unsorted.entrySet()) {
+                List<PGPSignature> sorted = entry.getValue();
+                Collections.sort(sorted, comparator);
+                byType.put(entry.getKey(), Collections.unmodifiableList(sorted));
+
+                // Iterating the sorted list keeps the issuer groups sorted as well
+                Map<Long, List<PGPSignature>> byIssuer = new HashMap<>();
+                for (PGPSignature signature : sorted) {
+                    long issuer = SignatureUtils.determineIssuerKeyId(signature);
+                    List<PGPSignature> ofIssuer = byIssuer.get(issuer);
+                    if (ofIssuer == null) {
+                        ofIssuer = new ArrayList<>();
+                        byIssuer.put(issuer, ofIssuer);
+                    }
+                    ofIssuer.add(signature);
+                }
+                byTypeAndIssuer.put(entry.getKey(), byIssuer);
+            }
+        }
+
+        List<PGPSignature> getSignatures(int type) {
+            List<PGPSignature> signatures = byType.get(type);
+            return signatures == null ? Collections.<PGPSignature>emptyList() : signatures;
+        }
+
+        List<PGPSignature> getSignatures(int type, long issuer) {
+            Map<Long, List<PGPSignature>> byIssuer = byTypeAndIssuer.get(type);
+            if (byIssuer == null) {
+                return Collections.emptyList();
+            }
+
+            Map<Long, List<PGPSignature>> merged = possiblyByIssuer.get(type);
+            if (merged == null) {
+                merged = new ConcurrentHashMap<>();
+                possiblyByIssuer.put(type, merged);
+            }
+            List<PGPSignature> signatures = merged.get(issuer);
+            if (signatures == null) {
+                signatures = Collections.unmodifiableList(merge(byIssuer.get(issuer), byIssuer.get(UNKNOWN_ISSUER)));
+                merged.put(issuer, signatures);
+            }
+            return signatures;
+        }
+
+        List<PGPSignature> getCertifications() {
+            List<PGPSignature> signatures = allCertifications;
+            if (signatures == null) {
+                signatures = sortedCertifications(
+                        getSignatures(SignatureType.GENERIC_CERTIFICATION.getCode()),
+                        getSignatures(SignatureType.NO_CERTIFICATION.getCode()),
+                        getSignatures(SignatureType.CASUAL_CERTIFICATION.getCode()),
+                        getSignatures(SignatureType.POSITIVE_CERTIFICATION.getCode()));
+                allCertifications = signatures;
+            }
+            return signatures;
+        }
+
+        List<PGPSignature> getCertifications(long issuer) {
+            List<PGPSignature> signatures = certificationsByIssuer.get(issuer);
+            if (signatures == null) {
+                signatures = sortedCertifications(
+                        getSignatures(SignatureType.GENERIC_CERTIFICATION.getCode(), issuer),
+                        getSignatures(SignatureType.NO_CERTIFICATION.getCode(), issuer),
+                        getSignatures(SignatureType.CASUAL_CERTIFICATION.getCode(), issuer),
+                        getSignatures(SignatureType.POSITIVE_CERTIFICATION.getCode(), issuer));
+                certificationsByIssuer.put(issuer, signatures);
+            }
+            return signatures;
+        }
+
+        @SafeVarargs
+        private static List<PGPSignature> sortedCertifications(List<PGPSignature>... certificationsByType) {
+            List<PGPSignature> signatures = new ArrayList<>();
+            for (List<PGPSignature> certifications : certificationsByType) {
+                signatures.addAll(certifications);
+            }
+            Collections.sort(signatures, new SignatureCreationDateComparator());
+            return Collections.unmodifiableList(signatures);
+        }
+
+        /**
+         * Merge two lists of signatures, which are both sorted by ascending creation time.
+         */
+        private static List<PGPSignature> merge(List<PGPSignature> first, List<PGPSignature> second) {
+            if (first == null) {
+                return second == null ? Collections.<PGPSignature>emptyList() : second;
+            }
+            if (second == null || first == second) {
+                return first;
+            }
+            SignatureCreationDateComparator comparator = new SignatureCreationDateComparator();
+            List<PGPSignature> merged = new ArrayList<>(first.size() + second.size());
+            int i = 0;
+            int j = 0;
+            while (i < first.size() && j < second.size()) {
+                if (comparator.compare(first.get(i), second.get(j)) <= 0) {
+                    merged.add(first.get(i++));
+                } else {
+                    merged.add(second.get(j++));
+                }
+            }
+            merged.addAll(first.subList(i, first.size()));
+            merged.addAll(second.subList(j, second.size()));
+            return merged;
+        }
+    }
+}
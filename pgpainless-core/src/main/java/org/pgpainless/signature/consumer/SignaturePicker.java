@@ -47,11 +47,32 @@ public final class SignaturePicker {
      */
     public static PGPSignature pickCurrentRevocationSelfSignature(PGPKeyRing keyRing, Policy policy, Date validationDate) {
         PGPPublicKey primaryKey = keyRing.getPublicKey();
-
         List<PGPSignature> signatures = getSortedSignaturesOfType(primaryKey, SignatureType.KEY_REVOCATION);
+        return pickCurrentRevocationSelfSignature(signatures, ValidationBudget.unlimited(), primaryKey, policy, validationDate);
+    }
+
+    /**
+     * Pick the at validation date most recent valid key revocation signature from the given {@link SignatureIndex}.
+     *
+     * @param index signature index of the key ring
+     * @param policy policy
+     * @param validationDate validation date
+     * @return most recent, valid key revocation signature
+     */
+    public static PGPSignature pickCurrentRevocationSelfSignature(SignatureIndex index, Policy policy, Date validationDate) {
+        PGPPublicKey primaryKey = index.getKeyRing().getPublicKey();
+        ValidationBudget budget = index.getBudget();
+        return pickCurrentRevocationSelfSignature(index.getKeySignatures(primaryKey, SignatureType.KEY_REVOCATION),
+                budget, primaryKey, policy, validationDate);
+    }
+
+    private static PGPSignature pickCurrentRevocationSelfSignature(List<PGPSignature> signatures, ValidationBudget budget, PGPPublicKey primaryKey, Policy policy, Date validationDate) {
         PGPSignature mostCurrentValidSig = null;
 
         for (PGPSignature signature : signatures) {
+            if (!budget.tryConsume(signature)) {
+                continue;
+            }
             try {
                 SignatureVerifier.verifyKeyRevocationSignature(signature, primaryKey, policy, validationDate);
             } catch (SignatureValidationException e) {
@@ -77,6 +98,21 @@ public final class SignaturePicker {
         return pickCurrentDirectKeySignature(primaryKey, primaryKey, policy, validationDate);
     }
 
+    /**
+     * Pick the at validationDate most recent, valid direct key self-signature from the given {@link SignatureIndex}.
+     *
+     * @param index signature index of the key ring
+     * @param policy policy
+     * @param validationDate validation date
+     * @return direct-key self-signature
+     */
+    public static PGPSignature pickCurrentDirectKeySelfSignature(SignatureIndex index, Policy policy, Date validationDate) {
+        PGPPublicKey primaryKey = index.getKeyRing().getPublicKey();
+        ValidationBudget budget = index.getBudget();
+        return pickCurrentDirectKeySignature(index.getKeySignatures(primaryKey, SignatureType.DIRECT_KEY),
+                budget, primaryKey, primaryKey, policy, validationDate);
+    }
+
     /**
      * Pick the at validationDate, latest, valid direct key signature made by signingKey on signedKey.
      * This method might return null, if there is no direct key self signature which is valid at validationDate.
@@ -88,9 +124,15 @@ public final class SignaturePicker {
      */
     public static PGPSignature pickCurrentDirectKeySignature(PGPPublicKey signingKey, PGPPublicKey signedKey, Policy policy, Date validationDate) {
         List<PGPSignature> directKeySignatures = getSortedSignaturesOfType(signedKey, SignatureType.DIRECT_KEY);
+        return pickCurrentDirectKeySignature(directKeySignatures, ValidationBudget.unlimited(), signingKey, signedKey, policy, validationDate);
+    }
 
+    private static PGPSignature pickCurrentDirectKeySignature(List<PGPSignature> directKeySignatures, ValidationBudget budget, PGPPublicKey signingKey, PGPPublicKey signedKey, Policy policy, Date validationDate) {
         PGPSignature mostRecentDirectKeySigBySigningKey = null;
         for (PGPSignature signature : directKeySignatures) {
+            if (!budget.tryConsume(signature)) {
+                continue;
+            }
             try {
                 SignatureVerifier.verifyDirectKeySignature(signature, signingKey, signedKey, policy, validationDate);
             } catch (SignatureValidationException e) {
@@ -118,6 +160,22 @@ public final class SignaturePicker {
         return pickLatestDirectKeySignature(primaryKey, primaryKey, policy, validationDate);
     }
 
+    /**
+     * Pick the at validationDate latest direct key self-signature from the given {@link SignatureIndex}.
+     * This method might return an expired signature.
+     *
+     * @param index signature index of the key ring
+     * @param policy policy
+     * @param validationDate validation date
+     * @return latest direct key signature
+     */
+    public static PGPSignature pickLatestDirectKeySignature(SignatureIndex index, Policy policy, Date validationDate) {
+        PGPPublicKey primaryKey = index.getKeyRing().getPublicKey();
+        ValidationBudget budget = index.getBudget();
+        return pickLatestDirectKeySignature(index.getKeySignatures(primaryKey, SignatureType.DIRECT_KEY),
+                budget, primaryKey, primaryKey, policy, validationDate);
+    }
+
     /**
      * Pick the at validationDate latest direct key signature made by signingKey on signedKey.
      * This method might return an expired signature.
@@ -131,9 +189,15 @@ public final class SignaturePicker {
      */
     public static PGPSignature pickLatestDirectKeySignature(PGPPublicKey signingKey, PGPPublicKey signedKey, Policy policy, Date validationDate) {
         List<PGPSignature> signatures = getSortedSignaturesOfType(signedKey, SignatureType.DIRECT_KEY);
+        return pickLatestDirectKeySignature(signatures, ValidationBudget.unlimited(), signingKey, signedKey, policy, validationDate);
+    }
 
+    private static PGPSignature pickLatestDirectKeySignature(List<PGPSignature> signatures, ValidationBudget budget, PGPPublicKey signingKey, PGPPublicKey signedKey, Policy policy, Date validationDate) {
         PGPSignature latestDirectKeySignature = null;
         for (PGPSignature signature : signatures) {
+            if (!budget.tryConsume(signature)) {
+                continue;
+            }
             try {
                 SignatureValidator.signatureIsOfType(SignatureType.DIRECT_KEY).verify(signature);
                 SignatureValidator.signatureStructureIsAcceptable(signingKey, policy).verify(signature);
@@ -166,9 +230,31 @@ public final class SignaturePicker {
     public static PGPSignature pickCurrentUserIdRevocationSignature(PGPKeyRing keyRing, String userId, Policy policy, Date validationDate) {
         PGPPublicKey primaryKey = keyRing.getPublicKey();
         List<PGPSignature> signatures = getSortedSignaturesOfType(primaryKey, SignatureType.CERTIFICATION_REVOCATION);
+        return pickCurrentUserIdRevocationSignature(signatures, ValidationBudget.unlimited(), primaryKey, userId, policy, validationDate);
+    }
+
+    /**
+     * Pick the at validationDate most recent, valid user-id revocation signature from the given {@link SignatureIndex}.
+     *
+     * @param index signature index of the key ring
+     * @param userId user-Id that gets revoked
+     * @param policy policy
+     * @param validationDate validation date
+     * @return revocation signature
+     */
+    public static PGPSignature pickCurrentUserIdRevocationSignature(SignatureIndex index, String userId, Policy policy, Date validationDate) {
+        PGPPublicKey primaryKey = index.getKeyRing().getPublicKey();
+        ValidationBudget budget = index.getBudget();
+        return pickCurrentUserIdRevocationSignature(index.getUserIdSignatures(userId, SignatureType.CERTIFICATION_REVOCATION),
+                budget, primaryKey, userId, policy, validationDate);
+    }
 
+    private static PGPSignature pickCurrentUserIdRevocationSignature(List<PGPSignature> signatures, ValidationBudget budget, PGPPublicKey primaryKey, String userId, Policy policy, Date validationDate) {
         PGPSignature latestUserIdRevocation = null;
         for (PGPSignature signature : signatures) {
+            if (!budget.tryConsume(signature)) {
+                continue;
+            }
             try {
                 SignatureVerifier.verifyUserIdRevocation(userId, signature, primaryKey, policy, validationDate);
             } catch (SignatureValidationException e) {
@@ -193,13 +279,33 @@ public final class SignaturePicker {
      */
     public static PGPSignature pickCurrentUserIdCertificationSignature(PGPKeyRing keyRing, String userId, Policy policy, Date validationDate) {
         PGPPublicKey primaryKey = keyRing.getPublicKey();
+        List<PGPSignature> signatures = getSortedUserIdSignatures(primaryKey, userId);
+        return pickCurrentUserIdCertificationSignature(signatures, ValidationBudget.unlimited(), primaryKey, userId, policy, validationDate);
+    }
 
-        Iterator<PGPSignature> userIdSigIterator = primaryKey.getSignaturesForID(userId);
-        List<PGPSignature> signatures = CollectionUtils.iteratorToList(userIdSigIterator);
-        Collections.sort(signatures, new SignatureCreationDateComparator());
+    /**
+     * Pick the at validationDate latest, valid certification self-signature for the given user-id from the given
+     * {@link SignatureIndex}.
+     *
+     * @param index signature index of the key ring
+     * @param userId userid
+     * @param policy policy
+     * @param validationDate validation date
+     * @return user-id certification
+     */
+    public static PGPSignature pickCurrentUserIdCertificationSignature(SignatureIndex index, String userId, Policy policy, Date validationDate) {
+        PGPPublicKey primaryKey = index.getKeyRing().getPublicKey();
+        ValidationBudget budget = index.getBudget();
+        return pickCurrentUserIdCertificationSignature(index.getUserIdCertifications(userId),
+                budget, primaryKey, userId, policy, validationDate);
+    }
 
+    private static PGPSignature pickCurrentUserIdCertificationSignature(List<PGPSignature> signatures, ValidationBudget budget, PGPPublicKey primaryKey, String userId, Policy policy, Date validationDate) {
         PGPSignature mostRecentUserIdCertification = null;
         for (PGPSignature signature : signatures) {
+            if (!budget.tryConsume(signature)) {
+                continue;
+            }
             try {
                 SignatureVerifier.verifyUserIdCertification(userId, signature, primaryKey, policy, validationDate);
             } catch (SignatureValidationException e) {
@@ -225,13 +331,36 @@ public final class SignaturePicker {
      */
     public static PGPSignature pickLatestUserIdCertificationSignature(PGPKeyRing keyRing, String userId, Policy policy, Date validationDate) {
         PGPPublicKey primaryKey = keyRing.getPublicKey();
+        List<PGPSignature> signatures = getSortedUserIdSignatures(primaryKey, userId);
+        return pickLatestUserIdCertificationSignature(signatures, ValidationBudget.unlimited(), primaryKey, userId, policy, validationDate);
+    }
 
-        Iterator<PGPSignature> userIdSigIterator = primaryKey.getSignaturesForID(userId);
-        List<PGPSignature> signatures = CollectionUtils.iteratorToList(userIdSigIterator);
-        Collections.sort(signatures, new SignatureCreationDateComparator());
+    /**
+     * Pick the at validationDate latest certification self-signature for the given user-id from the given
+     * {@link SignatureIndex}.
+     * Only certifications which were possibly made by the primary key are considered, so third-party certifications
+     * are skipped without being verified.
+     * This method might return an expired signature.
+     *
+     * @param index signature index of the key ring
+     * @param userId userid
+     * @param policy policy
+     * @param validationDate validation date
+     * @return user-id certification
+     */
+    public static PGPSignature pickLatestUserIdCertificationSignature(SignatureIndex index, String userId, Policy policy, Date validationDate) {
+        PGPPublicKey primaryKey = index.getKeyRing().getPublicKey();
+        ValidationBudget budget = index.getBudget();
+        return pickLatestUserIdCertificationSignature(index.getUserIdCertifications(userId, primaryKey),
+                budget, primaryKey, userId, policy, validationDate);
+    }
 
+    private static PGPSignature pickLatestUserIdCertificationSignature(List<PGPSignature> signatures, ValidationBudget budget, PGPPublicKey primaryKey, String userId, Policy policy, Date validationDate) {
         PGPSignature latestUserIdCert = null;
         for (PGPSignature signature : signatures) {
+            if (!budget.tryConsume(signature)) {
+                continue;
+            }
             try {
                 SignatureValidator.wasPossiblyMadeByKey(primaryKey).verify(signature);
                 SignatureValidator.signatureIsCertification().verify(signature);
@@ -261,14 +390,37 @@ public final class SignaturePicker {
      */
     public static PGPSignature pickCurrentSubkeyBindingRevocationSignature(PGPKeyRing keyRing, PGPPublicKey subkey, Policy policy, Date validationDate) {
         PGPPublicKey primaryKey = keyRing.getPublicKey();
+        return pickCurrentSubkeyBindingRevocationSignature(getSortedSignaturesOfType(subkey, SignatureType.SUBKEY_REVOCATION),
+                ValidationBudget.unlimited(), primaryKey, subkey, policy, validationDate);
+    }
+
+    /**
+     * Pick the at validationDate most recent, valid subkey revocation signature from the given {@link SignatureIndex}.
+     *
+     * @param index signature index of the key ring
+     * @param subkey subkey
+     * @param policy policy
+     * @param validationDate validation date
+     * @return subkey revocation signature
+     */
+    public static PGPSignature pickCurrentSubkeyBindingRevocationSignature(SignatureIndex index, PGPPublicKey subkey, Policy policy, Date validationDate) {
+        PGPPublicKey primaryKey = index.getKeyRing().getPublicKey();
+        ValidationBudget budget = index.getBudget();
+        return pickCurrentSubkeyBindingRevocationSignature(index.getKeySignatures(subkey, SignatureType.SUBKEY_REVOCATION),
+                budget, primaryKey, subkey, policy, validationDate);
+    }
+
+    private static PGPSignature pickCurrentSubkeyBindingRevocationSignature(List<PGPSignature> signatures, ValidationBudget budget, PGPPublicKey primaryKey, PGPPublicKey subkey, Policy policy, Date validationDate) {
         if (primaryKey.getKeyID() == subkey.getKeyID()) {
             throw new IllegalArgumentException("Primary key cannot have subkey binding revocations.");
         }
 
-        List<PGPSignature> signatures = getSortedSignaturesOfType(subkey, SignatureType.SUBKEY_REVOCATION);
         PGPSignature latestSubkeyRevocation = null;
 
         for (PGPSignature signature : signatures) {
+            if (!budget.tryConsume(signature)) {
+                continue;
+            }
             try {
                 SignatureVerifier.verifySubkeyBindingRevocation(signature, primaryKey, subkey, policy, validationDate);
             } catch (SignatureValidationException e) {
@@ -293,14 +445,38 @@ public final class SignaturePicker {
      */
     public static PGPSignature pickCurrentSubkeyBindingSignature(PGPKeyRing keyRing, PGPPublicKey subkey, Policy policy, Date validationDate) {
         PGPPublicKey primaryKey = keyRing.getPublicKey();
+        return pickCurrentSubkeyBindingSignature(getSortedSignaturesOfType(subkey, SignatureType.SUBKEY_BINDING),
+                ValidationBudget.unlimited(), primaryKey, subkey, policy, validationDate);
+    }
+
+    /**
+     * Pick the at validationDate latest, valid subkey binding signature for the given subkey from the given
+     * {@link SignatureIndex}.
+     *
+     * @param index signature index of the key ring
+     * @param subkey subkey
+     * @param policy policy
+     * @param validationDate date of validation
+     * @return most recent valid subkey binding signature
+     */
+    public static PGPSignature pickCurrentSubkeyBindingSignature(SignatureIndex index, PGPPublicKey subkey, Policy policy, Date validationDate) {
+        PGPPublicKey primaryKey = index.getKeyRing().getPublicKey();
+        ValidationBudget budget = index.getBudget();
+        return pickCurrentSubkeyBindingSignature(index.getKeySignatures(subkey, SignatureType.SUBKEY_BINDING),
+                budget, primaryKey, subkey, policy, validationDate);
+    }
+
+    private static PGPSignature pickCurrentSubkeyBindingSignature(List<PGPSignature> subkeyBindingSigs, ValidationBudget budget, PGPPublicKey primaryKey, PGPPublicKey subkey, Policy policy, Date validationDate) {
         if (primaryKey.getKeyID() == subkey.getKeyID()) {
             throw new IllegalArgumentException("Primary key cannot have subkey binding signature.");
         }
 
-        List<PGPSignature> subkeyBindingSigs = getSortedSignaturesOfType(subkey, SignatureType.SUBKEY_BINDING);
         PGPSignature mostCurrentValidSig = null;
 
         for (PGPSignature signature : subkeyBindingSigs) {
+            if (!budget.tryConsume(signature)) {
+                continue;
+            }
             try {
                 SignatureVerifier.verifySubkeyBindingSignature(signature, primaryKey, subkey, policy, validationDate);
             } catch (SignatureValidationException validationException) {
@@ -326,14 +502,39 @@ public final class SignaturePicker {
      */
     public static PGPSignature pickLatestSubkeyBindingSignature(PGPKeyRing keyRing, PGPPublicKey subkey, Policy policy, Date validationDate) {
         PGPPublicKey primaryKey = keyRing.getPublicKey();
+        return pickLatestSubkeyBindingSignature(getSortedSignaturesOfType(subkey, SignatureType.SUBKEY_BINDING),
+                ValidationBudget.unlimited(), primaryKey, subkey, policy, validationDate);
+    }
+
+    /**
+     * Pick the at validationDate latest subkey binding signature for the given subkey from the given
+     * {@link SignatureIndex}.
+     * This method might return an expired signature.
+     *
+     * @param index signature index of the key ring
+     * @param subkey subkey
+     * @param policy policy
+     * @param validationDate validationDate
+     * @return subkey binding signature
+     */
+    public static PGPSignature pickLatestSubkeyBindingSignature(SignatureIndex index, PGPPublicKey subkey, Policy policy, Date validationDate) {
+        PGPPublicKey primaryKey = index.getKeyRing().getPublicKey();
+        ValidationBudget budget = index.getBudget();
+        return pickLatestSubkeyBindingSignature(index.getKeySignatures(subkey, SignatureType.SUBKEY_BINDING),
+                budget, primaryKey, subkey, policy, validationDate);
+    }
+
+    private static PGPSignature pickLatestSubkeyBindingSignature(List<PGPSignature> signatures, ValidationBudget budget, PGPPublicKey primaryKey, PGPPublicKey subkey, Policy policy, Date validationDate) {
         if (primaryKey.getKeyID() == subkey.getKeyID()) {
             throw new IllegalArgumentException("Primary key cannot have subkey binding signature.");
         }
 
-        List<PGPSignature> signatures = getSortedSignaturesOfType(subkey, SignatureType.SUBKEY_BINDING);
         PGPSignature latestSubkeyBinding = null;
 
         for (PGPSignature signature : signatures) {
+            if (!budget.tryConsume(signature)) {
+                continue;
+            }
             try {
                 SignatureValidator.signatureIsOfType(SignatureType.SUBKEY_BINDING).verify(signature);
                 SignatureValidator.signatureStructureIsAcceptable(primaryKey, policy).verify(signature);
@@ -369,4 +570,18 @@ public final class SignaturePicker {
         Collections.sort(signatureList, new SignatureCreationDateComparator());
         return signatureList;
     }
+
+    /**
+     * Return a list of all signatures on the given user-id of the given key, sorted by ascending creation time.
+     *
+     * @param key key carrying the user-id
+     * @param userId user-id
+     * @return sorted list of signatures
+     */
+    private static List<PGPSignature> getSortedUserIdSignatures(PGPPublicKey key, String userId) {
+        Iterator<PGPSignature> userIdSigIterator = key.getSignaturesForID(userId);
+        List<PGPSignature> signatures = CollectionUtils.iteratorToList(userIdSigIterator);
+        Collections.sort(signatures, new SignatureCreationDateComparator());
+        return signatures;
+    }
 }
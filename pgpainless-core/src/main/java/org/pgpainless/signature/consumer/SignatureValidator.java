@@ -20,6 +20,7 @@ import org.bouncycastle.openpgp.PGPSignature;
 import org.bouncycastle.openpgp.PGPSignatureList;
 import org.bouncycastle.openpgp.PGPSignatureSubpacketVector;
 import org.bouncycastle.openpgp.PGPUserAttributeSubpacketVector;
+import org.pgpainless.PGPainless;
 import org.pgpainless.algorithm.HashAlgorithm;
 import org.pgpainless.algorithm.KeyFlag;
 import org.pgpainless.algorithm.PublicKeyAlgorithm;
@@ -92,17 +93,7 @@ public abstract class SignatureValidator {
         return new SignatureValidator() {
             @Override
             public void verify(PGPSignature signature) throws SignatureValidationException {
-                if (!PublicKeyAlgorithm.fromId(signature.getKeyAlgorithm()).isSigningCapable()) {
-                    // subkey is not signing capable -> No need to process embedded sigs
-                    return;
-                }
-
-                KeyFlags keyFlags = SignatureSubpacketsUtil.getKeyFlags(signature);
-                if (keyFlags == null) {
-                    return;
-                }
-                if (!KeyFlag.hasKeyFlag(keyFlags.getFlags(), KeyFlag.SIGN_DATA)
-                        && !KeyFlag.hasKeyFlag(keyFlags.getFlags(), KeyFlag.CERTIFY_OTHER)) {
+                if (!requiresPrimaryKeyBinding(signature)) {
                     return;
                 }
 
@@ -137,6 +128,27 @@ public abstract class SignatureValidator {
         };
     }
 
+    /**
+     * Return true if the given subkey binding signature binds a subkey which is capable of signing or certifying
+     * and therefore requires an embedded primary key binding signature.
+     *
+     * @param signature subkey binding signature
+     * @return true if a primary key binding signature is required
+     */
+    static boolean requiresPrimaryKeyBinding(PGPSignature signature) {
+        if (!PublicKeyAlgorithm.fromId(signature.getKeyAlgorithm()).isSigningCapable()) {
+            // subkey is not signing capable -> No need to process embedded sigs
+            return false;
+        }
+
+        KeyFlags keyFlags = SignatureSubpacketsUtil.getKeyFlags(signature);
+        if (keyFlags == null) {
+            return false;
+        }
+        return KeyFlag.hasKeyFlag(keyFlags.getFlags(), KeyFlag.SIGN_DATA)
+                || KeyFlag.hasKeyFlag(keyFlags.getFlags(), KeyFlag.CERTIFY_OTHER);
+    }
+
     /**
      * Verify that a signature has an acceptable structure.
      *
@@ -438,8 +450,14 @@ public abstract class SignatureValidator {
                     throw new SignatureValidationException("Primary key cannot be its own subkey.");
                 }
                 try {
-                    signature.init(ImplementationFactory.getInstance().getPGPContentVerifierBuilderProvider(), primaryKey);
-                    boolean valid = signature.verifyCertification(primaryKey, subkey);
+                    boolean valid = signatureCorrectnessCache().verifySignatureOverKey(signature, primaryKey, subkey,
+                            new SignatureCorrectnessCache.Verification() {
+                                @Override
+                                public boolean verify() throws PGPException {
+                                    signature.init(ImplementationFactory.getInstance().getPGPContentVerifierBuilderProvider(), primaryKey);
+                                    return signature.verifyCertification(primaryKey, subkey);
+                                }
+                            });
                     if (!valid) {
                         throw new SignatureValidationException("Signature is not correct.");
                     }
@@ -462,8 +480,14 @@ public abstract class SignatureValidator {
             @Override
             public void verify(PGPSignature signature) throws SignatureValidationException {
                 try {
-                    signature.init(ImplementationFactory.getInstance().getPGPContentVerifierBuilderProvider(), subkey);
-                    boolean valid = signature.verifyCertification(primaryKey, subkey);
+                    boolean valid = signatureCorrectnessCache().verifySignatureOverKey(signature, subkey, primaryKey,
+                            new SignatureCorrectnessCache.Verification() {
+                                @Override
+                                public boolean verify() throws PGPException {
+                                    signature.init(ImplementationFactory.getInstance().getPGPContentVerifierBuilderProvider(), subkey);
+                                    return signature.verifyCertification(primaryKey, subkey);
+                                }
+                            });
                     if (!valid) {
                         throw new SignatureValidationException("Primary Key Binding Signature is not correct.");
                     }
@@ -486,13 +510,17 @@ public abstract class SignatureValidator {
             @Override
             public void verify(PGPSignature signature) throws SignatureValidationException {
                 try {
-                    signature.init(ImplementationFactory.getInstance().getPGPContentVerifierBuilderProvider(), signer);
-                    boolean valid;
-                    if (signer.getKeyID() != signee.getKeyID()) {
-                        valid = signature.verifyCertification(signer, signee);
-                    } else {
-                        valid = signature.verifyCertification(signee);
-                    }
+                    boolean valid = signatureCorrectnessCache().verifySignatureOverKey(signature, signer, signee,
+                            new SignatureCorrectnessCache.Verification() {
+                                @Override
+                                public boolean verify() throws PGPException {
+                                    signature.init(ImplementationFactory.getInstance().getPGPContentVerifierBuilderProvider(), signer);
+                                    if (signer.getKeyID() != signee.getKeyID()) {
+                                        return signature.verifyCertification(signer, signee);
+                                    }
+                                    return signature.verifyCertification(signee);
+                                }
+                            });
                     if (!valid) {
                         throw new SignatureValidationException("Signature is not correct.");
                     }
@@ -554,8 +582,14 @@ public abstract class SignatureValidator {
             @Override
             public void verify(PGPSignature signature) throws SignatureValidationException {
                 try {
-                    signature.init(ImplementationFactory.getInstance().getPGPContentVerifierBuilderProvider(), certifyingKey);
-                    boolean valid = signature.verifyCertification(userId, certifiedKey);
+                    boolean valid = signatureCorrectnessCache().verifySignatureOverUserId(signature, certifyingKey, certifiedKey, userId,
+                            new SignatureCorrectnessCache.Verification() {
+                                @Override
+                                public boolean verify() throws PGPException {
+                                    signature.init(ImplementationFactory.getInstance().getPGPContentVerifierBuilderProvider(), certifyingKey);
+                                    return signature.verifyCertification(userId, certifiedKey);
+                                }
+                            });
                     if (!valid) {
                         throw new SignatureValidationException("Signature over user-id '" + userId + "' is not correct.");
                     }
@@ -579,8 +613,14 @@ public abstract class SignatureValidator {
             @Override
             public void verify(PGPSignature signature) throws SignatureValidationException {
                 try {
-                    signature.init(ImplementationFactory.getInstance().getPGPContentVerifierBuilderProvider(), certifyingKey);
-                    boolean valid = signature.verifyCertification(userAttributes, certifiedKey);
+                    boolean valid = signatureCorrectnessCache().verifySignatureOverUserAttributes(signature, certifyingKey, certifiedKey, userAttributes,
+                            new SignatureCorrectnessCache.Verification() {
+                                @Override
+                                public boolean verify() throws PGPException {
+                                    signature.init(ImplementationFactory.getInstance().getPGPContentVerifierBuilderProvider(), certifyingKey);
+                                    return signature.verifyCertification(userAttributes, certifiedKey);
+                                }
+                            });
                     if (!valid) {
                         throw new SignatureValidationException("Signature over user-attribute vector is not correct.");
                     }
@@ -591,6 +631,10 @@ public abstract class SignatureValidator {
         };
     }
 
+    private static SignatureCorrectnessCache signatureCorrectnessCache() {
+        return PGPainless.getPolicy().getSignatureCorrectnessCache();
+    }
+
     public static SignatureValidator signatureWasCreatedInBounds(Date notBefore, Date notAfter) {
         return new SignatureValidator() {
             @Override
@@ -0,0 +1,292 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.signature.consumer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+
+import org.bouncycastle.openpgp.PGPKeyRing;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPSignature;
+import org.bouncycastle.openpgp.PGPUserAttributeSubpacketVector;
+import org.pgpainless.algorithm.SignatureType;
+import org.pgpainless.exception.SignatureValidationException;
+import org.pgpainless.policy.Policy;
+
+/**
+ * Work budget of a single validation of a key ring or certificate.
+ *
+ * Flooded certificates (e.g. with tens of thousands of signatures) can cause validation to take a very long time,
+ * since each signature requires an expensive public-key operation.
+ * A budget limits the number of signatures which are considered per component (key, user-id or user-attribute)
+ * and the total number of signatures which are verified during a validation.
+ *
+ * Before a key ring is validated, the budget is allocated to the signatures of the key ring using
+ * {@link #allocate(PGPKeyRing)}. The budget is allocated in a fixed order: First the revocations of all components,
+ * then all other signatures whose issuer matches the primary key, then the remaining signatures.
+ * Signatures with a missing or fake issuer are charged as well, since bindings and revocations are verified against
+ * the primary key regardless of their issuer.
+ * Within a component, signatures whose issuer matches the primary key and newer signatures are preferred.
+ * Therefore, the outcome of a validation does not depend on the order in which components are evaluated.
+ *
+ * The budget fails closed: If a revocation of a component cannot be verified within the budget, none of the
+ * other signatures of the component are verified, so the component is not considered valid.
+ * If a revocation of the primary key cannot be verified, no component of the key ring is considered valid.
+ * Use {@link #isExhausted()} to find out whether the result of a validation is degraded.
+ *
+ * Instances are thread-safe.
+ */
+public final class ValidationBudget {
+
+    private final int maxSignaturesPerComponent;
+    private final int maxVerifications;
+
+    private PGPKeyRing keyRing = null;
+    // signatures which are allowed to be verified. null if the budget is unlimited.
+    private Map<PGPSignature, Boolean> allowed = null;
+    private final Map<PGPSignature, Boolean> verified = new IdentityHashMap<>();
+    private int skippedSignatures = 0;
+
+    /**
+     * Create a new budget.
+     *
+     * @param maxSignaturesPerComponent maximum number of revocations and of other signatures of a single component
+     *                                  which are verified
+     * @param maxVerifications maximum number of signatures which are verified
+     */
+    public ValidationBudget(int maxSignaturesPerComponent, int maxVerifications) {
+        if (maxSignaturesPerComponent < 1) {
+            throw new IllegalArgumentException("Maximum number of signatures per component must be positive.");
+        }
+        if (maxVerifications < 1) {
+            throw new IllegalArgumentException("Maximum number of verifications must be positive.");
+        }
+        this.maxSignaturesPerComponent = maxSignaturesPerComponent;
+        this.maxVerifications = maxVerifications;
+    }
+
+    /**
+     * Return a budget which does not limit the validation.
+     *
+     * @return unlimited budget
+     */
+    public static ValidationBudget unlimited() {
+        return new ValidationBudget(Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Return a new budget, as configured in the {@link Policy.ValidationBudgetPolicy} of the given policy.
+     *
+     * @param policy policy
+     * @return budget
+     */
+    public static ValidationBudget of(@Nonnull Policy policy) {
+        Policy.ValidationBudgetPolicy budgetPolicy = policy.getValidationBudgetPolicy();
+        return new ValidationBudget(budgetPolicy.getMaxSignaturesPerComponent(), budgetPolicy.getMaxVerifications());
+    }
+
+    /**
+     * Allocate the budget to the signatures of the given key ring.
+     * This must be done before signatures are verified using {@link #tryConsume(PGPSignature)}.
+     * Allocating the budget to the same key ring again has no effect.
+     *
+     * @param keyRing key ring which is validated using this budget
+     * @throws IllegalStateException if the budget was already allocated to another key ring
+     */
+    public synchronized void allocate(@Nonnull PGPKeyRing keyRing) {
+        if (this.keyRing != null) {
+            if (this.keyRing != keyRing) {
+                throw new IllegalStateException("Budget is already allocated to another key ring.");
+            }
+            return;
+        }
+        this.keyRing = keyRing;
+        if (isUnlimited()) {
+            return;
+        }
+
+        List<Component> components = components(keyRing);
+        allowed = new IdentityHashMap<>();
+        int remaining = maxVerifications;
+        for (Component component : components) {
+            int granted = grant(component.revocations, remaining);
+            remaining -= granted;
+            component.revocationsSkipped = granted < component.revocations.size();
+        }
+        boolean primaryKeyRevocationsSkipped = components.get(0).revocationsSkipped;
+        for (Component component : components) {
+            if (primaryKeyRevocationsSkipped || component.revocationsSkipped) {
+                // Fail closed. The component might be revoked, so it must not be considered valid
+                skippedSignatures += component.others.size() + component.foreign.size();
+                component.others.clear();
+                component.foreign.clear();
+                continue;
+            }
+            component.othersGranted = grant(component.others, remaining);
+            remaining -= component.othersGranted;
+        }
+        for (Component component : components) {
+            // Signatures with a missing or fake issuer share the per-component limit with the other signatures
+            remaining -= grant(component.foreign, Math.min(remaining, maxSignaturesPerComponent - component.othersGranted));
+        }
+    }
+
+    private int grant(List<PGPSignature> signatures, int remaining) {
+        int granted = Math.max(0, Math.min(signatures.size(), Math.min(maxSignaturesPerComponent, remaining)));
+        for (int i = 0; i < granted; i++) {
+            allowed.put(signatures.get(i), Boolean.TRUE);
+        }
+        skippedSignatures += signatures.size() - granted;
+        return granted;
+    }
+
+    /**
+     * Consume budget for the verification of a signature.
+     * If this method returns false, the signature must be skipped, since the budget does not allow its verification.
+     * Verifying the same signature again does not consume additional budget.
+     * An unlimited budget does not need to be allocated before signatures are verified.
+     *
+     * @param signature signature of the key ring this budget was allocated to
+     * @return true if the signature can be verified
+     * @throws IllegalStateException if the budget is limited and was not allocated to a key ring
+     */
+    public synchronized boolean tryConsume(@Nonnull PGPSignature signature) {
+        if (keyRing == null && !isUnlimited()) {
+            throw new IllegalStateException("Budget is not allocated to a key ring.");
+        }
+        if (allowed != null && !allowed.containsKey(signature)) {
+            return false;
+        }
+        verified.put(signature, Boolean.TRUE);
+        return true;
+    }
+
+    /**
+     * Return the number of distinct signatures which were verified using this budget.
+     *
+     * @return number of verifications
+     */
+    public synchronized int getConsumedVerifications() {
+        return verified.size();
+    }
+
+    /**
+     * Return the number of signatures which are skipped, either because a component carried too many signatures,
+     * because the budget was exhausted, or because a revocation of the component could not be verified.
+     *
+     * @return number of skipped signatures
+     */
+    public synchronized int getSkippedSignatures() {
+        return skippedSignatures;
+    }
+
+    /**
+     * Return true if any signatures are skipped, meaning the validation result might be degraded.
+     *
+     * @return true if the budget was exceeded
+     */
+    public synchronized boolean isExhausted() {
+        return skippedSignatures != 0;
+    }
+
+    private boolean isUnlimited() {
+        return maxSignaturesPerComponent == Integer.MAX_VALUE && maxVerifications == Integer.MAX_VALUE;
+    }
+
+    /**
+     * Return the components of the key ring in the order in which the budget is allocated.
+     * The primary key always comes first.
+     */
+    private static List<Component> components(PGPKeyRing keyRing) {
+        PGPPublicKey primaryKey = keyRing.getPublicKey();
+        List<Component> components = new ArrayList<>();
+
+        Component primary = new Component();
+        primary.add(primaryKey.getSignaturesOfType(SignatureType.KEY_REVOCATION.getCode()), primaryKey);
+        primary.add(primaryKey.getSignaturesOfType(SignatureType.DIRECT_KEY.getCode()), primaryKey);
+        components.add(primary.sorted());
+
+        Iterator<String> userIds = primaryKey.getUserIDs();
+        while (userIds.hasNext()) {
+            Component userId = new Component();
+            userId.add(primaryKey.getSignaturesForID(userIds.next()), primaryKey);
+            components.add(userId.sorted());
+        }
+
+        Iterator<PGPUserAttributeSubpacketVector> userAttributes = primaryKey.getUserAttributes();
+        while (userAttributes.hasNext()) {
+            Component userAttribute = new Component();
+            userAttribute.add(primaryKey.getSignaturesForUserAttribute(userAttributes.next()), primaryKey);
+            components.add(userAttribute.sorted());
+        }
+
+        Iterator<PGPPublicKey> subkeys = keyRing.getPublicKeys();
+        subkeys.next(); // skip primary key
+        while (subkeys.hasNext()) {
+            Component subkey = new Component();
+            subkey.add(subkeys.next().getSignatures(), primaryKey);
+            components.add(subkey.sorted());
+        }
+        return components;
+    }
+
+    /**
+     * Signatures of a single component.
+     */
+    private static final class Component {
+
+        private final List<PGPSignature> revocations = new ArrayList<>();
+        // revocations whose issuer does not match the primary key
+        private final List<PGPSignature> foreignRevocations = new ArrayList<>();
+        // other signatures whose issuer matches the primary key
+        private final List<PGPSignature> others = new ArrayList<>();
+        // other signatures with a missing or fake issuer, or made by third parties
+        private final List<PGPSignature> foreign = new ArrayList<>();
+        private boolean revocationsSkipped = false;
+        private int othersGranted = 0;
+
+        void add(Iterator<PGPSignature> signatures, PGPPublicKey primaryKey) {
+            SignatureValidator possiblyMadeByPrimaryKey = SignatureValidator.wasPossiblyMadeByKey(primaryKey);
+            while (signatures.hasNext()) {
+                PGPSignature signature = signatures.next();
+                boolean issuerMatches = true;
+                try {
+                    possiblyMadeByPrimaryKey.verify(signature);
+                } catch (SignatureValidationException e) {
+                    issuerMatches = false;
+                }
+                if (isRevocation(signature)) {
+                    (issuerMatches ? revocations : foreignRevocations).add(signature);
+                } else {
+                    (issuerMatches ? others : foreign).add(signature);
+                }
+            }
+        }
+
+        Component sorted() {
+            SignatureCreationDateComparator newToOld = new SignatureCreationDateComparator(
+                    SignatureCreationDateComparator.Order.NEW_TO_OLD);
+            Collections.sort(revocations, newToOld);
+            Collections.sort(foreignRevocations, newToOld);
+            Collections.sort(others, newToOld);
+            Collections.sort(foreign, newToOld);
+            revocations.addAll(foreignRevocations);
+            foreignRevocations.clear();
+            return this;
+        }
+
+        private static boolean isRevocation(PGPSignature signature) {
+            int type = signature.getSignatureType();
+            return type == SignatureType.KEY_REVOCATION.getCode()
+                    || type == SignatureType.SUBKEY_REVOCATION.getCode()
+                    || type == SignatureType.CERTIFICATION_REVOCATION.getCode();
+        }
+    }
+}
@@ -66,15 +66,62 @@ public final class ArmorUtils {
     }
 
     public static String toAsciiArmoredString(PGPSecretKeyRingCollection secretKeyRings) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        for (Iterator<PGPSecretKeyRing> iterator = secretKeyRings.iterator(); iterator.hasNext(); ) {
-            PGPSecretKeyRing secretKeyRing = iterator.next();
-            sb.append(toAsciiArmoredString(secretKeyRing));
-            if (iterator.hasNext()) {
-                sb.append('\n');
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeAsciiArmored(secretKeyRings, out);
+        return out.toString();
+    }
+
+    /**
+     * Write the given key ring as ASCII armored data to the output stream.
+     * The armor contains comment headers with the fingerprint and primary user-id of the key ring.
+     * The output stream is not closed.
+     *
+     * @param keyRing key ring
+     * @param outputStream output stream
+     * @throws IOException in case of an IO error
+     */
+    public static void writeAsciiArmored(PGPKeyRing keyRing, OutputStream outputStream) throws IOException {
+        ArmoredOutputStream armor = createArmoredOutputStreamFor(keyRing, outputStream);
+        keyRing.encode(armor);
+        armor.close();
+    }
+
+    /**
+     * Write all key rings of the given collection as separate ASCII armor blocks to the output stream,
+     * without first encoding them into a {@link String}.
+     * The output stream is not closed.
+     *
+     * @param secretKeyRings secret key rings
+     * @param outputStream output stream
+     * @throws IOException in case of an IO error
+     */
+    public static void writeAsciiArmored(PGPSecretKeyRingCollection secretKeyRings, OutputStream outputStream)
+            throws IOException {
+        writeAsciiArmored(secretKeyRings.iterator(), outputStream);
+    }
+
+    /**
+     * Write all certificates of the given collection as separate ASCII armor blocks to the output stream,
+     * without first encoding them into a {@link String}.
+     * The output stream is not closed.
+     *
+     * @param publicKeyRings certificates
+     * @param outputStream output stream
+     * @throws IOException in case of an IO error
+     */
+    public static void writeAsciiArmored(PGPPublicKeyRingCollection publicKeyRings, OutputStream outputStream)
+            throws IOException {
+        writeAsciiArmored(publicKeyRings.iterator(), outputStream);
+    }
+
+    private static void writeAsciiArmored(Iterator<? extends PGPKeyRing> keyRings, OutputStream outputStream)
+            throws IOException {
+        while (keyRings.hasNext()) {
+            writeAsciiArmored(keyRings.next(), outputStream);
+            if (keyRings.hasNext()) {
+                outputStream.write('\n');
             }
         }
-        return sb.toString();
     }
 
     public static ArmoredOutputStream toAsciiArmoredStream(PGPKeyRing keyRing, OutputStream outputStream) {
@@ -95,15 +142,9 @@ public final class ArmorUtils {
     }
 
     public static String toAsciiArmoredString(PGPPublicKeyRingCollection publicKeyRings) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        for (Iterator<PGPPublicKeyRing> iterator = publicKeyRings.iterator(); iterator.hasNext(); ) {
-            PGPPublicKeyRing publicKeyRing = iterator.next();
-            sb.append(toAsciiArmoredString(publicKeyRing));
-            if (iterator.hasNext()) {
-                sb.append('\n');
-            }
-        }
-        return sb.toString();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeAsciiArmored(publicKeyRings, out);
+        return out.toString();
     }
 
     private static MultiMap<String, String> keyToHeader(PGPPublicKey publicKey) {
@@ -235,13 +276,12 @@ public final class ArmorUtils {
      */
     public static InputStream getDecoderStream(InputStream inputStream) throws IOException {
         BufferedInputStream buf = new BufferedInputStream(inputStream, 512);
-        InputStream decoderStream = PGPUtilWrapper.getDecoderStream(buf);
+        // Armored input streams are wrapped with fix for #159
+        InputStream decoderStream = ArmoredInputStreamFactory.getDecoderStream(buf);
         // Data is not armored -> return
         if (decoderStream instanceof BufferedInputStream) {
             return decoderStream;
         }
-        // Wrap armored input stream with fix for #159
-        decoderStream = CRCingArmoredInputStreamWrapper.possiblyWrap(decoderStream);
 
         decoderStream = PGPUtil.getDecoderStream(decoderStream);
         return decoderStream;
@@ -4,6 +4,7 @@
 
 package org.pgpainless.util;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -15,15 +16,49 @@ public final class ArmoredInputStreamFactory {
 
     }
 
+    /**
+     * Return an {@link ArmoredInputStream} which decodes the given ASCII armored data.
+     * Armored data is decoded in bulk by a {@link BulkArmoredInputStream}, unless it uses the
+     * Cleartext Signature Framework, in which case a BC {@link ArmoredInputStream} is used.
+     * In both cases, CRC checksum errors cause an {@link IOException}.
+     *
+     * @param inputStream armored data
+     * @return armored input stream
+     * @throws IOException in case of an IO error or malformed armor headers
+     */
     public static ArmoredInputStream get(InputStream inputStream) throws IOException {
-        if (inputStream instanceof CRCingArmoredInputStreamWrapper) {
+        if (inputStream instanceof CRCingArmoredInputStreamWrapper || inputStream instanceof BulkArmoredInputStream) {
             return (ArmoredInputStream) inputStream;
         }
         if (inputStream instanceof ArmoredInputStream) {
             return new CRCingArmoredInputStreamWrapper((ArmoredInputStream) inputStream);
         }
 
-        ArmoredInputStream armorIn = new ArmoredInputStream(inputStream);
+        BufferedInputStream buf = new BufferedInputStream(inputStream, BulkArmoredInputStream.PEEK_LIMIT);
+        if (BulkArmoredInputStream.hasArmorHeader(buf)) {
+            return new BulkArmoredInputStream(buf);
+        }
+        ArmoredInputStream armorIn = new ArmoredInputStream(buf);
         return new CRCingArmoredInputStreamWrapper(armorIn);
     }
+
+    /**
+     * Return a stream which decodes the given data, if it is ASCII armored.
+     * If the data is not armored, the buffered stream itself is returned.
+     *
+     * Armored data is decoded in bulk by a {@link BulkArmoredInputStream}, unless it uses the
+     * Cleartext Signature Framework or lacks armor headers, in which case a BC {@link ArmoredInputStream}
+     * (wrapped by a {@link CRCingArmoredInputStreamWrapper}) is returned.
+     *
+     * @param buf buffered input stream
+     * @return decoder stream
+     * @throws IOException in case of an io error which is unrelated to base64 encoding
+     */
+    public static InputStream getDecoderStream(BufferedInputStream buf) throws IOException {
+        if (BulkArmoredInputStream.hasArmorHeader(buf)) {
+            return new BulkArmoredInputStream(buf);
+        }
+        InputStream decoderStream = PGPUtilWrapper.getDecoderStream(buf);
+        return CRCingArmoredInputStreamWrapper.possiblyWrap(decoderStream);
+    }
 }
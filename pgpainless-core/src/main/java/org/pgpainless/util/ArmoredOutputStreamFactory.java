@@ -24,12 +24,13 @@ public final class ArmoredOutputStreamFactory {
 
     /**
      * Wrap an {@link OutputStream} inside a preconfigured {@link ArmoredOutputStream}.
+     * The returned stream encodes data in bulk and does not close the inner stream when being closed.
      *
      * @param outputStream inner stream
      * @return armored output stream
      */
     public static ArmoredOutputStream get(OutputStream outputStream) {
-        ArmoredOutputStream armoredOutputStream = new ArmoredOutputStream(outputStream);
+        ArmoredOutputStream armoredOutputStream = new BulkArmoredOutputStream(outputStream);
         armoredOutputStream.setHeader(ArmorUtils.HEADER_VERSION, version);
         for (String comment : comment) {
             ArmorUtils.addCommentHeader(armoredOutputStream, comment);
@@ -0,0 +1,511 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.util;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.annotation.Nonnull;
+
+import org.bouncycastle.bcpg.ArmoredInputStream;
+
+/**
+ * {@link ArmoredInputStream} which decodes the base64 body of an ASCII armored block in bulk.
+ *
+ * Instead of decoding the armor one byte at a time, this stream reads the underlying stream in blocks
+ * and decodes them using a lookup table, four characters at a time. The CRC-24 checksum is calculated over
+ * whole blocks of decoded data using {@link CRC24}.
+ * A CRC mismatch is reported by throwing an {@link IOException} once all data preceding the checksum was read,
+ * which is the same behavior as BC's {@link ArmoredInputStream} (see #159).
+ * A missing checksum is tolerated.
+ *
+ * Like BC's {@link ArmoredInputStream}, this stream continues with the next armored block after the end of a block.
+ * {@link #read()} signals the end of a block by returning -1 once, while {@link #read(byte[], int, int)} only does so
+ * if the end of a block is reached before any data was read.
+ *
+ * This stream does not support the Cleartext Signature Framework, so it is only used via
+ * {@link ArmoredInputStreamFactory} for data that starts with an armor header line other than
+ * <pre>-----BEGIN PGP SIGNED MESSAGE-----</pre>.
+ * Since the underlying stream is read in blocks, data following the last armored block might be consumed.
+ */
+final class BulkArmoredInputStream extends ArmoredInputStream {
+
+    /**
+     * Maximum number of bytes that are inspected by {@link #hasArmorHeader(BufferedInputStream)}.
+     */
+    static final int PEEK_LIMIT = 1024;
+
+    private static final int BUFFER_SIZE = 1 << 13;
+    private static final String ARMOR_HEADER_LINE_PREFIX = "-----BEGIN PGP ";
+    private static final String CLEARTEXT_HEADER_LINE_PREFIX = "-----BEGIN PGP SIGNED MESSAGE";
+    private static final int MAX_LINE_LENGTH = 1 << 10;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    // base64 character -> 6-bit value, or -1
+    private static final byte[] DECODE = new byte[256];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        for (int i = 0; i < alphabet.length(); i++) {
+            DECODE[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    // Stream states
+    private static final int BODY = 0;
+    private static final int BLOCK_END = 1;
+    private static final int RESTART = 2;
+    private static final int EOF = 3;
+
+    // Line states while decoding the body
+    private static final int LINE_DATA = 0;
+    private static final int LINE_CRC = 1;
+    private static final int LINE_END = 2;
+
+    private final InputStream in;
+    private final byte[] raw = new byte[BUFFER_SIZE];
+    private int rawPos = 0;
+    private int rawLimit = 0;
+
+    private final byte[] out = new byte[BUFFER_SIZE / 4 * 3];
+    private int outPos = 0;
+    private int outLimit = 0;
+
+    private final CRC24 crc = new CRC24();
+    private int state = EOF;
+    private int lineState = LINE_DATA;
+    private boolean atLineStart = true;
+    private int quantum = 0;
+    private int quantumLength = 0;
+    private int checksum = 0;
+    private int checksumLength = 0;
+
+    private String armorHeaderLine = null;
+    private String[] armorHeaders = null;
+
+    /**
+     * Create a stream and parse the armor headers of the first armored block.
+     *
+     * @param in underlying stream
+     * @throws IOException if the armor headers are malformed
+     */
+    BulkArmoredInputStream(@Nonnull InputStream in) throws IOException {
+        super(in, false);
+        this.in = in;
+        if (parseHeaders()) {
+            state = BODY;
+        }
+    }
+
+    /**
+     * Return true, if the data in the given buffered stream starts with an armor header line
+     * (optionally preceded by some lines of text) which is not a cleartext signed message header.
+     * The stream is reset to its current position afterwards.
+     *
+     * @param buf buffered input stream
+     * @return true if the data can be decoded using a {@link BulkArmoredInputStream}
+     * @throws IOException in case of an IO error
+     */
+    static boolean hasArmorHeader(@Nonnull BufferedInputStream buf) throws IOException {
+        buf.mark(PEEK_LIMIT);
+        try {
+            int c = buf.read();
+            // Binary OpenPGP packets always have the highest bit of the first byte set
+            if (c == -1 || (c & 0x80) != 0) {
+                return false;
+            }
+            StringBuilder line = new StringBuilder();
+            int count = 1;
+            while (true) {
+                if (c == '\n' || c == -1) {
+                    String l = line.toString();
+                    if (l.startsWith(ARMOR_HEADER_LINE_PREFIX)) {
+                        return !l.startsWith(CLEARTEXT_HEADER_LINE_PREFIX);
+                    }
+                    if (c == -1) {
+                        return false;
+                    }
+                    line.setLength(0);
+                } else if (line.length() < CLEARTEXT_HEADER_LINE_PREFIX.length()) {
+                    line.append((char) c);
+                }
+                // Do not read beyond the mark limit
+                if (count++ == PEEK_LIMIT) {
+                    return false;
+                }
+                c = buf.read();
+            }
+        } finally {
+            buf.reset();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (outPos == outLimit && !fill()) {
+            return -1;
+        }
+        return out[outPos++] & 0xff;
+    }
+
+    @Override
+    public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        // Like BC's ArmoredInputStream, fill the whole buffer. The end of an armored block is only signalled
+        // if no data was read, otherwise consecutive blocks are read as one
+        int total = 0;
+        while (total < len) {
+            if (outPos == outLimit && !fill()) {
+                return total == 0 ? -1 : total;
+            }
+            int n = Math.min(len - total, outLimit - outPos);
+            System.arraycopy(out, outPos, b, off + total, n);
+            outPos += n;
+            total += n;
+        }
+        return total;
+    }
+
+    @Override
+    public int read(@Nonnull byte[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n) {
+            if (outPos == outLimit && !fill()) {
+                break;
+            }
+            int s = (int) Math.min(n - skipped, outLimit - outPos);
+            outPos += s;
+            skipped += s;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return outLimit - outPos;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        // not supported
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    @Override
+    public boolean isClearText() {
+        return false;
+    }
+
+    @Override
+    public boolean isEndOfStream() {
+        return state == EOF;
+    }
+
+    @Override
+    public String getArmorHeaderLine() {
+        return armorHeaderLine;
+    }
+
+    @Override
+    public String[] getArmorHeaders() {
+        return armorHeaders == null ? null : armorHeaders.clone();
+    }
+
+    /**
+     * Decode more data into the output buffer.
+     *
+     * @return false if the end of the current armored block or the end of the stream was reached
+     */
+    private boolean fill() throws IOException {
+        outPos = 0;
+        outLimit = 0;
+        while (true) {
+            switch (state) {
+                case BODY:
+                    decode();
+                    if (outLimit != 0) {
+                        return true;
+                    }
+                    break;
+                case BLOCK_END:
+                    // Signal the end of the block once, like BC's ArmoredInputStream
+                    state = RESTART;
+                    return false;
+                case RESTART:
+                    if (!parseHeaders()) {
+                        state = EOF;
+                        return false;
+                    }
+                    state = BODY;
+                    break;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    /**
+     * Decode base64 data from the raw buffer into the output buffer until the output buffer is full,
+     * the end of the block was reached, or no more data is available without blocking after some output was produced.
+     */
+    private void decode() throws IOException {
+        byte[] raw = this.raw;
+        byte[] out = this.out;
+        int outLimit = this.outLimit;
+        int maxOut = out.length - 3;
+
+        try {
+            while (state == BODY && outLimit <= maxOut) {
+                if (rawPos == rawLimit) {
+                    // Do not block on the underlying stream if there already is some output
+                    if (outLimit != 0 || !refill()) {
+                        if (outLimit == 0) {
+                            endOfStreamInBody();
+                        }
+                        break;
+                    }
+                }
+
+                if (lineState == LINE_DATA) {
+                    // Fast path: decode full quanta of four base64 characters
+                    int pos = rawPos;
+                    if (quantumLength == 0) {
+                        int end = rawLimit - 4;
+                        while (pos <= end && outLimit <= maxOut) {
+                            int v0 = DECODE[raw[pos] & 0xff];
+                            int v1 = DECODE[raw[pos + 1] & 0xff];
+                            int v2 = DECODE[raw[pos + 2] & 0xff];
+                            int v3 = DECODE[raw[pos + 3] & 0xff];
+                            if ((v0 | v1 | v2 | v3) < 0) {
+                                break;
+                            }
+                            int q = v0 << 18 | v1 << 12 | v2 << 6 | v3;
+                            out[outLimit++] = (byte) (q >> 16);
+                            out[outLimit++] = (byte) (q >> 8);
+                            out[outLimit++] = (byte) q;
+                            pos += 4;
+                            atLineStart = false;
+                        }
+                        rawPos = pos;
+                        if (pos == rawLimit || outLimit > maxOut) {
+                            continue;
+                        }
+                    }
+
+                    // Slow path: single character
+                    int c = raw[rawPos] & 0xff;
+                    int v = DECODE[c];
+                    if (v >= 0) {
+                        quantum = quantum << 6 | v;
+                        if (++quantumLength == 4) {
+                            out[outLimit++] = (byte) (quantum >> 16);
+                            out[outLimit++] = (byte) (quantum >> 8);
+                            out[outLimit++] = (byte) quantum;
+                            quantum = 0;
+                            quantumLength = 0;
+                        }
+                        atLineStart = false;
+                    } else if (c == '\n') {
+                        atLineStart = true;
+                    } else if (c == '\r' || c == ' ' || c == '\t') {
+                        // ignore whitespace
+                    } else if (c == '=') {
+                        if (atLineStart && quantumLength == 0) {
+                            if (outLimit != 0) {
+                                // Update the checksum with all preceding data before checking it
+                                break;
+                            }
+                            lineState = LINE_CRC;
+                            checksum = 0;
+                            checksumLength = 0;
+                        } else {
+                            outLimit = pad(out, outLimit);
+                        }
+                        atLineStart = false;
+                    } else if (c == '-' && atLineStart) {
+                        if (quantumLength != 0) {
+                            throw new IOException("invalid armor: incomplete base64 data");
+                        }
+                        lineState = LINE_END;
+                    } else {
+                        throw new IOException("invalid armor: unexpected character 0x" + Integer.toHexString(c));
+                    }
+                    rawPos++;
+                } else if (lineState == LINE_CRC) {
+                    int c = raw[rawPos++] & 0xff;
+                    if (c == '\n') {
+                        lineState = LINE_DATA;
+                        atLineStart = true;
+                        checkCrc();
+                    } else if (c != '\r' && c != ' ' && c != '\t') {
+                        int v = DECODE[c];
+                        if (v >= 0 && checksumLength < 4) {
+                            checksum = checksum << 6 | v;
+                            checksumLength++;
+                        } else {
+                            // Not a checksum, e.g. a line of padding characters
+                            checksumLength = 5;
+                        }
+                    }
+                } else {
+                    // LINE_END: skip the armor tail line
+                    int c = raw[rawPos++];
+                    if (c == '\n') {
+                        lineState = LINE_DATA;
+                        atLineStart = true;
+                        state = BLOCK_END;
+                    }
+                }
+            }
+        } finally {
+            crc.update(out, this.outLimit, outLimit - this.outLimit);
+            this.outLimit = outLimit;
+        }
+    }
+
+    private int pad(byte[] out, int outLimit) throws IOException {
+        switch (quantumLength) {
+            case 0:
+                // Second padding character
+                return outLimit;
+            case 2:
+                out[outLimit++] = (byte) (quantum >> 4);
+                break;
+            case 3:
+                out[outLimit++] = (byte) (quantum >> 10);
+                out[outLimit++] = (byte) (quantum >> 2);
+                break;
+            default:
+                throw new IOException("invalid armor: unexpected padding");
+        }
+        quantum = 0;
+        quantumLength = 0;
+        return outLimit;
+    }
+
+    private void endOfStreamInBody() throws IOException {
+        if (lineState == LINE_CRC) {
+            lineState = LINE_DATA;
+            checkCrc();
+        }
+        state = EOF;
+        if (quantumLength != 0) {
+            throw new IOException("invalid armor: incomplete base64 data");
+        }
+    }
+
+    private void checkCrc() throws IOException {
+        if (checksumLength != 4) {
+            return;
+        }
+        if (checksum != crc.getValue()) {
+            // Skip the rest of this block
+            state = BLOCK_END;
+            throw new IOException("crc check failed in armored message.");
+        }
+    }
+
+    private boolean refill() throws IOException {
+        int read = in.read(raw, 0, raw.length);
+        if (read <= 0) {
+            rawPos = 0;
+            rawLimit = 0;
+            return false;
+        }
+        rawPos = 0;
+        rawLimit = read;
+        return true;
+    }
+
+    /**
+     * Skip to the next armor header line and parse the armor headers.
+     *
+     * @return false if the end of the stream was reached before an armor header line
+     */
+    private boolean parseHeaders() throws IOException {
+        String line;
+        do {
+            line = readLine();
+            if (line == null) {
+                return false;
+            }
+        } while (!line.startsWith("-----BEGIN "));
+
+        armorHeaderLine = line;
+        List<String> headers = new ArrayList<>();
+        while ((line = readLine()) != null && !line.isEmpty()) {
+            if (line.indexOf(':') < 0) {
+                throw new IOException("invalid armor header");
+            }
+            headers.add(line);
+        }
+        armorHeaders = headers.isEmpty() ? null : headers.toArray(new String[0]);
+
+        crc.reset();
+        lineState = LINE_DATA;
+        atLineStart = true;
+        quantum = 0;
+        quantumLength = 0;
+        return true;
+    }
+
+    /**
+     * Read a UTF-8 encoded line from the raw buffer. Trailing whitespace is removed.
+     * Only the first {@link #MAX_LINE_LENGTH} bytes of a line are returned.
+     *
+     * @return line or null at the end of the stream
+     */
+    private String readLine() throws IOException {
+        byte[] line = new byte[MAX_LINE_LENGTH];
+        int length = 0;
+        boolean any = false;
+        while (true) {
+            if (rawPos == rawLimit && !refill()) {
+                return any ? trimEnd(line, length) : null;
+            }
+            any = true;
+            byte c = raw[rawPos++];
+            if (c == '\n') {
+                return trimEnd(line, length);
+            }
+            if (length < line.length) {
+                line[length++] = c;
+            }
+        }
+    }
+
+    private static String trimEnd(byte[] line, int length) {
+        while (length > 0 && (line[length - 1] & 0xff) <= ' ') {
+            length--;
+        }
+        return new String(line, 0, length, UTF8);
+    }
+}
@@ -0,0 +1,323 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bouncycastle.bcpg.ArmoredOutputStream;
+import org.bouncycastle.bcpg.PacketTags;
+import org.bouncycastle.util.Strings;
+
+/**
+ * {@link ArmoredOutputStream} which base64-encodes whole lines at once into a reusable output buffer
+ * and calculates the checksum using {@link CRC24}, instead of encoding and writing data byte by byte.
+ * The encoded data is passed on to the underlying stream at the end of each write operation.
+ *
+ * The produced armor is laid out like the one of BC's {@link ArmoredOutputStream}.
+ * Header values are encoded using UTF-8.
+ * Cleartext signed messages are passed on to the {@link ArmoredOutputStream} implementation
+ * until {@link #endClearText()} is called.
+ *
+ * Closing the stream finishes the current armor block, but does not close the underlying stream.
+ */
+final class BulkArmoredOutputStream extends ArmoredOutputStream {
+
+    static final int LINE_LENGTH = 64;
+    private static final int BUFFER_LINES = 128;
+    private static final byte[] ENCODE = Strings.toByteArray(
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/");
+
+    private final OutputStream out;
+    private final byte[] newLine = Strings.toByteArray(Strings.lineSeparator());
+    private final byte[] buffer = new byte[BUFFER_LINES * (LINE_LENGTH + newLine.length)];
+    private final byte[] single = new byte[1];
+    private final byte[] pending = new byte[3];
+    private final CRC24 crc = new CRC24();
+    private int bufferLength;
+    private int pendingLength;
+    private int lineLength;
+    private String type;
+    private boolean clearText;
+
+    // Not initialized in place, since the super constructor might already set headers
+    private Map<String, List<String>> headers;
+
+    BulkArmoredOutputStream(OutputStream out) {
+        super(out);
+        this.out = out;
+    }
+
+    private Map<String, List<String>> headers() {
+        if (headers == null) {
+            headers = new LinkedHashMap<>();
+        }
+        return headers;
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        super.setHeader(name, value);
+        if (value == null) {
+            headers().remove(name);
+            return;
+        }
+        List<String> values = new ArrayList<>();
+        values.add(value);
+        headers().put(name, values);
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        super.addHeader(name, value);
+        if (name == null || value == null) {
+            return;
+        }
+        List<String> values = headers().get(name);
+        if (values == null) {
+            values = new ArrayList<>();
+            headers().put(name, values);
+        }
+        values.add(value);
+    }
+
+    @Override
+    public void resetHeaders() {
+        super.resetHeaders();
+        List<String> version = headers().get(VERSION_HDR);
+        headers().clear();
+        if (version != null) {
+            headers().put(VERSION_HDR, version);
+        }
+    }
+
+    @Override
+    public void beginClearText(int hashAlgorithm) throws IOException {
+        flushBuffer();
+        clearText = true;
+        super.beginClearText(hashAlgorithm);
+    }
+
+    @Override
+    public void endClearText() {
+        super.endClearText();
+        clearText = false;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (clearText) {
+            super.write(b);
+            return;
+        }
+        single[0] = (byte) b;
+        write(single, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (clearText) {
+            super.write(b, off, len);
+            return;
+        }
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return;
+        }
+        if (type == null) {
+            beginArmor(b[off]);
+        }
+        crc.update(b, off, len);
+
+        // Complete a previously started quantum
+        while (pendingLength != 0 && len > 0) {
+            pending[pendingLength++] = b[off++];
+            len--;
+            if (pendingLength == 3) {
+                encode(pending, 0, 1);
+                pendingLength = 0;
+            }
+        }
+
+        while (len >= 3) {
+            int quanta = Math.min(len / 3, (LINE_LENGTH - lineLength) / 4);
+            if (quanta == 0) {
+                // Current line is full
+                encode(b, off, 0);
+                continue;
+            }
+            encode(b, off, quanta);
+            off += quanta * 3;
+            len -= quanta * 3;
+        }
+
+        System.arraycopy(b, off, pending, pendingLength, len);
+        pendingLength += len;
+
+        // Like BC, pass encoded data on right away, so that unclosed armor can already be read
+        flushBuffer();
+    }
+
+    /**
+     * Encode the given number of 3-byte quanta, which must fit into the current line.
+     * If the current line is full, a line break is inserted before the data.
+     */
+    private void encode(byte[] b, int off, int quanta) throws IOException {
+        if (lineLength == LINE_LENGTH) {
+            put(newLine, 0, newLine.length);
+            lineLength = 0;
+            if (quanta == 0) {
+                return;
+            }
+        }
+        ensureCapacity(quanta * 4);
+        byte[] buf = buffer;
+        int pos = bufferLength;
+        int end = off + quanta * 3;
+        for (int i = off; i < end; i += 3) {
+            int v = (b[i] & 0xff) << 16 | (b[i + 1] & 0xff) << 8 | (b[i + 2] & 0xff);
+            buf[pos] = ENCODE[v >>> 18];
+            buf[pos + 1] = ENCODE[(v >>> 12) & 0x3f];
+            buf[pos + 2] = ENCODE[(v >>> 6) & 0x3f];
+            buf[pos + 3] = ENCODE[v & 0x3f];
+            pos += 4;
+        }
+        bufferLength = pos;
+        lineLength += quanta * 4;
+    }
+
+    private void beginArmor(byte firstByte) throws IOException {
+        int tag;
+        if ((firstByte & 0x40) != 0) {
+            tag = firstByte & 0x3f;
+        } else {
+            tag = (firstByte & 0x3f) >> 2;
+        }
+        switch (tag) {
+            case PacketTags.PUBLIC_KEY:
+                type = "PUBLIC KEY BLOCK";
+                break;
+            case PacketTags.SECRET_KEY:
+                type = "PRIVATE KEY BLOCK";
+                break;
+            case PacketTags.SIGNATURE:
+                type = "SIGNATURE";
+                break;
+            default:
+                type = "MESSAGE";
+        }
+
+        putLine("-----BEGIN PGP " + type + "-----");
+        List<String> version = headers().get(VERSION_HDR);
+        if (version != null) {
+            putHeader(VERSION_HDR, version);
+        }
+        for (Map.Entry<String, List<String>> header : headers().entrySet()) {
+            if (!header.getKey().equals(VERSION_HDR)) {
+                putHeader(header.getKey(), header.getValue());
+            }
+        }
+        put(newLine, 0, newLine.length);
+        lineLength = 0;
+    }
+
+    private void putHeader(String name, List<String> values) throws IOException {
+        for (String value : values) {
+            putLine(name + ": " + value);
+        }
+    }
+
+    private void putLine(String line) throws IOException {
+        byte[] bytes = Strings.toUTF8ByteArray(line);
+        put(bytes, 0, bytes.length);
+        put(newLine, 0, newLine.length);
+    }
+
+    private void put(byte[] bytes, int off, int len) throws IOException {
+        if (len > buffer.length) {
+            flushBuffer();
+            out.write(bytes, off, len);
+            return;
+        }
+        ensureCapacity(len);
+        System.arraycopy(bytes, off, buffer, bufferLength, len);
+        bufferLength += len;
+    }
+
+    private void ensureCapacity(int len) throws IOException {
+        if (buffer.length - bufferLength < len) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (bufferLength != 0) {
+            out.write(buffer, 0, bufferLength);
+            bufferLength = 0;
+        }
+    }
+
+    /**
+     * Write out all completely encoded data and flush the underlying stream.
+     * Up to two bytes of data remain buffered, until they can be encoded together with following data.
+     *
+     * @throws IOException in case of an IO error
+     */
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (type == null) {
+            flush();
+            return;
+        }
+
+        if (pendingLength != 0) {
+            if (lineLength == LINE_LENGTH) {
+                put(newLine, 0, newLine.length);
+            }
+            encodePadded(pending, pendingLength);
+            pendingLength = 0;
+        }
+        put(newLine, 0, newLine.length);
+
+        int checksum = crc.getValue();
+        byte[] crcBytes = new byte[] {(byte) (checksum >> 16), (byte) (checksum >> 8), (byte) checksum};
+        ensureCapacity(5);
+        buffer[bufferLength++] = '=';
+        lineLength = 0;
+        encode(crcBytes, 0, 1);
+        put(newLine, 0, newLine.length);
+        putLine("-----END PGP " + type + "-----");
+        flush();
+
+        // Allow the stream to be reused for another armor block
+        type = null;
+        crc.reset();
+        lineLength = 0;
+    }
+
+    private void encodePadded(byte[] b, int len) throws IOException {
+        int v = (b[0] & 0xff) << 16;
+        if (len == 2) {
+            v |= (b[1] & 0xff) << 8;
+        }
+        ensureCapacity(4);
+        buffer[bufferLength++] = ENCODE[v >>> 18];
+        buffer[bufferLength++] = ENCODE[(v >>> 12) & 0x3f];
+        buffer[bufferLength++] = len == 2 ? ENCODE[(v >>> 6) & 0x3f] : (byte) '=';
+        buffer[bufferLength++] = '=';
+    }
+}
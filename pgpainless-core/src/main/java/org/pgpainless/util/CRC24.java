@@ -0,0 +1,98 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.util;
+
+/**
+ * CRC-24 checksum as used by the OpenPGP ASCII armor.
+ *
+ * Bulk updates process six bytes per step using the slicing-by-6 technique,
+ * which removes most of the data dependencies of the byte-wise table driven algorithm.
+ *
+ * @see <a href="https://datatracker.ietf.org/doc/html/rfc4880#section-6.1">RFC4880 §6.1. An Implementation of the CRC-24 in "C"</a>
+ */
+public final class CRC24 {
+
+    public static final int INIT = 0xB704CE;
+    public static final int POLYNOMIAL = 0x1864CFB;
+
+    private static final int MASK = 0xFFFFFF;
+
+    // T0 is the byte-wise table, Tk[i] is the register after feeding byte i followed by k zero bytes
+    private static final int[] T0 = new int[256];
+    private static final int[] T1 = new int[256];
+    private static final int[] T2 = new int[256];
+    private static final int[] T3 = new int[256];
+    private static final int[] T4 = new int[256];
+    private static final int[] T5 = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i << 16;
+            for (int j = 0; j < 8; j++) {
+                crc <<= 1;
+                if ((crc & 0x1000000) != 0) {
+                    crc ^= POLYNOMIAL;
+                }
+            }
+            T0[i] = crc & MASK;
+        }
+        int[][] tables = new int[][] {T0, T1, T2, T3, T4, T5};
+        for (int k = 1; k < tables.length; k++) {
+            for (int i = 0; i < 256; i++) {
+                int previous = tables[k - 1][i];
+                tables[k][i] = ((previous << 8) & MASK) ^ T0[(previous >>> 16) & 0xff];
+            }
+        }
+    }
+
+    private int crc = INIT;
+
+    /**
+     * Update the checksum with a single byte.
+     *
+     * @param b byte
+     */
+    public void update(int b) {
+        crc = ((crc << 8) & MASK) ^ T0[((crc >>> 16) ^ b) & 0xff];
+    }
+
+    /**
+     * Update the checksum with the given data.
+     *
+     * @param bytes data
+     * @param offset offset
+     * @param length length
+     */
+    public void update(byte[] bytes, int offset, int length) {
+        int c = crc;
+        int end = offset + length;
+        while (end - offset >= 6) {
+            int x = c ^ ((bytes[offset] & 0xff) << 16 | (bytes[offset + 1] & 0xff) << 8 | (bytes[offset + 2] & 0xff));
+            c = T5[(x >>> 16) & 0xff] ^ T4[(x >>> 8) & 0xff] ^ T3[x & 0xff]
+                    ^ T2[bytes[offset + 3] & 0xff] ^ T1[bytes[offset + 4] & 0xff] ^ T0[bytes[offset + 5] & 0xff];
+            offset += 6;
+        }
+        while (offset < end) {
+            c = ((c << 8) & MASK) ^ T0[((c >>> 16) ^ bytes[offset++]) & 0xff];
+        }
+        crc = c;
+    }
+
+    /**
+     * Return the 24-bit checksum value.
+     *
+     * @return checksum
+     */
+    public int getValue() {
+        return crc;
+    }
+
+    /**
+     * Reset the checksum to its initial value.
+     */
+    public void reset() {
+        crc = INIT;
+    }
+}
@@ -28,7 +28,7 @@ public class CRCingArmoredInputStreamWrapper extends ArmoredInputStream {
     }
 
     public static InputStream possiblyWrap(InputStream inputStream) throws IOException {
-        if (inputStream instanceof CRCingArmoredInputStreamWrapper) {
+        if (inputStream instanceof CRCingArmoredInputStreamWrapper || inputStream instanceof BulkArmoredInputStream) {
             return inputStream;
         }
 
@@ -0,0 +1,144 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.util;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Hash map with primitive long keys, using open addressing with linear probing.
+ * Compared to a {@link java.util.HashMap HashMap&lt;Long, V&gt;}, this map does not box its keys and does not
+ * allocate an entry object per mapping, which makes it suitable for large indices (e.g. by key-id).
+ *
+ * This map does not permit null values. It is not thread-safe, but can safely be shared between threads
+ * once it is no longer modified.
+ *
+ * @param <V> value type
+ */
+public final class LongObjectMap<V> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int size = 0;
+
+    public LongObjectMap() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * Create a map which can hold the given number of mappings without resizing.
+     *
+     * @param expectedSize expected number of mappings
+     */
+    public LongObjectMap(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("Expected size cannot be negative.");
+        }
+        int capacity = MIN_CAPACITY;
+        // Keep the load factor at or below 0.5
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+    }
+
+    /**
+     * Return the value mapped to the given key, or null if there is no such mapping.
+     *
+     * @param key key
+     * @return value or null
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable V get(long key) {
+        int mask = keys.length - 1;
+        int index = indexOf(key, mask);
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                return (V) values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Return true, if the map contains a mapping for the given key.
+     *
+     * @param key key
+     * @return true if the key is mapped
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Map the given key to the given value.
+     *
+     * @param key key
+     * @param value non-null value
+     * @return the previous value mapped to the key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public @Nullable V put(long key, @Nonnull V value) {
+        if (value == null) {
+            throw new NullPointerException("Value cannot be null.");
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+
+        int mask = keys.length - 1;
+        int index = indexOf(key, mask);
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                V previous = (V) values[index];
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] == null) {
+                continue;
+            }
+            int index = indexOf(oldKeys[i], mask);
+            while (values[index] != null) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = oldKeys[i];
+            values[index] = oldValues[i];
+        }
+    }
+
+    private static int indexOf(long key, int mask) {
+        // Fibonacci hashing spreads sequential and clustered key-ids evenly
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,177 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import javax.annotation.Nonnull;
+
+/**
+ * {@link InputStream} which reads a file through memory-mapped regions of its {@link FileChannel}.
+ *
+ * Instead of copying the file content into a user-space buffer with one system call per buffer fill,
+ * the file is mapped into memory region by region and the data is copied directly out of the page cache.
+ * Only one region is mapped at a time, so files larger than the address space (e.g. on 32-bit platforms)
+ * can be read as well.
+ *
+ * This stream supports {@link #mark(int)} and {@link #reset()} without any additional buffering.
+ * Note that mapped regions are released by the garbage collector, not by {@link #close()}.
+ */
+public final class MappedFileInputStream extends InputStream {
+
+    public static final int DEFAULT_REGION_SIZE = 1 << 26;
+
+    private final FileInputStream fileInputStream;
+    private final FileChannel channel;
+    private final long size;
+    private final int regionSize;
+
+    private MappedByteBuffer region = null;
+    private long regionStart = 0;
+    private long mark = 0;
+    private boolean closed = false;
+
+    /**
+     * Open the given file with the default region size.
+     *
+     * @param file file
+     * @throws IOException if the file cannot be opened
+     */
+    public MappedFileInputStream(@Nonnull File file) throws IOException {
+        this(file, DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * Open the given file.
+     *
+     * @param file file
+     * @param regionSize maximum number of bytes that are mapped at a time
+     * @throws IOException if the file cannot be opened
+     */
+    public MappedFileInputStream(@Nonnull File file, int regionSize) throws IOException {
+        if (regionSize <= 0) {
+            throw new IllegalArgumentException("Region size must be positive.");
+        }
+        this.fileInputStream = new FileInputStream(file);
+        this.channel = fileInputStream.getChannel();
+        this.size = channel.size();
+        this.regionSize = regionSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureRegion()) {
+            return -1;
+        }
+        return region.get() & 0xff;
+    }
+
+    @Override
+    public int read(@Nonnull byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || len > b.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureRegion()) {
+            return -1;
+        }
+        int n = Math.min(len, region.remaining());
+        region.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        throwIfClosed();
+        if (n <= 0) {
+            return 0;
+        }
+        long position = position();
+        long skipped = Math.min(n, size - position);
+        seek(position + skipped);
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        throwIfClosed();
+        return (int) Math.min(Integer.MAX_VALUE, size - position());
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        mark = position();
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throwIfClosed();
+        seek(mark);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        region = null;
+        fileInputStream.close();
+    }
+
+    /**
+     * Return the size of the file in bytes.
+     *
+     * @return size
+     */
+    public long size() {
+        return size;
+    }
+
+    private long position() {
+        return region == null ? regionStart : regionStart + region.position();
+    }
+
+    private void seek(long position) {
+        if (region != null && position >= regionStart && position <= regionStart + region.limit()) {
+            region.position((int) (position - regionStart));
+            return;
+        }
+        region = null;
+        regionStart = position;
+    }
+
+    private boolean ensureRegion() throws IOException {
+        throwIfClosed();
+        if (region != null && region.hasRemaining()) {
+            return true;
+        }
+        long start = position();
+        if (start >= size) {
+            return false;
+        }
+        long length = Math.min(regionSize, size - start);
+        region = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        regionStart = start;
+        return true;
+    }
+
+    private void throwIfClosed() throws IOException {
+        if (closed) {
+            throw new IOException("Stream is closed.");
+        }
+    }
+}
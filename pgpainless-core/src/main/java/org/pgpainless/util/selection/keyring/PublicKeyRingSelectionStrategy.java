@@ -25,6 +25,23 @@ public abstract class PublicKeyRingSelectionStrategy<O> implements KeyRingSelect
         return accepted;
     }
 
+    /**
+     * Select all key rings from the given index which are accepted for the given identifier.
+     * Strategies which select key rings by user-id or key-id override this method in order to look up
+     * the key rings in the index, instead of evaluating {@link #accept(Object, Object)} for every key ring.
+     *
+     * @param identifier identifier
+     * @param index index of key rings
+     * @return accepted key rings
+     */
+    public Set<PGPPublicKeyRing> selectKeyRingsFromIndex(@Nonnull O identifier, @Nonnull UserIdIndex<PGPPublicKeyRing> index) {
+        Set<PGPPublicKeyRing> accepted = new HashSet<>();
+        for (PGPPublicKeyRing ring : index.getKeyRings()) {
+            if (accept(identifier, ring)) accepted.add(ring);
+        }
+        return accepted;
+    }
+
     @Override
     public MultiMap<O, PGPPublicKeyRing> selectKeyRingsFromCollections(@Nonnull MultiMap<O, PGPPublicKeyRingCollection> keyRingCollections) {
         MultiMap<O, PGPPublicKeyRing> keyRings = new MultiMap<>();
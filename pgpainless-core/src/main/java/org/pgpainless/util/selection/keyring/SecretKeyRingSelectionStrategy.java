@@ -24,6 +24,23 @@ public abstract class SecretKeyRingSelectionStrategy<O> implements KeyRingSelect
         return accepted;
     }
 
+    /**
+     * Select all key rings from the given index which are accepted for the given identifier.
+     * Strategies which select key rings by user-id or key-id override this method in order to look up
+     * the key rings in the index, instead of evaluating {@link #accept(Object, Object)} for every key ring.
+     *
+     * @param identifier identifier
+     * @param index index of key rings
+     * @return accepted key rings
+     */
+    public Set<PGPSecretKeyRing> selectKeyRingsFromIndex(@Nonnull O identifier, @Nonnull UserIdIndex<PGPSecretKeyRing> index) {
+        Set<PGPSecretKeyRing> accepted = new HashSet<>();
+        for (PGPSecretKeyRing ring : index.getKeyRings()) {
+            if (accept(identifier, ring)) accepted.add(ring);
+        }
+        return accepted;
+    }
+
     @Override
     public MultiMap<O, PGPSecretKeyRing> selectKeyRingsFromCollections(@Nonnull MultiMap<O, PGPSecretKeyRingCollection> keyRingCollections) {
         MultiMap<O, PGPSecretKeyRing> keyRings = new MultiMap<>();
@@ -0,0 +1,237 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.util.selection.keyring;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+import org.bouncycastle.openpgp.PGPKeyRing;
+import org.pgpainless.key.OpenPgpFingerprint;
+import org.pgpainless.key.util.UserId;
+import org.pgpainless.util.MultiMap;
+
+/**
+ * Inverted index of key rings by the user-ids, e-mail addresses and e-mail domains of their primary keys.
+ *
+ * Looking up the key rings of a recipient is a constant time operation, as opposed to iterating over all
+ * key rings and their user-ids. E-mail addresses are extracted using {@link UserId#extractNormalizedEmail(CharSequence)},
+ * so lookups by e-mail address and domain are case-insensitive, while lookups by user-id are exact.
+ * Like the {@link KeyRingSelectionStrategy KeyRingSelectionStrategies}, the index considers all user-ids
+ * on the primary key, regardless of whether they are validly bound.
+ *
+ * Key rings can be added and removed incrementally. Key rings are identified by their primary key fingerprint,
+ * so adding an updated version of a key ring replaces the previous version.
+ * The index is thread-safe. Lookups return snapshots, which are not affected by later modifications.
+ *
+ * @param <R> type of key ring
+ */
+public final class UserIdIndex<R extends PGPKeyRing> {
+
+    private final Map<OpenPgpFingerprint, R> keyRings = new LinkedHashMap<>();
+    private final MultiMap<Long, R> byKeyId = new MultiMap<>();
+    private final MultiMap<String, R> byUserId = new MultiMap<>();
+    private final MultiMap<String, R> byEmail = new MultiMap<>();
+    private final MultiMap<String, R> byDomain = new MultiMap<>();
+
+    /**
+     * Create an empty index.
+     */
+    public UserIdIndex() {
+
+    }
+
+    /**
+     * Create an index of the given key rings.
+     * This method can be used to index a {@link org.bouncycastle.openpgp.PGPPublicKeyRingCollection}
+     * or a {@link org.bouncycastle.openpgp.PGPSecretKeyRingCollection}.
+     *
+     * @param keyRings key rings
+     * @param <R> type of key ring
+     * @return index
+     */
+    public static <R extends PGPKeyRing> UserIdIndex<R> of(@Nonnull Iterable<R> keyRings) {
+        UserIdIndex<R> index = new UserIdIndex<>();
+        for (R keyRing : keyRings) {
+            index.add(keyRing);
+        }
+        return index;
+    }
+
+    /**
+     * Add a key ring to the index.
+     * If the index already contains a key ring with the same primary key, it is replaced.
+     *
+     * @param keyRing key ring
+     */
+    public synchronized void add(@Nonnull R keyRing) {
+        OpenPgpFingerprint fingerprint = OpenPgpFingerprint.of(keyRing);
+        R previous = keyRings.remove(fingerprint);
+        if (previous != null) {
+            unindex(previous);
+        }
+        keyRings.put(fingerprint, keyRing);
+
+        byKeyId.put(keyRing.getPublicKey().getKeyID(), keyRing);
+        Iterator<String> userIds = keyRing.getPublicKey().getUserIDs();
+        while (userIds.hasNext()) {
+            String userId = userIds.next();
+            byUserId.put(userId, keyRing);
+            String email = UserId.extractNormalizedEmail(userId);
+            if (email != null) {
+                byEmail.put(email, keyRing);
+                byDomain.put(domainOf(email), keyRing);
+            }
+        }
+    }
+
+    /**
+     * Remove the key ring with the same primary key as the given key ring from the index.
+     *
+     * @param keyRing key ring
+     * @return true if the index contained such a key ring
+     */
+    public boolean remove(@Nonnull R keyRing) {
+        return remove(OpenPgpFingerprint.of(keyRing));
+    }
+
+    /**
+     * Remove the key ring with the given primary key fingerprint from the index.
+     *
+     * @param fingerprint primary key fingerprint
+     * @return true if the index contained such a key ring
+     */
+    public synchronized boolean remove(@Nonnull OpenPgpFingerprint fingerprint) {
+        R keyRing = keyRings.remove(fingerprint);
+        if (keyRing == null) {
+            return false;
+        }
+        unindex(keyRing);
+        return true;
+    }
+
+    private void unindex(R keyRing) {
+        remove(byKeyId, keyRing.getPublicKey().getKeyID(), keyRing);
+        Iterator<String> userIds = keyRing.getPublicKey().getUserIDs();
+        while (userIds.hasNext()) {
+            String userId = userIds.next();
+            remove(byUserId, userId, keyRing);
+            String email = UserId.extractNormalizedEmail(userId);
+            if (email != null) {
+                remove(byEmail, email, keyRing);
+                remove(byDomain, domainOf(email), keyRing);
+            }
+        }
+    }
+
+    private static <K, V> void remove(MultiMap<K, V> multiMap, K key, V value) {
+        multiMap.remove(key, value);
+        Set<V> values = multiMap.get(key);
+        if (values != null && values.isEmpty()) {
+            multiMap.removeAll(key);
+        }
+    }
+
+    /**
+     * Return the key ring with the given primary key fingerprint, or null if no such key ring is indexed.
+     *
+     * @param fingerprint primary key fingerprint
+     * @return key ring or null
+     */
+    public synchronized @Nullable R get(@Nonnull OpenPgpFingerprint fingerprint) {
+        return keyRings.get(fingerprint);
+    }
+
+    /**
+     * Return all key rings whose primary key has the given key-id.
+     *
+     * @param primaryKeyId key-id of the primary key
+     * @return key rings
+     */
+    public synchronized @Nonnull Set<R> getByPrimaryKeyId(long primaryKeyId) {
+        return snapshot(byKeyId.get(primaryKeyId));
+    }
+
+    /**
+     * Return all key rings which carry exactly the given user-id.
+     *
+     * @param userId user-id
+     * @return key rings
+     */
+    public synchronized @Nonnull Set<R> getByUserId(@Nonnull String userId) {
+        return snapshot(byUserId.get(userId));
+    }
+
+    /**
+     * Return all key rings which carry a user-id with the given e-mail address.
+     * The e-mail address is compared case-insensitively. It can also be passed in the form of a user-id,
+     * e.g. "Alice &lt;alice@pgpainless.org&gt;".
+     *
+     * @param email e-mail address
+     * @return key rings
+     */
+    public @Nonnull Set<R> getByEmail(@Nonnull String email) {
+        String normalized = UserId.extractNormalizedEmail(email);
+        if (normalized == null) {
+            return Collections.emptySet();
+        }
+        synchronized (this) {
+            return snapshot(byEmail.get(normalized));
+        }
+    }
+
+    /**
+     * Return all key rings which carry a user-id with an e-mail address of the given domain.
+     * The domain is compared case-insensitively.
+     *
+     * @param domain domain, e.g. "pgpainless.org"
+     * @return key rings
+     */
+    public @Nonnull Set<R> getByDomain(@Nonnull String domain) {
+        String normalized = domain.trim().toLowerCase(Locale.ROOT);
+        if (normalized.startsWith("@")) {
+            normalized = normalized.substring(1);
+        }
+        synchronized (this) {
+            return snapshot(byDomain.get(normalized));
+        }
+    }
+
+    /**
+     * Return all indexed key rings in the order they were added.
+     *
+     * @return key rings
+     */
+    public synchronized @Nonnull List<R> getKeyRings() {
+        return new ArrayList<>(keyRings.values());
+    }
+
+    public synchronized int size() {
+        return keyRings.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return keyRings.isEmpty();
+    }
+
+    private static String domainOf(String email) {
+        return email.substring(email.lastIndexOf('@') + 1);
+    }
+
+    private static <R> Set<R> snapshot(@Nullable Set<R> keyRings) {
+        if (keyRings == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(new LinkedHashSet<>(keyRings));
+    }
+}
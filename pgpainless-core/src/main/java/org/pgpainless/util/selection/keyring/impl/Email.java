@@ -0,0 +1,66 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.util.selection.keyring.impl;
+
+import java.util.Iterator;
+import java.util.Set;
+import javax.annotation.Nonnull;
+
+import org.bouncycastle.openpgp.PGPKeyRing;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.pgpainless.key.util.UserId;
+import org.pgpainless.util.selection.keyring.PublicKeyRingSelectionStrategy;
+import org.pgpainless.util.selection.keyring.SecretKeyRingSelectionStrategy;
+import org.pgpainless.util.selection.keyring.UserIdIndex;
+
+/**
+ * Select key rings which carry a user-id with the given e-mail address.
+ * E-mail addresses are compared case-insensitively.
+ */
+public final class Email {
+
+    private Email() {
+
+    }
+
+    private static boolean containsEmail(String email, PGPKeyRing keyRing) {
+        String normalized = UserId.extractNormalizedEmail(email);
+        if (normalized == null) {
+            return false;
+        }
+        Iterator<String> userIds = keyRing.getPublicKey().getUserIDs();
+        while (userIds.hasNext()) {
+            if (normalized.equals(UserId.extractNormalizedEmail(userIds.next()))) return true;
+        }
+        return false;
+    }
+
+    public static class PubRingSelectionStrategy extends PublicKeyRingSelectionStrategy<String> {
+
+        @Override
+        public boolean accept(String email, PGPPublicKeyRing keyRing) {
+            return containsEmail(email, keyRing);
+        }
+
+        @Override
+        public Set<PGPPublicKeyRing> selectKeyRingsFromIndex(@Nonnull String email, @Nonnull UserIdIndex<PGPPublicKeyRing> index) {
+            return index.getByEmail(email);
+        }
+    }
+
+    public static class SecRingSelectionStrategy extends SecretKeyRingSelectionStrategy<String> {
+
+        @Override
+        public boolean accept(String email, PGPSecretKeyRing keyRing) {
+            return containsEmail(email, keyRing);
+        }
+
+        @Override
+        public Set<PGPSecretKeyRing> selectKeyRingsFromIndex(@Nonnull String email, @Nonnull UserIdIndex<PGPSecretKeyRing> index) {
+            return index.getByEmail(email);
+        }
+    }
+}
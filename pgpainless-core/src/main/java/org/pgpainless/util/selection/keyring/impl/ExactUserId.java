@@ -5,11 +5,14 @@
 package org.pgpainless.util.selection.keyring.impl;
 
 import java.util.Iterator;
+import java.util.Set;
+import javax.annotation.Nonnull;
 
 import org.bouncycastle.openpgp.PGPPublicKeyRing;
 import org.bouncycastle.openpgp.PGPSecretKeyRing;
 import org.pgpainless.util.selection.keyring.PublicKeyRingSelectionStrategy;
 import org.pgpainless.util.selection.keyring.SecretKeyRingSelectionStrategy;
+import org.pgpainless.util.selection.keyring.UserIdIndex;
 
 public final class ExactUserId {
 
@@ -27,6 +30,11 @@ public final class ExactUserId {
             }
             return false;
         }
+
+        @Override
+        public Set<PGPPublicKeyRing> selectKeyRingsFromIndex(@Nonnull String identifier, @Nonnull UserIdIndex<PGPPublicKeyRing> index) {
+            return index.getByUserId(identifier);
+        }
     }
 
     public static class SecRingSelectionStrategy extends SecretKeyRingSelectionStrategy<String> {
@@ -39,5 +47,10 @@ public final class ExactUserId {
             }
             return false;
         }
+
+        @Override
+        public Set<PGPSecretKeyRing> selectKeyRingsFromIndex(@Nonnull String identifier, @Nonnull UserIdIndex<PGPSecretKeyRing> index) {
+            return index.getByUserId(identifier);
+        }
     }
 }
@@ -4,13 +4,17 @@
 
 package org.pgpainless.util.selection.keyring.impl;
 
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.Nonnull;
 
+import org.bouncycastle.openpgp.PGPKeyRing;
 import org.bouncycastle.openpgp.PGPPublicKeyRing;
 import org.bouncycastle.openpgp.PGPSecretKeyRing;
 import org.pgpainless.util.selection.keyring.PublicKeyRingSelectionStrategy;
 import org.pgpainless.util.selection.keyring.SecretKeyRingSelectionStrategy;
+import org.pgpainless.util.selection.keyring.UserIdIndex;
 import org.pgpainless.util.MultiMap;
 
 public final class Whitelist {
@@ -19,6 +23,17 @@ public final class Whitelist {
 
     }
 
+    private static <R extends PGPKeyRing> Set<R> selectWhitelisted(Set<Long> whitelistedKeyIds, UserIdIndex<R> index) {
+        Set<R> accepted = new HashSet<>();
+        if (whitelistedKeyIds == null) {
+            return accepted;
+        }
+        for (long keyId : whitelistedKeyIds) {
+            accepted.addAll(index.getByPrimaryKeyId(keyId));
+        }
+        return accepted;
+    }
+
     public static class PubRingSelectionStrategy<O> extends PublicKeyRingSelectionStrategy<O> {
 
         private final MultiMap<O, Long> whitelist;
@@ -41,6 +56,11 @@ public final class Whitelist {
 
             return whitelistedKeyIds.contains(keyRing.getPublicKey().getKeyID());
         }
+
+        @Override
+        public Set<PGPPublicKeyRing> selectKeyRingsFromIndex(@Nonnull O identifier, @Nonnull UserIdIndex<PGPPublicKeyRing> index) {
+            return selectWhitelisted(whitelist.get(identifier), index);
+        }
     }
 
     public static class SecRingSelectionStrategy<O> extends SecretKeyRingSelectionStrategy<O> {
@@ -66,5 +86,10 @@ public final class Whitelist {
             return whitelistedKeyIds.contains(keyRing.getPublicKey().getKeyID());
         }
 
+        @Override
+        public Set<PGPSecretKeyRing> selectKeyRingsFromIndex(@Nonnull O identifier, @Nonnull UserIdIndex<PGPSecretKeyRing> index) {
+            return selectWhitelisted(whitelist.get(identifier), index);
+        }
+
     }
 }
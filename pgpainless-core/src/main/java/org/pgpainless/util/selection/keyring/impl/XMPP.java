@@ -4,8 +4,12 @@
 
 package org.pgpainless.util.selection.keyring.impl;
 
+import java.util.Set;
+import javax.annotation.Nonnull;
+
 import org.bouncycastle.openpgp.PGPPublicKeyRing;
 import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.pgpainless.util.selection.keyring.UserIdIndex;
 
 public final class XMPP {
 
@@ -13,14 +17,23 @@ public final class XMPP {
 
     }
 
+    private static String toUserId(String jid) {
+        if (!jid.matches("^xmpp:.+$")) {
+            return "xmpp:" + jid;
+        }
+        return jid;
+    }
+
     public static class PubRingSelectionStrategy extends ExactUserId.PubRingSelectionStrategy {
 
         @Override
         public boolean accept(String jid, PGPPublicKeyRing keyRing) {
-            if (!jid.matches("^xmpp:.+$")) {
-                jid = "xmpp:" + jid;
-            }
-            return super.accept(jid, keyRing);
+            return super.accept(toUserId(jid), keyRing);
+        }
+
+        @Override
+        public Set<PGPPublicKeyRing> selectKeyRingsFromIndex(@Nonnull String jid, @Nonnull UserIdIndex<PGPPublicKeyRing> index) {
+            return super.selectKeyRingsFromIndex(toUserId(jid), index);
         }
     }
 
@@ -28,10 +41,12 @@ public final class XMPP {
 
         @Override
         public boolean accept(String jid, PGPSecretKeyRing keyRing) {
-            if (!jid.matches("^xmpp:.+$")) {
-                jid = "xmpp:" + jid;
-            }
-            return super.accept(jid, keyRing);
+            return super.accept(toUserId(jid), keyRing);
+        }
+
+        @Override
+        public Set<PGPSecretKeyRing> selectKeyRingsFromIndex(@Nonnull String jid, @Nonnull UserIdIndex<PGPSecretKeyRing> index) {
+            return super.selectKeyRingsFromIndex(toUserId(jid), index);
         }
     }
 }
@@ -0,0 +1,205 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.decryption_verification;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.openpgp.PGPEncryptedDataList;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPPublicKeyEncryptedData;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.EncryptionPurpose;
+import org.pgpainless.encryption_signing.EncryptionOptions;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.exception.WrongPassphraseException;
+import org.pgpainless.implementation.ImplementationFactory;
+import org.pgpainless.key.SubkeyIdentifier;
+import org.pgpainless.key.protection.PrivateKeyCache;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.util.Passphrase;
+
+public class ParallelTrialDecryptionTest {
+
+    private static final byte[] PLAINTEXT = "Hello, hidden recipient!\n".getBytes(StandardCharsets.UTF_8);
+    private static final String PASSWORD = "sw0rdf1sh";
+    private static final Passphrase PASSPHRASE = Passphrase.fromPassword(PASSWORD);
+    private static final Passphrase WRONG_PASSPHRASE = Passphrase.fromPassword("password123");
+
+    private static final List<PGPSecretKeyRing> otherKeys = new ArrayList<>();
+    private static PGPSecretKeyRing recipientKey;
+    private static byte[] message;
+    private static ExecutorService executor;
+
+    @BeforeAll
+    public static void generateFixtures()
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException, IOException {
+        for (int i = 0; i < 3; i++) {
+            otherKeys.add(PGPainless.generateKeyRing()
+                    .modernKeyRing("Other " + i + " <other" + i + "@pgpainless.org>", PASSWORD));
+        }
+        recipientKey = PGPainless.generateKeyRing()
+                .modernKeyRing("Recipient <recipient@pgpainless.org>", PASSWORD);
+        message = encryptForHiddenRecipient(recipientKey);
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterAll
+    public static void shutDownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void hiddenRecipientIsFoundByParallelTrials() throws PGPException, IOException {
+        ConsumerOptions options = optionsWithAllKeys(PASSPHRASE)
+                .setTrialDecryptionExecutor(executor);
+
+        OpenPgpMetadata metadata = decrypt(options);
+        assertEquals(recipientEncryptionKey(), metadata.getDecryptionKey());
+    }
+
+    @Test
+    public void secretKeysAreUnlockedDuringTheirTrials() throws PGPException, IOException {
+        // The other keys cannot be unlocked. Since each key is unlocked as part of its own trial,
+        // this only fails the trials of the other keys.
+        ConsumerOptions options = optionsWithAllKeys(WRONG_PASSPHRASE)
+                .setTrialDecryptionExecutor(executor);
+
+        OpenPgpMetadata metadata = decrypt(options);
+        assertEquals(recipientEncryptionKey(), metadata.getDecryptionKey());
+    }
+
+    @Test
+    public void unlockFailureIsReportedIfNoTrialSucceeds() {
+        ConsumerOptions options = new ConsumerOptions()
+                .setTrialDecryptionExecutor(executor);
+        options.addDecryptionKey(recipientKey, SecretKeyRingProtector.unlockAnyKeyWith(WRONG_PASSPHRASE));
+        for (PGPSecretKeyRing otherKey : otherKeys) {
+            options.addDecryptionKey(otherKey, SecretKeyRingProtector.unlockAnyKeyWith(WRONG_PASSPHRASE));
+        }
+
+        assertThrows(WrongPassphraseException.class, () -> decrypt(options));
+    }
+
+    @Test
+    public void keysUnlockedDuringParallelTrialsAreCached() throws PGPException, IOException {
+        PrivateKeyCache cache = new PrivateKeyCache(10, 0, 0);
+        decrypt(optionsWithAllKeys(PASSPHRASE)
+                .setTrialDecryptionExecutor(executor)
+                .setPrivateKeyCache(cache));
+        assertTrue(cache.size() >= 1);
+
+        // The recipient key can no longer be unlocked, so it must be taken from the cache
+        ConsumerOptions options = new ConsumerOptions()
+                .setTrialDecryptionExecutor(executor)
+                .setPrivateKeyCache(cache)
+                .addDecryptionKey(recipientKey, SecretKeyRingProtector.unlockAnyKeyWith(WRONG_PASSPHRASE));
+        for (PGPSecretKeyRing otherKey : otherKeys) {
+            options.addDecryptionKey(otherKey, SecretKeyRingProtector.unlockAnyKeyWith(WRONG_PASSPHRASE));
+        }
+        OpenPgpMetadata metadata = decrypt(options);
+        assertEquals(recipientEncryptionKey(), metadata.getDecryptionKey());
+    }
+
+    @Test
+    public void numberOfTrialsIsLimited() throws PGPException, IOException {
+        PGPPublicKey encryptionKey = PGPainless.inspectKeyRing(recipientKey)
+                .getEncryptionSubkeys(EncryptionPurpose.ANY).get(0);
+        PGPEncryptedDataList encryptedDataList = (PGPEncryptedDataList) ImplementationFactory.getInstance()
+                .getPGPObjectFactory(new ByteArrayInputStream(message)).nextObject();
+        PGPPublicKeyEncryptedData pkesk = (PGPPublicKeyEncryptedData) encryptedDataList.get(0);
+        TrialDecryption.Candidate candidate = TrialDecryption.Candidate.locked(recipientKey,
+                recipientKey.getSecretKey(encryptionKey.getKeyID()), pkesk,
+                SecretKeyRingProtector.unlockAnyKeyWith(PASSPHRASE).getDecryptor(encryptionKey.getKeyID()), null);
+
+        TrialDecryption trialDecryption = new TrialDecryption(null, 1);
+        assertSame(candidate, trialDecryption.tryNow(candidate));
+        assertFalse(trialDecryption.hasRemainingTrials());
+        assertNull(trialDecryption.tryNow(candidate));
+
+        assertThrows(IllegalArgumentException.class, () -> new ConsumerOptions().setMaxTrialDecryptions(0));
+    }
+
+    private static ConsumerOptions optionsWithAllKeys(Passphrase otherKeysPassphrase) {
+        ConsumerOptions options = new ConsumerOptions();
+        for (PGPSecretKeyRing otherKey : otherKeys) {
+            options.addDecryptionKey(otherKey, SecretKeyRingProtector.unlockAnyKeyWith(otherKeysPassphrase));
+        }
+        options.addDecryptionKey(recipientKey, SecretKeyRingProtector.unlockAnyKeyWith(PASSPHRASE));
+        return options;
+    }
+
+    private static SubkeyIdentifier recipientEncryptionKey() {
+        PGPPublicKey encryptionKey = PGPainless.inspectKeyRing(recipientKey)
+                .getEncryptionSubkeys(EncryptionPurpose.ANY).get(0);
+        return new SubkeyIdentifier(recipientKey, encryptionKey.getKeyID());
+    }
+
+    private static OpenPgpMetadata decrypt(ConsumerOptions options) throws PGPException, IOException {
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new ByteArrayInputStream(message))
+                .withOptions(options);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Streams.pipeAll(decryptionStream, out);
+        decryptionStream.close();
+        assertArrayEquals(PLAINTEXT, out.toByteArray());
+        return decryptionStream.getResult();
+    }
+
+    /**
+     * Encrypt a binary message for the given key and replace the key-id of its PKESK with the wildcard key-id.
+     */
+    private static byte[] encryptForHiddenRecipient(PGPSecretKeyRing secretKeys) throws PGPException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(out)
+                .withOptions(ProducerOptions.encrypt(EncryptionOptions.encryptCommunications()
+                                .addRecipient(PGPainless.extractCertificate(secretKeys)))
+                        .setAsciiArmor(false));
+        encryptionStream.write(PLAINTEXT);
+        encryptionStream.close();
+        byte[] encrypted = out.toByteArray();
+
+        int tag = encrypted[0] & 0xff;
+        int headerLength;
+        if ((tag & 0x40) != 0) {
+            // new packet format
+            int length = encrypted[1] & 0xff;
+            headerLength = length < 192 ? 2 : length < 224 ? 3 : 6;
+        } else {
+            // old packet format
+            int lengthType = tag & 0x03;
+            headerLength = lengthType == 0 ? 2 : lengthType == 1 ? 3 : 5;
+        }
+        assertEquals(3, encrypted[headerLength]); // PKESK version 3
+        for (int i = 1; i <= 8; i++) {
+            encrypted[headerLength + i] = 0;
+        }
+        return encrypted;
+    }
+}
@@ -0,0 +1,111 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.decryption_verification;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.encryption_signing.EncryptionOptions;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.encryption_signing.SigningOptions;
+import org.pgpainless.key.TestKeys;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+
+public class PreparedConsumerContextTest {
+
+    private static final byte[] PLAINTEXT = "Hello, World!\n".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void decryptAndVerifyManyMessagesWithOneContext() throws PGPException, IOException {
+        PGPSecretKeyRing cryptie = TestKeys.getCryptieSecretKeyRing();
+        byte[] message = encryptAndSign();
+
+        PreparedConsumerContext context = PreparedConsumerContext.builder()
+                .addDecryptionKey(cryptie, SecretKeyRingProtector.unlockAnyKeyWith(TestKeys.CRYPTIE_PASSPHRASE))
+                .addVerificationCert(TestKeys.getJulietPublicKeyRing())
+                .addVerificationCert(TestKeys.getRomeoPublicKeyRing())
+                .build();
+
+        for (int i = 0; i < 3; i++) {
+            ConsumerOptions options = context.newConsumerOptions();
+            assertEquals(1, options.getDecryptionKeys().size());
+            assertEquals(2, options.getCertificates().size());
+
+            OpenPgpMetadata metadata = decrypt(message, options);
+            assertTrue(metadata.isEncrypted());
+            assertTrue(metadata.containsVerifiedSignatureFrom(TestKeys.getJulietPublicKeyRing()));
+        }
+    }
+
+    @Test
+    public void perMessageAdditionsDoNotModifyContext() throws PGPException, IOException {
+        PreparedConsumerContext context = PreparedConsumerContext.builder()
+                .addVerificationCert(TestKeys.getRomeoPublicKeyRing())
+                .build();
+
+        ConsumerOptions options = context.newConsumerOptions()
+                .addVerificationCert(TestKeys.getJulietPublicKeyRing())
+                .addDecryptionKey(TestKeys.getCryptieSecretKeyRing(),
+                        SecretKeyRingProtector.unlockAnyKeyWith(TestKeys.CRYPTIE_PASSPHRASE));
+        OpenPgpMetadata metadata = decrypt(encryptAndSign(), options);
+        assertTrue(metadata.containsVerifiedSignatureFrom(TestKeys.getJulietPublicKeyRing()));
+
+        assertEquals(1, context.getCertificates().size());
+        assertTrue(context.getDecryptionKeys().isEmpty());
+        assertEquals(1, context.newConsumerOptions().getCertificates().size());
+    }
+
+    @Test
+    public void contextSettingsAreDefaultsForOptions() {
+        PreparedConsumerContext context = PreparedConsumerContext.builder()
+                .setMissingKeyPassphraseStrategy(MissingKeyPassphraseStrategy.THROW_EXCEPTION)
+                .build();
+
+        ConsumerOptions options = context.newConsumerOptions();
+        assertEquals(MissingKeyPassphraseStrategy.THROW_EXCEPTION, options.getMissingKeyPassphraseStrategy());
+        assertFalse(options.isCleartextSigned());
+
+        options.setMissingKeyPassphraseStrategy(MissingKeyPassphraseStrategy.INTERACTIVE);
+        assertEquals(MissingKeyPassphraseStrategy.THROW_EXCEPTION, context.getMissingKeyPassphraseStrategy());
+    }
+
+    private static byte[] encryptAndSign() throws PGPException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(out)
+                .withOptions(ProducerOptions.signAndEncrypt(
+                        EncryptionOptions.encryptCommunications().addRecipient(TestKeys.getCryptiePublicKeyRing()),
+                        SigningOptions.get().addInlineSignature(SecretKeyRingProtector.unprotectedKeys(),
+                                TestKeys.getJulietSecretKeyRing(), DocumentSignatureType.BINARY_DOCUMENT)));
+        encryptionStream.write(PLAINTEXT);
+        encryptionStream.close();
+        return out.toByteArray();
+    }
+
+    private static OpenPgpMetadata decrypt(byte[] message, ConsumerOptions options) throws PGPException, IOException {
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new ByteArrayInputStream(message))
+                .withOptions(options);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Streams.pipeAll(decryptionStream, out);
+        decryptionStream.close();
+        assertArrayEquals(PLAINTEXT, out.toByteArray());
+        return decryptionStream.getResult();
+    }
+}
@@ -0,0 +1,210 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.decryption_verification;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.SymmetricKeyAlgorithm;
+import org.pgpainless.encryption_signing.EncryptionOptions;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.exception.MissingDecryptionMethodException;
+import org.pgpainless.key.SubkeyIdentifier;
+import org.pgpainless.key.TestKeys;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.util.SessionKey;
+import org.pgpainless.util.TestUtils;
+
+public class SessionKeyStoreTest {
+
+    private static final byte[] PLAINTEXT = "Hello, World!\n".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void storedSessionKeyIsUsedForRepeatedDecryption() throws PGPException, IOException {
+        InMemorySessionKeyStore store = new InMemorySessionKeyStore(10);
+        byte[] message = encrypt();
+
+        OpenPgpMetadata first = decrypt(message, new ConsumerOptions()
+                .addDecryptionKey(TestKeys.getJulietSecretKeyRing(), SecretKeyRingProtector.unprotectedKeys())
+                .setSessionKeyStore(store));
+        assertEquals(1, store.size());
+
+        // Without the decryption key, the message can only be decrypted using the stored session key
+        OpenPgpMetadata second = decrypt(message, new ConsumerOptions().setSessionKeyStore(store));
+        assertTrue(second.isEncrypted());
+        assertEquals(first.getRecipientKeyIds(), second.getRecipientKeyIds());
+        assertNotNull(first.getDecryptionKey());
+        assertEquals(first.getDecryptionKey(), second.getDecryptionKey());
+        assertArrayEquals(first.getSessionKey().getKey(), second.getSessionKey().getKey());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void differentMessagesHaveDifferentIdentifiers() throws PGPException, IOException {
+        InMemorySessionKeyStore store = new InMemorySessionKeyStore(10);
+        ConsumerOptions options = new ConsumerOptions()
+                .addDecryptionKey(TestKeys.getJulietSecretKeyRing(), SecretKeyRingProtector.unprotectedKeys())
+                .setSessionKeyStore(store);
+
+        decrypt(encrypt(), options);
+        decrypt(encrypt(), options);
+        assertEquals(2, store.size());
+
+        byte[] unknownMessage = encrypt();
+        assertThrows(MissingDecryptionMethodException.class, () ->
+                decrypt(unknownMessage, new ConsumerOptions().setSessionKeyStore(store)));
+    }
+
+    @Test
+    public void inMemoryStoreEvictsLeastRecentlyUsed() throws PGPException, IOException {
+        InMemorySessionKeyStore store = new InMemorySessionKeyStore(1);
+        ConsumerOptions options = new ConsumerOptions()
+                .addDecryptionKey(TestKeys.getJulietSecretKeyRing(), SecretKeyRingProtector.unprotectedKeys())
+                .setSessionKeyStore(store);
+
+        decrypt(encrypt(), options);
+        decrypt(encrypt(), options);
+        assertEquals(1, store.size());
+
+        store.clear();
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void fileStorePersistsEncryptedSessionKeys() throws PGPException, IOException {
+        File directory = TestUtils.createTempDirectory();
+        byte[] storageKey = new byte[32];
+        Arrays.fill(storageKey, (byte) 7);
+        byte[] message = encrypt();
+
+        decrypt(message, new ConsumerOptions()
+                .addDecryptionKey(TestKeys.getJulietSecretKeyRing(), SecretKeyRingProtector.unprotectedKeys())
+                .setSessionKeyStore(new FileSessionKeyStore(directory, storageKey)));
+
+        String messageIdentifier = messageIdentifier(directory);
+
+        // A new store on the same directory can decrypt the message
+        FileSessionKeyStore reopened = new FileSessionKeyStore(directory, storageKey);
+        assertNotNull(reopened.getSessionKey(messageIdentifier));
+        OpenPgpMetadata metadata = decrypt(message, new ConsumerOptions().setSessionKeyStore(reopened));
+        assertEquals(new SubkeyIdentifier(TestKeys.getJulietSecretKeyRing()), metadata.getDecryptionKey());
+
+        // A store with a different storage key cannot read the session key
+        byte[] otherKey = new byte[32];
+        FileSessionKeyStore other = new FileSessionKeyStore(directory, otherKey);
+        assertNull(other.getSessionKey(messageIdentifier));
+    }
+
+    @Test
+    public void staleSessionKeyIsReplaced() throws PGPException, IOException {
+        File directory = TestUtils.createTempDirectory();
+        FileSessionKeyStore store = new FileSessionKeyStore(directory, new byte[32]);
+        ConsumerOptions options = new ConsumerOptions()
+                .addDecryptionKey(TestKeys.getJulietSecretKeyRing(), SecretKeyRingProtector.unprotectedKeys())
+                .setSessionKeyStore(store);
+        byte[] message = encrypt();
+        OpenPgpMetadata first = decrypt(message, options);
+        String messageIdentifier = messageIdentifier(directory);
+
+        // Replace the entry with a wrong session key
+        byte[] wrongKey = new byte[first.getSessionKey().getKey().length];
+        Arrays.fill(wrongKey, (byte) 42);
+        store.storeSessionKey(messageIdentifier,
+                new StoredSessionKey(new SessionKey(first.getSessionKey().getAlgorithm(), wrongKey), null));
+
+        // Decryption falls back to the decryption key and restores the entry
+        OpenPgpMetadata second = decrypt(message, options);
+        assertEquals(first.getDecryptionKey(), second.getDecryptionKey());
+        assertArrayEquals(first.getSessionKey().getKey(), store.getSessionKey(messageIdentifier).getSessionKey().getKey());
+
+        // An entry with an invalid key length is replaced as well
+        store.storeSessionKey(messageIdentifier,
+                new StoredSessionKey(new SessionKey(SymmetricKeyAlgorithm.AES_256, new byte[3]), null));
+        decrypt(message, options);
+        assertArrayEquals(first.getSessionKey().getKey(), store.getSessionKey(messageIdentifier).getSessionKey().getKey());
+    }
+
+    @Test
+    public void corruptSessionKeyFileIsReplaced() throws PGPException, IOException {
+        File directory = TestUtils.createTempDirectory();
+        FileSessionKeyStore store = new FileSessionKeyStore(directory, new byte[32]);
+        ConsumerOptions options = new ConsumerOptions()
+                .addDecryptionKey(TestKeys.getJulietSecretKeyRing(), SecretKeyRingProtector.unprotectedKeys())
+                .setSessionKeyStore(store);
+        byte[] message = encrypt();
+        decrypt(message, options);
+        String messageIdentifier = messageIdentifier(directory);
+
+        OutputStream out = new FileOutputStream(new File(directory, messageIdentifier + ".sk"));
+        out.write(new byte[40]);
+        out.close();
+        assertNull(store.getSessionKey(messageIdentifier));
+
+        decrypt(message, options);
+        assertNotNull(store.getSessionKey(messageIdentifier));
+
+        store.removeSessionKey(messageIdentifier);
+        assertNull(store.getSessionKey(messageIdentifier));
+        assertFalse(new File(directory, messageIdentifier + ".sk").exists());
+    }
+
+    @Test
+    public void invalidStoreParametersAreRejected() throws IOException {
+        File directory = TestUtils.createTempDirectory();
+        assertThrows(IllegalArgumentException.class, () -> new InMemorySessionKeyStore(0));
+        assertThrows(IllegalArgumentException.class, () -> new FileSessionKeyStore(directory, new byte[15]));
+
+        FileSessionKeyStore store = new FileSessionKeyStore(directory, new byte[16]);
+        assertThrows(IllegalArgumentException.class, () -> store.getSessionKey("../secret"));
+    }
+
+    private static String messageIdentifier(File directory) {
+        File[] files = directory.listFiles();
+        assertNotNull(files);
+        assertEquals(1, files.length);
+        return files[0].getName().substring(0, files[0].getName().length() - 3);
+    }
+
+    private static byte[] encrypt() throws PGPException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(out)
+                .withOptions(ProducerOptions.encrypt(
+                        EncryptionOptions.encryptCommunications().addRecipient(TestKeys.getJulietPublicKeyRing())));
+        encryptionStream.write(PLAINTEXT);
+        encryptionStream.close();
+        return out.toByteArray();
+    }
+
+    private static OpenPgpMetadata decrypt(byte[] message, ConsumerOptions options) throws PGPException, IOException {
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new ByteArrayInputStream(message))
+                .withOptions(options);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Streams.pipeAll(decryptionStream, out);
+        decryptionStream.close();
+        assertArrayEquals(PLAINTEXT, out.toByteArray());
+        return decryptionStream.getResult();
+    }
+}
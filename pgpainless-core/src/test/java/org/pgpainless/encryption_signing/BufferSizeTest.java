@@ -0,0 +1,72 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.encryption_signing;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.CompressionAlgorithm;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.key.TestKeys;
+
+public class BufferSizeTest {
+
+    @Test
+    public void invalidBufferSizesAreRejected() {
+        ProducerOptions producerOptions = ProducerOptions.noEncryptionNoSigning();
+        assertThrows(IllegalArgumentException.class, () -> producerOptions.setBufferSize(256));
+        assertThrows(IllegalArgumentException.class, () -> producerOptions.setBufferSize(1000));
+        assertThrows(IllegalArgumentException.class, () -> producerOptions.setBufferSize(1 << 21));
+
+        ConsumerOptions consumerOptions = new ConsumerOptions();
+        assertThrows(IllegalArgumentException.class, () -> consumerOptions.setBufferSize(511));
+        assertThrows(IllegalArgumentException.class, () -> consumerOptions.setBufferSize((1 << 20) + 1));
+    }
+
+    @Test
+    public void roundTripWithDifferentBufferSizes() throws PGPException, IOException {
+        byte[] data = new byte[3 * (1 << 20) + 17];
+        new Random(9).nextBytes(data);
+
+        int previousLength = Integer.MAX_VALUE;
+        for (int bufferSize = ProducerOptions.MIN_BUFFER_SIZE; bufferSize <= ProducerOptions.MAX_BUFFER_SIZE; bufferSize <<= 2) {
+            ByteArrayOutputStream ciphertext = new ByteArrayOutputStream();
+            EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                    .onOutputStream(ciphertext)
+                    .withOptions(ProducerOptions.encrypt(EncryptionOptions.encryptCommunications()
+                                    .addRecipient(TestKeys.getJulietPublicKeyRing()))
+                            .overrideCompressionAlgorithm(CompressionAlgorithm.UNCOMPRESSED)
+                            .setAsciiArmor(false)
+                            .setBufferSize(bufferSize));
+            encryptionStream.write(data);
+            encryptionStream.close();
+
+            // Larger partial body length chunks mean fewer chunk headers
+            assertTrue(ciphertext.size() < previousLength);
+            previousLength = ciphertext.size();
+
+            DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                    .onInputStream(new ByteArrayInputStream(ciphertext.toByteArray()))
+                    .withOptions(new ConsumerOptions()
+                            .addDecryptionKey(TestKeys.getJulietSecretKeyRing())
+                            .setBufferSize(bufferSize));
+            ByteArrayOutputStream plaintext = new ByteArrayOutputStream();
+            Streams.pipeAll(decryptionStream, plaintext);
+            decryptionStream.close();
+            assertArrayEquals(data, plaintext.toByteArray());
+        }
+    }
+}
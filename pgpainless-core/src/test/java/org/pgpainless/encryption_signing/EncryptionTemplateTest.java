@@ -0,0 +1,180 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.encryption_signing;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.bouncycastle.bcpg.BCPGInputStream;
+import org.bouncycastle.bcpg.Packet;
+import org.bouncycastle.bcpg.SymmetricKeyEncSessionPacket;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPSignature;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.algorithm.SymmetricKeyAlgorithm;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.decryption_verification.OpenPgpMetadata;
+import org.pgpainless.key.SubkeyIdentifier;
+import org.pgpainless.key.TestKeys;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.util.Passphrase;
+
+public class EncryptionTemplateTest {
+
+    private static final byte[] PLAINTEXT = "Your order has been shipped.\n".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void templateProducesIndependentMessages()
+            throws PGPException, IOException, InterruptedException, ExecutionException {
+        final EncryptionTemplate template = EncryptionTemplate.of(ProducerOptions.signAndEncrypt(
+                EncryptionOptions.encryptCommunications()
+                        .addRecipient(TestKeys.getJulietPublicKeyRing()),
+                SigningOptions.get()
+                        .addInlineSignature(SecretKeyRingProtector.unprotectedKeys(),
+                                TestKeys.getEmilSecretKeyRing(), DocumentSignatureType.BINARY_DOCUMENT)));
+        assertEquals(1, template.getRecipients().size());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<byte[]>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> encrypt(template)));
+            }
+
+            List<byte[]> sessionKeys = new ArrayList<>();
+            for (Future<byte[]> future : futures) {
+                OpenPgpMetadata metadata = decrypt(future.get(), new ConsumerOptions()
+                        .addDecryptionKey(TestKeys.getJulietSecretKeyRing(), SecretKeyRingProtector.unprotectedKeys())
+                        .addVerificationCert(TestKeys.getEmilPublicKeyRing()));
+                assertTrue(metadata.containsVerifiedSignatureFrom(TestKeys.getEmilPublicKeyRing()));
+                assertEquals(template.getEncryptionAlgorithm(), metadata.getSymmetricKeyAlgorithm());
+                assertEquals(template.getCompressionAlgorithm(), metadata.getCompressionAlgorithm());
+
+                // Each message is encrypted with a fresh session key
+                byte[] sessionKey = metadata.getSessionKey().getKey();
+                for (byte[] other : sessionKeys) {
+                    assertFalse(Arrays.equals(other, sessionKey));
+                }
+                sessionKeys.add(sessionKey);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void templateCreatesFreshDetachedSignatures() throws PGPException, IOException {
+        EncryptionTemplate template = EncryptionTemplate.of(ProducerOptions.sign(
+                SigningOptions.get()
+                        .addDetachedSignature(SecretKeyRingProtector.unprotectedKeys(),
+                                TestKeys.getEmilSecretKeyRing(), DocumentSignatureType.BINARY_DOCUMENT)));
+        assertEquals(SymmetricKeyAlgorithm.NULL, template.getEncryptionAlgorithm());
+
+        byte[] otherPlaintext = "Something else.\n".getBytes(StandardCharsets.UTF_8);
+        PGPSignature first = detachedSignature(template, PLAINTEXT);
+        PGPSignature second = detachedSignature(template, otherPlaintext);
+
+        // Each signature only covers its own message
+        assertTrue(verifiesDetached(first, PLAINTEXT));
+        assertTrue(verifiesDetached(second, otherPlaintext));
+        assertFalse(verifiesDetached(second, PLAINTEXT));
+    }
+
+    @Test
+    public void templateIsNotAffectedByLaterModifications() throws PGPException, IOException {
+        EncryptionOptions encryptionOptions = EncryptionOptions.encryptCommunications()
+                .addRecipient(TestKeys.getJulietPublicKeyRing());
+        ProducerOptions options = ProducerOptions.encrypt(encryptionOptions);
+        EncryptionTemplate template = EncryptionTemplate.of(options);
+
+        encryptionOptions.addPassphrase(Passphrase.fromPassword("sw0rdf1sh"));
+        options.setAsciiArmor(false);
+
+        byte[] message = encrypt(template);
+        assertTrue(new String(message, StandardCharsets.UTF_8).startsWith("-----BEGIN PGP MESSAGE-----"));
+        decrypt(message, new ConsumerOptions()
+                .addDecryptionKey(TestKeys.getJulietSecretKeyRing(), SecretKeyRingProtector.unprotectedKeys()));
+    }
+
+    @Test
+    public void templateCreatesFreshPassphraseEncryptionMethods() throws PGPException, IOException {
+        Passphrase passphrase = Passphrase.fromPassword("sw0rdf1sh");
+        EncryptionTemplate template = EncryptionTemplate.of(ProducerOptions.encrypt(
+                        EncryptionOptions.encryptCommunications().addPassphrase(passphrase))
+                .setAsciiArmor(false));
+
+        byte[] first = encrypt(template);
+        byte[] second = encrypt(template);
+
+        // Each message uses its own S2K salt
+        assertFalse(Arrays.equals(s2kSalt(first), s2kSalt(second)));
+        decrypt(first, new ConsumerOptions().addDecryptionPassphrase(passphrase));
+        decrypt(second, new ConsumerOptions().addDecryptionPassphrase(passphrase));
+    }
+
+    private static byte[] s2kSalt(byte[] message) throws IOException {
+        Packet packet = new BCPGInputStream(new ByteArrayInputStream(message)).readPacket();
+        assertTrue(packet instanceof SymmetricKeyEncSessionPacket);
+        return ((SymmetricKeyEncSessionPacket) packet).getS2K().getIV();
+    }
+
+    private static byte[] encrypt(EncryptionTemplate template) throws PGPException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncryptionStream encryptionStream = template.onOutputStream(out);
+        encryptionStream.write(PLAINTEXT);
+        encryptionStream.close();
+        return out.toByteArray();
+    }
+
+    private static PGPSignature detachedSignature(EncryptionTemplate template, byte[] data)
+            throws PGPException, IOException {
+        EncryptionStream encryptionStream = template.onOutputStream(new ByteArrayOutputStream());
+        encryptionStream.write(data);
+        encryptionStream.close();
+        EncryptionResult result = encryptionStream.getResult();
+        SubkeyIdentifier signingKey = result.getDetachedSignatures().keySet().iterator().next();
+        return result.getDetachedSignatures().get(signingKey).iterator().next();
+    }
+
+    private static boolean verifiesDetached(PGPSignature signature, byte[] data) throws PGPException, IOException {
+        DecryptionStream verificationStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new ByteArrayInputStream(data))
+                .withOptions(new ConsumerOptions()
+                        .addVerificationCert(TestKeys.getEmilPublicKeyRing())
+                        .addVerificationOfDetachedSignature(signature));
+        Streams.drain(verificationStream);
+        verificationStream.close();
+        return verificationStream.getResult().containsVerifiedSignatureFrom(TestKeys.getEmilPublicKeyRing());
+    }
+
+    private static OpenPgpMetadata decrypt(byte[] message, ConsumerOptions options) throws PGPException, IOException {
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new ByteArrayInputStream(message))
+                .withOptions(options);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Streams.pipeAll(decryptionStream, out);
+        decryptionStream.close();
+        assertArrayEquals(PLAINTEXT, out.toByteArray());
+        return decryptionStream.getResult();
+    }
+}
@@ -0,0 +1,144 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.encryption_signing;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.OpenPgpMetadata;
+import org.pgpainless.key.SubkeyIdentifier;
+import org.pgpainless.key.TestKeys;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.util.TestUtils;
+
+public class FileEncryptionTest {
+
+    @Test
+    public void encryptAndDecryptFile() throws PGPException, IOException {
+        byte[] data = new byte[(1 << 20) + 123];
+        new Random(10).nextBytes(data);
+
+        File dir = TestUtils.createTempDirectory();
+        File plaintext = write(new File(dir, "plaintext"), data);
+        File ciphertext = new File(dir, "ciphertext.asc");
+        File decrypted = new File(dir, "decrypted");
+
+        EncryptionResult encryptionResult = PGPainless.encryptAndOrSign()
+                .onFile(plaintext)
+                .toFile(ciphertext)
+                .withOptions(ProducerOptions.signAndEncrypt(
+                        EncryptionOptions.encryptCommunications()
+                                .addRecipient(TestKeys.getJulietPublicKeyRing()),
+                        SigningOptions.get()
+                                .addInlineSignature(SecretKeyRingProtector.unprotectedKeys(),
+                                        TestKeys.getRomeoSecretKeyRing(), DocumentSignatureType.BINARY_DOCUMENT)));
+        assertEquals(1, encryptionResult.getRecipients().size());
+        assertTrue(ciphertext.length() > 0);
+
+        OpenPgpMetadata metadata = PGPainless.decryptAndOrVerify()
+                .onFile(ciphertext)
+                .toFile(decrypted)
+                .withOptions(new ConsumerOptions()
+                        .addDecryptionKey(TestKeys.getJulietSecretKeyRing())
+                        .addVerificationCert(TestKeys.getRomeoPublicKeyRing()));
+        assertTrue(metadata.isEncrypted());
+        assertTrue(metadata.containsVerifiedSignatureFrom(TestKeys.getRomeoPublicKeyRing()));
+        assertArrayEquals(data, read(decrypted));
+    }
+
+    @Test
+    public void decryptFileWithoutMatchingKeyDeletesOutput() throws PGPException, IOException {
+        File dir = TestUtils.createTempDirectory();
+        File plaintext = write(new File(dir, "plaintext"), "Hello, World!\n".getBytes());
+        File ciphertext = new File(dir, "ciphertext");
+        File decrypted = new File(dir, "decrypted");
+
+        PGPainless.encryptAndOrSign()
+                .onFile(plaintext)
+                .toFile(ciphertext)
+                .withOptions(ProducerOptions.encrypt(EncryptionOptions.encryptCommunications()
+                                .addRecipient(TestKeys.getJulietPublicKeyRing()))
+                        .setAsciiArmor(false));
+
+        assertThrows(PGPException.class, () -> PGPainless.decryptAndOrVerify()
+                .onFile(ciphertext)
+                .toFile(decrypted)
+                .withOptions(new ConsumerOptions()
+                        .addDecryptionKey(TestKeys.getRomeoSecretKeyRing())));
+        assertFalse(decrypted.exists());
+    }
+
+    @Test
+    public void sameInputAndOutputFileIsRejected() throws IOException {
+        File dir = TestUtils.createTempDirectory();
+        File file = write(new File(dir, "file"), new byte[] {1, 2, 3});
+
+        assertThrows(IllegalArgumentException.class, () -> PGPainless.encryptAndOrSign()
+                .onFile(file)
+                .toFile(new File(dir, "./file"))
+                .withOptions(ProducerOptions.noEncryptionNoSigning()));
+        assertThrows(IllegalArgumentException.class, () -> PGPainless.decryptAndOrVerify()
+                .onFile(file)
+                .toFile(file)
+                .withOptions(new ConsumerOptions()));
+        assertArrayEquals(new byte[] {1, 2, 3}, read(file));
+    }
+
+    @Test
+    public void decryptedFileMatchesStreamResult() throws PGPException, IOException {
+        File dir = TestUtils.createTempDirectory();
+        byte[] data = "Hello, World!\n".getBytes();
+        File plaintext = write(new File(dir, "plaintext"), data);
+        File ciphertext = new File(dir, "ciphertext");
+        File decrypted = new File(dir, "decrypted");
+
+        EncryptionResult result = PGPainless.encryptAndOrSign()
+                .onFile(plaintext)
+                .toFile(ciphertext)
+                .withOptions(ProducerOptions.encrypt(EncryptionOptions.encryptCommunications()
+                        .addRecipient(TestKeys.getEmilPublicKeyRing())));
+        SubkeyIdentifier recipient = result.getRecipients().iterator().next();
+        assertEquals(TestKeys.EMIL_KEY_ID, recipient.getPrimaryKeyId());
+
+        OpenPgpMetadata metadata = PGPainless.decryptAndOrVerify()
+                .onFile(ciphertext)
+                .toFile(decrypted)
+                .withOptions(new ConsumerOptions()
+                        .addDecryptionKey(TestKeys.getEmilSecretKeyRing()));
+        assertEquals(recipient, metadata.getDecryptionKey());
+        assertArrayEquals(data, read(decrypted));
+    }
+
+    private static File write(File file, byte[] data) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(data);
+        out.close();
+        return file;
+    }
+
+    private static byte[] read(File file) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Streams.pipeAll(in, out);
+        in.close();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,106 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.encryption_signing;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.openpgp.PGPEncryptedData;
+import org.bouncycastle.openpgp.PGPEncryptedDataList;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPBEEncryptedData;
+import org.bouncycastle.openpgp.PGPPublicKeyEncryptedData;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.EncryptionPurpose;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.implementation.ImplementationFactory;
+import org.pgpainless.key.util.KeyRingUtils;
+import org.pgpainless.util.Passphrase;
+
+public class ParallelKeyWrappingTest {
+
+    private static final byte[] PLAINTEXT = "Hello, Mailing List!\n".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void sessionKeyIsWrappedForAllRecipientsInOrder()
+            throws PGPException, IOException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        List<PGPSecretKeyRing> recipients = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            recipients.add(PGPainless.generateKeyRing().modernKeyRing("Member " + i + " <member@pgpainless.org>", null));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        byte[] message;
+        try {
+            EncryptionOptions encryptionOptions = EncryptionOptions.encryptCommunications()
+                    .setKeyWrappingExecutor(executor);
+            for (PGPSecretKeyRing recipient : recipients) {
+                encryptionOptions.addRecipient(KeyRingUtils.publicKeyRingFrom(recipient));
+            }
+            encryptionOptions.addPassphrase(Passphrase.fromPassword("sw0rdf1sh"));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                    .onOutputStream(out)
+                    .withOptions(ProducerOptions.encrypt(encryptionOptions).setAsciiArmor(false));
+            encryptionStream.write(PLAINTEXT);
+            encryptionStream.close();
+            message = out.toByteArray();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // PKESKs are written in the order in which the recipients were added
+        PGPEncryptedDataList encryptedDataList = (PGPEncryptedDataList) ImplementationFactory.getInstance()
+                .getPGPObjectFactory(message).nextObject();
+        List<Long> pkeskKeyIds = new ArrayList<>();
+        boolean hasSkesk = false;
+        for (PGPEncryptedData encryptedData : encryptedDataList) {
+            if (encryptedData instanceof PGPPublicKeyEncryptedData) {
+                pkeskKeyIds.add(((PGPPublicKeyEncryptedData) encryptedData).getKeyID());
+            }
+            hasSkesk |= encryptedData instanceof PGPPBEEncryptedData;
+        }
+        assertTrue(hasSkesk);
+        List<Long> expectedKeyIds = new ArrayList<>();
+        for (PGPSecretKeyRing recipient : recipients) {
+            expectedKeyIds.add(PGPainless.inspectKeyRing(recipient)
+                    .getEncryptionSubkeys(EncryptionPurpose.COMMUNICATIONS).get(0).getKeyID());
+        }
+        assertEquals(expectedKeyIds, pkeskKeyIds);
+
+        for (PGPSecretKeyRing recipient : recipients) {
+            assertArrayEquals(PLAINTEXT, decrypt(message, new ConsumerOptions().addDecryptionKey(recipient)));
+        }
+        assertArrayEquals(PLAINTEXT, decrypt(message, new ConsumerOptions()
+                .addDecryptionPassphrase(Passphrase.fromPassword("sw0rdf1sh"))));
+    }
+
+    private static byte[] decrypt(byte[] message, ConsumerOptions options) throws PGPException, IOException {
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new ByteArrayInputStream(message))
+                .withOptions(options);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Streams.pipeAll(decryptionStream, out);
+        decryptionStream.close();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,201 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.encryption_signing;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.CompressionAlgorithm;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.key.TestKeys;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+
+public class PipelinedEncryptionTest {
+
+    private static final Date MODIFICATION_DATE = new Date(1640995200000L);
+
+    private static byte[] randomData(int length) {
+        // Compressible, but not trivially so
+        Random random = new Random(length);
+        byte[] data = new byte[length];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ('a' + random.nextInt(8));
+        }
+        return data;
+    }
+
+    private static byte[] produce(byte[] data, ProducerOptions options, int writeSize) throws PGPException, IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(out)
+                .withOptions(options);
+        for (int off = 0; off < data.length; off += writeSize) {
+            encryptionStream.write(data, off, Math.min(writeSize, data.length - off));
+        }
+        encryptionStream.close();
+        return out.toByteArray();
+    }
+
+    @Test
+    public void pipelinedOutputIsIdenticalToSerialOutput() throws PGPException, IOException {
+        byte[] data = randomData(3 * (1 << 16) + 123);
+        for (CompressionAlgorithm compression : new CompressionAlgorithm[] {CompressionAlgorithm.UNCOMPRESSED, CompressionAlgorithm.ZIP}) {
+            for (boolean armor : new boolean[] {true, false}) {
+                byte[] serial = produce(data, ProducerOptions.noEncryptionNoSigning()
+                        .overrideCompressionAlgorithm(compression)
+                        .setModificationDate(MODIFICATION_DATE)
+                        .setAsciiArmor(armor), 1000);
+                byte[] pipelined = produce(data, ProducerOptions.noEncryptionNoSigning()
+                        .overrideCompressionAlgorithm(compression)
+                        .setModificationDate(MODIFICATION_DATE)
+                        .setAsciiArmor(armor)
+                        .setPipelined(true), 1000);
+                assertArrayEquals(serial, pipelined);
+            }
+        }
+    }
+
+    @Test
+    public void pipelinedEncryptAndSignRoundTrip() throws PGPException, IOException {
+        byte[] data = randomData(5 * (1 << 16));
+        ProducerOptions options = ProducerOptions.signAndEncrypt(
+                EncryptionOptions.encryptCommunications().addRecipient(TestKeys.getJulietPublicKeyRing()),
+                SigningOptions.get().addInlineSignature(SecretKeyRingProtector.unprotectedKeys(),
+                        TestKeys.getJulietSecretKeyRing(), DocumentSignatureType.BINARY_DOCUMENT))
+                .overrideCompressionAlgorithm(CompressionAlgorithm.ZLIB)
+                .setPipelined(true);
+        byte[] ciphertext = produce(data, options, 4096);
+
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new ByteArrayInputStream(ciphertext))
+                .withOptions(new ConsumerOptions()
+                        .addDecryptionKey(TestKeys.getJulietSecretKeyRing())
+                        .addVerificationCert(TestKeys.getJulietPublicKeyRing()));
+        ByteArrayOutputStream plaintext = new ByteArrayOutputStream();
+        Streams.pipeAll(decryptionStream, plaintext);
+        decryptionStream.close();
+
+        assertArrayEquals(data, plaintext.toByteArray());
+        assertTrue(decryptionStream.getResult().containsVerifiedSignatureFrom(TestKeys.getJulietPublicKeyRing()));
+    }
+
+    @Test
+    public void stagesRunOnSuppliedExecutor() throws PGPException, IOException, InterruptedException {
+        byte[] data = randomData(3 * (1 << 16));
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            byte[] serial = produce(data, ProducerOptions.noEncryptionNoSigning()
+                    .overrideCompressionAlgorithm(CompressionAlgorithm.ZIP)
+                    .setModificationDate(MODIFICATION_DATE), 1000);
+            byte[] pipelined = produce(data, ProducerOptions.noEncryptionNoSigning()
+                    .overrideCompressionAlgorithm(CompressionAlgorithm.ZIP)
+                    .setModificationDate(MODIFICATION_DATE)
+                    .setPipelined(true)
+                    .setPipelineExecutor(executor), 1000);
+            assertArrayEquals(serial, pipelined);
+        } finally {
+            executor.shutdown();
+        }
+        // All stages finished when the stream was closed
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void stagesDoNotStarveOnSingleThreadExecutor() throws PGPException, IOException, InterruptedException {
+        byte[] data = randomData(8 * (1 << 16));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            byte[] serial = produce(data, ProducerOptions.noEncryptionNoSigning()
+                    .overrideCompressionAlgorithm(CompressionAlgorithm.ZIP)
+                    .setModificationDate(MODIFICATION_DATE), 1000);
+            // Only one of the stages gets the thread, the others are run by their writing threads
+            byte[] pipelined = produce(data, ProducerOptions.noEncryptionNoSigning()
+                    .overrideCompressionAlgorithm(CompressionAlgorithm.ZIP)
+                    .setModificationDate(MODIFICATION_DATE)
+                    .setPipelined(true)
+                    .setPipelineExecutor(executor), 1000);
+            assertArrayEquals(serial, pipelined);
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void failedStreamStopsStages() throws PGPException, IOException, InterruptedException {
+        OutputStream failing = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Disk full");
+            }
+        };
+        ExecutorService executor = Executors.newCachedThreadPool();
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(failing)
+                .withOptions(ProducerOptions.encrypt(EncryptionOptions.encryptCommunications()
+                                .addRecipient(TestKeys.getJulietPublicKeyRing()))
+                        .overrideCompressionAlgorithm(CompressionAlgorithm.ZLIB)
+                        .setPipelined(true)
+                        .setPipelineExecutor(executor));
+
+        byte[] data = randomData(1 << 16);
+        assertThrows(IOException.class, () -> {
+            for (int i = 0; i < 16; i++) {
+                encryptionStream.write(data, 0, data.length);
+            }
+            encryptionStream.close();
+        });
+        assertThrows(IOException.class, encryptionStream::close);
+
+        executor.shutdown();
+        // No worker task was left behind
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void downstreamExceptionIsRethrown() throws PGPException, IOException {
+        OutputStream failing = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Disk full");
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                throw new IOException("Disk full");
+            }
+        };
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(failing)
+                .withOptions(ProducerOptions.noEncryptionNoSigning()
+                        .overrideCompressionAlgorithm(CompressionAlgorithm.UNCOMPRESSED)
+                        .setPipelined(true));
+
+        byte[] data = randomData(1 << 16);
+        assertThrows(IOException.class, () -> {
+            for (int i = 0; i < 16; i++) {
+                encryptionStream.write(data, 0, data.length);
+            }
+            encryptionStream.close();
+        });
+    }
+}
@@ -0,0 +1,129 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.encryption_signing;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.EncryptionPurpose;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.key.TestKeys;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.key.util.KeyRingUtils;
+
+public class RecipientResolverTest {
+
+    private static final byte[] PLAINTEXT = "Hello, World!\n".getBytes(StandardCharsets.UTF_8);
+
+    @AfterEach
+    public void resetResolver() {
+        PGPainless.getPolicy().setRecipientResolver(RecipientResolver.disabled());
+    }
+
+    @Test
+    public void recipientIsResolvedOnce() throws IOException {
+        RecipientResolver resolver = new RecipientResolver(10, 60_000);
+        PGPPublicKeyRing cert = TestKeys.getJulietPublicKeyRing();
+
+        RecipientResolver.Recipient first = resolver.resolve(cert, EncryptionPurpose.COMMUNICATIONS, null);
+        RecipientResolver.Recipient second = resolver.resolve(cert, EncryptionPurpose.COMMUNICATIONS, null);
+        assertSame(first, second);
+        assertEquals(1, resolver.size());
+
+        PGPPublicKey subkey = first.getEncryptionSubkeys().get(0);
+        assertSame(first.getEncryptionMethod(subkey), second.getEncryptionMethod(subkey));
+        assertSame(first.getKeyAccessor(subkey).getPreferredSymmetricKeyAlgorithms(),
+                second.getKeyAccessor(subkey).getPreferredSymmetricKeyAlgorithms());
+
+        // Different purpose or user-id are resolved separately
+        resolver.resolve(cert, EncryptionPurpose.STORAGE, null);
+        resolver.resolve(cert, EncryptionPurpose.COMMUNICATIONS, TestKeys.JULIET_UID);
+        assertEquals(3, resolver.size());
+
+        resolver.clear();
+        assertEquals(0, resolver.size());
+    }
+
+    @Test
+    public void changedCertificateIsResolvedAgain()
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        RecipientResolver resolver = new RecipientResolver(10, 60_000);
+        PGPSecretKeyRing secretKeys = PGPainless.generateKeyRing().modernKeyRing("Alice <alice@pgpainless.org>", null);
+        PGPPublicKeyRing cert = KeyRingUtils.publicKeyRingFrom(secretKeys);
+        RecipientResolver.Recipient before = resolver.resolve(cert, EncryptionPurpose.ANY, null);
+
+        secretKeys = PGPainless.modifyKeyRing(secretKeys)
+                .addUserId("Alice <alice@example.org>", SecretKeyRingProtector.unprotectedKeys())
+                .done();
+        PGPPublicKeyRing updatedCert = KeyRingUtils.publicKeyRingFrom(secretKeys);
+        RecipientResolver.Recipient after = resolver.resolve(updatedCert, EncryptionPurpose.ANY, null);
+
+        assertNotSame(before, after);
+        assertSame(updatedCert, after.getCertificate());
+        // The outdated resolution was replaced
+        assertEquals(1, resolver.size());
+    }
+
+    @Test
+    public void disabledResolverDoesNotCache() throws IOException {
+        RecipientResolver resolver = RecipientResolver.disabled();
+        PGPPublicKeyRing cert = TestKeys.getJulietPublicKeyRing();
+
+        assertNotSame(resolver.resolve(cert, EncryptionPurpose.ANY, null),
+                resolver.resolve(cert, EncryptionPurpose.ANY, null));
+        assertEquals(0, resolver.size());
+        assertThrows(IllegalArgumentException.class, () -> new RecipientResolver(-1, 0));
+    }
+
+    @Test
+    public void encryptWithResolvedRecipients() throws PGPException, IOException {
+        RecipientResolver resolver = new RecipientResolver(10, 60_000);
+        PGPainless.getPolicy().setRecipientResolver(resolver);
+
+        for (int i = 0; i < 3; i++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                    .onOutputStream(out)
+                    .withOptions(ProducerOptions.encrypt(EncryptionOptions.encryptCommunications()
+                            .addRecipient(TestKeys.getJulietPublicKeyRing())
+                            .addRecipient(TestKeys.getEmilPublicKeyRing(), TestKeys.EMIL_UID)));
+            encryptionStream.write(PLAINTEXT);
+            encryptionStream.close();
+            assertEquals(2, resolver.size());
+
+            assertArrayEquals(PLAINTEXT, decrypt(out.toByteArray(), TestKeys.getJulietSecretKeyRing()));
+            assertArrayEquals(PLAINTEXT, decrypt(out.toByteArray(), TestKeys.getEmilSecretKeyRing()));
+        }
+    }
+
+    private static byte[] decrypt(byte[] message, PGPSecretKeyRing secretKeys) throws PGPException, IOException {
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new ByteArrayInputStream(message))
+                .withOptions(new ConsumerOptions().addDecryptionKey(secretKeys, SecretKeyRingProtector.unprotectedKeys()));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Streams.pipeAll(decryptionStream, out);
+        decryptionStream.close();
+        return out.toByteArray();
+    }
+}
@@ -206,4 +206,18 @@ public class UserIdTest {
         final UserId userId2 = UserId.newBuilder().withComment(comment2).withName(name).withEmail(email).build();
         assertNotEquals(userId1, userId2);
     }
+
+    @Test
+    void testExtractNormalizedEmail() {
+        assertEquals("alice@pgpainless.org", UserId.extractNormalizedEmail("Alice <Alice@PGPainless.org>"));
+        assertEquals("alice@pgpainless.org", UserId.extractNormalizedEmail(" alice@pgpainless.org "));
+        assertEquals("emil@email.user", UserId.extractNormalizedEmail("<emil@email.user>"));
+        assertEquals("alice@pgpainless.org", UserId.extractNormalizedEmail(
+                UserId.newBuilder().withName("Alice").withComment("Work").withEmail("alice@pgpainless.org").build()));
+        assertNull(UserId.extractNormalizedEmail("Alice"));
+        assertNull(UserId.extractNormalizedEmail("xmpp:juliet@capulet.lit"));
+        assertNull(UserId.extractNormalizedEmail("Alice <alice@pgpainless.org"));
+        assertNull(UserId.extractNormalizedEmail("<@pgpainless.org>"));
+        assertNull(UserId.extractNormalizedEmail("alice at pgpainless.org@"));
+    }
 }
@@ -0,0 +1,106 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.key.info;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Date;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.key.TestKeys;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+
+public class KeyRingInfoCacheTest {
+
+    @Test
+    public void disabledCacheEvaluatesEveryTime() throws IOException, PGPException {
+        KeyRingInfoCache cache = KeyRingInfoCache.disabled();
+        PGPSecretKeyRing secretKeys = TestKeys.getJulietSecretKeyRing();
+
+        assertFalse(cache.isEnabled());
+        assertNotSame(cache.get(secretKeys), cache.get(secretKeys));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void sameKeyRingWithinGranularityIsCached() throws IOException, PGPException {
+        KeyRingInfoCache cache = new KeyRingInfoCache(10, 60 * 1000);
+        PGPSecretKeyRing secretKeys = TestKeys.getJulietSecretKeyRing();
+        Date date = new Date(1600000000000L);
+        Date sameMinute = new Date(date.getTime() + 1);
+
+        KeyRingInfo info = cache.get(secretKeys, date);
+        assertSame(info, cache.get(secretKeys, sameMinute));
+        assertSame(info, cache.get(TestKeys.getJulietSecretKeyRing(), date));
+        assertEquals(1, cache.size());
+
+        assertNotSame(info, cache.get(secretKeys, new Date(date.getTime() + 60 * 1000)));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void publicAndSecretKeyRingAreCachedSeparately() throws IOException, PGPException {
+        KeyRingInfoCache cache = new KeyRingInfoCache(10, 1000);
+        PGPSecretKeyRing secretKeys = TestKeys.getJulietSecretKeyRing();
+        PGPPublicKeyRing publicKeys = PGPainless.extractCertificate(secretKeys);
+
+        assertTrue(cache.get(secretKeys).isSecretKey());
+        assertFalse(cache.get(publicKeys).isSecretKey());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void modifiedKeyRingIsNotServedFromCache() throws IOException, PGPException {
+        KeyRingInfoCache cache = new KeyRingInfoCache(10, 60 * 1000);
+        PGPSecretKeyRing secretKeys = TestKeys.getJulietSecretKeyRing();
+        KeyRingInfo info = cache.get(secretKeys);
+
+        PGPSecretKeyRing modified = PGPainless.modifyKeyRing(secretKeys)
+                .addUserId("juliet@montague.lit", SecretKeyRingProtector.unprotectedKeys())
+                .done();
+        KeyRingInfo modifiedInfo = cache.get(modified);
+
+        assertNotSame(info, modifiedInfo);
+        assertFalse(info.getUserIds().contains("juliet@montague.lit"));
+        assertTrue(modifiedInfo.getUserIds().contains("juliet@montague.lit"));
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvicted() throws IOException, PGPException {
+        KeyRingInfoCache cache = new KeyRingInfoCache(2, 0);
+        PGPSecretKeyRing juliet = TestKeys.getJulietSecretKeyRing();
+        PGPSecretKeyRing romeo = TestKeys.getRomeoSecretKeyRing();
+        PGPSecretKeyRing emil = TestKeys.getEmilSecretKeyRing();
+        Date date = new Date();
+
+        KeyRingInfo julietInfo = cache.get(juliet, date);
+        cache.get(romeo, date);
+        // Access juliet, so that romeo becomes the eldest entry
+        assertSame(julietInfo, cache.get(juliet, date));
+        cache.get(emil, date);
+
+        assertEquals(2, cache.size());
+        assertSame(julietInfo, cache.get(juliet, date));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void negativeParametersAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new KeyRingInfoCache(-1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new KeyRingInfoCache(1, -1));
+    }
+}
@@ -14,6 +14,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import java.io.IOException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
@@ -23,6 +24,10 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.bouncycastle.openpgp.PGPException;
 import org.bouncycastle.openpgp.PGPPublicKey;
@@ -46,6 +51,7 @@ import org.pgpainless.key.generation.KeySpec;
 import org.pgpainless.key.generation.type.KeyType;
 import org.pgpainless.key.generation.type.ecc.EllipticCurve;
 import org.pgpainless.key.generation.type.eddsa.EdDSACurve;
+import org.pgpainless.key.generation.type.xdh.XDHSpec;
 import org.pgpainless.key.protection.SecretKeyRingProtector;
 import org.pgpainless.key.protection.UnprotectedKeysProtector;
 import org.pgpainless.key.util.KeyRingUtils;
@@ -701,4 +707,70 @@ public class KeyRingInfoTest {
         assertTrue(unboundKeyCreation.after(latestModification));
         assertTrue(unboundKeyCreation.after(latestKeyCreation));
     }
+
+    @Test
+    public void memoizedResultsCannotBeModifiedByCaller()
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        PGPSecretKeyRing secretKeys = PGPainless.buildKeyRing()
+                .setPrimaryKey(KeySpec.getBuilder(KeyType.EDDSA(EdDSACurve._Ed25519), KeyFlag.CERTIFY_OTHER))
+                .addSubkey(KeySpec.getBuilder(KeyType.XDH(XDHSpec._X25519), KeyFlag.ENCRYPT_COMMS))
+                .addUserId("Alice <alice@pgpainless.org>")
+                .setExpirationDate(DateUtil.parseUTCDate("2099-01-01 00:00:00 UTC"))
+                .build();
+        KeyRingInfo info = PGPainless.inspectKeyRing(secretKeys);
+
+        info.getUserIds().add("Bob");
+        info.getValidUserIds().clear();
+        info.getEmailAddresses().clear();
+        info.getPrimaryKeyExpirationDate().setTime(0);
+        info.getKeyFlagsOf(info.getKeyId()).clear();
+
+        assertEquals(Collections.singletonList("Alice <alice@pgpainless.org>"), info.getUserIds());
+        assertEquals(Collections.singletonList("Alice <alice@pgpainless.org>"), info.getValidUserIds());
+        assertEquals(Collections.singletonList("alice@pgpainless.org"), info.getEmailAddresses());
+        assertEquals(DateUtil.parseUTCDate("2099-01-01 00:00:00 UTC"), info.getPrimaryKeyExpirationDate());
+        assertEquals(Collections.singletonList(KeyFlag.CERTIFY_OTHER), info.getKeyFlagsOf(info.getKeyId()));
+    }
+
+    @Test
+    public void sharedInstanceEvaluatesConsistentlyAcrossThreads()
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException,
+            InterruptedException, ExecutionException {
+        PGPSecretKeyRing secretKeys = PGPainless.generateKeyRing().modernKeyRing("Alice <alice@pgpainless.org>", null);
+        for (int i = 0; i < 10; i++) {
+            secretKeys = PGPainless.modifyKeyRing(secretKeys)
+                    .addUserId("Alice <alice" + i + "@pgpainless.org>", SecretKeyRingProtector.unprotectedKeys())
+                    .done();
+        }
+        Date now = new Date();
+        KeyRingInfo shared = new KeyRingInfo(secretKeys, now);
+        KeyRingInfo reference = new KeyRingInfo(secretKeys, now);
+        String expected = describe(reference);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                results.add(executor.submit(() -> describe(shared)));
+            }
+            for (Future<String> result : results) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static String describe(KeyRingInfo info) {
+        StringBuilder sb = new StringBuilder()
+                .append(info.getPrimaryUserId()).append(info.getValidUserIds()).append(info.getEmailAddresses())
+                .append(info.getPrimaryKeyExpirationDate()).append(info.getLastModified());
+        for (PGPPublicKey key : info.getPublicKeys()) {
+            sb.append(key.getKeyID()).append(info.isKeyValidlyBound(key.getKeyID())).append(info.getKeyFlagsOf(key.getKeyID()));
+        }
+        for (PGPPublicKey key : info.getEncryptionSubkeys(EncryptionPurpose.ANY)) {
+            sb.append(key.getKeyID());
+        }
+        return sb.toString();
+    }
 }
@@ -0,0 +1,184 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.key.parsing;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.bouncycastle.bcpg.BCPGOutputStream;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPKeyRing;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.key.OpenPgpFingerprint;
+import org.pgpainless.key.TestKeys;
+import org.pgpainless.key.info.KeyRingInfo;
+import org.pgpainless.util.ArmorUtils;
+import org.pgpainless.util.TestUtils;
+
+public class KeyRingIteratorTest {
+
+    @Test
+    public void readBinaryKeyRings() throws IOException, PGPException {
+        List<PGPKeyRing> expected = keyRings();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (PGPKeyRing keyRing : expected) {
+            keyRing.encode(out);
+        }
+
+        KeyRingIterator iterator = PGPainless.readKeyRing().keyRingIterator(new ByteArrayInputStream(out.toByteArray()));
+        assertKeyRings(expected, iterator);
+        assertEquals(0, iterator.getSkippedKeyRings());
+        assertThrows(NoSuchElementException.class, iterator::next);
+        iterator.close();
+    }
+
+    @Test
+    public void readArmoredKeyRings() throws IOException, PGPException {
+        List<PGPKeyRing> expected = keyRings();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write("Leading text\n\n".getBytes(StandardCharsets.UTF_8));
+        for (PGPKeyRing keyRing : expected) {
+            ArmorUtils.writeAsciiArmored(keyRing, out);
+            out.write("Text between blocks\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        KeyRingIterator iterator = KeyRingReader.readKeyRingIterator(new ByteArrayInputStream(out.toByteArray()));
+        assertKeyRings(expected, iterator);
+        assertEquals(0, iterator.getSkippedKeyRings());
+    }
+
+    @Test
+    public void corruptedArmorBlockIsSkipped() throws IOException, PGPException {
+        List<PGPKeyRing> keyRings = keyRings();
+        String first = ArmorUtils.toAsciiArmoredString(keyRings.get(0).getEncoded());
+        String second = ArmorUtils.toAsciiArmoredString(keyRings.get(1).getEncoded());
+        String third = ArmorUtils.toAsciiArmoredString(keyRings.get(2).getEncoded());
+        // Replace the checksum of the second block
+        int crcStart = second.lastIndexOf("\n=") + 2;
+        second = second.substring(0, crcStart) + "AAAA" + second.substring(crcStart + 4);
+
+        KeyRingIterator iterator = KeyRingReader.readKeyRingIterator(
+                new ByteArrayInputStream((first + second + third).getBytes(StandardCharsets.UTF_8)));
+        assertKeyRings(Arrays.asList(keyRings.get(0), keyRings.get(2)), iterator);
+        assertEquals(1, iterator.getSkippedKeyRings());
+    }
+
+    @Test
+    public void garbageAndMalformedKeyRingsAreSkipped() throws IOException, PGPException {
+        List<PGPKeyRing> expected = keyRings();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BCPGOutputStream packetOut = new BCPGOutputStream(out);
+        TestUtils.getMarkerPacket().encode(packetOut);
+        expected.get(0).encode(out);
+        // garbage between key rings
+        out.write("garbage".getBytes(StandardCharsets.UTF_8));
+        expected.get(1).encode(out);
+        // truncated public key packet
+        out.write(new byte[] {(byte) 0xc6, 3, 4, 0, 0});
+        TestUtils.getMarkerPacket().encode(packetOut);
+        expected.get(2).encode(out);
+        expected.get(3).encode(out);
+
+        KeyRingIterator iterator = KeyRingReader.readKeyRingIterator(new ByteArrayInputStream(out.toByteArray()));
+        assertKeyRings(expected, iterator);
+        assertEquals(1, iterator.getSkippedKeyRings());
+    }
+
+    @Test
+    public void truncatedKeyRingIsSkipped() throws IOException, PGPException {
+        byte[] first = TestKeys.getJulietPublicKeyRing().getEncoded();
+        byte[] second = TestKeys.getRomeoPublicKeyRing().getEncoded();
+        byte[] data = new byte[first.length + second.length / 2];
+        System.arraycopy(first, 0, data, 0, first.length);
+        System.arraycopy(second, 0, data, first.length, second.length / 2);
+
+        KeyRingIterator iterator = KeyRingReader.readKeyRingIterator(new ByteArrayInputStream(data));
+        assertKeyRings(Arrays.<PGPKeyRing>asList(TestKeys.getJulietPublicKeyRing()), iterator);
+        assertEquals(1, iterator.getSkippedKeyRings());
+    }
+
+    @Test
+    public void oversizedKeyRingsAreSkipped() throws IOException, PGPException {
+        PGPSecretKeyRing secretKeys = TestKeys.getJulietSecretKeyRing();
+        PGPPublicKeyRing certificate = TestKeys.getRomeoPublicKeyRing();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        secretKeys.encode(out);
+        certificate.encode(out);
+
+        int limit = certificate.getEncoded().length;
+        assertTrue(secretKeys.getEncoded().length > limit);
+        KeyRingIterator iterator = KeyRingReader.readKeyRingIterator(new ByteArrayInputStream(out.toByteArray()), limit);
+        assertKeyRings(Arrays.<PGPKeyRing>asList(certificate), iterator);
+        assertEquals(1, iterator.getSkippedKeyRings());
+    }
+
+    @Test
+    public void emptyInput() throws IOException {
+        KeyRingIterator iterator = KeyRingReader.readKeyRingIterator(new ByteArrayInputStream(new byte[0]));
+        assertFalse(iterator.hasNext());
+        assertEquals(0, iterator.getSkippedKeyRings());
+    }
+
+    @Test
+    public void parallelStreamConsumption() throws IOException, PGPException {
+        List<PGPKeyRing> keyRings = keyRings();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < 50; i++) {
+            for (PGPKeyRing keyRing : keyRings) {
+                keyRing.encode(out);
+            }
+        }
+
+        KeyRingIterator iterator = KeyRingReader.readKeyRingIterator(new ByteArrayInputStream(out.toByteArray()));
+        List<OpenPgpFingerprint> fingerprints = StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), true)
+                .map(keyRing -> new KeyRingInfo(keyRing).getFingerprint())
+                .collect(Collectors.toList());
+
+        assertEquals(200, fingerprints.size());
+        Set<OpenPgpFingerprint> distinct = fingerprints.stream().collect(Collectors.toSet());
+        assertEquals(3, distinct.size());
+        assertEquals(OpenPgpFingerprint.of(keyRings.get(0)), fingerprints.get(0));
+    }
+
+    private static List<PGPKeyRing> keyRings() throws IOException, PGPException {
+        List<PGPKeyRing> keyRings = new ArrayList<>();
+        keyRings.add(TestKeys.getJulietPublicKeyRing());
+        keyRings.add(TestKeys.getRomeoPublicKeyRing());
+        keyRings.add(TestKeys.getEmilPublicKeyRing());
+        keyRings.add(TestKeys.getJulietSecretKeyRing());
+        return keyRings;
+    }
+
+    private static void assertKeyRings(List<PGPKeyRing> expected, KeyRingIterator iterator) throws IOException {
+        for (PGPKeyRing keyRing : expected) {
+            assertTrue(iterator.hasNext());
+            PGPKeyRing next = iterator.next();
+            assertEquals(keyRing.getClass(), next.getClass());
+            assertArrayEquals(keyRing.getEncoded(), next.getEncoded());
+        }
+        assertFalse(iterator.hasNext());
+    }
+}
@@ -0,0 +1,324 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.key.protection;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.PrivateKey;
+import java.security.interfaces.RSAPrivateCrtKey;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPrivateKey;
+import org.bouncycastle.openpgp.PGPSecretKey;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.openpgp.operator.jcajce.JcaPGPKeyConverter;
+import org.bouncycastle.openpgp.operator.jcajce.JcaPGPPrivateKey;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.decryption_verification.MissingKeyPassphraseStrategy;
+import org.pgpainless.encryption_signing.EncryptionOptions;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.encryption_signing.SigningOptions;
+import org.pgpainless.implementation.BcImplementationFactory;
+import org.pgpainless.implementation.ImplementationFactory;
+import org.pgpainless.implementation.JceImplementationFactory;
+import org.pgpainless.key.TestKeys;
+
+public class PrivateKeyCacheTest {
+
+    private static class ManualClock implements PrivateKeyCache.Clock {
+        private long now = 0;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+    }
+
+    private static class DestroyableKey implements PrivateKey {
+        private boolean destroyed = false;
+
+        @Override
+        public String getAlgorithm() {
+            return "RSA";
+        }
+
+        @Override
+        public String getFormat() {
+            return null;
+        }
+
+        @Override
+        public byte[] getEncoded() {
+            return null;
+        }
+
+        @Override
+        public void destroy() {
+            destroyed = true;
+        }
+
+        @Override
+        public boolean isDestroyed() {
+            return destroyed;
+        }
+    }
+
+    private static class DestroyableRsaKey implements RSAPrivateCrtKey {
+        private final RSAPrivateCrtKey key;
+        private boolean destroyed = false;
+
+        DestroyableRsaKey(RSAPrivateCrtKey key) {
+            this.key = key;
+        }
+
+        @Override
+        public BigInteger getPublicExponent() {
+            return key.getPublicExponent();
+        }
+
+        @Override
+        public BigInteger getPrimeP() {
+            return key.getPrimeP();
+        }
+
+        @Override
+        public BigInteger getPrimeQ() {
+            return key.getPrimeQ();
+        }
+
+        @Override
+        public BigInteger getPrimeExponentP() {
+            return key.getPrimeExponentP();
+        }
+
+        @Override
+        public BigInteger getPrimeExponentQ() {
+            return key.getPrimeExponentQ();
+        }
+
+        @Override
+        public BigInteger getCrtCoefficient() {
+            return key.getCrtCoefficient();
+        }
+
+        @Override
+        public BigInteger getPrivateExponent() {
+            return key.getPrivateExponent();
+        }
+
+        @Override
+        public BigInteger getModulus() {
+            return key.getModulus();
+        }
+
+        @Override
+        public String getAlgorithm() {
+            return key.getAlgorithm();
+        }
+
+        @Override
+        public String getFormat() {
+            return key.getFormat();
+        }
+
+        @Override
+        public byte[] getEncoded() {
+            return key.getEncoded();
+        }
+
+        @Override
+        public void destroy() {
+            destroyed = true;
+        }
+
+        @Override
+        public boolean isDestroyed() {
+            return destroyed;
+        }
+    }
+
+    @Test
+    public void invalidParametersAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new PrivateKeyCache(0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new PrivateKeyCache(1, -1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new PrivateKeyCache(1, 0, -1));
+    }
+
+    @Test
+    public void entriesExpireAfterTimeToLive() throws IOException, PGPException {
+        ManualClock clock = new ManualClock();
+        PrivateKeyCache cache = new PrivateKeyCache(10, 1000, 0, clock);
+        PGPSecretKey secretKey = TestKeys.getCryptieSecretKeyRing().getSecretKey();
+        PGPPrivateKey privateKey = UnlockSecretKey.unlockSecretKey(secretKey, TestKeys.CRYPTIE_PASSPHRASE);
+
+        cache.put(secretKey, privateKey).close();
+        clock.now = 999;
+        assertSame(privateKey, cached(cache, secretKey));
+        clock.now = 1000;
+        assertNull(cached(cache, secretKey));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void entriesExpireAfterMaxIdleTime() throws IOException, PGPException {
+        ManualClock clock = new ManualClock();
+        PrivateKeyCache cache = new PrivateKeyCache(10, 0, 100, clock);
+        PGPSecretKey secretKey = TestKeys.getCryptieSecretKeyRing().getSecretKey();
+        PGPPrivateKey privateKey = UnlockSecretKey.unlockSecretKey(secretKey, TestKeys.CRYPTIE_PASSPHRASE);
+
+        cache.put(secretKey, privateKey).close();
+        // Every access resets the idle timer
+        for (int i = 0; i < 5; i++) {
+            clock.now += 99;
+            assertSame(privateKey, cached(cache, secretKey));
+        }
+
+        clock.now += 100;
+        assertEquals(1, cache.evictExpired());
+        assertEquals(0, cache.size());
+        assertNull(cached(cache, secretKey));
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvicted() throws IOException, PGPException {
+        PrivateKeyCache cache = new PrivateKeyCache(1, 0, 0);
+        PGPSecretKey juliet = TestKeys.getJulietSecretKeyRing().getSecretKey();
+        PGPSecretKey romeo = TestKeys.getRomeoSecretKeyRing().getSecretKey();
+        PGPPrivateKey julietPrivate = UnlockSecretKey.unlockSecretKey(juliet, SecretKeyRingProtector.unprotectedKeys());
+        PGPPrivateKey romeoPrivate = UnlockSecretKey.unlockSecretKey(romeo, SecretKeyRingProtector.unprotectedKeys());
+
+        cache.put(juliet, julietPrivate).close();
+        cache.put(romeo, romeoPrivate).close();
+
+        assertEquals(1, cache.size());
+        assertNull(cached(cache, juliet));
+        assertSame(romeoPrivate, cached(cache, romeo));
+
+        cache.invalidate(romeo);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void leasedKeyIsWipedOnlyOnceReleased() throws IOException, PGPException {
+        PrivateKeyCache cache = new PrivateKeyCache(1, 0, 0);
+        PGPSecretKey juliet = TestKeys.getJulietSecretKeyRing().getSecretKey();
+        PGPSecretKey romeo = TestKeys.getRomeoSecretKeyRing().getSecretKey();
+        DestroyableKey julietKey = new DestroyableKey();
+        DestroyableKey romeoKey = new DestroyableKey();
+
+        PrivateKeyCache.Lease julietLease = cache.put(juliet, new JcaPGPPrivateKey(juliet.getKeyID(), julietKey));
+        PrivateKeyCache.Lease secondLease = cache.acquire(juliet);
+        // Juliet's key is evicted while it is still in use
+        cache.put(romeo, new JcaPGPPrivateKey(romeo.getKeyID(), romeoKey)).close();
+        assertNull(cached(cache, juliet));
+        assertFalse(julietKey.isDestroyed());
+
+        julietLease.close();
+        julietLease.close();
+        assertFalse(julietKey.isDestroyed());
+        secondLease.close();
+        assertTrue(julietKey.isDestroyed());
+
+        // Keys which are not leased are wiped right away
+        cache.invalidate(romeo);
+        assertTrue(romeoKey.isDestroyed());
+    }
+
+    @Test
+    public void cachedKeyDecryptsWithoutPassphrase() throws IOException, PGPException {
+        PGPSecretKeyRing secretKeys = TestKeys.getCryptieSecretKeyRing();
+        byte[] plaintext = "Hello, Cryptie!".getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream ciphertext = new ByteArrayOutputStream();
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(ciphertext)
+                .withOptions(ProducerOptions.encrypt(EncryptionOptions.encryptCommunications()
+                        .addRecipient(TestKeys.getCryptiePublicKeyRing())));
+        encryptionStream.write(plaintext);
+        encryptionStream.close();
+
+        PrivateKeyCache cache = new PrivateKeyCache(10, 0, 0);
+        SecretKeyRingProtector protector = SecretKeyRingProtector.unlockAnyKeyWith(TestKeys.CRYPTIE_PASSPHRASE);
+        assertArrayEquals(plaintext, decrypt(ciphertext.toByteArray(), new ConsumerOptions()
+                .setPrivateKeyCache(cache)
+                .addDecryptionKey(secretKeys, protector)));
+        assertEquals(1, cache.size());
+
+        // Second decryption does not need the passphrase anymore
+        assertArrayEquals(plaintext, decrypt(ciphertext.toByteArray(), new ConsumerOptions()
+                .setPrivateKeyCache(cache)
+                .setMissingKeyPassphraseStrategy(MissingKeyPassphraseStrategy.THROW_EXCEPTION)
+                .addDecryptionKey(secretKeys, SecretKeyRingProtector.unprotectedKeys())));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void signingKeyIsReleasedWhenStreamIsClosed() throws IOException, PGPException {
+        ImplementationFactory.setFactoryImplementation(new JceImplementationFactory());
+        try {
+            PGPSecretKeyRing secretKeys = TestKeys.getJulietSecretKeyRing();
+            PGPSecretKey signingKey = secretKeys.getSecretKey(
+                    PGPainless.inspectKeyRing(secretKeys).getSigningSubkeys().get(0).getKeyID());
+            PGPPrivateKey unlocked = UnlockSecretKey.unlockSecretKey(signingKey, SecretKeyRingProtector.unprotectedKeys());
+            DestroyableRsaKey key = new DestroyableRsaKey(
+                    (RSAPrivateCrtKey) new JcaPGPKeyConverter().getPrivateKey(unlocked));
+            PrivateKeyCache cache = new PrivateKeyCache(10, 0, 0);
+            cache.put(signingKey, new JcaPGPPrivateKey(signingKey.getPublicKey(), key)).close();
+
+            EncryptionStream signingStream = PGPainless.encryptAndOrSign()
+                    .onOutputStream(new ByteArrayOutputStream())
+                    .withOptions(ProducerOptions.sign(SigningOptions.get()
+                            .setPrivateKeyCache(cache)
+                            .addInlineSignature(SecretKeyRingProtector.unprotectedKeys(), secretKeys,
+                                    DocumentSignatureType.BINARY_DOCUMENT)));
+            // The key is evicted while it is still in use
+            cache.invalidate(signingKey);
+            assertFalse(key.isDestroyed());
+
+            signingStream.write("Hello, Juliet!".getBytes(StandardCharsets.UTF_8));
+            signingStream.close();
+            assertTrue(key.isDestroyed());
+        } finally {
+            ImplementationFactory.setFactoryImplementation(new BcImplementationFactory());
+        }
+    }
+
+    private static PGPPrivateKey cached(PrivateKeyCache cache, PGPSecretKey secretKey) {
+        PrivateKeyCache.Lease lease = cache.acquire(secretKey);
+        if (lease == null) {
+            return null;
+        }
+        lease.close();
+        return lease.getPrivateKey();
+    }
+
+    private static byte[] decrypt(byte[] ciphertext, ConsumerOptions options) throws PGPException, IOException {
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new ByteArrayInputStream(ciphertext))
+                .withOptions(options);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Streams.pipeAll(decryptionStream, out);
+        decryptionStream.close();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,85 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.key.protection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPSecretKey;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.key.TestKeys;
+import org.pgpainless.policy.Policy;
+
+public class VerifiedKeyCacheTest {
+
+    @Test
+    public void unlockTwiceWithVerifyOnceHitsCache() throws IOException, PGPException {
+        Policy policy = PGPainless.getPolicy();
+        Policy.KeyParameterValidationPolicy before = policy.getKeyParameterValidationPolicy();
+        VerifiedKeyCache cache = VerifiedKeyCache.getInstance();
+        cache.clear();
+
+        PGPSecretKeyRing secretKeys = TestKeys.getCryptieSecretKeyRing();
+        PGPSecretKey secretKey = secretKeys.getSecretKey();
+        try {
+            policy.setKeyParameterValidationPolicy(Policy.KeyParameterValidationPolicy.VERIFY_ONCE);
+
+            UnlockSecretKey.unlockSecretKey(secretKey, TestKeys.CRYPTIE_PASSPHRASE);
+            assertEquals(0, cache.getHitCount());
+            assertEquals(1, cache.getMissCount());
+            assertEquals(1, cache.size());
+
+            UnlockSecretKey.unlockSecretKey(secretKey, TestKeys.CRYPTIE_PASSPHRASE);
+            assertEquals(1, cache.getHitCount());
+            assertEquals(1, cache.getMissCount());
+        } finally {
+            policy.setKeyParameterValidationPolicy(before);
+            cache.clear();
+        }
+    }
+
+    @Test
+    public void verifyAlwaysDoesNotUseCache() throws IOException, PGPException {
+        VerifiedKeyCache cache = VerifiedKeyCache.getInstance();
+        cache.clear();
+        assertEquals(Policy.KeyParameterValidationPolicy.VERIFY_ALWAYS,
+                PGPainless.getPolicy().getKeyParameterValidationPolicy());
+
+        PGPSecretKeyRing secretKeys = TestKeys.getCryptieSecretKeyRing();
+        UnlockSecretKey.unlockSecretKey(secretKeys.getSecretKey(), TestKeys.CRYPTIE_PASSPHRASE);
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void cacheIsBounded() throws IOException, PGPException {
+        VerifiedKeyCache cache = new VerifiedKeyCache(1);
+        PGPSecretKey juliet = TestKeys.getJulietSecretKeyRing().getSecretKey();
+        PGPSecretKey romeo = TestKeys.getRomeoSecretKeyRing().getSecretKey();
+
+        cache.markVerified(juliet);
+        assertTrue(cache.isVerified(juliet));
+        cache.markVerified(romeo);
+
+        assertEquals(1, cache.size());
+        assertTrue(cache.isVerified(romeo));
+        assertFalse(cache.isVerified(juliet));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void nonPositiveCapacityIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new VerifiedKeyCache(0));
+    }
+}
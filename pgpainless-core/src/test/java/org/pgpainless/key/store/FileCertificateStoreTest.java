@@ -0,0 +1,216 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.key.store;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.encryption_signing.SigningOptions;
+import org.pgpainless.key.TestKeys;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.util.TestUtils;
+
+public class FileCertificateStoreTest {
+
+    @Test
+    public void lookupByKeyIdFingerprintAndEmail() throws IOException {
+        File directory = TestUtils.createTempDirectory();
+        try (FileCertificateStore store = FileCertificateStore.open(directory)) {
+            store.addAll(certificates());
+            assertLookups(store);
+        }
+    }
+
+    @Test
+    public void lookupsSurviveReopening() throws IOException {
+        File directory = TestUtils.createTempDirectory();
+        try (FileCertificateStore store = FileCertificateStore.open(directory)) {
+            store.addAll(certificates());
+        }
+        try (FileCertificateStore store = FileCertificateStore.open(directory)) {
+            assertLookups(store);
+        }
+    }
+
+    @Test
+    public void indexIsRebuiltIfMissing() throws IOException {
+        File directory = TestUtils.createTempDirectory();
+        try (FileCertificateStore store = FileCertificateStore.open(directory)) {
+            store.addAll(certificates());
+        }
+        assertTrue(new File(directory, FileCertificateStore.INDEX_FILE_NAME).delete());
+        try (FileCertificateStore store = FileCertificateStore.open(directory)) {
+            assertLookups(store);
+        }
+    }
+
+    @Test
+    public void incompleteRecordIsDiscarded() throws IOException {
+        File directory = TestUtils.createTempDirectory();
+        try (FileCertificateStore store = FileCertificateStore.open(directory)) {
+            store.addAll(certificates());
+        }
+        File dataFile = new File(directory, FileCertificateStore.DATA_FILE_NAME);
+        long length = dataFile.length();
+        // Simulate a crash while appending a record
+        try (FileOutputStream out = new FileOutputStream(dataFile, true)) {
+            out.write(new byte[] {0, 0, 1, 0, (byte) 0x99, 1, 2});
+        }
+
+        try (FileCertificateStore store = FileCertificateStore.open(directory)) {
+            assertEquals(length, dataFile.length());
+            assertLookups(store);
+            store.add(TestKeys.getCryptiePublicKeyRing());
+            assertNotNull(store.get(TestKeys.CRYPTIE_KEY_ID));
+        }
+    }
+
+    @Test
+    public void identicalCertificateIsNotStoredTwice() throws IOException {
+        File directory = TestUtils.createTempDirectory();
+        File dataFile = new File(directory, FileCertificateStore.DATA_FILE_NAME);
+        try (FileCertificateStore store = FileCertificateStore.open(directory)) {
+            store.add(TestKeys.getJulietPublicKeyRing());
+            store.flush();
+            long length = dataFile.length();
+            store.add(TestKeys.getJulietPublicKeyRing());
+            store.flush();
+            assertEquals(length, dataFile.length());
+            assertEquals(1, store.getAll(TestKeys.JULIET_KEY_ID).size());
+        }
+    }
+
+    @Test
+    public void updatedCertificateSupersedesPreviousVersion()
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException, IOException {
+        PGPSecretKeyRing secretKeys = PGPainless.generateKeyRing()
+                .modernKeyRing("Alice <alice@pgpainless.org>", null);
+        PGPPublicKeyRing certificate = PGPainless.extractCertificate(secretKeys);
+        PGPSecretKeyRing updatedKeys = PGPainless.modifyKeyRing(secretKeys)
+                .addUserId("Alice <alice@example.org>", SecretKeyRingProtector.unprotectedKeys())
+                .done();
+        PGPPublicKeyRing updated = PGPainless.extractCertificate(updatedKeys);
+
+        File directory = TestUtils.createTempDirectory();
+        try (FileCertificateStore store = FileCertificateStore.open(directory)) {
+            store.add(certificate);
+            assertTrue(store.getByEmail("alice@example.org").isEmpty());
+
+            store.add(updated);
+            long keyId = certificate.getPublicKey().getKeyID();
+            assertArrayEquals(updated.getEncoded(), store.get(keyId).getEncoded());
+            assertEquals(1, store.getAll(keyId).size());
+            assertEquals(1, store.getByEmail("alice@example.org").size());
+            assertArrayEquals(updated.getEncoded(), store.getByEmail("alice@pgpainless.org").get(0).getEncoded());
+        }
+    }
+
+    @Test
+    public void indexGrowsBeyondInitialCapacity()
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException, IOException {
+        List<PGPPublicKeyRing> certificates = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            certificates.add(PGPainless.extractCertificate(PGPainless.generateKeyRing()
+                    .modernKeyRing("user" + i + "@pgpainless.org", null)));
+        }
+
+        File directory = TestUtils.createTempDirectory();
+        try (FileCertificateStore store = FileCertificateStore.open(directory, 16)) {
+            store.addAll(certificates);
+        }
+        try (FileCertificateStore store = FileCertificateStore.open(directory, 16)) {
+            for (int i = 0; i < certificates.size(); i++) {
+                PGPPublicKeyRing certificate = certificates.get(i);
+                for (PGPPublicKey key : certificate) {
+                    assertArrayEquals(certificate.getEncoded(), store.get(key.getKeyID()).getEncoded());
+                }
+                assertEquals(1, store.getByEmail("User" + i + "@PGPainless.org").size());
+            }
+        }
+
+        // The grown index was written to a new file, which superseded the initial one
+        String[] indexFiles = directory.list((dir, name) -> name.startsWith(FileCertificateStore.INDEX_FILE_NAME));
+        assertEquals(1, indexFiles.length);
+        assertNotEquals(FileCertificateStore.INDEX_FILE_NAME, indexFiles[0]);
+    }
+
+    @Test
+    public void missingCertificatesAreLookedUpInStore() throws PGPException, IOException {
+        PGPSecretKeyRing signingKeys = TestKeys.getEmilSecretKeyRing();
+        String message = "Hello, World!\n";
+        ByteArrayOutputStream signed = new ByteArrayOutputStream();
+        EncryptionStream signingStream = PGPainless.encryptAndOrSign().onOutputStream(signed)
+                .withOptions(ProducerOptions.sign(new SigningOptions().addInlineSignature(
+                        SecretKeyRingProtector.unprotectedKeys(), signingKeys, DocumentSignatureType.BINARY_DOCUMENT)));
+        Streams.pipeAll(new ByteArrayInputStream(message.getBytes(StandardCharsets.UTF_8)), signingStream);
+        signingStream.close();
+
+        File directory = TestUtils.createTempDirectory();
+        try (FileCertificateStore store = FileCertificateStore.open(directory)) {
+            store.addAll(certificates());
+            DecryptionStream verificationStream = PGPainless.decryptAndOrVerify()
+                    .onInputStream(new ByteArrayInputStream(signed.toByteArray()))
+                    .withOptions(new ConsumerOptions()
+                            .setMissingCertificateCallback(new CertificateStoreCallback(store)));
+            Streams.drain(verificationStream);
+            verificationStream.close();
+
+            assertTrue(verificationStream.getResult().containsVerifiedSignatureFrom(TestKeys.getEmilPublicKeyRing()));
+        }
+    }
+
+    private static List<PGPPublicKeyRing> certificates() throws IOException {
+        return Arrays.asList(TestKeys.getJulietPublicKeyRing(), TestKeys.getRomeoPublicKeyRing(),
+                TestKeys.getEmilPublicKeyRing());
+    }
+
+    private static void assertLookups(FileCertificateStore store) throws IOException {
+        for (PGPPublicKeyRing certificate : certificates()) {
+            for (PGPPublicKey key : certificate) {
+                assertArrayEquals(certificate.getEncoded(), store.get(key.getKeyID()).getEncoded());
+            }
+        }
+        assertArrayEquals(TestKeys.getRomeoPublicKeyRing().getEncoded(),
+                store.get(TestKeys.ROMEO_FINGERPRINT).getEncoded());
+
+        List<PGPPublicKeyRing> byEmail = store.getByEmail("Emil@Email.user");
+        assertEquals(1, byEmail.size());
+        assertArrayEquals(TestKeys.getEmilPublicKeyRing().getEncoded(), byEmail.get(0).getEncoded());
+        // xmpp URIs are no e-mail addresses
+        assertTrue(store.getByEmail("juliet@capulet.lit").isEmpty());
+
+        assertNull(store.get(TestKeys.CRYPTIE_KEY_ID));
+        assertNull(store.get(TestKeys.CRYPTIE_FINGERPRINT));
+        assertTrue(store.getAll(TestKeys.CRYPTIE_KEY_ID).isEmpty());
+    }
+}
@@ -0,0 +1,70 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.key.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.key.OpenPgpFingerprint;
+import org.pgpainless.key.SubkeyIdentifier;
+import org.pgpainless.key.TestKeys;
+
+public class KeyRingIndexTest {
+
+    @Test
+    public void lookupByKeyIdAndFingerprint() throws IOException {
+        PGPPublicKeyRing juliet = TestKeys.getJulietPublicKeyRing();
+        PGPPublicKeyRing romeo = TestKeys.getRomeoPublicKeyRing();
+        PGPPublicKeyRing emil = TestKeys.getEmilPublicKeyRing();
+        KeyRingIndex<PGPPublicKeyRing> index = KeyRingIndex.of(Arrays.asList(juliet, romeo, emil));
+
+        assertEquals(3, index.size());
+        for (PGPPublicKeyRing certificate : Arrays.asList(juliet, romeo, emil)) {
+            Iterator<PGPPublicKey> keys = certificate.getPublicKeys();
+            while (keys.hasNext()) {
+                PGPPublicKey key = keys.next();
+                assertSame(certificate, index.get(key.getKeyID()));
+                assertSame(certificate, index.get(OpenPgpFingerprint.of(key)));
+                assertEquals(new SubkeyIdentifier(certificate, key.getKeyID()), index.getSubkeyIdentifier(key.getKeyID()));
+            }
+        }
+
+        assertNull(index.get(TestKeys.CRYPTIE_KEY_ID));
+        assertNull(index.getSubkeyIdentifier(TestKeys.CRYPTIE_KEY_ID));
+        assertEquals(Collections.emptyList(), index.getAll(TestKeys.CRYPTIE_KEY_ID));
+    }
+
+    @Test
+    public void collidingKeyIdsPreserveOrder() throws IOException {
+        PGPPublicKeyRing certificate = TestKeys.getJulietPublicKeyRing();
+        PGPPublicKeyRing copy = PGPainless.readKeyRing().publicKeyRing(certificate.getEncoded());
+        KeyRingIndex<PGPPublicKeyRing> index = KeyRingIndex.of(Arrays.asList(certificate, copy));
+        long keyId = certificate.getPublicKey().getKeyID();
+
+        assertEquals(Arrays.asList(certificate, copy), index.getAll(keyId));
+        assertSame(certificate, index.get(keyId));
+    }
+
+    @Test
+    public void secretKeyRingIndexContainsOnlySecretKeys() throws IOException, PGPException {
+        PGPSecretKeyRing secretKeys = TestKeys.getCryptieSecretKeyRing();
+        KeyRingIndex<PGPSecretKeyRing> index = KeyRingIndex.of(Collections.singletonList(secretKeys));
+
+        assertSame(secretKeys, index.get(TestKeys.CRYPTIE_KEY_ID));
+        assertSame(secretKeys, index.get(TestKeys.CRYPTIE_FINGERPRINT));
+    }
+}
@@ -0,0 +1,180 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.signature;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.KeyFlag;
+import org.pgpainless.key.TestKeys;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.key.util.RevocationAttributes;
+import org.pgpainless.policy.Policy;
+import org.pgpainless.signature.consumer.CertificateTimeline;
+import org.pgpainless.signature.consumer.CertificateTimelineCache;
+import org.pgpainless.signature.subpackets.RevocationSignatureSubpackets;
+
+public class CertificateTimelineTest {
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    @Test
+    public void softlyRevokedSubkeyIsBoundUntilRevocation()
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        PGPSecretKeyRing secretKeys = PGPainless.generateKeyRing().modernKeyRing("Alice <alice@pgpainless.org>", null);
+        Date creation = secretKeys.getPublicKey().getCreationTime();
+        long signingKeyId = PGPainless.inspectKeyRing(secretKeys).getSigningSubkeys().get(0).getKeyID();
+        Date revocation = new Date(creation.getTime() + DAY);
+
+        PGPSecretKeyRing revoked = PGPainless.modifyKeyRing(secretKeys)
+                .revokeSubKey(signingKeyId, SecretKeyRingProtector.unprotectedKeys(),
+                        revocationCallback(RevocationAttributes.createKeyRevocation()
+                                .withReason(RevocationAttributes.Reason.KEY_RETIRED).withoutDescription(), revocation))
+                .done();
+        CertificateTimeline timeline = new CertificateTimeline(revoked, PGPainless.getPolicy());
+
+        Date beforeCreation = new Date(creation.getTime() - DAY);
+        assertNull(timeline.getSubkeySignature(signingKeyId, beforeCreation));
+        assertFalse(timeline.isSigningCapable(signingKeyId, beforeCreation));
+
+        Date beforeRevocation = new Date(creation.getTime() + DAY / 2);
+        assertTrue(timeline.isSubkeyBound(signingKeyId, beforeRevocation));
+        assertTrue(timeline.isSigningCapable(signingKeyId, beforeRevocation));
+        assertTrue(timeline.getKeyFlags(signingKeyId, beforeRevocation).contains(KeyFlag.SIGN_DATA));
+
+        assertFalse(timeline.isSubkeyBound(signingKeyId, revocation));
+        assertFalse(timeline.isSigningCapable(signingKeyId, new Date(revocation.getTime() + DAY)));
+        assertTrue(timeline.getKeyFlags(signingKeyId, revocation).isEmpty());
+
+        assertFalse(timeline.isPrimaryKeyRevoked(revocation));
+        assertTrue(timeline.hasBoundUserId(revocation));
+        assertTrue(timeline.getRejectedSignatures().isEmpty());
+    }
+
+    @Test
+    public void hardRevocationAppliesRetroactively()
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        PGPSecretKeyRing secretKeys = PGPainless.generateKeyRing().modernKeyRing("Alice <alice@pgpainless.org>", null);
+        Date creation = secretKeys.getPublicKey().getCreationTime();
+        long signingKeyId = PGPainless.inspectKeyRing(secretKeys).getSigningSubkeys().get(0).getKeyID();
+
+        PGPSecretKeyRing revoked = PGPainless.modifyKeyRing(secretKeys)
+                .revokeSubKey(signingKeyId, SecretKeyRingProtector.unprotectedKeys(),
+                        revocationCallback(RevocationAttributes.createKeyRevocation()
+                                .withReason(RevocationAttributes.Reason.KEY_COMPROMISED).withoutDescription(), new Date(creation.getTime() + DAY)))
+                .done();
+        CertificateTimeline timeline = new CertificateTimeline(revoked, PGPainless.getPolicy());
+
+        assertFalse(timeline.isSubkeyBound(signingKeyId, creation));
+        assertFalse(timeline.isSubkeyBound(signingKeyId, new Date(creation.getTime() + 2 * DAY)));
+        assertFalse(timeline.isSigningCapable(signingKeyId, creation));
+        assertFalse(timeline.isPrimaryKeyRevoked(creation));
+    }
+
+    @Test
+    public void softlyRevokedUserId()
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        String alice = "Alice <alice@pgpainless.org>";
+        String bob = "Bob <bob@pgpainless.org>";
+        PGPSecretKeyRing secretKeys = PGPainless.generateKeyRing().modernKeyRing(alice, null);
+        Date creation = secretKeys.getPublicKey().getCreationTime();
+        Date revocation = new Date(creation.getTime() + DAY);
+
+        PGPSecretKeyRing revoked = PGPainless.modifyKeyRing(secretKeys)
+                .revokeUserId(alice, SecretKeyRingProtector.unprotectedKeys(),
+                        revocationCallback(RevocationAttributes.createCertificateRevocation()
+                                .withReason(RevocationAttributes.Reason.USER_ID_NO_LONGER_VALID).withoutDescription(), revocation))
+                .done();
+        CertificateTimeline timeline = new CertificateTimeline(revoked, PGPainless.getPolicy());
+
+        assertTrue(timeline.isUserIdBound(alice, creation));
+        assertTrue(timeline.hasBoundUserId(creation));
+        assertFalse(timeline.isUserIdBound(alice, revocation));
+        assertFalse(timeline.hasBoundUserId(revocation));
+        assertFalse(timeline.isUserIdBound(bob, creation));
+        assertNull(timeline.getUserIdSignature(bob, creation));
+    }
+
+    @Test
+    public void timelineIsConsistentWithCurrentState() throws IOException {
+        PGPPublicKeyRing certificate = TestKeys.getEmilPublicKeyRing();
+        CertificateTimeline timeline = new CertificateTimeline(certificate, PGPainless.getPolicy());
+        Date now = new Date();
+
+        assertTrue(timeline.hasBoundUserId(now));
+        assertTrue(timeline.isUserIdBound(TestKeys.EMIL_UID, now));
+        assertFalse(timeline.isPrimaryKeyRevoked(now));
+        assertEquals(PGPainless.inspectKeyRing(certificate).getKeyFlagsOf(TestKeys.EMIL_KEY_ID),
+                timeline.getKeyFlags(TestKeys.EMIL_KEY_ID, now));
+        assertFalse(timeline.isSigningCapable(TestKeys.JULIET_KEY_ID, now));
+    }
+
+    @Test
+    public void cacheReusesTimelines() throws PGPException, IOException {
+        CertificateTimelineCache cache = new CertificateTimelineCache(2);
+        Policy policy = PGPainless.getPolicy();
+        CertificateTimeline timeline = cache.get(TestKeys.getEmilPublicKeyRing(), policy);
+        assertSame(timeline, cache.get(TestKeys.getEmilPublicKeyRing(), policy));
+
+        cache.get(TestKeys.getJulietPublicKeyRing(), policy);
+        cache.get(TestKeys.getRomeoPublicKeyRing(), policy);
+        assertEquals(2, cache.size());
+        assertNotSame(timeline, cache.get(TestKeys.getEmilPublicKeyRing(), policy));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+
+        CertificateTimelineCache disabled = CertificateTimelineCache.disabled();
+        assertFalse(disabled.isEnabled());
+        assertNotSame(disabled.get(TestKeys.getEmilPublicKeyRing(), policy),
+                disabled.get(TestKeys.getEmilPublicKeyRing(), policy));
+        assertThrows(IllegalArgumentException.class, () -> new CertificateTimelineCache(-1));
+    }
+
+    @Test
+    public void modifiedCertificateReplacesCachedTimeline()
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        CertificateTimelineCache cache = new CertificateTimelineCache(2);
+        Policy policy = PGPainless.getPolicy();
+        PGPSecretKeyRing secretKeys = PGPainless.generateKeyRing().modernKeyRing("Alice <alice@pgpainless.org>", null);
+        CertificateTimeline before = cache.get(secretKeys, policy);
+        assertSame(before, cache.get(secretKeys, policy));
+
+        PGPSecretKeyRing modified = PGPainless.modifyKeyRing(secretKeys)
+                .addUserId("Alice <alice@example.org>", SecretKeyRingProtector.unprotectedKeys())
+                .done();
+        CertificateTimeline after = cache.get(modified, policy);
+        assertNotSame(before, after);
+        assertTrue(after.isUserIdBound("Alice <alice@example.org>", new Date()));
+        // The outdated timeline was replaced
+        assertEquals(1, cache.size());
+        assertSame(after, cache.get(modified, policy));
+    }
+
+    private static RevocationSignatureSubpackets.Callback revocationCallback(RevocationAttributes attributes, Date creationTime) {
+        return new RevocationSignatureSubpackets.Callback() {
+            @Override
+            public void modifyHashedSubpackets(RevocationSignatureSubpackets hashedSubpackets) {
+                hashedSubpackets.setRevocationReason(attributes);
+                hashedSubpackets.setSignatureCreationTime(creationTime);
+            }
+        };
+    }
+}
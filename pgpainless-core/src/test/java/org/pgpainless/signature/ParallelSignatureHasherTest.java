@@ -0,0 +1,196 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.signature;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.DocumentSignatureType;
+import org.pgpainless.decryption_verification.ConsumerOptions;
+import org.pgpainless.decryption_verification.DecryptionStream;
+import org.pgpainless.decryption_verification.OpenPgpMetadata;
+import org.pgpainless.encryption_signing.EncryptionStream;
+import org.pgpainless.encryption_signing.ProducerOptions;
+import org.pgpainless.encryption_signing.SigningOptions;
+import org.pgpainless.key.TestKeys;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+
+public class ParallelSignatureHasherTest {
+
+    private static ParallelSignatureHasher.Target target(final Digest digest) {
+        return new ParallelSignatureHasher.Target() {
+            @Override
+            public void update(byte[] bytes, int offset, int length) {
+                digest.update(bytes, offset, length);
+            }
+        };
+    }
+
+    private static byte[] doFinal(Digest digest) {
+        byte[] out = new byte[digest.getDigestSize()];
+        digest.doFinal(out, 0);
+        return out;
+    }
+
+    @Test
+    public void allTargetsReceiveAllData() throws IOException {
+        byte[] data = new byte[100000];
+        new Random(42).nextBytes(data);
+
+        Digest serial256 = new SHA256Digest();
+        Digest serial512 = new SHA512Digest();
+        serial256.update(data, 0, data.length);
+        serial512.update(data, 0, data.length);
+
+        Digest parallel256 = new SHA256Digest();
+        Digest parallel512 = new SHA512Digest();
+        ParallelSignatureHasher hasher = new ParallelSignatureHasher(
+                Arrays.asList(target(parallel256), target(parallel512)), 1000, 3);
+        hasher.update(data[0]);
+        hasher.update(data, 1, 4999);
+        for (int off = 5000; off < data.length; off += 777) {
+            hasher.update(data, off, Math.min(777, data.length - off));
+        }
+        hasher.finish();
+        hasher.finish();
+
+        assertArrayEquals(doFinal(serial256), doFinal(parallel256));
+        assertArrayEquals(doFinal(serial512), doFinal(parallel512));
+        assertThrows(IllegalStateException.class, () -> hasher.update((byte) 0));
+    }
+
+    @Test
+    public void hashersDoNotStarveEachOtherOnSingleThread() throws IOException {
+        byte[] data = new byte[10000];
+        new Random(7).nextBytes(data);
+        Digest expected = new SHA256Digest();
+        expected.update(data, 0, data.length);
+        byte[] expectedHash = doFinal(expected);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Digest[] digests = new Digest[4];
+            for (int i = 0; i < digests.length; i++) {
+                digests[i] = new SHA256Digest();
+            }
+            ParallelSignatureHasher first = new ParallelSignatureHasher(
+                    Arrays.asList(target(digests[0]), target(digests[1])), 16, 2, executor);
+            ParallelSignatureHasher second = new ParallelSignatureHasher(
+                    Arrays.asList(target(digests[2]), target(digests[3])), 16, 2, executor);
+            // An abandoned hasher does not occupy the executor
+            ParallelSignatureHasher abandoned = new ParallelSignatureHasher(
+                    Arrays.asList(target(new SHA256Digest()), target(new SHA256Digest())), 16, 2, executor);
+            abandoned.update(data, 0, 100);
+
+            for (int off = 0; off < data.length; off += 100) {
+                first.update(data, off, 100);
+                second.update(data, off, 100);
+            }
+            first.finish();
+            second.finish();
+
+            for (Digest digest : digests) {
+                assertArrayEquals(expectedHash, doFinal(digest));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void rejectedTasksRunOnCallingThread() throws IOException {
+        byte[] data = new byte[1000];
+        new Random(3).nextBytes(data);
+        Digest expected = new SHA256Digest();
+        expected.update(data, 0, data.length);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        Digest first = new SHA256Digest();
+        Digest second = new SHA256Digest();
+        ParallelSignatureHasher hasher = new ParallelSignatureHasher(
+                Arrays.asList(target(first), target(second)), 64, 2, executor);
+        hasher.update(data, 0, data.length);
+        hasher.finish();
+
+        byte[] expectedHash = doFinal(expected);
+        assertArrayEquals(expectedHash, doFinal(first));
+        assertArrayEquals(expectedHash, doFinal(second));
+    }
+
+    @Test
+    public void targetExceptionIsRethrownOnFinish() throws IOException {
+        List<ParallelSignatureHasher.Target> targets = new ArrayList<>();
+        targets.add(target(new SHA256Digest()));
+        targets.add(new ParallelSignatureHasher.Target() {
+            @Override
+            public void update(byte[] bytes, int offset, int length) {
+                throw new IllegalArgumentException("Boom");
+            }
+        });
+        ParallelSignatureHasher hasher = new ParallelSignatureHasher(targets, 16, 2);
+        hasher.update(new byte[100], 0, 100);
+
+        assertThrows(IllegalArgumentException.class, hasher::finish);
+    }
+
+    @Test
+    public void signAndVerifyWithMultipleKeysInParallel() throws PGPException, IOException {
+        byte[] data = new byte[300000];
+        new Random(1).nextBytes(data);
+
+        ByteArrayOutputStream signed = new ByteArrayOutputStream();
+        EncryptionStream encryptionStream = PGPainless.encryptAndOrSign()
+                .onOutputStream(signed)
+                .withOptions(ProducerOptions.sign(SigningOptions.get()
+                                .addInlineSignature(SecretKeyRingProtector.unprotectedKeys(),
+                                        TestKeys.getJulietSecretKeyRing(), DocumentSignatureType.BINARY_DOCUMENT)
+                                .addInlineSignature(SecretKeyRingProtector.unprotectedKeys(),
+                                        TestKeys.getRomeoSecretKeyRing(), DocumentSignatureType.BINARY_DOCUMENT)
+                                .addDetachedSignature(SecretKeyRingProtector.unprotectedKeys(),
+                                        TestKeys.getEmilSecretKeyRing(), DocumentSignatureType.BINARY_DOCUMENT))
+                        .setParallelHashing(true));
+        encryptionStream.write(data);
+        encryptionStream.close();
+
+        DecryptionStream decryptionStream = PGPainless.decryptAndOrVerify()
+                .onInputStream(new ByteArrayInputStream(signed.toByteArray()))
+                .withOptions(new ConsumerOptions()
+                        .addVerificationCert(TestKeys.getJulietPublicKeyRing())
+                        .addVerificationCert(TestKeys.getRomeoPublicKeyRing())
+                        .addVerificationCert(TestKeys.getEmilPublicKeyRing())
+                        .addVerificationOfDetachedSignatures(new ArrayList<>(
+                                encryptionStream.getResult().getDetachedSignatures().values().iterator().next()))
+                        .setParallelHashing(true));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Streams.pipeAll(decryptionStream, out);
+        decryptionStream.close();
+
+        assertArrayEquals(data, out.toByteArray());
+        OpenPgpMetadata metadata = decryptionStream.getResult();
+        assertEquals(2, metadata.getVerifiedInbandSignatures().size());
+        assertEquals(1, metadata.getVerifiedDetachedSignatures().size());
+        assertTrue(metadata.containsVerifiedSignatureFrom(TestKeys.getEmilPublicKeyRing()));
+    }
+}
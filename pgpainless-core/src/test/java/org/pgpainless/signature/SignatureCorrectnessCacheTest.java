@@ -0,0 +1,187 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.signature;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.Random;
+
+import org.bouncycastle.bcpg.attr.ImageAttribute;
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.openpgp.PGPSignature;
+import org.bouncycastle.openpgp.PGPSignatureGenerator;
+import org.bouncycastle.openpgp.PGPUserAttributeSubpacketVector;
+import org.bouncycastle.openpgp.PGPUserAttributeSubpacketVectorGenerator;
+import org.bouncycastle.openpgp.operator.PGPContentVerifierBuilderProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.HashAlgorithm;
+import org.pgpainless.algorithm.SignatureType;
+import org.pgpainless.exception.SignatureValidationException;
+import org.pgpainless.implementation.BcImplementationFactory;
+import org.pgpainless.implementation.ImplementationFactory;
+import org.pgpainless.key.TestKeys;
+import org.pgpainless.key.info.KeyRingInfo;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.key.protection.UnlockSecretKey;
+import org.pgpainless.signature.consumer.SignatureCorrectnessCache;
+import org.pgpainless.signature.consumer.SignatureValidator;
+
+public class SignatureCorrectnessCacheTest {
+
+    @AfterEach
+    public void resetCache() {
+        PGPainless.getPolicy().setSignatureCorrectnessCache(SignatureCorrectnessCache.disabled());
+        ImplementationFactory.setFactoryImplementation(new BcImplementationFactory());
+    }
+
+    @Test
+    public void repeatedEvaluationReusesVerificationResults() throws IOException {
+        SignatureCorrectnessCache cache = new SignatureCorrectnessCache(100);
+        PGPainless.getPolicy().setSignatureCorrectnessCache(cache);
+        CountingImplementationFactory implementation = new CountingImplementationFactory();
+        ImplementationFactory.setFactoryImplementation(implementation);
+        PGPPublicKeyRing certificate = TestKeys.getEmilPublicKeyRing();
+        Date now = new Date();
+
+        KeyRingInfo first = new KeyRingInfo(certificate, now);
+        assertTrue(first.getValidUserIds().contains(TestKeys.EMIL_UID));
+        int size = cache.size();
+        assertTrue(size > 0);
+        int verifications = implementation.verifications;
+        assertTrue(verifications > 0);
+
+        KeyRingInfo second = new KeyRingInfo(certificate, now);
+        assertEquals(first.getValidUserIds(), second.getValidUserIds());
+        assertEquals(first.getKeyFlagsOf(TestKeys.EMIL_KEY_ID), second.getKeyFlagsOf(TestKeys.EMIL_KEY_ID));
+        assertEquals(first.getPrimaryKeyExpirationDate(), second.getPrimaryKeyExpirationDate());
+        assertEquals(size, cache.size());
+        // No signature was verified again
+        assertEquals(verifications, implementation.verifications);
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void cacheHitSkipsVerification() throws IOException, SignatureValidationException {
+        PGPainless.getPolicy().setSignatureCorrectnessCache(new SignatureCorrectnessCache(100));
+        CountingImplementationFactory implementation = new CountingImplementationFactory();
+        ImplementationFactory.setFactoryImplementation(implementation);
+        PGPPublicKey emil = TestKeys.getEmilPublicKeyRing().getPublicKey();
+        PGPSignature certification = emil.getSignaturesForID(TestKeys.EMIL_UID).next();
+        SignatureValidator validator = SignatureValidator.correctSignatureOverUserId(TestKeys.EMIL_UID, emil, emil);
+
+        validator.verify(certification);
+        assertEquals(1, implementation.verifications);
+        validator.verify(certification);
+        validator.verify(TestKeys.getEmilPublicKeyRing().getPublicKey().getSignaturesForID(TestKeys.EMIL_UID).next());
+        assertEquals(1, implementation.verifications);
+    }
+
+    @Test
+    public void tamperedSignatureOrDifferentKeyMissesCache() throws IOException, PGPException, SignatureValidationException {
+        PGPainless.getPolicy().setSignatureCorrectnessCache(new SignatureCorrectnessCache(100));
+        CountingImplementationFactory implementation = new CountingImplementationFactory();
+        ImplementationFactory.setFactoryImplementation(implementation);
+        PGPPublicKey emil = TestKeys.getEmilPublicKeyRing().getPublicKey();
+        PGPPublicKey juliet = TestKeys.getJulietPublicKeyRing().getPublicKey();
+        PGPSignature certification = emil.getSignaturesForID(TestKeys.EMIL_UID).next();
+        SignatureValidator.correctSignatureOverUserId(TestKeys.EMIL_UID, emil, emil).verify(certification);
+        assertEquals(1, implementation.verifications);
+
+        byte[] encoding = certification.getEncoded();
+        encoding[encoding.length - 1] ^= 0x01;
+        PGPSignature tampered = SignatureUtils.readSignatures(encoding).get(0);
+        assertThrows(SignatureValidationException.class, () ->
+                SignatureValidator.correctSignatureOverUserId(TestKeys.EMIL_UID, emil, emil).verify(tampered));
+        assertEquals(2, implementation.verifications);
+
+        assertThrows(SignatureValidationException.class, () ->
+                SignatureValidator.correctSignatureOverUserId(TestKeys.EMIL_UID, juliet, emil).verify(certification));
+        assertEquals(3, implementation.verifications);
+
+        // Failed verifications are cached as well
+        assertThrows(SignatureValidationException.class, () ->
+                SignatureValidator.correctSignatureOverUserId(TestKeys.EMIL_UID, emil, emil).verify(tampered));
+        assertEquals(3, implementation.verifications);
+    }
+
+    @Test
+    public void userAttributeCertificationsAreCached() throws IOException, PGPException, SignatureValidationException {
+        PGPainless.getPolicy().setSignatureCorrectnessCache(new SignatureCorrectnessCache(100));
+        PGPSecretKeyRing secretKeys = TestKeys.getEmilSecretKeyRing();
+        PGPPublicKey emil = secretKeys.getPublicKey();
+        PGPUserAttributeSubpacketVector userAttributes = imageAttribute();
+        PGPSignatureGenerator generator = new PGPSignatureGenerator(ImplementationFactory.getInstance()
+                .getPGPContentSignerBuilder(emil.getAlgorithm(), HashAlgorithm.SHA512.getAlgorithmId()));
+        generator.init(SignatureType.POSITIVE_CERTIFICATION.getCode(),
+                UnlockSecretKey.unlockSecretKey(secretKeys.getSecretKey(), SecretKeyRingProtector.unprotectedKeys()));
+        PGPSignature certification = generator.generateCertification(userAttributes, emil);
+        CountingImplementationFactory implementation = new CountingImplementationFactory();
+        ImplementationFactory.setFactoryImplementation(implementation);
+
+        SignatureValidator.correctSignatureOverUserAttributes(userAttributes, emil, emil).verify(certification);
+        SignatureValidator.correctSignatureOverUserAttributes(userAttributes, emil, emil).verify(certification);
+        assertEquals(1, implementation.verifications);
+
+        // Same signature over different user-attributes
+        assertThrows(SignatureValidationException.class, () -> SignatureValidator
+                .correctSignatureOverUserAttributes(imageAttribute(), emil, emil).verify(certification));
+        assertEquals(2, implementation.verifications);
+    }
+
+    @Test
+    public void cacheIsBounded() throws IOException {
+        SignatureCorrectnessCache cache = new SignatureCorrectnessCache(1);
+        PGPainless.getPolicy().setSignatureCorrectnessCache(cache);
+
+        new KeyRingInfo(TestKeys.getEmilPublicKeyRing()).getValidUserIds();
+        new KeyRingInfo(TestKeys.getJulietPublicKeyRing()).getValidUserIds();
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void disabledCache() throws IOException {
+        SignatureCorrectnessCache cache = SignatureCorrectnessCache.disabled();
+        PGPainless.getPolicy().setSignatureCorrectnessCache(cache);
+        assertFalse(cache.isEnabled());
+
+        new KeyRingInfo(TestKeys.getEmilPublicKeyRing()).getValidUserIds();
+        assertEquals(0, cache.size());
+        assertThrows(IllegalArgumentException.class, () -> new SignatureCorrectnessCache(-1));
+    }
+
+    private static PGPUserAttributeSubpacketVector imageAttribute() {
+        byte[] image = new byte[512];
+        new Random().nextBytes(image);
+        PGPUserAttributeSubpacketVectorGenerator generator = new PGPUserAttributeSubpacketVectorGenerator();
+        generator.setImageAttribute(ImageAttribute.JPEG, image);
+        return generator.generate();
+    }
+
+    /**
+     * Implementation that counts how often signatures are cryptographically verified.
+     */
+    private static class CountingImplementationFactory extends BcImplementationFactory {
+
+        private int verifications = 0;
+
+        @Override
+        public PGPContentVerifierBuilderProvider getPGPContentVerifierBuilderProvider() {
+            verifications++;
+            return super.getPGPContentVerifierBuilderProvider();
+        }
+    }
+}
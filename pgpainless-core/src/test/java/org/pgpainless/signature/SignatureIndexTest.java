@@ -0,0 +1,70 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.signature;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.List;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.openpgp.PGPSignature;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.SignatureType;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.signature.consumer.SignatureIndex;
+import org.pgpainless.signature.consumer.SignaturePicker;
+import org.pgpainless.signature.subpackets.SelfSignatureSubpackets;
+
+public class SignatureIndexTest {
+
+    private static final String USER_ID = "Alice <alice@pgpainless.org>";
+
+    @Test
+    public void signaturesAreGroupedAndSorted()
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        PGPSecretKeyRing secretKeys = PGPainless.generateKeyRing().modernKeyRing(USER_ID, null);
+        Date creation = secretKeys.getPublicKey().getCreationTime();
+        Date later = new Date(creation.getTime() + 60 * 60 * 1000);
+
+        secretKeys = PGPainless.modifyKeyRing(secretKeys)
+                .addUserId(USER_ID, new SelfSignatureSubpackets.Callback() {
+                    @Override
+                    public void modifyHashedSubpackets(SelfSignatureSubpackets hashedSubpackets) {
+                        hashedSubpackets.setSignatureCreationTime(later);
+                    }
+                }, SecretKeyRingProtector.unprotectedKeys())
+                .done();
+
+        SignatureIndex index = new SignatureIndex(secretKeys);
+        PGPPublicKey primaryKey = secretKeys.getPublicKey();
+        PGPPublicKey subkey = PGPainless.inspectKeyRing(secretKeys).getSigningSubkeys().get(0);
+
+        List<PGPSignature> certifications = index.getUserIdCertifications(USER_ID, primaryKey);
+        assertEquals(2, certifications.size());
+        assertTrue(certifications.get(0).getCreationTime().before(certifications.get(1).getCreationTime()));
+        assertEquals(certifications, index.getUserIdCertifications(USER_ID));
+
+        // Certifications made by the primary key are not attributed to other keys
+        assertTrue(index.getUserIdCertifications(USER_ID, subkey).isEmpty());
+        assertTrue(index.getUserIdSignatures(USER_ID, SignatureType.CERTIFICATION_REVOCATION).isEmpty());
+        assertTrue(index.getUserIdCertifications("Bob <bob@pgpainless.org>").isEmpty());
+
+        assertEquals(1, index.getKeySignatures(subkey, SignatureType.SUBKEY_BINDING).size());
+        assertTrue(index.getKeySignatures(subkey, SignatureType.SUBKEY_REVOCATION).isEmpty());
+
+        assertSame(certifications.get(1), SignaturePicker.pickLatestUserIdCertificationSignature(
+                index, USER_ID, PGPainless.getPolicy(), new Date(later.getTime() + 1000)));
+        assertSame(certifications.get(0), SignaturePicker.pickLatestUserIdCertificationSignature(
+                index, USER_ID, PGPainless.getPolicy(), new Date(later.getTime() - 1000)));
+    }
+}
@@ -0,0 +1,180 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.signature;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.Iterator;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.bouncycastle.openpgp.PGPSignature;
+import org.bouncycastle.openpgp.PGPSignatureGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.algorithm.EncryptionPurpose;
+import org.pgpainless.algorithm.HashAlgorithm;
+import org.pgpainless.algorithm.SignatureType;
+import org.pgpainless.implementation.ImplementationFactory;
+import org.pgpainless.key.KeyRingValidator;
+import org.pgpainless.key.TestKeys;
+import org.pgpainless.key.info.KeyRingInfo;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.key.protection.UnlockSecretKey;
+import org.pgpainless.key.util.KeyRingUtils;
+import org.pgpainless.policy.Policy;
+import org.pgpainless.signature.consumer.CertificateTimeline;
+import org.pgpainless.signature.consumer.ValidationBudget;
+
+public class ValidationBudgetTest {
+
+    @AfterEach
+    public void resetPolicy() {
+        PGPainless.getPolicy().setValidationBudgetPolicy(Policy.ValidationBudgetPolicy.unlimited());
+    }
+
+    @Test
+    public void unlimitedBudgetIsNotExhausted() throws IOException {
+        KeyRingInfo info = new KeyRingInfo(TestKeys.getEmilPublicKeyRing());
+        assertTrue(info.isUserIdValid(TestKeys.EMIL_UID));
+
+        ValidationBudget budget = info.getValidationBudget();
+        assertTrue(budget.getConsumedVerifications() > 0);
+        assertFalse(budget.isExhausted());
+        assertEquals(0, budget.getSkippedSignatures());
+    }
+
+    @Test
+    public void exhaustedBudgetDegradesResult() throws IOException {
+        PGPainless.getPolicy().setValidationBudgetPolicy(new Policy.ValidationBudgetPolicy(10, 1));
+
+        PGPPublicKeyRing certificate = TestKeys.getEmilPublicKeyRing();
+        KeyRingInfo info = new KeyRingInfo(certificate);
+        // user-id certification and subkey binding signature
+        info.getValidUserIds();
+        info.getKeyFlagsOf(subkeyId(certificate));
+
+        ValidationBudget budget = info.getValidationBudget();
+        assertEquals(1, budget.getConsumedVerifications());
+        assertTrue(budget.isExhausted());
+        assertTrue(budget.getSkippedSignatures() > 0);
+    }
+
+    @Test
+    public void timelineConsumesBudget() throws IOException {
+        PGPainless.getPolicy().setValidationBudgetPolicy(new Policy.ValidationBudgetPolicy(10, 1));
+
+        PGPPublicKeyRing certificate = TestKeys.getEmilPublicKeyRing();
+        CertificateTimeline timeline = new CertificateTimeline(certificate, PGPainless.getPolicy());
+        assertTrue(timeline.hasBoundUserId(new Date()));
+        assertFalse(timeline.isSubkeyBound(subkeyId(certificate), new Date()));
+
+        assertEquals(1, timeline.getValidationBudget().getConsumedVerifications());
+        assertTrue(timeline.getValidationBudget().isExhausted());
+    }
+
+    @Test
+    public void resultDoesNotDependOnEvaluationOrder() throws IOException {
+        PGPainless.getPolicy().setValidationBudgetPolicy(new Policy.ValidationBudgetPolicy(10, 1));
+        PGPPublicKeyRing certificate = TestKeys.getEmilPublicKeyRing();
+        long subkeyId = subkeyId(certificate);
+
+        KeyRingInfo userIdFirst = new KeyRingInfo(certificate);
+        boolean userIdValid = userIdFirst.isUserIdValid(TestKeys.EMIL_UID);
+        boolean subkeyBound = userIdFirst.isKeyValidlyBound(subkeyId);
+
+        KeyRingInfo subkeyFirst = new KeyRingInfo(certificate);
+        assertEquals(subkeyBound, subkeyFirst.isKeyValidlyBound(subkeyId));
+        assertEquals(userIdValid, subkeyFirst.isUserIdValid(TestKeys.EMIL_UID));
+        assertEquals(userIdFirst.getValidationBudget().getSkippedSignatures(),
+                subkeyFirst.getValidationBudget().getSkippedSignatures());
+    }
+
+    @Test
+    public void skippedRevocationInvalidatesComponent()
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        PGPSecretKeyRing secretKeys = PGPainless.generateKeyRing().modernKeyRing("Alice <alice@pgpainless.org>", null);
+        KeyRingInfo unrevoked = PGPainless.inspectKeyRing(secretKeys);
+        long signingKeyId = unrevoked.getSigningSubkeys().get(0).getKeyID();
+        long encryptionKeyId = unrevoked.getEncryptionSubkeys(EncryptionPurpose.ANY).get(0).getKeyID();
+        // Two revocations of the signing subkey, but only one revocation per component fits into the budget
+        for (int i = 0; i < 2; i++) {
+            secretKeys = PGPainless.modifyKeyRing(secretKeys)
+                    .revokeSubKey(signingKeyId, SecretKeyRingProtector.unprotectedKeys())
+                    .done();
+        }
+        PGPainless.getPolicy().setValidationBudgetPolicy(new Policy.ValidationBudgetPolicy(1, 100));
+
+        KeyRingInfo info = new KeyRingInfo(secretKeys);
+        assertFalse(info.isKeyValidlyBound(signingKeyId));
+        assertTrue(info.isKeyValidlyBound(encryptionKeyId));
+        assertTrue(info.isUserIdValid("Alice <alice@pgpainless.org>"));
+        assertTrue(info.getValidationBudget().isExhausted());
+
+        CertificateTimeline timeline = new CertificateTimeline(secretKeys, PGPainless.getPolicy());
+        assertFalse(timeline.isSubkeyBound(signingKeyId, new Date()));
+        assertTrue(timeline.isSubkeyBound(encryptionKeyId, new Date()));
+    }
+
+    @Test
+    public void thirdPartyCertificationsAreChargedLast() throws IOException, PGPException {
+        PGPPublicKeyRing certificate = TestKeys.getEmilPublicKeyRing();
+        PGPSecretKeyRing juliet = TestKeys.getJulietSecretKeyRing();
+        PGPSignatureGenerator generator = new PGPSignatureGenerator(ImplementationFactory.getInstance()
+                .getPGPContentSignerBuilder(juliet.getPublicKey().getAlgorithm(), HashAlgorithm.SHA512.getAlgorithmId()));
+        generator.init(SignatureType.GENERIC_CERTIFICATION.getCode(),
+                UnlockSecretKey.unlockSecretKey(juliet.getSecretKey(), SecretKeyRingProtector.unprotectedKeys()));
+        PGPSignature certification = generator.generateCertification(TestKeys.EMIL_UID, certificate.getPublicKey());
+        certificate = KeyRingUtils.injectCertification(certificate, TestKeys.EMIL_UID, certification);
+
+        // Enough budget for the user-id certification and the subkey binding signature, but not for the
+        // third-party certification
+        PGPainless.getPolicy().setValidationBudgetPolicy(new Policy.ValidationBudgetPolicy(10, 2));
+        CertificateTimeline timeline = new CertificateTimeline(certificate, PGPainless.getPolicy());
+        assertTrue(timeline.isUserIdBound(TestKeys.EMIL_UID, new Date()));
+        assertEquals(1, timeline.getValidationBudget().getConsumedVerifications());
+        assertTrue(timeline.isSubkeyBound(subkeyId(certificate), new Date()));
+        assertEquals(1, timeline.getValidationBudget().getSkippedSignatures());
+
+        KeyRingInfo info = new KeyRingInfo(certificate);
+        assertTrue(info.isUserIdValid(TestKeys.EMIL_UID));
+        assertTrue(info.isKeyValidlyBound(subkeyId(certificate)));
+    }
+
+    @Test
+    public void keyRingValidatorConsumesBudget() throws IOException, PGPException {
+        ValidationBudget budget = new ValidationBudget(10, 100);
+        PGPPublicKeyRing validated = KeyRingValidator.validate(
+                TestKeys.getEmilPublicKeyRing(), PGPainless.getPolicy(), new Date(), budget);
+
+        assertTrue(validated.getPublicKey().getUserIDs().hasNext());
+        assertTrue(budget.getConsumedVerifications() > 0);
+        assertFalse(budget.isExhausted());
+    }
+
+    private static long subkeyId(PGPPublicKeyRing certificate) {
+        Iterator<PGPPublicKey> keys = certificate.getPublicKeys();
+        keys.next(); // skip primary key
+        return keys.next().getKeyID();
+    }
+
+    @Test
+    public void invalidLimitsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ValidationBudget(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ValidationBudget(1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new Policy.ValidationBudgetPolicy(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new Policy.ValidationBudgetPolicy(1, 0));
+    }
+}
@@ -0,0 +1,205 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.bouncycastle.bcpg.ArmoredInputStream;
+import org.bouncycastle.bcpg.ArmoredOutputStream;
+import org.bouncycastle.util.encoders.Base64;
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.Test;
+
+public class BulkArmoredInputStreamTest {
+
+    @Test
+    public void decodeDataArmoredByBouncyCastle() throws IOException {
+        Random random = new Random(14);
+        for (int size : new int[] {1, 2, 3, 4, 47, 48, 49, 1000, 100000}) {
+            byte[] data = new byte[size];
+            random.nextBytes(data);
+            byte[] armored = armor(data);
+
+            ArmoredInputStream armorIn = ArmoredInputStreamFactory.get(new ByteArrayInputStream(armored));
+            assertTrue(armorIn instanceof BulkArmoredInputStream);
+            assertArrayEquals(data, Streams.readAll(armorIn));
+
+            // Tiny reads from the underlying stream
+            armorIn = ArmoredInputStreamFactory.get(new TrickleInputStream(new ByteArrayInputStream(armored)));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            int c;
+            while ((c = armorIn.read()) != -1) {
+                out.write(c);
+            }
+            assertArrayEquals(data, out.toByteArray());
+        }
+    }
+
+    @Test
+    public void armorHeaders() throws IOException {
+        String armored = "Some leading text\n" +
+                "-----BEGIN PGP MESSAGE-----\r\n" +
+                "Version: PGPainless\r\n" +
+                "Comment: Grüße\r\n" +
+                "\r\n" +
+                "aGVs\r\n" +
+                "bG8=\r\n" +
+                "=" + crc("hello") + "\r\n" +
+                "-----END PGP MESSAGE-----\r\n";
+        ArmoredInputStream armorIn = ArmoredInputStreamFactory.get(stream(armored));
+
+        assertEquals("-----BEGIN PGP MESSAGE-----", armorIn.getArmorHeaderLine());
+        assertArrayEquals(new String[] {"Version: PGPainless", "Comment: Grüße"}, armorIn.getArmorHeaders());
+        assertFalse(armorIn.isClearText());
+        assertEquals("hello", new String(Streams.readAll(armorIn), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void missingChecksumIsTolerated() throws IOException {
+        String armored = "-----BEGIN PGP MESSAGE-----\n" +
+                "\n" +
+                "aGVsbG8=\n" +
+                "-----END PGP MESSAGE-----\n";
+        ArmoredInputStream armorIn = ArmoredInputStreamFactory.get(stream(armored));
+        assertNull(armorIn.getArmorHeaders());
+        assertEquals("hello", new String(Streams.readAll(armorIn), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void checksumMismatchThrows() throws IOException {
+        byte[] data = new byte[5000];
+        new Random(15).nextBytes(data);
+        String armored = new String(armor(data), StandardCharsets.UTF_8);
+        int crcIndex = armored.indexOf("\n=") + 2;
+        char wrong = armored.charAt(crcIndex) == 'A' ? 'B' : 'A';
+        String corrupted = armored.substring(0, crcIndex) + wrong + armored.substring(crcIndex + 1);
+
+        ArmoredInputStream armorIn = ArmoredInputStreamFactory.get(stream(corrupted));
+        assertThrows(IOException.class, () -> Streams.readAll(armorIn));
+
+        ArmoredInputStream byteWise = ArmoredInputStreamFactory.get(stream(corrupted));
+        assertThrows(IOException.class, () -> {
+            while (byteWise.read() != -1) {
+                // read
+            }
+        });
+    }
+
+    @Test
+    public void corruptedBodyThrows() throws IOException {
+        byte[] data = new byte[5000];
+        new Random(16).nextBytes(data);
+        String armored = new String(armor(data), StandardCharsets.UTF_8);
+        int index = armored.indexOf("\n\n") + 100;
+        char wrong = armored.charAt(index) == 'A' ? 'B' : 'A';
+        String corrupted = armored.substring(0, index) + wrong + armored.substring(index + 1);
+
+        ArmoredInputStream armorIn = ArmoredInputStreamFactory.get(stream(corrupted));
+        assertThrows(IOException.class, () -> Streams.readAll(armorIn));
+    }
+
+    @Test
+    public void incompleteBase64Throws() throws IOException {
+        String armored = "-----BEGIN PGP MESSAGE-----\n" +
+                "\n" +
+                "aGVsbG8\n" +
+                "-----END PGP MESSAGE-----\n";
+        ArmoredInputStream armorIn = ArmoredInputStreamFactory.get(stream(armored));
+        assertThrows(IOException.class, () -> Streams.readAll(armorIn));
+    }
+
+    @Test
+    public void concatenatedBlocksAreReadLikeBouncyCastle() throws IOException {
+        String armored = "-----BEGIN PGP MESSAGE-----\n" +
+                "\n" +
+                "aGVsbG8=\n" +
+                "-----END PGP MESSAGE-----\n" +
+                "-----BEGIN PGP MESSAGE-----\n" +
+                "\n" +
+                "d29ybGQ=\n" +
+                "-----END PGP MESSAGE-----\n";
+        // Single byte reads signal the end of each block
+        ArmoredInputStream armorIn = ArmoredInputStreamFactory.get(stream(armored));
+        assertEquals("hello", readByteWise(armorIn));
+        assertFalse(armorIn.isEndOfStream());
+        assertEquals("world", readByteWise(armorIn));
+        assertEquals(-1, armorIn.read());
+        assertTrue(armorIn.isEndOfStream());
+
+        // Bulk reads only signal the end of a block if no data was read
+        armorIn = ArmoredInputStreamFactory.get(stream(armored));
+        assertEquals("helloworld", new String(Streams.readAll(armorIn), StandardCharsets.UTF_8));
+        assertTrue(armorIn.isEndOfStream());
+    }
+
+    private static String readByteWise(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int c;
+        while ((c = in.read()) != -1) {
+            out.write(c);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void cleartextSignedMessagesAreNotDecodedInBulk() throws IOException {
+        String cleartext = "-----BEGIN PGP SIGNED MESSAGE-----\n" +
+                "Hash: SHA512\n" +
+                "\n" +
+                "Hello\n";
+        ArmoredInputStream armorIn = ArmoredInputStreamFactory.get(stream(cleartext));
+        assertFalse(armorIn instanceof BulkArmoredInputStream);
+        assertTrue(armorIn.isClearText());
+    }
+
+    private static InputStream stream(String string) {
+        return new ByteArrayInputStream(string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] armor(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ArmoredOutputStream armorOut = ArmoredOutputStreamFactory.get(out);
+        armorOut.write(data);
+        armorOut.close();
+        return out.toByteArray();
+    }
+
+    private static String crc(String data) {
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        CRC24 crc = new CRC24();
+        crc.update(bytes, 0, bytes.length);
+        int value = crc.getValue();
+        byte[] crcBytes = new byte[] {(byte) (value >> 16), (byte) (value >> 8), (byte) value};
+        return Base64.toBase64String(crcBytes);
+    }
+
+    /**
+     * Stream which returns at most 3 bytes per read.
+     */
+    private static class TrickleInputStream extends FilterInputStream {
+
+        TrickleInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 3));
+        }
+    }
+}
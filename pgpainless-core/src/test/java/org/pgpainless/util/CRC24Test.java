@@ -0,0 +1,62 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class CRC24Test {
+
+    @Test
+    public void initialValue() {
+        assertEquals(CRC24.INIT, new CRC24().getValue());
+    }
+
+    @Test
+    public void bulkUpdateMatchesBitwiseReference() {
+        Random random = new Random(13);
+        for (int length = 0; length < 100; length++) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+
+            CRC24 bulk = new CRC24();
+            bulk.update(data, 0, data.length);
+
+            CRC24 single = new CRC24();
+            for (byte b : data) {
+                single.update(b);
+            }
+
+            assertEquals(reference(data), bulk.getValue());
+            assertEquals(reference(data), single.getValue());
+        }
+    }
+
+    @Test
+    public void resetRestoresInitialValue() {
+        CRC24 crc = new CRC24();
+        crc.update(new byte[] {1, 2, 3}, 0, 3);
+        crc.reset();
+        assertEquals(CRC24.INIT, crc.getValue());
+    }
+
+    // Implementation from RFC4880 §6.1
+    private static int reference(byte[] data) {
+        int crc = CRC24.INIT;
+        for (byte b : data) {
+            crc ^= (b & 0xff) << 16;
+            for (int i = 0; i < 8; i++) {
+                crc <<= 1;
+                if ((crc & 0x1000000) != 0) {
+                    crc ^= CRC24.POLYNOMIAL;
+                }
+            }
+        }
+        return crc & 0xFFFFFF;
+    }
+}
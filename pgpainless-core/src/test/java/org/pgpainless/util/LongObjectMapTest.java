@@ -0,0 +1,65 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class LongObjectMapTest {
+
+    @Test
+    public void emptyMap() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(0L));
+        assertFalse(map.containsKey(42L));
+    }
+
+    @Test
+    public void putReplacesValue() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        assertNull(map.put(0L, "zero"));
+        assertNull(map.put(-1L, "minus one"));
+        assertEquals("zero", map.put(0L, "null"));
+
+        assertEquals(2, map.size());
+        assertEquals("null", map.get(0L));
+        assertEquals("minus one", map.get(-1L));
+    }
+
+    @Test
+    public void nullValuesAreRejected() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        assertThrows(NullPointerException.class, () -> map.put(1L, null));
+    }
+
+    @Test
+    public void behavesLikeHashMap() {
+        LongObjectMap<Long> map = new LongObjectMap<>();
+        Map<Long, Long> reference = new HashMap<>();
+        Random random = new Random(1234);
+        for (int i = 0; i < 10000; i++) {
+            // Narrow key range to provoke replacements
+            long key = random.nextInt(5000) * 0x100000000L;
+            long value = random.nextLong();
+            assertEquals(reference.put(key, value), map.put(key, value));
+        }
+
+        assertEquals(reference.size(), map.size());
+        for (Map.Entry<Long, Long> entry : reference.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        assertNull(map.get(5000 * 0x100000000L));
+    }
+}
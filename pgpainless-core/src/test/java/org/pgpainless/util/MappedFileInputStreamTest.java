@@ -0,0 +1,87 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.bouncycastle.util.io.Streams;
+import org.junit.jupiter.api.Test;
+
+public class MappedFileInputStreamTest {
+
+    @Test
+    public void readAcrossRegions() throws IOException {
+        byte[] data = new byte[10000];
+        new Random(11).nextBytes(data);
+        File file = write(data);
+
+        MappedFileInputStream in = new MappedFileInputStream(file, 1000);
+        assertEquals(data.length, in.size());
+        assertEquals(data[0] & 0xff, in.read());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(data[0]);
+        Streams.pipeAll(in, out);
+        assertEquals(-1, in.read());
+        in.close();
+
+        assertArrayEquals(data, out.toByteArray());
+    }
+
+    @Test
+    public void markAndResetAcrossRegions() throws IOException {
+        byte[] data = new byte[5000];
+        new Random(12).nextBytes(data);
+        File file = write(data);
+
+        MappedFileInputStream in = new MappedFileInputStream(file, 1024);
+        assertTrue(in.markSupported());
+        assertEquals(100, in.skip(100));
+        in.mark(0);
+        byte[] first = new byte[3000];
+        Streams.readFully(in, first);
+        in.reset();
+        byte[] second = new byte[3000];
+        Streams.readFully(in, second);
+        in.close();
+
+        assertArrayEquals(first, second);
+        for (int i = 0; i < first.length; i++) {
+            assertEquals(data[100 + i], first[i]);
+        }
+    }
+
+    @Test
+    public void emptyFile() throws IOException {
+        MappedFileInputStream in = new MappedFileInputStream(write(new byte[0]));
+        assertEquals(0, in.available());
+        assertEquals(-1, in.read());
+        assertEquals(-1, in.read(new byte[10], 0, 10));
+        in.close();
+    }
+
+    @Test
+    public void readAfterCloseThrows() throws IOException {
+        MappedFileInputStream in = new MappedFileInputStream(write(new byte[] {1}));
+        in.close();
+        assertThrows(IOException.class, in::read);
+    }
+
+    private static File write(byte[] data) throws IOException {
+        File file = new File(TestUtils.createTempDirectory(), "data");
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(data);
+        out.close();
+        return file;
+    }
+}
@@ -0,0 +1,151 @@
+// SPDX-FileCopyrightText: 2022 Paul Schaub <vanitasvitae@fsfe.org>
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.pgpainless.util.selection.keyring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import org.bouncycastle.openpgp.PGPException;
+import org.bouncycastle.openpgp.PGPPublicKeyRing;
+import org.bouncycastle.openpgp.PGPPublicKeyRingCollection;
+import org.bouncycastle.openpgp.PGPSecretKeyRing;
+import org.junit.jupiter.api.Test;
+import org.pgpainless.PGPainless;
+import org.pgpainless.key.OpenPgpFingerprint;
+import org.pgpainless.key.TestKeys;
+import org.pgpainless.key.protection.SecretKeyRingProtector;
+import org.pgpainless.util.MultiMap;
+import org.pgpainless.util.selection.keyring.impl.Email;
+import org.pgpainless.util.selection.keyring.impl.ExactUserId;
+import org.pgpainless.util.selection.keyring.impl.Whitelist;
+import org.pgpainless.util.selection.keyring.impl.Wildcard;
+import org.pgpainless.util.selection.keyring.impl.XMPP;
+
+public class UserIdIndexTest {
+
+    @Test
+    public void lookupByUserIdEmailAndDomain() throws IOException, PGPException {
+        PGPPublicKeyRingCollection collection = new PGPPublicKeyRingCollection(Arrays.asList(
+                TestKeys.getJulietPublicKeyRing(), TestKeys.getEmilPublicKeyRing(), TestKeys.getCryptiePublicKeyRing()));
+        UserIdIndex<PGPPublicKeyRing> index = UserIdIndex.of(collection);
+        assertEquals(3, index.size());
+
+        assertEquals(TestKeys.JULIET_KEY_ID, single(index.getByUserId(TestKeys.JULIET_UID)).getPublicKey().getKeyID());
+        assertTrue(index.getByUserId("juliet@capulet.lit").isEmpty());
+
+        assertEquals(TestKeys.EMIL_KEY_ID, single(index.getByEmail("EMIL@email.user")).getPublicKey().getKeyID());
+        assertEquals(TestKeys.EMIL_KEY_ID, single(index.getByEmail("Emil <emil@email.user>")).getPublicKey().getKeyID());
+        assertEquals(TestKeys.CRYPTIE_KEY_ID, single(index.getByDomain("Encrypted.Key")).getPublicKey().getKeyID());
+        assertEquals(TestKeys.CRYPTIE_KEY_ID, single(index.getByDomain("@encrypted.key")).getPublicKey().getKeyID());
+        assertTrue(index.getByEmail("no email").isEmpty());
+        assertTrue(index.getByDomain("capulet.lit").isEmpty());
+
+        assertEquals(TestKeys.JULIET_KEY_ID, single(index.getByPrimaryKeyId(TestKeys.JULIET_KEY_ID)).getPublicKey().getKeyID());
+        assertEquals(TestKeys.EMIL_KEY_ID, index.get(TestKeys.EMIL_FINGERPRINT).getPublicKey().getKeyID());
+    }
+
+    @Test
+    public void incrementalAddAndRemove() throws IOException {
+        UserIdIndex<PGPPublicKeyRing> index = new UserIdIndex<>();
+        assertTrue(index.isEmpty());
+        PGPPublicKeyRing emil = TestKeys.getEmilPublicKeyRing();
+        index.add(emil);
+        index.add(TestKeys.getJulietPublicKeyRing());
+        assertSame(emil, single(index.getByEmail("emil@email.user")));
+
+        Set<PGPPublicKeyRing> snapshot = index.getByDomain("email.user");
+        assertTrue(index.remove(emil));
+        assertFalse(index.remove(emil));
+        assertTrue(index.getByEmail("emil@email.user").isEmpty());
+        assertTrue(index.getByDomain("email.user").isEmpty());
+        assertTrue(index.getByPrimaryKeyId(TestKeys.EMIL_KEY_ID).isEmpty());
+        assertEquals(1, snapshot.size());
+        assertEquals(1, index.size());
+
+        assertTrue(index.remove(TestKeys.JULIET_FINGERPRINT));
+        assertTrue(index.isEmpty());
+    }
+
+    @Test
+    public void updatedKeyRingReplacesPreviousVersion()
+            throws PGPException, InvalidAlgorithmParameterException, NoSuchAlgorithmException {
+        PGPSecretKeyRing secretKeys = PGPainless.generateKeyRing()
+                .modernKeyRing("Alice <alice@pgpainless.org>", null);
+        PGPSecretKeyRing updated = PGPainless.modifyKeyRing(secretKeys)
+                .addUserId("Alice <alice@example.org>", SecretKeyRingProtector.unprotectedKeys())
+                .done();
+
+        UserIdIndex<PGPSecretKeyRing> index = UserIdIndex.of(Collections.singletonList(secretKeys));
+        assertTrue(index.getByEmail("alice@example.org").isEmpty());
+
+        index.add(updated);
+        assertEquals(1, index.size());
+        assertSame(updated, single(index.getByEmail("alice@pgpainless.org")));
+        assertSame(updated, single(index.getByEmail("alice@example.org")));
+        assertSame(updated, index.get(OpenPgpFingerprint.of(secretKeys)));
+        assertSame(updated, single(index.getByDomain("pgpainless.org")));
+
+        index.remove(updated);
+        assertTrue(index.getByUserId("Alice <alice@pgpainless.org>").isEmpty());
+    }
+
+    @Test
+    public void strategiesSelectFromIndex() throws IOException, PGPException {
+        PGPPublicKeyRingCollection collection = new PGPPublicKeyRingCollection(Arrays.asList(
+                TestKeys.getJulietPublicKeyRing(), TestKeys.getRomeoPublicKeyRing(), TestKeys.getEmilPublicKeyRing()));
+        UserIdIndex<PGPPublicKeyRing> index = UserIdIndex.of(collection);
+
+        assertSameSelection(new ExactUserId.PubRingSelectionStrategy(), TestKeys.ROMEO_UID, collection, index, 1);
+        assertSameSelection(new XMPP.PubRingSelectionStrategy(), "juliet@capulet.lit", collection, index, 1);
+        assertSameSelection(new Email.PubRingSelectionStrategy(), "Emil@Email.User", collection, index, 1);
+        assertSameSelection(new Email.PubRingSelectionStrategy(), "unknown@email.user", collection, index, 0);
+        assertSameSelection(new Wildcard.PubRingSelectionStrategy<>(), "any", collection, index, 3);
+
+        MultiMap<String, Long> whitelist = new MultiMap<>();
+        whitelist.put("friends", TestKeys.JULIET_KEY_ID);
+        whitelist.put("friends", TestKeys.EMIL_KEY_ID);
+        // not part of the collection
+        whitelist.put("friends", TestKeys.CRYPTIE_KEY_ID);
+        Whitelist.PubRingSelectionStrategy<String> strategy = new Whitelist.PubRingSelectionStrategy<>(whitelist);
+        assertSameSelection(strategy, "friends", collection, index, 2);
+        assertSameSelection(strategy, "enemies", collection, index, 0);
+    }
+
+    @Test
+    public void secretKeyStrategiesSelectFromIndex() throws IOException, PGPException {
+        UserIdIndex<PGPSecretKeyRing> index = UserIdIndex.of(Arrays.asList(
+                TestKeys.getJulietSecretKeyRing(), TestKeys.getEmilSecretKeyRing()));
+
+        assertEquals(TestKeys.JULIET_KEY_ID, single(new XMPP.SecRingSelectionStrategy()
+                .selectKeyRingsFromIndex("juliet@capulet.lit", index)).getPublicKey().getKeyID());
+        assertEquals(TestKeys.EMIL_KEY_ID, single(new Email.SecRingSelectionStrategy()
+                .selectKeyRingsFromIndex("emil@email.user", index)).getPublicKey().getKeyID());
+        assertEquals(2, new Wildcard.SecRingSelectionStrategy<String>().selectKeyRingsFromIndex("any", index).size());
+    }
+
+    private static <O> void assertSameSelection(PublicKeyRingSelectionStrategy<O> strategy, O identifier,
+                                                PGPPublicKeyRingCollection collection,
+                                                UserIdIndex<PGPPublicKeyRing> index,
+                                                int expectedSize) {
+        Set<PGPPublicKeyRing> fromCollection = strategy.selectKeyRingsFromCollection(identifier, collection);
+        Set<PGPPublicKeyRing> fromIndex = strategy.selectKeyRingsFromIndex(identifier, index);
+        assertEquals(expectedSize, fromIndex.size());
+        assertEquals(fromCollection, fromIndex);
+    }
+
+    private static <R> R single(Set<R> keyRings) {
+        assertEquals(1, keyRings.size());
+        return keyRings.iterator().next();
+    }
+}
@@ -57,7 +57,7 @@ public class SignImpl implements Sign {
             PGPSecretKeyRingCollection keys = PGPainless.readKeyRing().secretKeyRingCollection(keyIn);
 
             for (PGPSecretKeyRing key : keys) {
-                KeyRingInfo info = new KeyRingInfo(key);
+                KeyRingInfo info = PGPainless.getPolicy().getKeyRingInfoCache().get(key);
                 if (!info.isFullyDecrypted()) {
                     throw new SOPGPException.KeyIsProtected();
                 }